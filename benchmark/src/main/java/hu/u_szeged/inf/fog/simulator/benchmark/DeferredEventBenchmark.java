@@ -0,0 +1,94 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation, aggregation and dispatching of deferred events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeferredEventBenchmark {
+
+    static final int eventsPerBatch = 1000;
+
+    /**
+     * The range of the delays, a small range results in many events that share
+     * their dispatcher.
+     */
+    @Param({"10", "100000"})
+    int delayRange;
+
+    private long[] delays;
+
+    private long fired;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Timed.resetTimed();
+        Random rnd = new Random(42);
+        delays = new long[eventsPerBatch];
+        for (int i = 0; i < eventsPerBatch; i++) {
+            delays[i] = 1 + rnd.nextInt(delayRange);
+        }
+    }
+
+    /**
+     * Schedules a batch of deferred events then simulates until all of them are
+     * dispatched.
+     */
+    @Benchmark
+    @OperationsPerInvocation(eventsPerBatch)
+    public long scheduleAndDispatch() {
+        for (long delay : delays) {
+            new DeferredEvent(delay) {
+                @Override
+                protected void eventAction() {
+                    fired++;
+                }
+            };
+        }
+        Timed.simulateUntilLastEvent();
+        return fired;
+    }
+
+    /**
+     * Schedules a batch of deferred events then cancels all of them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(eventsPerBatch)
+    public long scheduleAndCancel() {
+        DeferredEvent[] events = new DeferredEvent[eventsPerBatch];
+        for (int i = 0; i < eventsPerBatch; i++) {
+            events[i] = new DeferredEvent(delays[i]) {
+                @Override
+                protected void eventAction() {
+                    fired++;
+                }
+            };
+        }
+        for (DeferredEvent event : events) {
+            event.cancel();
+        }
+        return fired;
+    }
+}
@@ -0,0 +1,87 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.EnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.IaaSEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.VectorizedIaaSEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.pmscheduling.AlwaysOnMachines;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.vmscheduling.FirstFitScheduler;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading the energy consumption of a whole data centre, with a meter
+ * object per machine (IaaSEnergyMeter) and with the arrays of a single meter
+ * (VectorizedIaaSEnergyMeter). Both meters run analytical metering sessions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class EnergyMeterBenchmark {
+
+    @Param({"IaaSEnergyMeter", "VectorizedIaaSEnergyMeter"})
+    String meter;
+
+    @Param({"1000", "100000"})
+    int machines;
+
+    private EnergyMeter energyMeter;
+
+    private long now;
+
+    private boolean analytical;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Timed.resetTimed();
+        analytical = EnergyMeter.isAnalytical();
+        EnergyMeter.setAnalytical(true);
+        IaaSService iaas = new IaaSService(FirstFitScheduler.class, AlwaysOnMachines.class);
+        Map<String, Integer> latencies = Infrastructure.newLatencyMap();
+        ArrayList<PhysicalMachine> pms = new ArrayList<>();
+        for (int i = 0; i < machines; i++) {
+            pms.add(Infrastructure.physicalMachine("pm" + i, 8, latencies));
+        }
+        iaas.bulkHostRegistration(pms);
+        Timed.simulateUntilLastEvent();
+        energyMeter = meter.equals("IaaSEnergyMeter") ? new IaaSEnergyMeter(iaas)
+                : new VectorizedIaaSEnergyMeter(iaas);
+        energyMeter.startMeter(60_000, true);
+        now = Timed.getFireCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        energyMeter.stopMeter();
+        EnergyMeter.setAnalytical(analytical);
+    }
+
+    /**
+     * Reads the meter one tick later than the previous reading, so the
+     * consumption since then has to be accounted for all machines.
+     */
+    @Benchmark
+    public double read() {
+        Timed.skipEventsTill(++now);
+        return energyMeter.getTotalConsumption();
+    }
+}
@@ -0,0 +1,55 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Factory methods for the simulated infrastructure the benchmarks work on.
+ */
+final class Infrastructure {
+
+    static final EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions =
+            PowerTransitionGenerator.generateTransitions(20, 200, 300, 10, 20);
+
+    static final String vaId = "benchmark-va";
+
+    private Infrastructure() {
+    }
+
+    /**
+     * Creates a repository that is reachable from all other nodes created with
+     * the same latency map.
+     */
+    static Repository repository(String id, long capacity, long bandwidth, Map<String, Integer> latencies) {
+        latencies.put(id, 5);
+        return new Repository(capacity, id, bandwidth, bandwidth, bandwidth, latencies,
+                transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+    }
+
+    /**
+     * Creates a repository holding the virtual appliance used by the VM related
+     * benchmarks.
+     */
+    static Repository applianceRepository(Map<String, Integer> latencies) {
+        Repository repo = repository("va-store", 1_000_000_000L, 100_000, latencies);
+        repo.registerObject(new VirtualAppliance(vaId, 100, 0, false, 1_000));
+        return repo;
+    }
+
+    static PhysicalMachine physicalMachine(String id, double cores, Map<String, Integer> latencies) {
+        return new PhysicalMachine(cores, 1, (long) cores * 1_000_000_000L,
+                repository(id, 100_000_000_000L, 100_000, latencies), 10, 10,
+                transitions.get(PowerTransitionGenerator.PowerStateKind.host));
+    }
+
+    static Map<String, Integer> newLatencyMap() {
+        return new HashMap<>();
+    }
+}
@@ -0,0 +1,96 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.FreqSyncer;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinConsumer;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinProvider;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the max-min fair resource sharing: a set of providers and consumers
+ * are randomly connected with consumptions, which are then simulated until all
+ * of them complete. Every completion triggers a new frequency update (and
+ * possibly a split) of the influence groups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaxMinFairSpreaderBenchmark {
+
+    @Param({"4", "64"})
+    int spreaders;
+
+    @Param({"16", "512"})
+    int consumptions;
+
+    /**
+     * The number of threads solving the influence groups that result from the
+     * split of a group, see FreqSyncer.setParallelism. Groups firing at the
+     * same time instance are solved one after the other regardless.
+     */
+    @Param({"1", "2", "4"})
+    int parallelism;
+
+    private int[] providerOf;
+    private int[] consumerOf;
+    private double[] sizes;
+    private double[] limits;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FreqSyncer.setParallelism(parallelism);
+        Random rnd = new Random(42);
+        providerOf = new int[consumptions];
+        consumerOf = new int[consumptions];
+        sizes = new double[consumptions];
+        limits = new double[consumptions];
+        for (int i = 0; i < consumptions; i++) {
+            providerOf[i] = rnd.nextInt(spreaders);
+            consumerOf[i] = rnd.nextInt(spreaders);
+            sizes[i] = 1000 + rnd.nextInt(10000);
+            limits[i] = rnd.nextBoolean() ? ResourceConsumption.unlimitedProcessing : 1 + rnd.nextInt(50);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FreqSyncer.setParallelism(1);
+    }
+
+    @Benchmark
+    public long spreadUntilCompletion() {
+        Timed.resetTimed();
+        MaxMinProvider[] providers = new MaxMinProvider[spreaders];
+        MaxMinConsumer[] consumers = new MaxMinConsumer[spreaders];
+        for (int i = 0; i < spreaders; i++) {
+            providers[i] = new MaxMinProvider(10 + i % 10);
+            consumers[i] = new MaxMinConsumer(10 + i % 7);
+        }
+        ConsumptionEventAdapter ignore = new ConsumptionEventAdapter();
+        for (int i = 0; i < consumptions; i++) {
+            new ResourceConsumption(sizes[i], limits[i], consumers[consumerOf[i]], providers[providerOf[i]],
+                    ignore).registerConsumption();
+        }
+        Timed.simulateUntilLastEvent();
+        return Timed.getFireCount();
+    }
+}
@@ -0,0 +1,83 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode.NetworkException;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures network transfers between a set of nodes: the transfers are
+ * initiated and then simulated until all of them arrive.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkNodeBenchmark {
+
+    static final int transfersPerBatch = 200;
+
+    @Param({"2", "32"})
+    int nodeCount;
+
+    private NetworkNode[] nodes;
+
+    private int[] from;
+
+    private int[] to;
+
+    private long[] sizes;
+
+    @Setup(Level.Trial)
+    public void setup() throws NetworkException {
+        Timed.resetTimed();
+        Map<String, Integer> latencies = Infrastructure.newLatencyMap();
+        nodes = new NetworkNode[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Repository repo = Infrastructure.repository("node" + i, 1_000_000_000_000L, 10_000, latencies);
+            repo.setState(NetworkNode.State.RUNNING);
+            nodes[i] = repo;
+        }
+        Random rnd = new Random(42);
+        from = new int[transfersPerBatch];
+        to = new int[transfersPerBatch];
+        sizes = new long[transfersPerBatch];
+        for (int i = 0; i < transfersPerBatch; i++) {
+            from[i] = rnd.nextInt(nodeCount);
+            to[i] = rnd.nextInt(nodeCount);
+            sizes[i] = 10_000 + rnd.nextInt(1_000_000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(transfersPerBatch)
+    public long transfer() throws NetworkException {
+        ConsumptionEventAdapter ignore = new ConsumptionEventAdapter();
+        for (int i = 0; i < transfersPerBatch; i++) {
+            NetworkNode.initTransfer(sizes[i], ResourceConsumption.unlimitedProcessing, nodes[from[i]], nodes[to[i]],
+                    ignore);
+        }
+        Timed.simulateUntilLastEvent();
+        return Timed.getFireCount();
+    }
+}
@@ -0,0 +1,79 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VMManager.VMManagementException;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.ConstantConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.ResourceConstraints;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the resource allocation logic of a running physical machine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicalMachineBenchmark {
+
+    @Param({"8", "128"})
+    int cores;
+
+    private PhysicalMachine pm;
+
+    private ResourceConstraints singleCore;
+
+    private final ArrayList<PhysicalMachine.ResourceAllocation> allocations = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Timed.resetTimed();
+        pm = Infrastructure.physicalMachine("pm", cores, Infrastructure.newLatencyMap());
+        pm.turnon();
+        Timed.simulateUntilLastEvent();
+        singleCore = new ConstantConstraints(1, 1, 1_000_000_000L);
+    }
+
+    /**
+     * A single allocation on an otherwise empty machine, cancelled right away.
+     */
+    @Benchmark
+    public PhysicalMachine.ResourceAllocation allocateAndCancel() throws VMManagementException {
+        PhysicalMachine.ResourceAllocation ra = pm.allocateResources(singleCore, true,
+                PhysicalMachine.defaultAllocLen);
+        ra.cancel();
+        return ra;
+    }
+
+    /**
+     * Allocates single core slices until the machine is full, then releases
+     * them. Later allocations have to check an increasing number of promised
+     * resources.
+     */
+    @Benchmark
+    public int fillAndRelease() throws VMManagementException {
+        PhysicalMachine.ResourceAllocation ra;
+        while ((ra = pm.allocateResources(singleCore, true, PhysicalMachine.defaultAllocLen)) != null) {
+            allocations.add(ra);
+        }
+        int count = allocations.size();
+        allocations.forEach(PhysicalMachine.ResourceAllocation::cancel);
+        allocations.clear();
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the content management of repositories.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"100", "100000"})
+    int objects;
+
+    private Repository repo;
+
+    private String[] queries;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Timed.resetTimed();
+        repo = Infrastructure.repository("repo", Long.MAX_VALUE / 2, 10_000, Infrastructure.newLatencyMap());
+        for (int i = 0; i < objects; i++) {
+            repo.registerObject(new StorageObject("so" + i, 1000, false));
+        }
+        // Every fourth query asks for a missing object
+        Random rnd = new Random(42);
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = (i % 4 == 0 ? "missing" : "so") + rnd.nextInt(objects);
+        }
+    }
+
+    @Benchmark
+    public StorageObject lookup() {
+        return repo.lookup(queries[next++ & (queries.length - 1)]);
+    }
+
+    /**
+     * Registers and then removes an object, as it happens when data is stored
+     * temporarily.
+     */
+    @Benchmark
+    public boolean registerAndDeregister() {
+        StorageObject so = new StorageObject("temporary", 1000, false);
+        repo.registerObject(so);
+        return repo.deregisterObject(so);
+    }
+}
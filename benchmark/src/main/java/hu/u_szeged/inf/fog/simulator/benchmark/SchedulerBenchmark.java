@@ -0,0 +1,81 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.ConstantConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.pmscheduling.AlwaysOnMachines;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.vmscheduling.Scheduler;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the VM schedulers of the IaaS: a batch of VM requests is submitted
+ * to a freshly started cloud and simulated until all VMs are running.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"FirstFitScheduler", "NonQueueingScheduler", "RoundRobinScheduler", "SmallestFirstScheduler"})
+    String scheduler;
+
+    @Param({"64"})
+    int machines;
+
+    @Param({"256"})
+    int vms;
+
+    private IaaSService iaas;
+
+    private Repository vaSource;
+
+    private VirtualAppliance va;
+
+    @Setup(Level.Invocation)
+    public void setup() throws Exception {
+        Timed.resetTimed();
+        @SuppressWarnings("unchecked")
+        Class<? extends Scheduler> schedulerClass = (Class<? extends Scheduler>) Class
+                .forName("hu.mta.sztaki.lpds.cloud.simulator.iaas.vmscheduling." + scheduler);
+        iaas = new IaaSService(schedulerClass, AlwaysOnMachines.class);
+        Map<String, Integer> latencies = Infrastructure.newLatencyMap();
+        ArrayList<PhysicalMachine> pms = new ArrayList<>();
+        for (int i = 0; i < machines; i++) {
+            pms.add(Infrastructure.physicalMachine("pm" + i, 8, latencies));
+        }
+        iaas.bulkHostRegistration(pms);
+        vaSource = Infrastructure.applianceRepository(latencies);
+        iaas.registerRepository(vaSource);
+        va = (VirtualAppliance) vaSource.lookup(Infrastructure.vaId);
+        Timed.simulateUntilLastEvent();
+    }
+
+    @Benchmark
+    public VirtualMachine[] requestAndStart() throws Exception {
+        VirtualMachine[] requested = iaas.requestVM(va, new ConstantConstraints(1, 1, 1_000_000_000L), vaSource,
+                vms);
+        Timed.simulateUntilLastEvent();
+        return requested;
+    }
+}
@@ -0,0 +1,79 @@
+package hu.u_szeged.inf.fog.simulator.benchmark;
+
+import hu.mta.sztaki.lpds.cloud.simulator.CalendarEventQueue;
+import hu.mta.sztaki.lpds.cloud.simulator.PriorityEventQueue;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the event loop of the simulator: how fast can Timed.fire() dispatch
+ * the next batch of events when a given number of periodic events are
+ * subscribed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimedBenchmark {
+
+    @Param({"100", "10000"})
+    int subscribers;
+
+    @Param({"priority", "calendar"})
+    String eventQueue;
+
+    static class Periodic extends Timed {
+        long ticks;
+
+        Periodic(long freq) {
+            subscribe(freq);
+        }
+
+        @Override
+        public void tick(long fires) {
+            ticks++;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Timed.resetTimed();
+        Timed.setEventQueue("calendar".equals(eventQueue) ? new CalendarEventQueue() : new PriorityEventQueue());
+        Random rnd = new Random(42);
+        for (int i = 0; i < subscribers; i++) {
+            new Periodic(1 + rnd.nextInt(1000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Timed.resetTimed();
+        Timed.setEventQueue(new PriorityEventQueue());
+    }
+
+    /**
+     * Advances the simulation to its next event and fires all events due then.
+     */
+    @Benchmark
+    public long fireNextEvents() {
+        Timed.jumpTime(Long.MAX_VALUE);
+        Timed.fire();
+        return Timed.getFireCount();
+    }
+}
@@ -1,16 +1,13 @@
 package hu.u_szeged.inf.fog.simulator.executor.service;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
-import hu.u_szeged.inf.fog.simulator.application.Application;
 import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
 import hu.u_szeged.inf.fog.simulator.executor.dao.SimulatorJobDao;
 import hu.u_szeged.inf.fog.simulator.executor.model.SimulatorJob;
 import hu.u_szeged.inf.fog.simulator.executor.model.filetype.ResultFileType;
 import hu.u_szeged.inf.fog.simulator.executor.util.SimulatorJobFileUtil;
-import hu.u_szeged.inf.fog.simulator.iot.Device;
 import hu.u_szeged.inf.fog.simulator.iot.mobility.MobilityEvent;
-import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
-import hu.u_szeged.inf.fog.simulator.provider.Provider;
 import hu.u_szeged.inf.fog.simulator.util.SimLogger;
 import hu.u_szeged.inf.fog.simulator.util.TimelineVisualiser;
 import hu.u_szeged.inf.fog.simulator.util.xml.ApplianceXmlModel;
@@ -47,30 +44,28 @@ public class SimulatorJobExecutorService {
     public void runSimulationForTheNextAvailableJob() {
         final var startTime = System.nanoTime();
         System.setProperty("org.springframework.boot.logging.java.SimpleFormatter.format","%5$s %n");
-        Optional.ofNullable(simulatorJobDao.retrieveNextAvailableJob()).filter(SimulatorJob::isValid).stream()
-                .peek(this::simulationHousekeeping)
-                .peek(this::loadSimulationData)
-                .peek(job -> SimLogger.setLogging(1, true))
-                .peek(job -> Timed.simulateUntilLastEvent())
-                .peek(job -> this.saveSimulatorResults(job, startTime))
-                .findFirst();
+        Optional.ofNullable(simulatorJobDao.retrieveNextAvailableJob()).filter(SimulatorJob::isValid)
+                .ifPresent(job -> new SimulationContext().run(() -> runSimulation(job, startTime)));
+    }
+
+    /**
+     * Runs a job in the current simulation context, which is expected to be a fresh one,
+     * so the devices, applications, appliances and providers of previous jobs are not visible.
+     */
+    private void runSimulation(@NonNull SimulatorJob simulatorJob, long startTime) {
+        simulationHousekeeping(simulatorJob);
+        loadSimulationData(simulatorJob);
+        SimLogger.setLogging(1, true);
+        Timed.simulateUntilLastEvent();
+        saveSimulatorResults(simulatorJob, startTime);
     }
 
     private void simulationHousekeeping(SimulatorJob simulatorjob) {
         // TODO: other static fields?
-        Timed.resetTimed();
-        Application.allApplications.clear();
-        Device.allDevices.clear();
-        ComputingAppliance.allComputingAppliances.clear();
-
         MobilityEvent.changePositionEventCounter = 0;
         MobilityEvent.changeNodeEventCounter = 0;
         MobilityEvent.connectToNodeEventCounter = 0;
         MobilityEvent.disconnectFromNodeEventCounter = 0;
-
-        for (Provider provider : Provider.allProviders) {
-            provider.cost = 0;
-        }
     }
 
     private void loadSimulationData(@NonNull SimulatorJob simulatorJob) {
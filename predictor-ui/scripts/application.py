@@ -2,7 +2,8 @@ import socket
 import traceback
 import time
 
-from socket_client import SocketClient
+import batch_frame
+from socket_client import SocketClient, BatchRequest
 from socket_message import SocketMessage
 
 from predictor import Predictor
@@ -28,22 +29,36 @@ class Application:
     def loop(self):
         while self._socket.connected:
             request = self._socket.wait_and_get()
+            if isinstance(request, BatchRequest):
+                self._socket.send_frame(self.handle_batch(request))
+                continue
             response = self.handle_message(request)
             if response == "STOP":
                 break
             self._socket.send(response)
 
+    def handle_batch(self, request):
+        entries = []
+        for feature in request.features:
+            prediction = self.predict(feature)
+            entries.append((feature["name"], prediction, None))
+        return batch_frame.encode_predictions(entries)
+
+    def predict(self, feature):
+        prediction = None
+        try:
+            start = time.time()
+            prediction = self._predictor.compute(feature)
+            elapsed_time = time.time() - start
+            if self._min_prediction_time is not None and elapsed_time < self._min_prediction_time:
+                time.sleep(self._min_prediction_time - elapsed_time)
+        except:
+            traceback.print_exc()
+        return prediction
+
     def handle_message(self, message):
         if message.event == "predict-feature":
-            prediction = None
-            try:
-                start = time.time()
-                prediction = self._predictor.compute(message.data["feature"])
-                elapsed_time = time.time() - start
-                if self._min_prediction_time is not None and elapsed_time < self._min_prediction_time:
-                    time.sleep(self._min_prediction_time - elapsed_time)
-            except:
-                traceback.print_exc()
+            prediction = self.predict(message.data["feature"])
 
             response = SocketMessage("prediction-result", {"prediction": prediction})
 
@@ -56,7 +71,7 @@ class Application:
             self._predictor = Predictor(message.data["simulation-settings"])
             return SocketMessage("simulation-settings-response", {"message": None})
         elif message.event == "get-name":
-            return SocketMessage("get-name-response", {"name": APPLICATION_PREDICTOR})
+            return SocketMessage("get-name-response", {"name": APPLICATION_PREDICTOR, "batch": True})
         elif message.event == "stop-connection":
             self._socket.close()
             return "STOP"
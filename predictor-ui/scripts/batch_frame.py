@@ -0,0 +1,76 @@
+import struct
+
+# The binary frames used to predict several features in one round-trip, see BatchFrame.java.
+# All numbers are big-endian, the strings are UTF-8 bytes preceded by their length.
+MAGIC = b"DCFB"
+
+STATUS_OK = 0
+STATUS_ERROR = 1
+
+HAS_FUTURE = 1
+HAS_TEST = 2
+HAS_ERROR_METRICS = 4
+
+
+def decode_features(body):
+    features = []
+    offset = 0
+    count, = struct.unpack_from(">i", body, offset)
+    offset += 4
+    for _ in range(count):
+        name, offset = _read_string(body, offset)
+        length, = struct.unpack_from(">i", body, offset)
+        offset += 4
+        values = list(struct.unpack_from(f">{length}d", body, offset))
+        offset += 8 * length
+        features.append({"name": name, "values": values})
+    return features
+
+
+def encode_predictions(entries):
+    """Each entry is a (feature name, prediction dict or None, error message) tuple."""
+    parts = [struct.pack(">i", len(entries))]
+    for name, prediction, error in entries:
+        parts.append(_string(name))
+        if prediction is None:
+            parts.append(struct.pack(">b", STATUS_ERROR))
+            parts.append(_string(error or "Something went wrong while predicting."))
+            continue
+        flags = 0
+        if "prediction_future" in prediction:
+            flags |= HAS_FUTURE
+        if "prediction_test" in prediction:
+            flags |= HAS_TEST
+        if "error_metrics" in prediction:
+            flags |= HAS_ERROR_METRICS
+        parts.append(struct.pack(">bidb", STATUS_OK, prediction["prediction_number"],
+                                 prediction.get("prediction_time", -1), flags))
+        for key in ("original_data", "preprocessed_data", "test_data_beginning", "test_data_end"):
+            parts.append(_series(prediction[key]))
+        if flags & HAS_FUTURE:
+            parts.append(_series(prediction["prediction_future"]))
+        if flags & HAS_TEST:
+            parts.append(_series(prediction["prediction_test"]))
+        if flags & HAS_ERROR_METRICS:
+            metrics = prediction["error_metrics"]
+            parts.append(struct.pack(">ddd", metrics["RMSE"], metrics["MSE"], metrics["MAE"]))
+    body = b"".join(parts)
+    return MAGIC + struct.pack(">i", len(body)) + body
+
+
+def _series(series):
+    timestamp = [int(t) for t in series["timestamp"]]
+    data = [float(d) for d in series["data"]]
+    length = min(len(timestamp), len(data))
+    return struct.pack(f">i{length}i{length}d", length, *timestamp[:length], *data[:length])
+
+
+def _string(s):
+    encoded = s.encode("utf-8")
+    return struct.pack(">i", len(encoded)) + encoded
+
+
+def _read_string(body, offset):
+    length, = struct.unpack_from(">i", body, offset)
+    offset += 4
+    return body[offset:offset + length].decode("utf-8"), offset + length
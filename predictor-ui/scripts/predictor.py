@@ -4,6 +4,7 @@ from predictor_models.arima_model import ArimaModel
 from predictor_models.holt_winters_model import HoltWintersModel
 from predictor_models.linear_regression_model import LinearRegressionModel
 from predictor_models.lstm_model import LSTMModel
+from predictor_models.moving_average_model import MovingAverageModel
 from predictor_models.random_forest_model import RandomForestModel
 from predictor_models.svr_model import SVRModel
 from app_utils.log import Log
@@ -115,4 +116,7 @@ class Predictor:
         if name == "LINEAR_REGRESSION":
             return LinearRegressionModel(simulation_settings=simulation_settings)
 
+        if name == "MOVING_AVERAGE":
+            return MovingAverageModel(simulation_settings=simulation_settings)
+
         return None
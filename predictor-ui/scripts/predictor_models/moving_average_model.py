@@ -0,0 +1,11 @@
+from .predictor_model import PredictorModel
+
+
+class MovingAverageModel(PredictorModel):
+    def __init__(self, simulation_settings):
+        super().__init__("MOVING_AVERAGE", simulation_settings)
+
+    def predict(self, feature_name, dataframe, prediction_length, is_test_data):
+        window_size = int(self._simulation_settings["predictor"]["hyperparameters"]["window_size"])
+        values = dataframe["data"].values.tolist()[-window_size:]
+        return [sum(values) / len(values)] * prediction_length
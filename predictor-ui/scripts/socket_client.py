@@ -1,5 +1,8 @@
 from socket import socket
 import json
+import struct
+
+import batch_frame
 
 from socket_message import SocketMessage
 from app_utils.consts import APPLICATION_FEATURE_HANDLER, APPLICATION_PREDICTOR
@@ -31,23 +34,72 @@ class SocketClient:
             self._socket.close()
             self._socket = None
 
-    def wait_and_get(self) -> SocketMessage:
+    def wait_and_get(self):
+        """Returns with the next SocketMessage, or with a BatchRequest if a binary frame has arrived."""
         if self._connected is False:
             return
 
-        response_message_size = json.loads(self._socket.recv(1024).decode())
-        message_size = response_message_size["data"]["size"]
+        head = self._recv_exact(4)
+        if head == batch_frame.MAGIC:
+            length, = struct.unpack(">i", self._recv_exact(4))
+            features = batch_frame.decode_features(self._recv_exact(length))
+            Log.warning(f"[SOCKET-IN ] E: batch ({len(features)} features)")
+            return BatchRequest(features)
+
+        # the size message is not terminated, and the simulator waits for the ACK before sending anything else
+        size_message = self._recv_json(head)
+        message_size = size_message["data"]["size"]
 
         self._socket.send(self.create_message(SocketMessage("data-size-response", {"message": "ACK"})))
 
-        chunks = ''
-        while len(chunks) < message_size:
-            chunks += self._socket.recv(1024).decode()
-        response = json.loads(chunks)
+        response = json.loads(self._recv_exact(message_size).decode())
 
         Log.warning(f"[SOCKET-IN ] E: {response['event']}")
         return SocketMessage(response["event"], response["data"])
 
+    def send_frame(self, frame):
+        if self._connected is False:
+            return
+
+        Log.warning(f"[SOCKET-OUT] E: frame ({len(frame)} bytes)")
+        self._socket.sendall(frame)
+
+    def _recv_exact(self, size):
+        data = b""
+        while len(data) < size:
+            chunk = self._socket.recv(size - len(data))
+            if not chunk:
+                raise ConnectionError("Connection closed by the server.")
+            data += chunk
+        return data
+
+    def _recv_json(self, data):
+        """Reads a JSON object starting with the given bytes until its braces are balanced."""
+        depth, in_string, escaped, i = 0, False, False, 0
+        while True:
+            while i < len(data):
+                c = data[i]
+                i += 1
+                if in_string:
+                    if escaped:
+                        escaped = False
+                    elif c == ord("\\"):
+                        escaped = True
+                    elif c == ord('"'):
+                        in_string = False
+                elif c == ord('"'):
+                    in_string = True
+                elif c == ord("{"):
+                    depth += 1
+                elif c == ord("}"):
+                    depth -= 1
+                    if depth == 0:
+                        return json.loads(data[:i].decode())
+            chunk = self._socket.recv(1024)
+            if not chunk:
+                raise ConnectionError("Connection closed by the server.")
+            data += chunk
+
     def send(self, message: SocketMessage) -> SocketMessage:
         if self._connected is False:
             return
@@ -62,3 +114,9 @@ class SocketClient:
     @property
     def connected(self):
         return self._connected
+
+
+class BatchRequest:
+
+    def __init__(self, features):
+        self.features = features
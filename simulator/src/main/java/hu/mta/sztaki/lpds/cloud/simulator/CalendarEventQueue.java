@@ -0,0 +1,509 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+/**
+ * A calendar queue based event queue (see R. Brown: Calendar queues: a fast
+ * O(1) priority queue implementation for the simulation event set problem,
+ * 1988).
+ * 
+ * Timed objects sharing the same next event are grouped into a single time
+ * slot, the slots are then distributed amongst buckets each covering a
+ * "day" of the calendar. The number of buckets and the width of the days
+ * are adjusted as the number of distinct time instances changes. Insertion,
+ * the removal of arbitrary timed objects and the lookup of the next event all
+ * happen in amortized constant time. This makes the queue suitable for
+ * simulations with a large number of subscribed objects (e.g., hundreds of
+ * thousands of sensors).
+ * 
+ * The worst case of a single lookup of the next event is when the next
+ * event is further away than a year of the calendar (e.g., after a far
+ * future event or with exponentially spaced time instances). Then a direct
+ * search is done over all buckets, and the calendar is rebuilt, both linear
+ * in the number of distinct time instances queued. After a rebuild, a year
+ * covers at least the distance between the earliest and the median time
+ * instance, thus the next such lookup can only happen after about half of
+ * the time instances were dequeued. So the worst case is amortized over
+ * these dequeues.
+ * 
+ * Events are delivered in the order mandated by EventQueue: by their next
+ * event and then by their back preference. Within these groups the objects
+ * are delivered in the order they were queued.
+ */
+public class CalendarEventQueue extends EventQueue {
+	/**
+	 * The calendar never shrinks below this number of buckets
+	 */
+	private static final int MIN_BUCKETS = 16;
+
+	/**
+	 * The intrusive list node stored with every timed object that has been
+	 * queued here (via EventQueue.setQueueData)
+	 */
+	private static final class Node {
+		/**
+		 * The timed object represented by this node
+		 */
+		private final Timed owner;
+		/**
+		 * Neighbouring nodes in the slot's list
+		 */
+		private Node prev, next;
+		/**
+		 * The slot the node is queued in, <i>null</i> if the node is not queued
+		 */
+		private Slot slot;
+		/**
+		 * The back preference of the owner at the time of queueing
+		 */
+		private boolean back;
+
+		private Node(final Timed owner) {
+			this.owner = owner;
+		}
+	}
+
+	/**
+	 * Collects all timed objects that are due on the same time instance.
+	 * Non back preferred objects are kept separately from back preferred ones
+	 * so the tie breaking rule can be applied without searching.
+	 */
+	private static final class Slot {
+		/**
+		 * The time instance this slot represents
+		 */
+		private long time;
+		/**
+		 * Neighbouring slots in the bucket (the bucket is ordered by time)
+		 */
+		private Slot prev, next;
+		/**
+		 * The FIFO lists of the non back preferred nodes
+		 */
+		private Node frontHead, frontTail;
+		/**
+		 * The FIFO lists of the back preferred nodes
+		 */
+		private Node backHead, backTail;
+
+		private boolean isEmpty() {
+			return frontHead == null && backHead == null;
+		}
+	}
+
+	/**
+	 * Allows the constant time lookup of the slot belonging to a particular time
+	 * instance
+	 */
+	private final LongObjectHashMap<Slot> slotIndex = new LongObjectHashMap<>();
+	/**
+	 * The days of the calendar, the length of the array is always a power of 2
+	 */
+	private Slot[] buckets = new Slot[MIN_BUCKETS];
+	/**
+	 * The number of ticks a single day (bucket) of the calendar covers
+	 */
+	private long width = 1;
+	/**
+	 * The slot with the earliest time instance, or <i>null</i> if it is not yet
+	 * determined
+	 */
+	private Slot earliest;
+	/**
+	 * No slot has its time instance before this one. The search for the
+	 * earliest slot starts from here.
+	 */
+	private long cursor = 0;
+	/**
+	 * The number of queued timed objects
+	 */
+	private int size = 0;
+	/**
+	 * Slots no longer in use, kept for later reuse so a steady state simulation
+	 * does not allocate new slots
+	 */
+	private Slot spareSlots;
+	/**
+	 * Working area for the day width estimation
+	 */
+	private long[] sample = new long[0];
+
+	@Override
+	public void offer(final Timed t) {
+		final long time = t.getNextEvent();
+		Node n = getNode(t);
+		Slot s = slotIndex.get(time);
+		if (s == null) {
+			s = spareSlots;
+			if (s == null) {
+				s = new Slot();
+			} else {
+				spareSlots = s.next;
+				s.next = null;
+			}
+			s.time = time;
+			slotIndex.put(time, s);
+			linkSlot(s);
+			if (time < cursor) {
+				cursor = time;
+			}
+			if (earliest != null && time < earliest.time) {
+				earliest = s;
+			}
+			if (slotIndex.size() > 2 * buckets.length) {
+				resize(buckets.length * 2);
+			}
+		}
+		n.slot = s;
+		n.back = isBackPreferred(t);
+		n.next = null;
+		if (n.back) {
+			n.prev = s.backTail;
+			if (s.backTail == null) {
+				s.backHead = n;
+			} else {
+				s.backTail.next = n;
+			}
+			s.backTail = n;
+		} else {
+			n.prev = s.frontTail;
+			if (s.frontTail == null) {
+				s.frontHead = n;
+			} else {
+				s.frontTail.next = n;
+			}
+			s.frontTail = n;
+		}
+		size++;
+	}
+
+	@Override
+	public boolean remove(final Timed t) {
+		final Object data = getQueueData(t);
+		if (data instanceof Node) {
+			final Node n = (Node) data;
+			if (n.slot != null && slotIndex.get(n.slot.time) == n.slot) {
+				unlinkNode(n);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Timed peek() {
+		final Slot s = findEarliest();
+		return s == null ? null : (s.frontHead == null ? s.backHead : s.frontHead).owner;
+	}
+
+	@Override
+	public Timed poll() {
+		final Slot s = findEarliest();
+		if (s == null) {
+			return null;
+		}
+		final Node n = s.frontHead == null ? s.backHead : s.frontHead;
+		unlinkNode(n);
+		return n.owner;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		for (Slot s : buckets) {
+			for (; s != null; s = s.next) {
+				releaseNodes(s.frontHead);
+				releaseNodes(s.backHead);
+			}
+		}
+		buckets = new Slot[MIN_BUCKETS];
+		slotIndex.clear();
+		spareSlots = null;
+		earliest = null;
+		width = 1;
+		cursor = 0;
+		size = 0;
+	}
+
+	/**
+	 * Marks all nodes of a list as not queued
+	 * 
+	 * @param n the head of the list
+	 */
+	private static void releaseNodes(Node n) {
+		while (n != null) {
+			final Node next = n.next;
+			n.slot = null;
+			n.prev = n.next = null;
+			n = next;
+		}
+	}
+
+	/**
+	 * Retrieves (or creates if necessary) the node of a particular timed object
+	 * 
+	 * @param t the timed object in question
+	 * @return the node that can represent the object in this queue
+	 */
+	private static Node getNode(final Timed t) {
+		final Object data = getQueueData(t);
+		if (data instanceof Node) {
+			return (Node) data;
+		}
+		final Node n = new Node(t);
+		setQueueData(t, n);
+		return n;
+	}
+
+	/**
+	 * Determines which day of the calendar holds a particular time instance
+	 * 
+	 * @param time the time instance in question
+	 * @return the index of the bucket
+	 */
+	private int bucketOf(final long time) {
+		return (int) ((time / width) & (buckets.length - 1));
+	}
+
+	/**
+	 * Places a slot in its bucket, keeping the bucket's time ordering
+	 * 
+	 * @param s the slot to be placed
+	 */
+	private void linkSlot(final Slot s) {
+		final int b = bucketOf(s.time);
+		Slot prev = null;
+		Slot curr = buckets[b];
+		while (curr != null && curr.time < s.time) {
+			prev = curr;
+			curr = curr.next;
+		}
+		s.prev = prev;
+		s.next = curr;
+		if (prev == null) {
+			buckets[b] = s;
+		} else {
+			prev.next = s;
+		}
+		if (curr != null) {
+			curr.prev = s;
+		}
+	}
+
+	/**
+	 * Removes a slot from its bucket
+	 * 
+	 * @param s the slot to be removed
+	 */
+	private void unlinkSlot(final Slot s) {
+		if (s.prev == null) {
+			buckets[bucketOf(s.time)] = s.next;
+		} else {
+			s.prev.next = s.next;
+		}
+		if (s.next != null) {
+			s.next.prev = s.prev;
+		}
+		s.prev = s.next = null;
+	}
+
+	/**
+	 * Removes a node from its slot, and if the slot becomes empty then the slot
+	 * is removed from the calendar as well.
+	 * 
+	 * @param n the node to be removed
+	 */
+	private void unlinkNode(final Node n) {
+		final Slot s = n.slot;
+		if (n.prev == null) {
+			if (n.back) {
+				s.backHead = n.next;
+			} else {
+				s.frontHead = n.next;
+			}
+		} else {
+			n.prev.next = n.next;
+		}
+		if (n.next == null) {
+			if (n.back) {
+				s.backTail = n.prev;
+			} else {
+				s.frontTail = n.prev;
+			}
+		} else {
+			n.next.prev = n.prev;
+		}
+		n.prev = n.next = null;
+		n.slot = null;
+		size--;
+		if (s.isEmpty()) {
+			unlinkSlot(s);
+			slotIndex.remove(s.time);
+			if (earliest == s) {
+				earliest = null;
+			}
+			s.next = spareSlots;
+			spareSlots = s;
+			if (buckets.length > MIN_BUCKETS && slotIndex.size() < buckets.length / 2) {
+				resize(buckets.length / 2);
+			}
+		}
+	}
+
+	/**
+	 * Determines the slot with the earliest time instance. The search starts at
+	 * the cursor and walks through at most one year of the calendar. As the
+	 * walk visits every bucket once, it also tracks the earliest bucket head:
+	 * if no slot is found for the walked days, then this head is the earliest
+	 * slot (the direct search), and the width of the days is re-estimated.
+	 * 
+	 * @return the earliest slot or <i>null</i> if there are no events queued
+	 */
+	private Slot findEarliest() {
+		if (earliest != null || size == 0) {
+			return earliest;
+		}
+		final int mask = buckets.length - 1;
+		long day = cursor / width;
+		Slot best = null;
+		for (int i = 0; i < buckets.length; i++, day++) {
+			final Slot head = buckets[(int) (day & mask)];
+			if (head != null) {
+				if (head.time / width == day) {
+					earliest = head;
+					cursor = head.time;
+					return head;
+				}
+				if (best == null || head.time < best.time) {
+					best = head;
+				}
+			}
+		}
+		earliest = best;
+		cursor = best.time;
+		// The days are too short for the current event distribution
+		resize(buckets.length);
+		return best;
+	}
+
+	/**
+	 * Rebuilds the calendar with a new number of buckets. The width of the days
+	 * is re-estimated from the average distance of the earlier half of the
+	 * queued time instances, so far future events do not distort the calendar.
+	 * 
+	 * @param newBucketCount the new number of buckets (a power of 2)
+	 */
+	private void resize(final int newBucketCount) {
+		final int count = slotIndex.size();
+		if (sample.length < count) {
+			sample = new long[Math.max(count, 2 * sample.length)];
+		}
+		Slot all = null;
+		int i = 0;
+		for (Slot s : buckets) {
+			while (s != null) {
+				final Slot next = s.next;
+				sample[i++] = s.time;
+				s.next = all;
+				all = s;
+				s = next;
+			}
+		}
+		if (count > 1) {
+			long min = sample[0];
+			for (int j = 1; j < count; j++) {
+				min = Math.min(min, sample[j]);
+			}
+			final int k = count / 2;
+			final long gap = (select(sample, count, k) - min) / k;
+			width = gap == 0 ? 1 : gap > Long.MAX_VALUE / 3 ? gap : 3 * gap;
+		}
+		buckets = new Slot[newBucketCount];
+		while (all != null) {
+			final Slot next = all.next;
+			linkSlot(all);
+			all = next;
+		}
+	}
+
+	/**
+	 * Finds the k-th smallest value in the first few items of an array
+	 * (Hoare's selection in expected linear time). The array is reordered.
+	 * 
+	 * @param a     the array to select from
+	 * @param count the number of items to consider from the array
+	 * @param k     the rank of the value to be found (0 based)
+	 * @return the k-th smallest value
+	 */
+	private static long select(final long[] a, final int count, final int k) {
+		int lo = 0;
+		int hi = count - 1;
+		while (lo < hi) {
+			final long pivot = a[(lo + hi) >>> 1];
+			int l = lo;
+			int h = hi;
+			while (l <= h) {
+				while (a[l] < pivot) {
+					l++;
+				}
+				while (a[h] > pivot) {
+					h--;
+				}
+				if (l <= h) {
+					final long tmp = a[l];
+					a[l++] = a[h];
+					a[h--] = tmp;
+				}
+			}
+			if (k <= h) {
+				hi = h;
+			} else if (k >= l) {
+				lo = l;
+			} else {
+				return a[k];
+			}
+		}
+		return a[k];
+	}
+
+	/**
+	 * Lists the internal state of the calendar for debugging purposes
+	 */
+	@Override
+	public String toString() {
+		return "CalendarEventQueue(size: " + size + " slots: " + slotIndex.size() + " buckets: " + buckets.length
+				+ " width: " + width + ")";
+	}
+}
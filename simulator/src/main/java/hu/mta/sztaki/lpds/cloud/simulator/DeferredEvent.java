@@ -26,8 +26,6 @@
 
 package hu.mta.sztaki.lpds.cloud.simulator;
 
-import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
-
 import java.util.ArrayList;
 
 /**
@@ -48,16 +46,6 @@ import java.util.ArrayList;
  */
 public abstract class DeferredEvent {
 
-	/**
-	 * All deferred events that are due in the future are listed here.
-	 * 
-	 * The map is indexed by expected event arrivals. The stored objects in the map
-	 * are MutablePairs where the left item of the pair is the length of the right
-	 * item (which is actually the list of events that should be delivered at the
-	 * particular time instance identified by the key of the map).
-	 */
-	private static final LongObjectHashMap<AggregatedEventDispatcher> dispatchers = new LongObjectHashMap<>();
-
 	/**
 	 * handles the event aggregations, actual subscriptions to timed events and
 	 * dispatches the events if Timed notifies for time instance at which the
@@ -70,7 +58,7 @@ public abstract class DeferredEvent {
 	 *         MTA SZTAKI (c) 2015"
 	 *
 	 */
-	private static class AggregatedEventDispatcher extends Timed {
+	static class AggregatedEventDispatcher extends Timed {
 		private final ArrayList<DeferredEvent> simultaneouslyOccurringDEs = new ArrayList<>();
 		private final long myEv;
 
@@ -114,7 +102,7 @@ public abstract class DeferredEvent {
 		}
 		
 		private void terminate() {
-			dispatchers.remove(myEv);
+			context.dispatchers.remove(myEv);
 			unsubscribe();
 		}
 				
@@ -132,6 +120,12 @@ public abstract class DeferredEvent {
 	 * The time instance at which this event should be delivered
 	 */
 	private final long eventArrival;
+	/**
+	 * The simulation in which this event should be delivered. Its dispatcher map
+	 * lists all deferred events that are due in the future, indexed by their
+	 * expected arrivals.
+	 */
+	private final SimulationContext context = SimulationContext.current();
 
 	/**
 	 * Allows constructing objects that will receive an eventAction() call from
@@ -149,10 +143,10 @@ public abstract class DeferredEvent {
 			return;
 		}
 		eventArrival = Timed.calcTimeJump(delay);
-		AggregatedEventDispatcher aed=dispatchers.get(eventArrival);
+		AggregatedEventDispatcher aed=context.dispatchers.get(eventArrival);
 		if(aed==null) {
 			aed=new AggregatedEventDispatcher(eventArrival);
-			dispatchers.put(eventArrival,aed);
+			context.dispatchers.put(eventArrival,aed);
 		}
 		aed.simultaneouslyOccurringDEs.add(this);
 	}
@@ -169,7 +163,7 @@ public abstract class DeferredEvent {
 		if (received)
 			return;
 		if (!cancelled) {
-			dispatchers.get(eventArrival).remove(this);
+			context.dispatchers.get(eventArrival).remove(this);
 		}
 	}
 
@@ -192,13 +186,4 @@ public abstract class DeferredEvent {
 	 * handling mechanism of yours.
 	 */
 	protected abstract void eventAction();
-
-	/**
-	 * Allows the cleanup of all events registered with the aggregator.
-	 * 
-	 * WARNING: This is not supposed to be called by user code directly.
-	 */
-	static void reset() {
-		dispatchers.clear();
-	}
 }
@@ -0,0 +1,126 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator;
+
+/**
+ * The container of all subscribed timed objects. Timed relies on this class to
+ * find out which object should receive its tick() call next.
+ * 
+ * Implementations must order the timed objects by their next event. If two
+ * objects have their next events on the same time instance, then the ones
+ * without back preference must come first. The order amongst the objects with
+ * the same next event and the same back preference is not fixed.
+ * 
+ * Implementations are allowed to assume that the next event and the back
+ * preference of a timed object does not change while it is queued (Timed
+ * always removes the object before altering these).
+ * 
+ * @see Timed#setEventQueue(EventQueue)
+ */
+public abstract class EventQueue {
+
+	/**
+	 * Registers a new timed object in the queue.
+	 * 
+	 * @param t the object to be queued, it must not be queued already
+	 */
+	public abstract void offer(Timed t);
+
+	/**
+	 * Removes an arbitrary timed object from the queue.
+	 * 
+	 * @param t the object to be removed
+	 * @return <i>true</i> if the object was in the queue before the call
+	 */
+	public abstract boolean remove(Timed t);
+
+	/**
+	 * Determines the timed object that should be notified next.
+	 * 
+	 * @return the head of the queue or <i>null</i> if the queue is empty
+	 */
+	public abstract Timed peek();
+
+	/**
+	 * Removes the head of the queue.
+	 * 
+	 * @return the former head of the queue or <i>null</i> if the queue was empty
+	 */
+	public abstract Timed poll();
+
+	/**
+	 * Determines the number of timed objects queued.
+	 * 
+	 * @return the number of queued objects
+	 */
+	public abstract int size();
+
+	/**
+	 * Drops all queued objects.
+	 */
+	public abstract void clear();
+
+	/**
+	 * Checks if there are any objects queued.
+	 * 
+	 * @return <i>true</i> if nothing is queued
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Allows implementations to learn the tie breaking rule of a timed object.
+	 * 
+	 * @param t the object in question
+	 * @return <i>true</i> if the object should be notified after the non back
+	 *         preferred ones on the same time instance
+	 */
+	protected static boolean isBackPreferred(final Timed t) {
+		return t.isBackPreferred();
+	}
+
+	/**
+	 * Offers a per timed object storage for the queue implementations (e.g., for
+	 * intrusive list nodes). Only the queue that the object is currently
+	 * registered with should use this storage.
+	 * 
+	 * @param t the object in question
+	 * @return the queue specific data last stored with the object (could be
+	 *         <i>null</i> or the data of a previously used queue implementation)
+	 */
+	protected static Object getQueueData(final Timed t) {
+		return t.queueData;
+	}
+
+	/**
+	 * Stores some queue specific data with a timed object
+	 * 
+	 * @param t    the object in question
+	 * @param data the data to be stored with the object
+	 */
+	protected static void setQueueData(final Timed t, final Object data) {
+		t.queueData = data;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator;
+
+import java.util.PriorityQueue;
+
+/**
+ * The binary heap based event queue. This is the default queue used by Timed.
+ * 
+ * Insertion and head removal costs O(log n), while removing an arbitrary timed
+ * object costs O(n). The order of events happening at the same time instance
+ * (and having the same back preference) is determined by the heap's internal
+ * layout.
+ */
+public class PriorityEventQueue extends EventQueue {
+	/**
+	 * The actual heap holding the timed objects (ordered by Timed.compareTo)
+	 */
+	private final PriorityQueue<Timed> heap = new PriorityQueue<>();
+
+	@Override
+	public void offer(final Timed t) {
+		heap.offer(t);
+	}
+
+	@Override
+	public boolean remove(final Timed t) {
+		return heap.remove(t);
+	}
+
+	@Override
+	public Timed peek() {
+		return heap.peek();
+	}
+
+	@Override
+	public Timed poll() {
+		return heap.poll();
+	}
+
+	@Override
+	public int size() {
+		return heap.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return heap.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		heap.clear();
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+
+/**
+ * Holds the complete state of a single simulation: its time, its event queue,
+ * its deferred events, its random generator and any other simulation wide
+ * state registered via keys (e.g., the lists of all devices or applications in
+ * the fog layer).
+ * 
+ * There is always a default context which is used by all threads that did not
+ * enter another one. Thus simulations not caring about contexts behave just
+ * like before. If several independent simulations are needed in the same JVM,
+ * then each one should get its own context and should be run with
+ * {@link #run(Runnable)} (e.g., on separate threads). The objects of a
+ * simulation (Timed objects, deferred events, etc.) are bound to the context
+ * that was in effect when they were created.
+ * 
+ * <i>WARNING:</i> a context is not thread safe, a single context should only
+ * be used by a single thread at a time.
+ */
+public class SimulationContext {
+	/**
+	 * Identifies a piece of simulation wide state. Every context will hold its
+	 * own value for the key, which is created on its first use within the
+	 * context.
+	 *
+	 * @param <T> the type of the state stored under the key
+	 */
+	public static final class Key<T> {
+		/**
+		 * The location of the key's value in the contexts
+		 */
+		private final int index = keyCounter.getAndIncrement();
+		/**
+		 * Creates the value of the key for contexts that did not use the key before
+		 */
+		private final Supplier<? extends T> initialValue;
+
+		/**
+		 * Creates a new key, these are expected to be stored in static final fields.
+		 * 
+		 * @param initialValue the factory for the initial value of the key in every
+		 *                     context
+		 */
+		public Key(final Supplier<? extends T> initialValue) {
+			this.initialValue = initialValue;
+		}
+	}
+
+	/**
+	 * The number of keys created so far
+	 */
+	private static final AtomicInteger keyCounter = new AtomicInteger();
+	/**
+	 * The context used by all threads not entering other contexts
+	 */
+	private static final SimulationContext defaultContext = new SimulationContext();
+	/**
+	 * The context currently in effect for a particular thread
+	 */
+	private static final ThreadLocal<SimulationContext> bound = ThreadLocal.withInitial(() -> defaultContext);
+	/**
+	 * Becomes true once a non default context is entered. Until then there is no
+	 * need to check the thread's context, allowing single simulation runs to use
+	 * the default context without any overhead.
+	 */
+	private static volatile boolean multiContext = false;
+
+	/**
+	 * The container of all subscribed timed objects of this simulation.
+	 * 
+	 * The implementation used by default can be selected by the system property
+	 * "hu.mta.sztaki.lpds.cloud.simulator.Timed.eventQueue". If the property is
+	 * "calendar" then the CalendarEventQueue is used, otherwise the
+	 * PriorityEventQueue.
+	 */
+	EventQueue eventQueue = "calendar"
+			.equals(System.getProperty("hu.mta.sztaki.lpds.cloud.simulator.Timed.eventQueue"))
+					? new CalendarEventQueue()
+					: new PriorityEventQueue();
+	/**
+	 * The actual time in the simulation. This is maintained in ticks!
+	 */
+	long fireCounter = 0;
+	/**
+	 * All deferred events that are due in the future, indexed by their expected
+	 * arrival.
+	 */
+	final LongObjectHashMap<DeferredEvent.AggregatedEventDispatcher> dispatchers = new LongObjectHashMap<>();
+	/**
+	 * The random generator behind SeedSyncer.centralRnd for this simulation
+	 */
+	private final Random random = new Random(SeedSyncer.seed);
+	/**
+	 * The source of simulation specific object identifiers
+	 */
+	private int idCounter = 0;
+	/**
+	 * The values of the keys used in this context (indexed by Key.index)
+	 */
+	private Object[] values = new Object[0];
+
+	/**
+	 * Determines the context in effect for the calling thread.
+	 * 
+	 * @return the current context
+	 */
+	public static SimulationContext current() {
+		return multiContext ? bound.get() : defaultContext;
+	}
+
+	/**
+	 * Allows access to the context used by threads not entering any other context.
+	 * 
+	 * @return the default context
+	 */
+	public static SimulationContext getDefault() {
+		return defaultContext;
+	}
+
+	/**
+	 * Runs a simulation (or any part of it) within this context. The calling
+	 * thread is bound to this context until the runnable completes, then the
+	 * previous context of the thread is restored.
+	 * 
+	 * @param simulation the code to be run in this context
+	 */
+	public void run(final Runnable simulation) {
+		call(() -> {
+			simulation.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Evaluates a simulation (or any part of it) within this context. The calling
+	 * thread is bound to this context until the supplier completes, then the
+	 * previous context of the thread is restored.
+	 * 
+	 * @param simulation the code to be evaluated in this context
+	 * @return the result of the evaluation
+	 */
+	public <T> T call(final Supplier<T> simulation) {
+		multiContext = true;
+		final SimulationContext previous = bound.get();
+		bound.set(this);
+		try {
+			return simulation.get();
+		} finally {
+			bound.set(previous);
+		}
+	}
+
+	/**
+	 * Retrieves the value stored for a key in this context. If the key was not
+	 * used in this context before, then its initial value is created.
+	 * 
+	 * @param key the key to look for
+	 * @return the value of the key in this context
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(final Key<T> key) {
+		if (key.index >= values.length) {
+			values = Arrays.copyOf(values, keyCounter.get());
+		}
+		Object value = values[key.index];
+		if (value == null) {
+			value = values[key.index] = key.initialValue.get();
+		}
+		return (T) value;
+	}
+
+	/**
+	 * The random generator to be used by the components of this simulation.
+	 * 
+	 * @return the random generator of this context (seeded by SeedSyncer.seed)
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Offers simulation specific, continuously increasing identifiers (e.g., for
+	 * hash codes of simulated entities). Thus the identifiers do not depend on
+	 * other simulations running in the same JVM.
+	 * 
+	 * @return the next identifier
+	 */
+	public int nextId() {
+		return idCounter++;
+	}
+
+	/**
+	 * Cancels all timed and deferred events of this context and sets back its
+	 * time to 0.
+	 */
+	void resetTimed() {
+		eventQueue.clear();
+		dispatchers.clear();
+		fireCounter = 0;
+	}
+}
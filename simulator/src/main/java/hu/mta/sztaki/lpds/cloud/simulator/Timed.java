@@ -26,8 +26,6 @@
 
 package hu.mta.sztaki.lpds.cloud.simulator;
 
-import java.util.PriorityQueue;
-
 /**
  * This is the base class for the simulation, every class that should receive
  * timing events should extend this and implement the function named "tick".
@@ -52,17 +50,19 @@ import java.util.PriorityQueue;
 public abstract class Timed implements Comparable<Timed> {
 
 	/**
-	 * The main container for all recurring events in the system
+	 * The simulation this object belongs to. Its event queue is the main
+	 * container for all recurring events in the simulation.
 	 */
-	private static final PriorityQueue<Timed> timedlist = new PriorityQueue<>();
+	final SimulationContext context = SimulationContext.current();
 	/**
-	 * If set to true, the event loop is processing this object at the moment.
+	 * Storage for the event queue implementation this object is registered
+	 * with.
 	 */
-	private boolean underProcessing = false;
+	Object queueData;
 	/**
-	 * The actual time in the system. This is maintained in ticks!
+	 * If set to true, the event loop is processing this object at the moment.
 	 */
-	private static long fireCounter = 0;
+	private boolean underProcessing = false;
 
 	/**
 	 * Determines if the actual timed object is going to receive recurring events
@@ -139,7 +139,7 @@ public abstract class Timed implements Comparable<Timed> {
 	private void realSubscribe(final long freq) {
 		activeSubscription = true;
 		updateEvent(freq);
-		timedlist.offer(this);
+		context.eventQueue.offer(this);
 	}
 
 	/**
@@ -160,7 +160,7 @@ public abstract class Timed implements Comparable<Timed> {
 				// to remove from the list
 				return true;
 			}
-			timedlist.remove(this);
+			context.eventQueue.remove(this);
 			return true;
 		}
 		return false;
@@ -181,8 +181,8 @@ public abstract class Timed implements Comparable<Timed> {
 			final long oldNE = nextEvent;
 			updateEvent(freq);
 			if (!underProcessing && oldNE != nextEvent) {
-				timedlist.remove(this);
-				timedlist.offer(this);
+				context.eventQueue.remove(this);
+				context.eventQueue.offer(this);
 			}
 		} else {
 			realSubscribe(freq);
@@ -205,7 +205,7 @@ public abstract class Timed implements Comparable<Timed> {
 			throw new IllegalStateException("ERROR: Negative event frequency cannot simulate further!");
 		} else {
 			frequency = freq;
-			nextEvent = calcTimeJump(freq);
+			nextEvent = calcTimeJump(context, freq);
 			if (nextEvent == Long.MAX_VALUE) {
 				throw new IllegalStateException("Event to never occur: " + freq);
 			}
@@ -246,7 +246,7 @@ public abstract class Timed implements Comparable<Timed> {
 	 *         </ul>
 	 */
 	public long nextEventDistance() {
-		return activeSubscription ? nextEvent - fireCounter : Long.MAX_VALUE;
+		return activeSubscription ? nextEvent - context.fireCounter : Long.MAX_VALUE;
 	}
 
 	/**
@@ -276,6 +276,15 @@ public abstract class Timed implements Comparable<Timed> {
 		this.backPreference = backPreference;
 	}
 
+	/**
+	 * Allows event queues to learn the back preference of this object
+	 * 
+	 * @return <i>true</i> if this event is processed amongst the last events
+	 */
+	final boolean isBackPreferred() {
+		return backPreference;
+	}
+
 	/**
 	 * This function allows the manual operation of the event handling mechanism. It
 	 * is used to send out events that should occur at a particular time instance.
@@ -284,17 +293,19 @@ public abstract class Timed implements Comparable<Timed> {
 	 * advances the time by one tick.
 	 */
 	public static void fire() {
-		while (!timedlist.isEmpty() && timedlist.peek().nextEvent == fireCounter) {
-			final Timed t = timedlist.poll();
+		final SimulationContext ctx = SimulationContext.current();
+		Timed t;
+		while ((t = ctx.eventQueue.peek()) != null && t.nextEvent == ctx.fireCounter) {
+			ctx.eventQueue.poll();
 			t.underProcessing = true;
-			t.tick(fireCounter);
+			t.tick(ctx.fireCounter);
 			if (t.activeSubscription) {
 				t.updateEvent(t.frequency);
-				timedlist.offer(t);
+				ctx.eventQueue.offer(t);
 			}
 			t.underProcessing = false;
 		}
-		fireCounter++;
+		ctx.fireCounter++;
 	}
 
 	/**
@@ -305,7 +316,19 @@ public abstract class Timed implements Comparable<Timed> {
 	 *         complete
 	 */
 	public static long calcTimeJump(long jump) {
-		final long targettime = fireCounter + jump;
+		return calcTimeJump(SimulationContext.current(), jump);
+	}
+
+	/**
+	 * Calculates time advances in a particular simulation
+	 * 
+	 * @param ctx  the simulation in which the time advance should be calculated
+	 * @param jump the time (in ticks) to be advanced with
+	 * @return the time (in ticks) at which point the particular jump will be
+	 *         complete
+	 */
+	private static long calcTimeJump(final SimulationContext ctx, final long jump) {
+		final long targettime = ctx.fireCounter + jump;
 		return targettime < 0 ? Long.MAX_VALUE : targettime;
 	}
 
@@ -322,14 +345,15 @@ public abstract class Timed implements Comparable<Timed> {
 	 * @return the amount of time that still remains until desiredjump.
 	 */
 	public static long jumpTime(long desiredJump) {
-		final long targettime = calcTimeJump(desiredJump);
-		final long nextFire = getNextFire();
+		final SimulationContext ctx = SimulationContext.current();
+		final long targettime = calcTimeJump(ctx, desiredJump);
+		final long nextFire = getNextFire(ctx);
 		if (targettime <= nextFire) {
-			fireCounter = targettime;
+			ctx.fireCounter = targettime;
 			return 0;
 		} else {
-			fireCounter = nextFire < 0 ? targettime : nextFire;
-			return targettime - fireCounter;
+			ctx.fireCounter = nextFire < 0 ? targettime : nextFire;
+			return targettime - ctx.fireCounter;
 		}
 	}
 
@@ -345,18 +369,47 @@ public abstract class Timed implements Comparable<Timed> {
 	 *                    this function will have no effect.
 	 */
 	public static void skipEventsTill(final long desiredTime) {
-		final long distance = desiredTime - fireCounter;
+		final SimulationContext ctx = SimulationContext.current();
+		final long distance = desiredTime - ctx.fireCounter;
 		if (distance > 0) {
-			while (timedlist.peek() != null && timedlist.peek().nextEvent < desiredTime) {
-				final Timed t = timedlist.poll();
+			while (ctx.eventQueue.peek() != null && ctx.eventQueue.peek().nextEvent < desiredTime) {
+				final Timed t = ctx.eventQueue.poll();
 				t.skip();
-				t.nextEvent = t.frequency==0?desiredTime:calcTimeJump(t.frequency * (1 + distance / t.frequency));
-				timedlist.offer(t);
+				t.nextEvent = t.frequency==0?desiredTime:calcTimeJump(ctx, t.frequency * (1 + distance / t.frequency));
+				ctx.eventQueue.offer(t);
 			}
-			fireCounter = desiredTime;
+			ctx.fireCounter = desiredTime;
 		}
 	}
 
+	/**
+	 * Replaces the event queue implementation used by the simulation. All timed
+	 * objects queued in the current event queue are moved to the new one.
+	 * 
+	 * @param newQueue the event queue implementation to be used from now on. It
+	 *                 should not be used by anything else than Timed.
+	 */
+	public static void setEventQueue(final EventQueue newQueue) {
+		final SimulationContext ctx = SimulationContext.current();
+		if (newQueue == ctx.eventQueue) {
+			return;
+		}
+		Timed t;
+		while ((t = ctx.eventQueue.poll()) != null) {
+			newQueue.offer(t);
+		}
+		ctx.eventQueue = newQueue;
+	}
+
+	/**
+	 * Determines the event queue implementation that is currently in use.
+	 * 
+	 * @return the current event queue
+	 */
+	public static EventQueue getEventQueue() {
+		return SimulationContext.current().eventQueue;
+	}
+
 	/**
 	 * Determines the simulated time that has already passed since the beginning of
 	 * the simulation (0).
@@ -364,7 +417,7 @@ public abstract class Timed implements Comparable<Timed> {
 	 * @return The number of ticks that has passed since the beginning of time.
 	 */
 	public static long getFireCount() {
-		return fireCounter;
+		return SimulationContext.current().fireCounter;
 	}
 
 	/**
@@ -374,7 +427,18 @@ public abstract class Timed implements Comparable<Timed> {
 	 * @return the time instance in ticks
 	 */
 	public static long getNextFire() {
-		final Timed head = timedlist.peek();
+		return getNextFire(SimulationContext.current());
+	}
+
+	/**
+	 * Determines the earliest time instance when there is any event in a
+	 * particular simulation to be performed.
+	 * 
+	 * @param ctx the simulation to check
+	 * @return the time instance in ticks
+	 */
+	private static long getNextFire(final SimulationContext ctx) {
+		final Timed head = ctx.eventQueue.peek();
 		return head == null ? -1 : head.nextEvent;
 	}
 
@@ -411,21 +475,21 @@ public abstract class Timed implements Comparable<Timed> {
 	 *             advance to this point.
 	 */
 	public static void simulateUntil(final long time) {
-		while (timedlist.peek() != null && fireCounter < time) {
-			jumpTime(time - fireCounter);
-			if (getNextFire() == fireCounter) {
+		final SimulationContext ctx = SimulationContext.current();
+		while (ctx.eventQueue.peek() != null && ctx.fireCounter < time) {
+			jumpTime(time - ctx.fireCounter);
+			if (getNextFire(ctx) == ctx.fireCounter) {
 				fire();
 			}
 		}
 	}
 
 	/**
-	 * Cancels all timed events and sets back the time to 0.
+	 * Cancels all timed events of the current simulation and sets back its time
+	 * to 0.
 	 */
 	public static void resetTimed() {
-		timedlist.clear();
-		DeferredEvent.reset();
-		fireCounter = 0;
+		SimulationContext.current().resetTimed();
 	}
 
 	/**
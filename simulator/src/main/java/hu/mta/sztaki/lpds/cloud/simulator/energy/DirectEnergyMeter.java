@@ -25,19 +25,27 @@
 package hu.mta.sztaki.lpds.cloud.simulator.energy;
 
 import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.PowerBehaviorChangeListener;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ProcessingListener;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceSpreader;
 
 /**
  * Direct energy meters can monitor a single resource spreader and can convert
  * their processed consumption values to a continuously updated energy figure.
  * 
+ * In analytical metering sessions (see {@link EnergyMeter#setAnalytical(boolean)})
+ * the meter does not poll the spreader, instead it is notified after each
+ * processing period of the spreader. As the processing rates are constant
+ * during such a period, the power draw is integrated exactly, and the meter
+ * causes no events while the state of the spreader does not change.
+ * 
  * @author "Gabor Kecskemeti, Distributed and Parallel Systems Group, University of Innsbruck (c) 2013"
  *         "Gabor Kecskemeti, Laboratory of Parallel and Distributed Systems, MTA SZTAKI (c) 2014-5"
  * 
  */
 public class DirectEnergyMeter extends EnergyMeter
-		implements PowerBehaviorChangeListener, PowerState.PowerCharacteristicsChange {
+		implements PowerBehaviorChangeListener, PowerState.PowerCharacteristicsChange, ProcessingListener {
 	/**
 	 * the resource spreader that needs to be measured energywise
 	 */
@@ -91,6 +99,9 @@ public class DirectEnergyMeter extends EnergyMeter
 			usedPowerState = measuredResource.getCurrentPowerBehavior();
 			usedPowerState.subscribePowerCharacteristicsChanges(this);
 			measuredResource.subscribePowerBehaviorChangeEvents(this);
+			if (isAnalyticalSession()) {
+				measuredResource.subscribeProcessingEvents(this);
+			}
 		}
 		return startResult;
 	}
@@ -100,10 +111,13 @@ public class DirectEnergyMeter extends EnergyMeter
 	 */
 	@Override
 	public void stopMeter() {
-		if (isSubscribed()) {
+		if (isMetering()) {
 			super.stopMeter();
 			usedPowerState.unsubscribePowerCharacteristicsChanges(this);
 			measuredResource.unsubscribePowerBehaviorChangeEvents(this);
+			if (isAnalyticalSession()) {
+				measuredResource.unsubscribeProcessingEvents(this);
+			}
 		}
 	}
 
@@ -113,11 +127,17 @@ public class DirectEnergyMeter extends EnergyMeter
 	 */
 	@Override
 	public void behaviorChanged(final ResourceSpreader onSpreader, final PowerState newState) {
-		if (isSubscribed()) {
+		if (isMetering()) {
+			if (isAnalyticalSession()) {
+				// the past is accounted with the old power state
+				meterUntil(Timed.getFireCount());
+			}
 			usedPowerState.unsubscribePowerCharacteristicsChanges(this);
 			usedPowerState = newState;
 			usedPowerState.subscribePowerCharacteristicsChanges(this);
-			readjustMeter();
+			if (!isAnalyticalSession()) {
+				readjustMeter();
+			}
 		}
 	}
 
@@ -129,7 +149,11 @@ public class DirectEnergyMeter extends EnergyMeter
 	 */
 	@Override
 	public void prePowerChangeEvent(PowerState onMe) {
-		readjustMeter();
+		if (isAnalyticalSession()) {
+			meterUntil(Timed.getFireCount());
+		} else {
+			readjustMeter();
+		}
 	}
 
 	/**
@@ -158,6 +182,11 @@ public class DirectEnergyMeter extends EnergyMeter
 	 */
 	@Override
 	public void tick(final long fires) {
+		if (isAnalyticalSession()) {
+			// only called when the meter is stopped
+			meterUntil(fires);
+			return;
+		}
 		if (!isSubscribed()) {
 			updateFieldsUsingNewInterval(getFrequency() - getNextEvent() + fires);
 		}
@@ -169,4 +198,61 @@ public class DirectEnergyMeter extends EnergyMeter
 		lastMetered = fires;
 	}
 
+	/**
+	 * Integrates the power draw of a processing period of the spreader in
+	 * analytical metering sessions. The part of the metered interval before the
+	 * period was idle, otherwise the spreader would have reported its
+	 * processing.
+	 */
+	@Override
+	public void processingDone(final ResourceSpreader onSpreader, final long currentTime, final long ticksPassed,
+			final double processed) {
+		final long periodStart = currentTime - ticksPassed;
+		if (periodStart > lastMetered) {
+			increaseTotalConsumption(usedPowerState.getCurrentPower(0) * (periodStart - lastMetered));
+			lastMetered = periodStart;
+		}
+		if (currentTime > lastMetered) {
+			final double load = processed / (ticksPassed * measuredResource.getPerTickProcessingPower());
+			increaseTotalConsumption(usedPowerState.getCurrentPower(load) * (currentTime - lastMetered));
+			lastMetered = currentTime;
+		}
+	}
+
+	/**
+	 * Nothing to do, the processing is reported when the spreader is asked for
+	 * it (see {@link #meterUntil(long)}).
+	 */
+	@Override
+	public void processingStarted(final ResourceSpreader onSpreader, final long currentTime) {
+		// Do nothing
+	}
+
+	/**
+	 * Brings the total consumption of an analytical metering session up to
+	 * date: the spreader is asked to process its consumptions (which it reports
+	 * to the meter), and the rest of the interval is idle.
+	 * 
+	 * @param now
+	 *            the current time
+	 */
+	private void meterUntil(final long now) {
+		collectProcessingReport();
+		if (now > lastMetered) {
+			increaseTotalConsumption(usedPowerState.getCurrentPower(0) * (now - lastMetered));
+			lastMetered = now;
+		}
+	}
+
+	/**
+	 * In analytical metering sessions the consumption is brought up to date
+	 * before it is reported.
+	 */
+	@Override
+	public double getTotalConsumption() {
+		if (isMetering() && isAnalyticalSession()) {
+			meterUntil(Timed.getFireCount());
+		}
+		return super.getTotalConsumption();
+	}
 }
@@ -37,6 +37,18 @@ import hu.mta.sztaki.lpds.cloud.simulator.Timed;
  */
 public abstract class EnergyMeter extends Timed {
 
+	/**
+	 * True if the meters started from now on integrate the power draw
+	 * analytically instead of polling the metered resources periodically. In
+	 * analytical sessions the meters do not subscribe to periodic events, the
+	 * consumption is accumulated when the processing rates or the power states
+	 * change and when the meters are read. The initial value can be set via the
+	 * system property
+	 * "hu.mta.sztaki.lpds.cloud.simulator.energy.EnergyMeter.analytical".
+	 */
+	private static boolean analytical = Boolean
+			.getBoolean("hu.mta.sztaki.lpds.cloud.simulator.energy.EnergyMeter.analytical");
+
 	/**
 	 * the currently collected totalConsumption in all metering sessions so far.
 	 */
@@ -57,6 +69,39 @@ public abstract class EnergyMeter extends Timed {
 	 * when did the metering stopped reported in absolute time.
 	 */
 	private long meteringStopped = 0;
+	/**
+	 * the meter refresh frequency requested for the current metering session.
+	 */
+	private long meteringInterval;
+	/**
+	 * true if the current metering session is analytical.
+	 */
+	private boolean analyticalSession;
+
+	/**
+	 * Determines how the meters started from now on collect their readings.
+	 * Ongoing metering sessions are not affected.
+	 * 
+	 * @param analytical
+	 *            <ul>
+	 *            <li>False: the meters poll the metered resources with the
+	 *            frequency of the metering session
+	 *            <li>True: the meters integrate the power draw between the
+	 *            processing and power state changes without periodic events
+	 *            </ul>
+	 */
+	public static void setAnalytical(final boolean analytical) {
+		EnergyMeter.analytical = analytical;
+	}
+
+	/**
+	 * Tells if the meters started from now on are analytical.
+	 * 
+	 * @return <i>true</i> if the new metering sessions are analytical
+	 */
+	public static boolean isAnalytical() {
+		return analytical;
+	}
 
 	/**
 	 * Initiates an energy metering session.
@@ -81,7 +126,11 @@ public abstract class EnergyMeter extends Timed {
 		if (meteringStopped == -1) {
 			return false;
 		}
-		subscribe(interval);
+		meteringInterval = interval;
+		analyticalSession = startsAnalyticalSession();
+		if (!analyticalSession) {
+			subscribe(interval);
+		}
 		lastMetered = Timed.getFireCount();
 		if (dropPriorReading) {
 			totalConsumption = 0;
@@ -100,7 +149,7 @@ public abstract class EnergyMeter extends Timed {
 	 * longer be updated!
 	 */
 	public void stopMeter() {
-		if (unsubscribe()) {
+		if (analyticalSession ? meteringStopped == -1 : unsubscribe()) {
 			final long now = getFireCount();
 			if (now != lastMetered) {
 				tick(now);
@@ -109,6 +158,44 @@ public abstract class EnergyMeter extends Timed {
 		}
 	}
 
+	/**
+	 * Determines the kind of the metering session being started. Meters that
+	 * are not able to poll can override it to always meter analytically.
+	 * 
+	 * @return <i>true</i> if the new metering session should be analytical
+	 */
+	protected boolean startsAnalyticalSession() {
+		return analytical;
+	}
+
+	/**
+	 * Tells if there is an ongoing metering session.
+	 * 
+	 * @return <i>true</i> if the meter was started and not yet stopped
+	 */
+	public boolean isMetering() {
+		return meteringStopped == -1;
+	}
+
+	/**
+	 * Tells if the current (or the last) metering session is analytical.
+	 * 
+	 * @return <i>true</i> if the readings are not collected periodically
+	 */
+	public boolean isAnalyticalSession() {
+		return analyticalSession;
+	}
+
+	/**
+	 * Allows the reading of the meter refresh frequency of the current (or the
+	 * last) metering session.
+	 * 
+	 * @return the interval passed when the metering session was started
+	 */
+	public long getMeteringInterval() {
+		return meteringInterval;
+	}
+
 	/**
 	 * Allows the reading of the meter's current consumption report.
 	 * 
@@ -166,6 +253,6 @@ public abstract class EnergyMeter extends Timed {
 	 */
 	protected void readjustMeter() {
 		stopMeter();
-		startMeter(getFrequency(), false);
+		startMeter(meteringInterval, false);
 	}
 }
@@ -0,0 +1,409 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ *  (C) Copyright 2014, Gabor Kecskemeti (gkecskem@dps.uibk.ac.at,
+ *   									  kecskemeti.gabor@sztaki.mta.hu)
+ */
+package hu.mta.sztaki.lpds.cloud.simulator.energy;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.PowerBehaviorChangeListener;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ProcessingListener;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceSpreader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Meters a large group of resource spreaders without creating a separate
+ * meter for each of them. The idle power draw of the spreaders, the energy
+ * they consumed in the current metering session and the time until which
+ * this energy is accounted are stored in parallel arrays (one slot per
+ * spreader), thus reading the meter is a single loop over primitive arrays.
+ * 
+ * The metering sessions of this meter are always analytical (see
+ * {@link EnergyMeter#setAnalytical(boolean)}): the processing periods of the
+ * spreaders are integrated when the spreaders report them, otherwise the
+ * spreaders are idle. When the meter is read, only the spreaders that are
+ * processing at the moment are asked to report their processing, the idle
+ * power draw of all the others is accounted in the reading loop.
+ */
+public class VectorizedEnergyMeter extends EnergyMeter {
+
+	/**
+	 * Connects a spreader to its slot in the arrays of the meter, and receives
+	 * the events of the spreader during the metering sessions.
+	 */
+	private class Slot implements ProcessingListener, PowerBehaviorChangeListener,
+			PowerState.PowerCharacteristicsChange {
+		/**
+		 * the index of the slot in the arrays
+		 */
+		private int index;
+		/**
+		 * the metered spreader
+		 */
+		private final ResourceSpreader spreader;
+		/**
+		 * the power state the spreader is in during the metering session
+		 */
+		private PowerState powerState;
+		/**
+		 * true if the slot is in the list of the processing slots
+		 */
+		private boolean busy;
+
+		private Slot(final int index, final ResourceSpreader spreader) {
+			this.index = index;
+			this.spreader = spreader;
+		}
+
+		private void subscribe(final long now) {
+			powerState = spreader.getCurrentPowerBehavior();
+			powerState.subscribePowerCharacteristicsChanges(this);
+			spreader.subscribePowerBehaviorChangeEvents(this);
+			spreader.subscribeProcessingEvents(this);
+			idlePower();
+			consumed[index] = 0;
+			meteredUntil[index] = now;
+			if (spreader.isProcessing()) {
+				markBusy(this);
+			}
+		}
+
+		private void unsubscribe() {
+			powerState.unsubscribePowerCharacteristicsChanges(this);
+			spreader.unsubscribePowerBehaviorChangeEvents(this);
+			spreader.unsubscribeProcessingEvents(this);
+		}
+
+		/**
+		 * Refreshes the idle power of the slot from its power state.
+		 * 
+		 * @return the power draw of the idle spreader
+		 */
+		private double idlePower() {
+			return idlePower[index] = powerState.getCurrentPower(0);
+		}
+
+		/**
+		 * Accounts the consumption of the slot until the given time: the spreader
+		 * reports its pending processing, the rest of the time is idle.
+		 */
+		private void meterUntil(final long now) {
+			if (busy) {
+				spreader.getTotalProcessed();
+			}
+			if (now > meteredUntil[index]) {
+				consumed[index] += idlePower() * (now - meteredUntil[index]);
+				meteredUntil[index] = now;
+			}
+		}
+
+		/**
+		 * The part of the period before the processing was idle, otherwise the
+		 * spreader would have reported it.
+		 */
+		@Override
+		public void processingDone(final ResourceSpreader onSpreader, final long currentTime, final long ticksPassed,
+				final double processed) {
+			final long periodStart = currentTime - ticksPassed;
+			if (periodStart > meteredUntil[index]) {
+				consumed[index] += idlePower() * (periodStart - meteredUntil[index]);
+				meteredUntil[index] = periodStart;
+			}
+			if (currentTime > meteredUntil[index]) {
+				final double load = processed / (ticksPassed * spreader.getPerTickProcessingPower());
+				consumed[index] += powerState.getCurrentPower(load) * (currentTime - meteredUntil[index]);
+				meteredUntil[index] = currentTime;
+			}
+		}
+
+		@Override
+		public void processingStarted(final ResourceSpreader onSpreader, final long currentTime) {
+			markBusy(this);
+		}
+
+		/**
+		 * The past is accounted with the old power state.
+		 */
+		@Override
+		public void behaviorChanged(final ResourceSpreader onSpreader, final PowerState newState) {
+			meterUntil(Timed.getFireCount());
+			powerState.unsubscribePowerCharacteristicsChanges(this);
+			powerState = newState;
+			powerState.subscribePowerCharacteristicsChanges(this);
+			idlePower();
+		}
+
+		/**
+		 * The past is accounted with the old characteristics, the idle powers in
+		 * the arrays are refreshed at the next reading, when the change is
+		 * already done.
+		 */
+		@Override
+		public void prePowerChangeEvent(final PowerState onMe) {
+			meterUntil(Timed.getFireCount());
+			staleIdlePower = true;
+		}
+	}
+
+	/**
+	 * the slots of the metered spreaders, only the first size slots are used
+	 */
+	private Slot[] slots = new Slot[16];
+	/**
+	 * the power draw of the spreaders in their current power state when they
+	 * are idle
+	 */
+	private double[] idlePower = new double[16];
+	/**
+	 * the energy consumed by the spreaders in the current metering session
+	 */
+	private double[] consumed = new double[16];
+	/**
+	 * the time until which the consumption of the spreaders is accounted
+	 */
+	private long[] meteredUntil = new long[16];
+	/**
+	 * the number of metered spreaders
+	 */
+	private int size = 0;
+	/**
+	 * the slots of the metered spreaders by the spreaders
+	 */
+	private final IdentityHashMap<ResourceSpreader, Slot> slotIndex = new IdentityHashMap<>();
+	/**
+	 * the slots whose spreaders might be processing, they must report their
+	 * processing before the meter is read
+	 */
+	private final ArrayList<Slot> busySlots = new ArrayList<>();
+	/**
+	 * true if the characteristics of a power state changed since the idle
+	 * powers were last refreshed
+	 */
+	private boolean staleIdlePower = false;
+
+	/**
+	 * Constructs a meter for a group of resource spreaders.
+	 * 
+	 * @param toMeter
+	 *            the spreaders to meter
+	 */
+	public VectorizedEnergyMeter(final List<? extends ResourceSpreader> toMeter) {
+		toMeter.forEach(this::addSpreader);
+	}
+
+	/**
+	 * Adds a spreader to the metered ones. During a metering session, its
+	 * consumption is accounted from now on. A spreader that is already metered
+	 * is not added again.
+	 * 
+	 * @param spreader
+	 *            the new spreader to meter
+	 */
+	protected void addSpreader(final ResourceSpreader spreader) {
+		if (slotIndex.containsKey(spreader)) {
+			return;
+		}
+		if (size == slots.length) {
+			final int newLength = size * 2;
+			slots = Arrays.copyOf(slots, newLength);
+			idlePower = Arrays.copyOf(idlePower, newLength);
+			consumed = Arrays.copyOf(consumed, newLength);
+			meteredUntil = Arrays.copyOf(meteredUntil, newLength);
+		}
+		final Slot slot = new Slot(size, spreader);
+		slots[size++] = slot;
+		slotIndex.put(spreader, slot);
+		if (isMetering()) {
+			slot.subscribe(Timed.getFireCount());
+		}
+	}
+
+	/**
+	 * Removes a spreader from the metered ones. During a metering session, its
+	 * consumption so far remains part of the meter's reading.
+	 * 
+	 * @param spreader
+	 *            the spreader not to meter anymore
+	 * @return <i>true</i> if the spreader was metered
+	 */
+	protected boolean removeSpreader(final ResourceSpreader spreader) {
+		final Slot slot = slotIndex.remove(spreader);
+		if (slot == null) {
+			return false;
+		}
+		final int i = slot.index;
+		if (isMetering()) {
+			slot.meterUntil(Timed.getFireCount());
+			increaseTotalConsumption(consumed[i]);
+			slot.unsubscribe();
+			if (slot.busy) {
+				busySlots.remove(slot);
+			}
+		}
+		// the last slot takes the place of the removed one
+		final int last = --size;
+		if (i != last) {
+			slots[i] = slots[last];
+			slots[i].index = i;
+			idlePower[i] = idlePower[last];
+			consumed[i] = consumed[last];
+			meteredUntil[i] = meteredUntil[last];
+		}
+		slots[last] = null;
+		return true;
+	}
+
+	/**
+	 * Tells if a spreader is metered.
+	 * 
+	 * @param spreader
+	 *            the spreader to look for
+	 * @return <i>true</i> if the spreader has a slot in the meter
+	 */
+	protected boolean isMetered(final ResourceSpreader spreader) {
+		return slotIndex.containsKey(spreader);
+	}
+
+	/**
+	 * Tells how many spreaders are metered.
+	 * 
+	 * @return the number of metered spreaders
+	 */
+	public int getMeteredCount() {
+		return size;
+	}
+
+	private void markBusy(final Slot slot) {
+		if (!slot.busy) {
+			slot.busy = true;
+			busySlots.add(slot);
+		}
+	}
+
+	/**
+	 * The processing spreaders report their processing, and the ones that
+	 * finished are removed from the busy slots.
+	 */
+	private void collectProcessingReports() {
+		for (int i = busySlots.size() - 1; i >= 0; i--) {
+			final Slot slot = busySlots.get(i);
+			slot.spreader.getTotalProcessed();
+			if (!slot.spreader.isProcessing()) {
+				slot.busy = false;
+				final Slot last = busySlots.remove(busySlots.size() - 1);
+				if (last != slot) {
+					busySlots.set(i, last);
+				}
+			}
+		}
+	}
+
+	private void refreshIdlePowers() {
+		if (staleIdlePower) {
+			for (int i = 0; i < size; i++) {
+				idlePower[i] = slots[i].powerState.getCurrentPower(0);
+			}
+			staleIdlePower = false;
+		}
+	}
+
+	/**
+	 * Determines the energy consumed by all metered spreaders in the current
+	 * metering session.
+	 * 
+	 * @param now
+	 *            the time of the reading
+	 * @return the consumption of the spreaders until now
+	 */
+	private double readSlots(final long now) {
+		collectProcessingReports();
+		refreshIdlePowers();
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += consumed[i] + idlePower[i] * (now - meteredUntil[i]);
+		}
+		return sum;
+	}
+
+	/**
+	 * Subscribes to the events of all metered spreaders.
+	 */
+	@Override
+	public boolean startMeter(final long interval, final boolean dropPriorReading) {
+		final boolean startResult = super.startMeter(interval, dropPriorReading);
+		if (startResult) {
+			final long now = Timed.getFireCount();
+			for (int i = 0; i < size; i++) {
+				slots[i].subscribe(now);
+			}
+		}
+		return startResult;
+	}
+
+	/**
+	 * Accounts the consumption of all metered spreaders and cancels the
+	 * subscriptions to their events.
+	 */
+	@Override
+	public void stopMeter() {
+		if (isMetering()) {
+			final long now = Timed.getFireCount();
+			increaseTotalConsumption(readSlots(now));
+			lastMetered = now;
+			super.stopMeter();
+			for (int i = 0; i < size; i++) {
+				slots[i].unsubscribe();
+				slots[i].busy = false;
+			}
+			busySlots.clear();
+		}
+	}
+
+	/**
+	 * Adds the consumption of the ongoing metering session to the one of the
+	 * past sessions.
+	 */
+	@Override
+	public double getTotalConsumption() {
+		final double past = super.getTotalConsumption();
+		return isMetering() ? past + readSlots(Timed.getFireCount()) : past;
+	}
+
+	@Override
+	protected boolean startsAnalyticalSession() {
+		return true;
+	}
+
+	/**
+	 * This operation is ignored as the meter never subscribes to periodic
+	 * events.
+	 */
+	@Override
+	public void tick(final long fires) {
+		// Do nothing
+	}
+}
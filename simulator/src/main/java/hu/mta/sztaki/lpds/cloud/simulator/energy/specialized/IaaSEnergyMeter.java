@@ -87,8 +87,8 @@ public class IaaSEnergyMeter extends AggregatedEnergyMeter implements VMManager.
 	@Override
 	public void capacityChanged(ResourceConstraints newCapacity, List<PhysicalMachine> affectedCapacity) {
 		long freq = -1;
-		if (isSubscribed()) {
-			freq = getFrequency();
+		if (isMetering()) {
+			freq = getMeteringInterval();
 			stopMeter();
 		}
 		if (newCapacity.compareTo(oldCapacity) < 0) {
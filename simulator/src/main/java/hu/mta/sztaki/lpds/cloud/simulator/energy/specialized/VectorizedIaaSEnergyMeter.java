@@ -0,0 +1,114 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ *  (C) Copyright 2014, Gabor Kecskemeti (gkecskem@dps.uibk.ac.at,
+ *   									  kecskemeti.gabor@sztaki.mta.hu)
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator.energy.specialized;
+
+import hu.mta.sztaki.lpds.cloud.simulator.energy.VectorizedEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VMManager;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.ResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceSpreader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allows a complete IaaS system to be monitored energywise like with the
+ * {@link IaaSEnergyMeter}, but without the per machine meter objects. All
+ * resource spreaders of the machines (the same ones as the
+ * {@link PhysicalMachineEnergyMeter} meters) are kept in the arrays of a
+ * single vectorized meter, thus reading the consumption of even large data
+ * centres is cheap.
+ */
+public class VectorizedIaaSEnergyMeter extends VectorizedEnergyMeter
+		implements VMManager.CapacityChangeEvent<PhysicalMachine> {
+	/**
+	 * The IaaSService to be observed with this meter
+	 */
+	private final IaaSService observed;
+
+	/**
+	 * Constructs a meter for all the machines of an IaaS system.
+	 * 
+	 * @param iaas
+	 *            the IaaS to be monitored energywise
+	 */
+	public VectorizedIaaSEnergyMeter(IaaSService iaas) {
+		super(spreadersOf(iaas.machines));
+		observed = iaas;
+		observed.subscribeToCapacityChanges(this);
+	}
+
+	/**
+	 * Collects the spreaders to be metered for a list of physical machines.
+	 * 
+	 * @param machines
+	 *            the machines to meter
+	 * @return the CPU, disk and network spreaders of the machines
+	 */
+	private static List<ResourceSpreader> spreadersOf(List<PhysicalMachine> machines) {
+		final ArrayList<ResourceSpreader> spreaders = new ArrayList<>(machines.size() * 5);
+		for (PhysicalMachine pm : machines) {
+			spreaders.add(pm);
+			spreaders.add(pm.localDisk.diskinbws);
+			spreaders.add(pm.localDisk.diskoutbws);
+			spreaders.add(pm.localDisk.inbws);
+			spreaders.add(pm.localDisk.outbws);
+		}
+		return spreaders;
+	}
+
+	/**
+	 * manages the changes in size of the infrastructure (e.g. PM additions or
+	 * removals). The consumption of the removed machines remains part of the
+	 * reading, the added ones are metered from now on. The capacity passed is
+	 * the live view of the IaaS capacities, so the direction of the change is
+	 * determined by the machine itself: a machine already metered was removed,
+	 * the others were added.
+	 */
+	@Override
+	public void capacityChanged(ResourceConstraints newCapacity, List<PhysicalMachine> affectedCapacity) {
+		for (PhysicalMachine pm : affectedCapacity) {
+			final List<ResourceSpreader> spreaders = spreadersOf(List.of(pm));
+			if (isMetered(pm)) {
+				// Decreased
+				spreaders.forEach(this::removeSpreader);
+			} else {
+				// Increased
+				spreaders.forEach(this::addSpreader);
+			}
+		}
+	}
+
+	/**
+	 * Allows determining what is
+	 * 
+	 * @return the observed IaaS system
+	 */
+	public IaaSService getObserved() {
+		return observed;
+	}
+}
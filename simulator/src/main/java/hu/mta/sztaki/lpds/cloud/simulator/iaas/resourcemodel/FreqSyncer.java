@@ -25,14 +25,17 @@
 package hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel;
 
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
-import org.apache.commons.lang3.tuple.Pair;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
-import static java.util.function.Predicate.not;
 
 /**
  * This class is the core part of the unified resource consumption model of
@@ -60,6 +63,34 @@ public class FreqSyncer extends Timed {
         CONSUMER, PROVIDER
     }
 
+    /**
+     * The order in which the members of an influence group are handled
+     */
+    private static final DepKind[] PROVIDERS_FIRST = { DepKind.PROVIDER, DepKind.CONSUMER };
+
+    /**
+     * The minimum number of resource consumptions in the influence groups of a
+     * split before their scheduling is offloaded to the parallel pool. Below
+     * this, the handover costs more than the scheduling itself.
+     */
+    static final int PARALLEL_SOLVING_THRESHOLD = 256;
+
+    /**
+     * The pool on which independent influence groups are scheduled concurrently,
+     * <i>null</i> if the groups are scheduled sequentially.
+     * <p>
+     * Only the groups produced by a single separation are solved together (the
+     * remainder of the split group and the parts split off from it). Influence
+     * groups whose freq syncers fire at the same time instance are still solved
+     * one after the other, as each of them is handled in its own tick and the
+     * notifications sent out in one tick can change the other groups.
+     * <p>
+     * The initial parallelism can be set via the system property
+     * "hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.FreqSyncer.parallelism".
+     */
+    private static volatile ForkJoinPool solverPool = createSolverPool(
+            Integer.getInteger("hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.FreqSyncer.parallelism", 1));
+
     /**
      * The influence group managed by this freqsyncer object.
      * <p>
@@ -95,6 +126,28 @@ public class FreqSyncer extends Timed {
      * multiple times in a single time instance.
      */
     private boolean regularFreqMode = true;
+    /**
+     * The reusable working memory of the low level scheduler of this influence
+     * group, created on the first frequency update.
+     */
+    MaxMinFairSpreader.ProgressiveFilling filling;
+    /**
+     * The resource consumptions that were dropped by the members of the group
+     * since the last group separation. Only the spreaders of these links can
+     * take part in a split.
+     */
+    private final ArrayList<ResourceConsumption> removedLinks = new ArrayList<>();
+    /**
+     * During group separation: a group member that was the endpoint of a removed
+     * link. All other such endpoints remaining in this group are known to be
+     * connected to it.
+     */
+    private ResourceSpreader separationRep;
+    /**
+     * Scratch lists for the two sides of the bidirectional connectivity search
+     */
+    private final ArrayList<ResourceSpreader> sideA = new ArrayList<>();
+    private final ArrayList<ResourceSpreader> sideB = new ArrayList<>();
 
     /**
      * Constructor of a freqsyncer to be used when neither the provider nor the
@@ -166,7 +219,7 @@ public class FreqSyncer extends Timed {
      * @return <i>true</i> if the group is part of the current influence group
      */
     private boolean isInDepGroup(final ResourceSpreader lookfor) {
-        return getDepGroupStream(lookfor.spreaderType()).anyMatch( d -> d==lookfor);
+        return myDepGroup.get(lookfor.spreaderType()).contains(lookfor);
     }
 
     /**
@@ -243,50 +296,179 @@ public class FreqSyncer extends Timed {
             outOfOrderProcessing(fires);
             depGroupExtension.clear();
             nudged = false;
-            var res = getCompleteDGStream()
-                    .map(rs -> Pair.of(rs.handleRemovals(), rs.handleAdditions(fires)))
-                    .reduce((in1, in2) -> Pair.of(in1.getLeft() | in2.getLeft(), in1.getRight() | in2.getRight()))
-                    .orElse(Pair.of(false, false));
-            didRemovals |= res.getLeft();
-            didExtension = res.getRight();
+            didExtension = false;
+            // providers first, as their additions must precede the notifications of the consumers
+            for (final DepKind kind : PROVIDERS_FIRST) {
+                for (final ResourceSpreader rs : myDepGroup.get(kind)) {
+                    removedLinks.addAll(rs.underRemoval);
+                    didRemovals |= rs.handleRemovals();
+                    didExtension |= rs.handleAdditions(fires);
+                }
+            }
         } while (didExtension || nudged);
         return didRemovals;
     }
 
     /**
      * Phase II. managing separation of influence groups
+     * <p>
+     * The group is not rebuilt from scratch: a split can only happen between the
+     * spreaders that lost a link, so only these spreaders are checked. Each
+     * check is a bidirectional search which stops as soon as the two sides meet
+     * or one side runs out of spreaders to visit. In the latter case the
+     * exhausted side is a complete influence group on its own and it is moved
+     * to a new freq syncer. Thus the cost of a split is proportional to the
+     * smaller of the resulting groups instead of the whole original group.
      */
     private void groupSeparation() {
         cleanDepGroupFromUnusedSpreaders();
-        if(!isEmptyDG()) {
-            // Marking all current members of the depgroup as non-members
-            getCompleteDGStream().forEach(rs -> rs.stillInDepGroup = false);
-            boolean needsFurtherSplitChecks = true;
-            do {
-                buildDepGroup(getFirstProvider());
-                if (getCompleteDGStream().anyMatch(not(rs -> rs.stillInDepGroup))) {
-                    // a split is needed, we have identified an influence group which does not belong to the group of the first member
-                    EnumMap<DepKind, Set<ResourceSpreader>> newInfluenceGroup = new EnumMap<>(DepKind.class);
-                    initDGMap(newInfluenceGroup);
-                    var notClassified = getCompleteDGStream();
-                    // Separate the newly identified subgroup into its own
-                    notClassified.filter(rs -> rs.stillInDepGroup).peek(rs -> newInfluenceGroup.get(rs.spreaderType()).add(rs)).collect(Collectors.toList()).forEach(rs ->
-                            myDepGroup.get(rs.spreaderType()).remove(rs) // remove the new sub group's members from the original
-                    );
-                    // by this time we have a smaller influence group in the current freq syncer as the new group has some of the old members
-                    var newFreqSyncer = new FreqSyncer(newInfluenceGroup);
-                    newFreqSyncer.updateMyFreqNow();
-                } else {
-                    // no split is needed, we have got the final group, it is just a bit smaller than before
-                    needsFurtherSplitChecks = false;
-                }
-            } while (needsFurtherSplitChecks);
+        final ArrayList<FreqSyncer> newSyncers = new ArrayList<>();
+        final HashSet<ResourceSpreader> checked = new HashSet<>();
+        for (final ResourceConsumption con : removedLinks) {
+            separateFrom(con.getProvider(), newSyncers, checked);
+            separateFrom(con.getConsumer(), newSyncers, checked);
+        }
+        removedLinks.clear();
+        separationRep = null;
+        for (final FreqSyncer newSyncer : newSyncers) {
+            newSyncer.separationRep = null;
+        }
+        final boolean emptied = isEmptyDG();
+        if (!emptied) {
+            newSyncers.add(this);
         }
-        if(isEmptyDG()) {
+        updateFreqsNow(newSyncers);
+        if(emptied) {
             // We have not been left to work with anything, no need to keep our subscription
             unsubscribe();
-        } else {
-            updateMyFreqNow();
+        }
+    }
+
+    /**
+     * Updates the frequencies of several independent influence groups. If a
+     * solver pool is set up and the groups are large enough, then the low level
+     * scheduling of the groups is done concurrently. The new frequencies are
+     * applied in the order of the list in both cases, thus the event ordering is
+     * the same as if the groups were handled one after the other.
+     *
+     * @param syncers the freq syncers of the independent influence groups
+     */
+    private static void updateFreqsNow(final List<FreqSyncer> syncers) {
+        final ForkJoinPool pool = solverPool;
+        if (pool == null || syncers.size() < 2 || countConsumptions(syncers) < PARALLEL_SOLVING_THRESHOLD) {
+            syncers.forEach(FreqSyncer::updateMyFreqNow);
+            return;
+        }
+        final List<Callable<Long>> solves = new ArrayList<>(syncers.size());
+        for (final FreqSyncer fs : syncers) {
+            solves.add(fs::solveGroup);
+        }
+        final List<Future<Long>> results = pool.invokeAll(solves);
+        for (int i = 0; i < syncers.size(); i++) {
+            final long newFreq;
+            try {
+                newFreq = results.get(i).get();
+            } catch (ExecutionException e) {
+                // Reproducing the sequential behaviour: the groups before the failing one are updated
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scheduling influence groups", e);
+            }
+            syncers.get(i).applyFreq(newFreq);
+        }
+    }
+
+    private static int countConsumptions(final List<FreqSyncer> syncers) {
+        int count = 0;
+        for (final FreqSyncer fs : syncers) {
+            for (final ResourceSpreader rs : fs.myDepGroup.get(DepKind.PROVIDER)) {
+                count += rs.toProcess.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets up how many threads can be used to schedule independent influence
+     * groups concurrently. The results of the simulation do not depend on this
+     * setting. Only the groups resulting from the split of a large influence
+     * group are scheduled concurrently, the groups ticking at the same time
+     * instance are still scheduled one after the other.
+     *
+     * @param parallelism the number of threads to use, 1 (or less) means the
+     *                    groups are scheduled on the simulation's thread one
+     *                    after the other
+     */
+    public static void setParallelism(final int parallelism) {
+        final ForkJoinPool old = solverPool;
+        solverPool = createSolverPool(parallelism);
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * Queries the number of threads used for scheduling independent influence
+     * groups.
+     *
+     * @return the parallelism of the solver pool, 1 if the groups are scheduled
+     * sequentially
+     */
+    public static int getParallelism() {
+        final ForkJoinPool pool = solverPool;
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    private static ForkJoinPool createSolverPool(final int parallelism) {
+        return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Checks if an endpoint of a removed link is still connected to the
+     * representative of its group, if not, the two are separated.
+     *
+     * @param endpoint   the spreader which lost a link
+     * @param newSyncers the freq syncers created during the current separation
+     * @param checked    the endpoints already handled during the current separation
+     */
+    private void separateFrom(final ResourceSpreader endpoint, final List<FreqSyncer> newSyncers,
+                              final Set<ResourceSpreader> checked) {
+        final FreqSyncer owner = endpoint.getSyncer();
+        if (!endpoint.isProcessing() || owner == null || owner != this && !newSyncers.contains(owner)
+                || !checked.add(endpoint)) {
+            // The endpoint left the group completely, it cannot cause splits
+            return;
+        }
+        if (owner.separationRep == null) {
+            owner.separationRep = endpoint;
+            return;
+        }
+        final List<ResourceSpreader> separated = findSeparatedSide(owner.separationRep, endpoint);
+        if (separated != null) {
+            // a split is needed, the separated side forms its own influence group
+            EnumMap<DepKind, Set<ResourceSpreader>> newInfluenceGroup = new EnumMap<>(DepKind.class);
+            initDGMap(newInfluenceGroup);
+            for (final ResourceSpreader rs : separated) {
+                newInfluenceGroup.get(rs.spreaderType()).add(rs);
+                owner.myDepGroup.get(rs.spreaderType()).remove(rs);
+            }
+            final var newFreqSyncer = new FreqSyncer(newInfluenceGroup);
+            newSyncers.add(newFreqSyncer);
+            // both groups keep a representative to check later endpoints against
+            if (separated.get(0) == endpoint) {
+                newFreqSyncer.separationRep = endpoint;
+            } else {
+                newFreqSyncer.separationRep = owner.separationRep;
+                owner.separationRep = endpoint;
+            }
         }
     }
 
@@ -301,7 +483,7 @@ public class FreqSyncer extends Timed {
     }
 
     private boolean isEmptyDG() {
-        return getCompleteDGStream().findFirst().isEmpty();
+        return myDepGroup.get(DepKind.PROVIDER).isEmpty() && myDepGroup.get(DepKind.CONSUMER).isEmpty();
     }
 
     /**
@@ -314,13 +496,27 @@ public class FreqSyncer extends Timed {
      * ResourceSpreader.doProcessing is called.
      */
     private void updateMyFreqNow() {
-        var newFreq = getFirstProvider().singleGroupwiseFreqUpdater();
+        applyFreq(solveGroup());
+    }
+
+    /**
+     * Runs the low level scheduler of the group. It only touches the state of
+     * the group's spreaders and consumptions, thus independent groups can be
+     * solved concurrently.
+     *
+     * @return the time until the earliest terminating consumption of the group
+     */
+    private long solveGroup() {
+        return getFirstProvider().singleGroupwiseFreqUpdater();
+    }
+
+    private void applyFreq(final long newFreq) {
         regularFreqMode = newFreq != 0;
         updateFrequency(newFreq);
     }
 
     private ResourceSpreader getFirstProvider() {
-        return getProviderStream().findFirst().orElseThrow();
+        return myDepGroup.get(DepKind.PROVIDER).iterator().next();
     }
 
     /**
@@ -334,20 +530,68 @@ public class FreqSyncer extends Timed {
     }
 
     /**
-     * Marks all resource spreaders in the currently decomposing influence group
-     * that the starting spreader has connections with. Before calling this function
-     * it is expected that all past members of the influence group are marked not in
-     * the group anymore. This function will then change these flags back only on
-     * the relevant members from the point of view of the starting item.
+     * Searches the influence group from two spreaders at the same time. The
+     * searches advance in an interleaved fashion (one spreader is visited on
+     * each side at a time), so if the two spreaders are not connected, the
+     * search stops after visiting the smaller of the two separated groups.
      *
-     * @param startingItem the starting item from which point the influence group
-     *                     should be constructured.
+     * @param a the spreader from which the first side of the search starts
+     * @param b the spreader from which the second side of the search starts
+     * @return <i>null</i> if the two spreaders are still in the same influence
+     * group, otherwise the complete list of spreaders connected to the side
+     * that was fully explored first (its first item is the starting spreader
+     * of that side). The list is only valid until the next search.
      */
-    private void buildDepGroup(final ResourceSpreader startingItem) {
-        if (!startingItem.toProcess.isEmpty() && !startingItem.stillInDepGroup) {
-            startingItem.stillInDepGroup = true;
-            startingItem.toProcess.stream().map(startingItem::getCounterPart).forEach(this::buildDepGroup);
+    private List<ResourceSpreader> findSeparatedSide(final ResourceSpreader a, final ResourceSpreader b) {
+        final Object tokenA = new Object();
+        final Object tokenB = new Object();
+        sideA.clear();
+        sideB.clear();
+        a.searchMark = tokenA;
+        sideA.add(a);
+        b.searchMark = tokenB;
+        sideB.add(b);
+        int headA = 0;
+        int headB = 0;
+        while (true) {
+            if (headA == sideA.size()) {
+                return sideA;
+            }
+            if (visitNeighbours(sideA.get(headA++), tokenA, tokenB, sideA)) {
+                return null;
+            }
+            if (headB == sideB.size()) {
+                return sideB;
+            }
+            if (visitNeighbours(sideB.get(headB++), tokenB, tokenA, sideB)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Extends one side of the bidirectional search with the counterparts of a
+     * spreader.
+     *
+     * @param rs    the spreader whose consumptions are followed
+     * @param own   the token marking the spreaders of this side
+     * @param other the token marking the spreaders of the other side
+     * @param side  the spreaders found by this side so far
+     * @return <i>true</i> if the two sides met
+     */
+    private static boolean visitNeighbours(final ResourceSpreader rs, final Object own, final Object other,
+                                           final List<ResourceSpreader> side) {
+        for (final ResourceConsumption con : rs.toProcess) {
+            final ResourceSpreader cp = rs.getCounterPart(con);
+            if (cp.searchMark == other) {
+                return true;
+            }
+            if (cp.searchMark != own) {
+                cp.searchMark = own;
+                side.add(cp);
+            }
         }
+        return false;
     }
 
     boolean ensureDepGroupHasCounterPart(ResourceSpreader cp) {
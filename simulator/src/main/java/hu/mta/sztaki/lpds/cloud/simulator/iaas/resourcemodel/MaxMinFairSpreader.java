@@ -25,6 +25,10 @@
 
 package hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+
 /**
  * This class is part of the unified resource consumption model of DISSECT-CF.
  * 
@@ -38,20 +42,6 @@ package hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel;
  */
 public abstract class MaxMinFairSpreader extends ResourceSpreader {
 
-	/**
-	 * Determines the amount of processing that still remains unspent in this
-	 * spreader. This value is always smaller than the perTickProcessingPower of the
-	 * spreader.
-	 */
-	private double currentUnProcessed;
-	/**
-	 * The number of resource consumptions for which this spreader still did not
-	 * assign temporal resource utilization limits - see: p(c,s,t) in the paper
-	 * titled "DISSECT-CF: a simulator to foster energy-aware scheduling in
-	 * infrastructure clouds" .
-	 */
-	private int unassignedNum;
-
 	/**
 	 * Constructs a generic Max Min fairness based resource spreader.
 	 * 
@@ -62,73 +52,6 @@ public abstract class MaxMinFairSpreader extends ResourceSpreader {
 		super(perSecondProcessing);
 	}
 
-	/**
-	 * At the beginning of a freq update cycle, every influence group member is
-	 * initialised with this function.
-	 * 
-	 * The function assures that the private fields of this class are initialised,
-	 * as well as all resource consumptions in the influence group are set as
-	 * unassigned and their processing limits are set to 0. This step actually
-	 * allows the max-min fairness algorithm to gradually increase the processing
-	 * limits for each resource consumption that could play a role in bottleneck
-	 * situations.
-	 *
-	 */
-	private void initializeFreqUpdate() {
-		currentUnProcessed = perTickProcessingPower;
-		unassignedNum=underProcessing.size();
-		underProcessing.forEach(ResourceConsumption::resetForFreqUpdate);
-	}
-
-	/**
-	 * Manages the gradual increase of the processing limits for each resource
-	 * consumption related to this spreader. The increase is started from the
-	 * limithelper of each resource consumption. This limithelper tells to what
-	 * amount the particular consumption was able to already process (i.e. it is the
-	 * maximum consumption limit of some of its peers). If a resource consumption is
-	 * still unassigned then its limithelper should be still lower than the maximum
-	 * amount of processing possible by its provider/consumer.
-	 */
-	private void assignProcessingPower() {
-		if (currentUnProcessed > negligibleProcessing && unassignedNum > 0) {
-			int currlen = unassignedNum;
-			underProcessing.forEach(c -> c.inassginmentprocess=c.unassigned);
-			double currentProcessable = currentUnProcessed;
-			double pastProcessable;
-			int firstindex = 0;
-			int lastindex = underProcessing.size();
-			do {
-				pastProcessable = currentProcessable;
-				final double maxShare = currentProcessable / currlen;
-				boolean firstIndexNotSetUp = true;
-				int newlastindex = -1;
-				for (int i = firstindex; i < lastindex; i++) {
-					final ResourceConsumption con = underProcessing.get(i);
-					if (con.inassginmentprocess) {
-						final double limit = con.getProcessingLimit() - con.limithelper;
-						if (limit < maxShare) {
-							currentProcessable -= limit;
-							updateConsumptionLimit(con, limit);
-							// we move an unprocessed item from the back here
-							// then allow reevaluation
-							// and also make sure the currlen is reduced
-							con.inassginmentprocess = false;
-							currlen--;
-						} else {
-							newlastindex = i;
-							if (firstIndexNotSetUp) {
-								firstindex = i;
-								firstIndexNotSetUp = false;
-							}
-							updateConsumptionLimit(con, maxShare);
-						}
-					}
-				}
-				lastindex = newlastindex;
-			} while (currlen != 0 && pastProcessable != currentProcessable);
-		}
-	}
-
 	/**
 	 * This function is the entrance to the lowest level scheduling in DISSECT-CF.
 	 * 
@@ -136,50 +59,18 @@ public abstract class MaxMinFairSpreader extends ResourceSpreader {
 	 * limit and determines what is the resource consumption which will finish
 	 * earliest with that particular limit. The earliest completion time is then
 	 * returned to the main resource spreading logic of the simulator.
+	 * 
+	 * The actual work is done by the progressive filling object of the influence
+	 * group, which keeps its working state in reusable arrays so repeated
+	 * frequency updates do not allocate.
 	 */
 	@Override
 	protected long singleGroupwiseFreqUpdater() {
-		// Phase 1: preparation
 		final FreqSyncer syncer = getSyncer();
-		syncer.getCompleteDGStream().forEach(rs -> ((MaxMinFairSpreader)rs).initializeFreqUpdate());
-		boolean someConsumptionIsStillUnderUtilized;
-		// Phase 2: Progressive filling iteration
-		do {
-			// Phase 2a: determining maximum possible processing
-			// Determining wishes for providers and consumers
-			syncer.getCompleteDGStream().forEach(rs -> ((MaxMinFairSpreader)rs).assignProcessingPower());
-			// Phase 2b: Finding minimum between providers and consumers
-			final double minProcessing = syncer.getProviderStream().flatMapToDouble(
-					rs -> rs.underProcessing.stream().filter(c -> c.unassigned).mapToDouble(c -> c.updateRealLimit(false))).min().orElse(Double.MAX_VALUE);
-
-			final double mpLowLimit=minProcessing * 0.000000001;
-			// Phase 2c: single filling
-			someConsumptionIsStillUnderUtilized = syncer.getProviderStream().filter(
-					rs -> {
-						final MaxMinFairSpreader mmfs = (MaxMinFairSpreader) rs;
-						mmfs.underProcessing.stream().filter(c -> c.unassigned).forEach( con -> {
-							con.limithelper += minProcessing;
-							final MaxMinFairSpreader counterpart = (MaxMinFairSpreader) mmfs.getCounterPart(con);
-							mmfs.currentUnProcessed -= minProcessing;
-							counterpart.currentUnProcessed -= minProcessing;
-							final double rlMin = Math.abs(con.getRealLimit() - minProcessing);
-							if (rlMin <= mpLowLimit) {
-								con.unassigned = false;
-								mmfs.unassignedNum--;
-								counterpart.unassignedNum--;
-							}
-						});
-						return mmfs.unassignedNum!=0;
-					}
-			).count()!=0;
-		} while (someConsumptionIsStillUnderUtilized);
-		// Phase 3: Determining the earliest completion time
-		return syncer.getProviderStream().flatMapToLong(
-				rs ->  rs.underProcessing.stream().mapToLong(con -> {
-					con.consumerLimit = con.providerLimit = con.limithelper;
-					con.updateRealLimit(true);
-					return con.getCompletionDistance();
-				})).min().orElse(Long.MAX_VALUE);
+		if (syncer.filling == null) {
+			syncer.filling = new ProgressiveFilling();
+		}
+		return syncer.filling.run(syncer);
 	}
 
 	/**
@@ -195,4 +86,317 @@ public abstract class MaxMinFairSpreader extends ResourceSpreader {
 	 *              object's relevant (i.e. provider/consumer specific) field
 	 */
 	protected abstract void updateConsumptionLimit(final ResourceConsumption con, final double limit);
+
+	/**
+	 * The max-min fair progressive filling of a single influence group.
+	 * 
+	 * The state of the algorithm is kept in flat arrays that are owned by the
+	 * influence group's freqsyncer and are only grown (never shrunk) as the
+	 * group changes. The layout of the arrays:
+	 * <ul>
+	 * <li>members: the spreaders of the group, [0,providerCount[ are the
+	 * providers, [providerCount,memberCount[ are the consumers
+	 * <li>slots: every member's consumption list flattened after each other, the
+	 * slots of member m are [slotStart[m],slotStart[m+1][ and they follow the
+	 * order of the member's underProcessing list
+	 * <li>consumptions: every consumption of the group once, slotCon tells which
+	 * consumption a particular slot refers to
+	 * </ul>
+	 * 
+	 * The arithmetic (and the order of the floating point operations) is exactly
+	 * the same as it was when the state was kept in the spreaders and the
+	 * consumptions themselves, thus the processing limits determined are bit
+	 * identical to the ones of the original algorithm.
+	 */
+	static final class ProgressiveFilling {
+		/**
+		 * the spreaders of the influence group, providers first
+		 */
+		private MaxMinFairSpreader[] members = new MaxMinFairSpreader[8];
+		private int memberCount;
+		private int providerCount;
+		/**
+		 * Determines the amount of processing that still remains unspent in a
+		 * member spreader. This value is always smaller than the
+		 * perTickProcessingPower of the spreader.
+		 */
+		private double[] unProcessed = new double[8];
+		/**
+		 * The number of resource consumptions for which the member spreader still
+		 * did not assign temporal resource utilization limits - see: p(c,s,t) in the
+		 * paper titled "DISSECT-CF: a simulator to foster energy-aware scheduling in
+		 * infrastructure clouds" .
+		 */
+		private int[] unassignedNum = new int[8];
+		/**
+		 * the first slot of each member, the last item closes the slot list
+		 */
+		private int[] slotStart = new int[9];
+		/**
+		 * the consumption index belonging to the particular slot
+		 */
+		private int[] slotCon = new int[16];
+		/**
+		 * Shows if the consumer/providerLimit of the consumption in the slot is under
+		 * update by assignProcessingPower
+		 */
+		private boolean[] inAssignment = new boolean[16];
+		private ResourceConsumption[] cons = new ResourceConsumption[8];
+		private int conCount;
+		/**
+		 * the member index of the consumer of the particular consumption, -1 if the
+		 * consumer is not listing the consumption
+		 */
+		private int[] conConsumer = new int[8];
+		/**
+		 * the amount of processing that can be surely done by both the provider and
+		 * the consumer of the particular consumption
+		 */
+		private double[] limitHelper = new double[8];
+		/**
+		 * Shows if the particular resource consumption still participates in the
+		 * scheduling process or if it has already finalized its realLimit value.
+		 */
+		private boolean[] unassigned = new boolean[8];
+
+		/**
+		 * Executes the three phases of the max-min fair scheduling over the
+		 * influence group of the syncer.
+		 * 
+		 * @param syncer the influence group to schedule
+		 * @return the distance of the earliest completing consumption in ticks
+		 */
+		long run(final FreqSyncer syncer) {
+			// Phase 1: preparation
+			initializeFreqUpdate(syncer);
+			boolean someConsumptionIsStillUnderUtilized;
+			// Phase 2: Progressive filling iteration
+			do {
+				// Phase 2a: determining maximum possible processing
+				// Determining wishes for providers and consumers
+				for (int m = 0; m < memberCount; m++) {
+					assignProcessingPower(m);
+				}
+				// Phase 2b: Finding minimum between providers and consumers
+				final double minProcessing = findMinProcessing();
+				final double mpLowLimit = minProcessing * 0.000000001;
+				// Phase 2c: single filling
+				someConsumptionIsStillUnderUtilized = false;
+				for (int p = 0; p < providerCount; p++) {
+					for (int s = slotStart[p]; s < slotStart[p + 1]; s++) {
+						final int ci = slotCon[s];
+						if (unassigned[ci]) {
+							limitHelper[ci] += minProcessing;
+							final int counterpart = conConsumer[ci];
+							unProcessed[p] -= minProcessing;
+							if (counterpart >= 0) {
+								unProcessed[counterpart] -= minProcessing;
+							}
+							final double rlMin = Math.abs(cons[ci].getRealLimit() - minProcessing);
+							if (rlMin <= mpLowLimit) {
+								unassigned[ci] = false;
+								unassignedNum[p]--;
+								if (counterpart >= 0) {
+									unassignedNum[counterpart]--;
+								}
+							}
+						}
+					}
+					someConsumptionIsStillUnderUtilized |= unassignedNum[p] != 0;
+				}
+			} while (someConsumptionIsStillUnderUtilized);
+			// Phase 3: Determining the earliest completion time
+			long earliest = Long.MAX_VALUE;
+			for (int s = 0; s < slotStart[providerCount]; s++) {
+				final int ci = slotCon[s];
+				final ResourceConsumption con = cons[ci];
+				con.consumerLimit = con.providerLimit = limitHelper[ci];
+				con.updateRealLimit(true);
+				earliest = Math.min(earliest, con.getCompletionDistance());
+			}
+			releaseReferences();
+			return earliest;
+		}
+
+		/**
+		 * At the beginning of a freq update cycle, the arrays are filled with the
+		 * current influence group members and their consumptions.
+		 * 
+		 * The function assures that all spreaders start with their full processing
+		 * power unspent, as well as all resource consumptions in the influence group
+		 * are set as unassigned and their limit helpers are set to 0. This step
+		 * actually allows the max-min fairness algorithm to gradually increase the
+		 * processing limits for each resource consumption that could play a role in
+		 * bottleneck situations.
+		 * 
+		 * @param syncer the influence group to load
+		 */
+		private void initializeFreqUpdate(final FreqSyncer syncer) {
+			final Set<ResourceSpreader> providers = syncer.myDepGroup.get(FreqSyncer.DepKind.PROVIDER);
+			final Set<ResourceSpreader> consumers = syncer.myDepGroup.get(FreqSyncer.DepKind.CONSUMER);
+			memberCount = 0;
+			conCount = 0;
+			providerCount = providers.size();
+			ensureMemberCapacity(providerCount + consumers.size());
+			slotStart[0] = 0;
+			for (final ResourceSpreader rs : providers) {
+				addMember((MaxMinFairSpreader) rs, true);
+			}
+			for (final ResourceSpreader rs : consumers) {
+				addMember((MaxMinFairSpreader) rs, false);
+			}
+		}
+
+		/**
+		 * Registers a spreader and its consumptions in the arrays.
+		 * 
+		 * @param rs       the spreader to add as the next member
+		 * @param provider <i>true</i> if the spreader is a provider, in this case the
+		 *                 consumptions are all new to the arrays, otherwise they
+		 *                 are looked up via their filling indexes
+		 */
+		private void addMember(final MaxMinFairSpreader rs, final boolean provider) {
+			final int m = memberCount++;
+			final ArrayList<ResourceConsumption> list = rs.toProcess;
+			final int len = list.size();
+			final int first = slotStart[m];
+			ensureSlotCapacity(first + len);
+			members[m] = rs;
+			unProcessed[m] = rs.perTickProcessingPower;
+			unassignedNum[m] = len;
+			for (int i = 0; i < len; i++) {
+				final ResourceConsumption con = list.get(i);
+				int ci = con.fillingIndex;
+				if (provider || ci >= conCount || cons[ci] != con) {
+					// a consumption we have not seen so far
+					ci = addConsumption(con);
+				}
+				if (!provider) {
+					conConsumer[ci] = m;
+				}
+				slotCon[first + i] = ci;
+			}
+			slotStart[m + 1] = first + len;
+		}
+
+		private int addConsumption(final ResourceConsumption con) {
+			if (conCount == cons.length) {
+				final int newLen = conCount * 2;
+				cons = Arrays.copyOf(cons, newLen);
+				conConsumer = Arrays.copyOf(conConsumer, newLen);
+				limitHelper = Arrays.copyOf(limitHelper, newLen);
+				unassigned = Arrays.copyOf(unassigned, newLen);
+			}
+			final int ci = conCount++;
+			cons[ci] = con;
+			con.fillingIndex = ci;
+			conConsumer[ci] = -1;
+			limitHelper[ci] = 0;
+			unassigned[ci] = true;
+			return ci;
+		}
+
+		private void ensureMemberCapacity(final int required) {
+			if (required > members.length) {
+				final int newLen = Math.max(required, members.length * 2);
+				members = Arrays.copyOf(members, newLen);
+				unProcessed = Arrays.copyOf(unProcessed, newLen);
+				unassignedNum = Arrays.copyOf(unassignedNum, newLen);
+				slotStart = Arrays.copyOf(slotStart, newLen + 1);
+			}
+		}
+
+		private void ensureSlotCapacity(final int required) {
+			if (required > slotCon.length) {
+				final int newLen = Math.max(required, slotCon.length * 2);
+				slotCon = Arrays.copyOf(slotCon, newLen);
+				inAssignment = Arrays.copyOf(inAssignment, newLen);
+			}
+		}
+
+		/**
+		 * Manages the gradual increase of the processing limits for each resource
+		 * consumption related to a member spreader. The increase is started from the
+		 * limithelper of each resource consumption. This limithelper tells to what
+		 * amount the particular consumption was able to already process (i.e. it is
+		 * the maximum consumption limit of some of its peers). If a resource
+		 * consumption is still unassigned then its limithelper should be still lower
+		 * than the maximum amount of processing possible by its provider/consumer.
+		 * 
+		 * @param m the index of the member spreader to work on
+		 */
+		private void assignProcessingPower(final int m) {
+			final MaxMinFairSpreader rs = members[m];
+			if (unProcessed[m] > rs.negligibleProcessing && unassignedNum[m] > 0) {
+				int currlen = unassignedNum[m];
+				int firstindex = slotStart[m];
+				int lastindex = slotStart[m + 1];
+				for (int s = firstindex; s < lastindex; s++) {
+					inAssignment[s] = unassigned[slotCon[s]];
+				}
+				double currentProcessable = unProcessed[m];
+				double pastProcessable;
+				do {
+					pastProcessable = currentProcessable;
+					final double maxShare = currentProcessable / currlen;
+					boolean firstIndexNotSetUp = true;
+					int newlastindex = -1;
+					for (int s = firstindex; s < lastindex; s++) {
+						if (inAssignment[s]) {
+							final int ci = slotCon[s];
+							final ResourceConsumption con = cons[ci];
+							final double limit = con.getProcessingLimit() - limitHelper[ci];
+							if (limit < maxShare) {
+								currentProcessable -= limit;
+								rs.updateConsumptionLimit(con, limit);
+								// we move an unprocessed item from the back here
+								// then allow reevaluation
+								// and also make sure the currlen is reduced
+								inAssignment[s] = false;
+								currlen--;
+							} else {
+								newlastindex = s;
+								if (firstIndexNotSetUp) {
+									firstindex = s;
+									firstIndexNotSetUp = false;
+								}
+								rs.updateConsumptionLimit(con, maxShare);
+							}
+						}
+					}
+					lastindex = newlastindex;
+				} while (currlen != 0 && pastProcessable != currentProcessable);
+			}
+		}
+
+		/**
+		 * Determines the real limits of the still unassigned consumptions and
+		 * returns their minimum.
+		 * 
+		 * @return the minimum real limit, or Double.MAX_VALUE if all consumptions
+		 *         are assigned already
+		 */
+		private double findMinProcessing() {
+			boolean found = false;
+			double min = 0;
+			for (int s = 0; s < slotStart[providerCount]; s++) {
+				final int ci = slotCon[s];
+				if (unassigned[ci]) {
+					final double rl = cons[ci].updateRealLimit(false);
+					min = found ? Math.min(min, rl) : rl;
+					found = true;
+				}
+			}
+			return found ? min : Double.MAX_VALUE;
+		}
+
+		/**
+		 * Makes sure the arrays do not keep the past members and consumptions of
+		 * the group from being garbage collected.
+		 */
+		private void releaseReferences() {
+			Arrays.fill(members, 0, memberCount, null);
+			Arrays.fill(cons, 0, conCount, null);
+		}
+	}
 }
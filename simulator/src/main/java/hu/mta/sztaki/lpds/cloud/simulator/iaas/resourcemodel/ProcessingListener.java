@@ -0,0 +1,66 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ *  (C) Copyright 2014, Gabor Kecskemeti (gkecskem@dps.uibk.ac.at,
+ *   									  kecskemeti.gabor@sztaki.mta.hu)
+ */
+
+package hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel;
+
+/**
+ * This interface should be implemented in case one would like to observe the
+ * processing done by a resource spreader. Between two notifications the
+ * processing rates of the spreader do not change, thus the notifications allow
+ * the exact (analytical) integration of the spreader's power draw.
+ */
+public interface ProcessingListener {
+	/**
+	 * Until subscribed, this function is called every time when the resource
+	 * spreader has processed its consumptions up to a time instance.
+	 * The processing was done at a constant rate since the previous processing
+	 * of the spreader.
+	 * 
+	 * @param onSpreader
+	 *            the resource spreader which did the processing
+	 * @param currentTime
+	 *            the time instance the processing was done for
+	 * @param ticksPassed
+	 *            the length of the processing period (in ticks) ending at
+	 *            currentTime
+	 * @param processed
+	 *            the amount of resources processed during the period
+	 */
+	void processingDone(final ResourceSpreader onSpreader, final long currentTime, final long ticksPassed,
+			final double processed);
+
+	/**
+	 * Until subscribed, this function is called every time when the resource
+	 * spreader receives consumptions to process after it was idle. The
+	 * processing of these consumptions is reported later on with
+	 * {@link #processingDone(ResourceSpreader, long, long, double)}.
+	 * 
+	 * @param onSpreader
+	 *            the resource spreader which got busy
+	 * @param currentTime
+	 *            the time instance from which the spreader processes
+	 */
+	void processingStarted(final ResourceSpreader onSpreader, final long currentTime);
+}
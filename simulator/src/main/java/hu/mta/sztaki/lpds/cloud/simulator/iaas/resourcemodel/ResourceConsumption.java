@@ -160,31 +160,14 @@ public class ResourceConsumption {
 	 */
 	double consumerLimit;
 	/**
-	 * the amount of processing that can be surely done by both the provider and the
-	 * consumer. This is a temporary variable used by the MaxMinFairSpreader to
-	 * determine the provider/consumerLimits.
+	 * The position of this consumption in the scratch arrays of the influence
+	 * group's progressive filling (see MaxMinFairSpreader.ProgressiveFilling).
+	 * Only meaningful while a frequency update is in progress.
 	 * 
 	 * <i>WARNING:</i> this is necessary for the internal behavior of
 	 * MaxMinFairSpreader
 	 */
-	double limithelper;
-	/**
-	 * A helper field to show if the particular resource consumption still
-	 * participates in the scheduling process or if it has already finalized its
-	 * realLimit value.
-	 * 
-	 * <i>WARNING:</i> this is necessary for the internal behavior of
-	 * MaxMinFairSpreader
-	 */
-	boolean unassigned;
-	/**
-	 * A helper field to show if the consumer/providerLimit fields are under update
-	 * by MaxMinFairSpreader.assignProcessingPower()
-	 * 
-	 * <i>WARNING:</i> this is necessary for the internal behavior of
-	 * MaxMinFairSpreader
-	 */
-	boolean inassginmentprocess;
+	int fillingIndex;
 
 	/**
 	 * Added for live migration memDirtyingRate: percentage of memory dirtied
@@ -705,9 +688,4 @@ public class ResourceConsumption {
 		}
 		return false;
 	}
-
-	void resetForFreqUpdate() {
-		limithelper=0;
-		unassigned=true;
-	}
 }
@@ -32,6 +32,7 @@ import java.util.stream.Stream;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.statenotifications.PowerStateChangeNotificationHandler;
@@ -124,11 +125,17 @@ public abstract class ResourceSpreader {
 	 * Shows how much processing this spreader done in its lifetime.
 	 */
 	private double totalProcessed = 0;
+	/**
+	 * The listeners interested in the processing done by this spreader,
+	 * <i>null</i> if there are none.
+	 */
+	private ArrayList<ProcessingListener> processingListeners;
 	/**
 	 * A helper field that allows the rapid discovery of influence groups by the
-	 * group's freq syncer object
+	 * group's freq syncer object. It holds the token of the last connectivity
+	 * search that reached this spreader.
 	 */
-	boolean stillInDepGroup;
+	Object searchMark;
 
 	/**
 	 * This constructor just saves the processing power that can be spread in every
@@ -279,6 +286,7 @@ public abstract class ResourceSpreader {
 			return;
 		}
 		var ticksPassed = currentFireCount - lastNotifTime;
+		final double processedBefore = totalProcessed;
 		removeTheseConsumptions(toProcess.stream().filter(con -> {
 					final double processed = processSingleConsumption(con, ticksPassed);
 					totalProcessed += Math.abs(processed);
@@ -286,6 +294,11 @@ public abstract class ResourceSpreader {
 				}
 		));
 		lastNotifTime = currentFireCount;
+		if (processingListeners != null && ticksPassed > 0) {
+			for (final ProcessingListener pl : processingListeners) {
+				pl.processingDone(this, currentFireCount, ticksPassed, totalProcessed - processedBefore);
+			}
+		}
 	}
 
 	/**
@@ -463,6 +476,33 @@ public abstract class ResourceSpreader {
 		powerBehaviorListenerManager.unsubscribeFromEvents(pbcl);
 	}
 
+	/**
+	 * allows interested parties to receive a notification after each processing
+	 * period of this spreader.
+	 * 
+	 * @param pl the new listener object
+	 */
+	public void subscribeProcessingEvents(final ProcessingListener pl) {
+		if (processingListeners == null) {
+			processingListeners = new ArrayList<>();
+		}
+		processingListeners.add(pl);
+	}
+
+	/**
+	 * cancels the reception of the processing notifications.
+	 * 
+	 * @param pl the old listener object
+	 */
+	public void unsubscribeProcessingEvents(final ProcessingListener pl) {
+		if (processingListeners != null) {
+			processingListeners.remove(pl);
+			if (processingListeners.isEmpty()) {
+				processingListeners = null;
+			}
+		}
+	}
+
 	/**
 	 * Provides a nice formatted single line representation of the spreader. It
 	 * lists the currently processed resource consumptions and the power behavior as
@@ -474,11 +514,6 @@ public abstract class ResourceSpreader {
 				+ (currentPowerBehavior == null ? "-" : currentPowerBehavior.toString()) + ")";
 	}
 
-	/**
-	 * A continuously increasing simple hash value to be used by the next resource
-	 * spreader object created
-	 */
-	static int hashCounter = 0;
 	/**
 	 * The hashcode of the actual resource spreader to be used in java's built-in
 	 * hashCode function
@@ -486,8 +521,9 @@ public abstract class ResourceSpreader {
 	private final int myHashCode = getHashandIncCounter();
 
 	/**
-	 * Manages the increment of the hashCounter and offers the latest hash code for
-	 * new objects
+	 * Offers the latest hash code for new objects. The hash codes are continuously
+	 * increasing within a simulation (see SimulationContext.nextId), so they do
+	 * not depend on other simulations running in the same JVM.
 	 * 
 	 * <i>WARNING:</i> as this function does not check if a hash value is already
 	 * given or not there might be hash collisions if there are so many resource
@@ -498,7 +534,7 @@ public abstract class ResourceSpreader {
 	static int getHashandIncCounter() {
 		// FIXME
 		// WARNING: some possible hash collisions!
-		return hashCounter++;
+		return SimulationContext.current().nextId();
 	}
 
 	/**
@@ -533,6 +569,11 @@ public abstract class ResourceSpreader {
 	boolean handleAdditions(long fires) {
 		if (toProcess.size() == 0) {
 			lastNotifTime = fires;
+			if (processingListeners != null && !underAddition.isEmpty()) {
+				for (final ProcessingListener pl : processingListeners) {
+					pl.processingStarted(this, fires);
+				}
+			}
 		}
 		var added = underAddition.stream().filter(con -> getSyncer().ensureDepGroupHasCounterPart(getCounterPart(con))).count();
 		toProcess.addAll(underAddition);
@@ -34,6 +34,7 @@ import java.util.Map;
 
 import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import hu.mta.sztaki.lpds.cloud.simulator.notifications.StateDependentEventHandler;
 
 /**
  * This class represents the storage entities in the system. Data transfers
@@ -53,6 +54,24 @@ import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption
  */
 public class Repository extends NetworkNode {
 
+	/**
+	 * Defines the minimal interface for listeners on the changes of the free
+	 * storage capacity of a repository.
+	 */
+	public interface StorageChangeListener {
+		/**
+		 * This function is called by the repository on subscribed objects every time
+		 * its free storage capacity changes (i.e., when objects are registered or
+		 * dropped, or when storage is promised to or released from incoming
+		 * transfers).
+		 * 
+		 * @param repo the repository which just went through the change, its
+		 *             {@link Repository#getFreeStorageCapacity()} already reflects
+		 *             the new state.
+		 */
+		void freeStorageChanged(Repository repo);
+	}
+
 	/**
 	 * Stuff that is already in the current repository
 	 */
@@ -78,6 +97,12 @@ public class Repository extends NetworkNode {
 	 */
 	private long promisedStorage = 0;
 
+	/**
+	 * the manager of the repository's free storage capacity change notifications.
+	 */
+	private final StateDependentEventHandler<StorageChangeListener, Repository> storageListenerManager = new StateDependentEventHandler<>(
+			StorageChangeListener::freeStorageChanged);
+
 	/**
 	 * Constructor for repository objects
 	 * 
@@ -122,9 +147,31 @@ public class Repository extends NetworkNode {
             existingSo.setSize(existingSo.size+so.size);
             currentStorageUse += existingSo.size;
         }
+        storageListenerManager.notifyListeners(this);
         return true;
     }
 	
+	/**
+	 * Extends an already stored object with additional data (e.g., when new
+	 * records are appended to a file). The free storage capacity of the
+	 * repository shrinks accordingly.
+	 * 
+	 * @param so        the object to be extended, it must be the object stored
+	 *                  under its id in this repository
+	 * @param extraSize the size of the appended data
+	 * @return true if the object was extended, false if the object is not stored
+	 *         in this repository or there is not enough space for the new data
+	 */
+	public boolean growObject(final StorageObject so, final long extraSize) {
+		if (contents.get(so.id) != so || !freeSpaceInFuture(extraSize)) {
+			return false;
+		}
+		so.setSize(so.size + extraSize);
+		currentStorageUse += extraSize;
+		storageListenerManager.notifyListeners(this);
+		return true;
+	}
+
 	private boolean freeSpaceInFuture(long storageObjectSize) {
         final long futureFree = getFreeStorageCapacity() - storageObjectSize;
         return futureFree >= 0;
@@ -169,6 +216,7 @@ public class Repository extends NetworkNode {
 			StorageObject removed = contents.remove(soid);
 			if (removed != null) {
 				currentStorageUse -= removed.size;
+				storageListenerManager.notifyListeners(this);
 				return true;
 			}
 		}
@@ -237,7 +285,7 @@ public class Repository extends NetworkNode {
 					new ResourceConsumption.ConsumptionEvent() {
 						private void cleanUpRepos() {
 							underTransfer.remove(id);
-							target.promisedStorage -= totransfer.size;
+							target.releaseStoragePromise(totransfer.size);
 						}
 
 						@Override
@@ -288,12 +336,25 @@ public class Repository extends NetworkNode {
 		final long increasedpromise = target.promisedStorage + so.size;
 		if (increasedpromise + target.currentStorageUse <= target.maxStorageCapacity) {
 			target.promisedStorage = increasedpromise;
+			target.storageListenerManager.notifyListeners(target);
 			return true;
 		}
 		return false;
 
 	}
 
+	/**
+	 * The counterpart of manageStoragePromise: releases a previously made storage
+	 * promise once the storage activity it was made for has finished (or got
+	 * cancelled).
+	 * 
+	 * @param size the amount of storage promised earlier
+	 */
+	private void releaseStoragePromise(final long size) {
+		promisedStorage -= size;
+		storageListenerManager.notifyListeners(this);
+	}
+
 	/**
 	 * Allows the modeling of storing data that previously resided in the memory of
 	 * this repository.
@@ -313,7 +374,7 @@ public class Repository extends NetworkNode {
 					new ResourceConsumption.ConsumptionEvent() {
 						@Override
 						public void conComplete() {
-							promisedStorage -= so.size;
+							releaseStoragePromise(so.size);
 							registerObject(so);
 							if (ev != null) {
 								ev.conComplete();
@@ -322,7 +383,7 @@ public class Repository extends NetworkNode {
 
 						@Override
 						public void conCancelled(ResourceConsumption problematic) {
-							promisedStorage -= so.size;
+							releaseStoragePromise(so.size);
 							if (ev != null) {
 								ev.conCancelled(problematic);
 							}
@@ -398,6 +459,24 @@ public class Repository extends NetworkNode {
 		return "Repo(DS:" + maxStorageCapacity + " Used:" + currentStorageUse + " " + super.toString() + ")";
 	}
 
+	/**
+	 * manages the subscriptions for free storage capacity change events
+	 * 
+	 * @param sl the listener object which expects storage change events
+	 */
+	public void subscribeToStorageChanges(final StorageChangeListener sl) {
+		storageListenerManager.subscribeToEvents(sl);
+	}
+
+	/**
+	 * manages the subscriptions for free storage capacity change events
+	 * 
+	 * @param sl the listener object that no longer expects storage change events
+	 */
+	public void unsubscribeFromStorageChanges(final StorageChangeListener sl) {
+		storageListenerManager.unsubscribeFromEvents(sl);
+	}
+
 	/**
 	 * Retrieves the maximum storage capacity of this repository. This is constant
 	 * during the life of the repository.
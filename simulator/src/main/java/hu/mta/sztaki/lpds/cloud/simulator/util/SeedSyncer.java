@@ -27,6 +27,8 @@ package hu.mta.sztaki.lpds.cloud.simulator.util;
 
 import java.util.Random;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+
 /**
  * A class to manage the random generator to be used if reproducible but random
  * results are expected from the simulator
@@ -36,7 +38,11 @@ import java.util.Random;
 public class SeedSyncer {
 	/**
 	 * The random generator that will be used by the system components and that
-	 * is recommended to be used by simulations built on top of DISSECT-CF
+	 * is recommended to be used by simulations built on top of DISSECT-CF.
+	 * 
+	 * All calls are forwarded to the random generator of the current simulation
+	 * context. Thus simulations running in different contexts do not influence
+	 * each other's random sequences.
 	 */
 	public static final Random centralRnd;
 	/**
@@ -55,11 +61,85 @@ public class SeedSyncer {
 		} else {
 			seed = Integer.parseInt(seedText);
 		}
-		centralRnd = new Random(seed);
+		centralRnd = new ContextRandom();
+	}
+
+	/**
+	 * A random generator that forwards all its calls to the random generator of
+	 * the current simulation context.
+	 */
+	private static class ContextRandom extends Random {
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The Random constructor sets the seed, this should not reach any context
+		 */
+		private final boolean constructed;
+
+		private ContextRandom() {
+			super(0);
+			constructed = true;
+		}
+
+		private static Random target() {
+			return SimulationContext.current().getRandom();
+		}
+
+		@Override
+		public synchronized void setSeed(long seed) {
+			if (constructed) {
+				target().setSeed(seed);
+			}
+		}
+
+		@Override
+		protected int next(int bits) {
+			return target().nextInt() >>> (32 - bits);
+		}
+
+		@Override
+		public void nextBytes(byte[] bytes) {
+			target().nextBytes(bytes);
+		}
+
+		@Override
+		public int nextInt() {
+			return target().nextInt();
+		}
+
+		@Override
+		public int nextInt(int bound) {
+			return target().nextInt(bound);
+		}
+
+		@Override
+		public long nextLong() {
+			return target().nextLong();
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return target().nextBoolean();
+		}
+
+		@Override
+		public float nextFloat() {
+			return target().nextFloat();
+		}
+
+		@Override
+		public double nextDouble() {
+			return target().nextDouble();
+		}
+
+		@Override
+		public synchronized double nextGaussian() {
+			return target().nextGaussian();
+		}
 	}
 
 	/**
-	 * To restart the simulator's random generator
+	 * To restart the simulator's random generator (of the current simulation
+	 * context)
 	 */
 	public static void resetCentral() {
 		centralRnd.setSeed(seed);
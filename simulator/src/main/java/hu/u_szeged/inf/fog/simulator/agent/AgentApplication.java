@@ -59,6 +59,11 @@ public class AgentApplication {
     
     protected int bcastCounter;
 
+    /**
+     * The number of messages sent while the offers of the application were collected.
+     */
+    protected int bcastMessages;
+
     public AgentApplication() {
         this.offers = new ArrayList<>();
     }
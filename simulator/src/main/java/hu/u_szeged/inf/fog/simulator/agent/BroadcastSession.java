@@ -0,0 +1,233 @@
+package hu.u_szeged.inf.fog.simulator.agent;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode.NetworkException;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class disseminates the request of an application among the resource agents along
+ * a tree or by gossiping, and collects the responses of the agents. It is the alternative of
+ * the all-pairs broadcast of {@link ResourceAgent}, which sends a request and a response between
+ * the initiator and each agent. When every agent has responded, the initiator generates the offers
+ * of the application the same way, only the number of messages and the timing differ.
+ */
+class BroadcastSession {
+
+    /**
+     * The generator choosing the gossip targets (each simulation context has its own). It is seeded
+     * like the central generator, but the gossip does not draw from the central generator, so
+     * the broadcast mode does not change the random numbers the rest of the simulation gets.
+     */
+    private static final SimulationContext.Key<Random> gossipRandom =
+            new SimulationContext.Key<>(() -> new Random(SeedSyncer.seed));
+
+    /**
+     * The agent initiating the broadcast.
+     */
+    private final ResourceAgent initiator;
+
+    /**
+     * The agents taking part in the broadcast, the initiator is the first one.
+     */
+    private final ResourceAgent[] nodes;
+
+    private final AgentApplication app;
+
+    private final int messageSize;
+
+    private final int fanout;
+
+    /**
+     * The number of responses the node is waiting for (tree), or the number of
+     * agents which have responded to the initiator (gossip).
+     */
+    private final int[] pending;
+
+    /**
+     * The number of agents covered by the responses the node received (tree).
+     */
+    private final int[] collected;
+
+    /**
+     * True if the node has already received the request (gossip).
+     */
+    private final boolean[] informed;
+
+    /**
+     * The number of requests being transferred (gossip).
+     */
+    private int requestsInFlight;
+
+    private boolean finished;
+
+    BroadcastSession(ResourceAgent initiator, List<ResourceAgent> neighbors, AgentApplication app,
+            int messageSize, int fanout) {
+        this.initiator = initiator;
+        this.nodes = new ResourceAgent[neighbors.size() + 1];
+        this.nodes[0] = initiator;
+        for (int i = 0; i < neighbors.size(); i++) {
+            this.nodes[i + 1] = neighbors.get(i);
+        }
+        this.app = app;
+        this.messageSize = messageSize;
+        this.fanout = Math.max(1, fanout);
+        this.pending = new int[this.nodes.length];
+        this.collected = new int[this.nodes.length];
+        this.informed = new boolean[this.nodes.length];
+    }
+
+    /**
+     * Starts the tree-based dissemination. The agents form a complete tree with the initiator as
+     * its root (the children of node i are fanout * i + 1, ..., fanout * i + fanout). The request
+     * is forwarded from the root to the leaves, and each agent sends a single aggregated response
+     * to its parent when the responses of its subtree have arrived, thus the number of
+     * messages is 2 (n - 1) and the depth of the tree is log n.
+     */
+    void startTree() {
+        if (this.nodes.length == 1) {
+            this.finish();
+            return;
+        }
+        this.treeRequestArrived(0);
+    }
+
+    private void treeRequestArrived(int node) {
+        int first = this.fanout * node + 1;
+        int last = Math.min(first + this.fanout, this.nodes.length);
+        if (first >= this.nodes.length) {
+            this.treeRespond(node);
+            return;
+        }
+        this.pending[node] = last - first;
+        for (int child = first; child < last; child++) {
+            final int target = child;
+            this.send(this.nodes[node], this.nodes[target], "req", this.messageSize,
+                    () -> this.treeRequestArrived(target));
+        }
+    }
+
+    private void treeRespond(int node) {
+        if (node == 0) {
+            this.finish();
+            return;
+        }
+        int parent = (node - 1) / this.fanout;
+        int covered = this.collected[node] + 1;
+        // the response carries the responses of the whole subtree
+        this.send(this.nodes[node], this.nodes[parent], "res", (long) this.messageSize * covered, () -> {
+            this.collected[parent] += covered;
+            if (--this.pending[parent] == 0) {
+                this.treeRespond(parent);
+            }
+        });
+    }
+
+    /**
+     * Starts the epidemic dissemination. Each agent forwards the request to fanout random agents
+     * when it receives it for the first time, and responds directly to the initiator. If the
+     * gossip dies out before reaching all the agents, the initiator sends the request directly to
+     * the ones which have not responded, thus the same agents are reached as in the other modes.
+     * The number of messages is about (fanout + 1) n.
+     */
+    void startGossip() {
+        if (this.nodes.length == 1) {
+            this.finish();
+            return;
+        }
+        this.informed[0] = true;
+        this.gossip(0, -1);
+    }
+
+    private void gossip(int node, int sender) {
+        int candidates = this.nodes.length - (sender < 0 ? 1 : 2);
+        int count = Math.min(this.fanout, candidates);
+        // partial Fisher-Yates shuffle of the other nodes
+        int[] others = new int[candidates];
+        int k = 0;
+        for (int i = 0; i < this.nodes.length; i++) {
+            if (i != node && i != sender) {
+                others[k++] = i;
+            }
+        }
+        Random random = SimulationContext.current().get(gossipRandom);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(candidates - i);
+            int target = others[j];
+            others[j] = others[i];
+            others[i] = target;
+            this.gossipRequest(node, target, true);
+        }
+    }
+
+    private void gossipRequest(int node, int target, boolean forward) {
+        this.requestsInFlight++;
+        this.send(this.nodes[node], this.nodes[target], "req", this.messageSize, () -> {
+            this.requestsInFlight--;
+            if (!this.informed[target]) {
+                this.informed[target] = true;
+                this.send(this.nodes[target], this.initiator, "res", this.messageSize, () -> {
+                    this.pending[0]++;
+                    this.gossipCheck();
+                });
+                if (forward) {
+                    this.gossip(target, node);
+                }
+            }
+            this.gossipCheck();
+        });
+    }
+
+    private void gossipCheck() {
+        if (this.pending[0] == this.nodes.length - 1) {
+            this.finish();
+        } else if (this.requestsInFlight == 0) {
+            for (int i = 1; i < this.nodes.length; i++) {
+                if (!this.informed[i]) {
+                    this.gossipRequest(0, i, false);
+                }
+            }
+        }
+    }
+
+    private void finish() {
+        if (!this.finished) {
+            this.finished = true;
+            this.initiator.deploy(this.app);
+        }
+    }
+
+    /**
+     * Transfers a message between the repositories of two agents, and removes it
+     * from both repositories when it has arrived. The message of agents sharing
+     * a repository arrives at once.
+     */
+    private void send(ResourceAgent from, ResourceAgent to, String type, long size, Runnable arrived) {
+        Repository source = from.computingAppliance.iaas.repositories.get(0);
+        Repository target = to.computingAppliance.iaas.repositories.get(0);
+        String name = from.name + "-" + to.name + "-" + this.app.name + "-" + type + "-" + this.app.bcastMessages++;
+        if (source == target) {
+            // the agents are hosted by the same appliance, the repository cannot transfer to itself
+            arrived.run();
+            return;
+        }
+        source.registerObject(new StorageObject(name, size, false));
+        try {
+            source.requestContentDelivery(name, target, new ConsumptionEventAdapter() {
+
+                @Override
+                public void conComplete() {
+                    source.deregisterObject(name);
+                    target.deregisterObject(name);
+                    arrived.run();
+                }
+            });
+        } catch (NetworkException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -25,8 +25,8 @@ public class Deployment extends Timed {
     public Deployment(AgentApplication app, int bcastMessageSize) {
         this.app = app;
         this.bcastMessageSize = bcastMessageSize;
-        int random = new Random().nextInt(ResourceAgent.resourceAgents.size());
-        this.agent = ResourceAgent.resourceAgents.get(random);
+        int random = new Random().nextInt(ResourceAgent.getResourceAgents().size());
+        this.agent = ResourceAgent.getResourceAgents().get(random);
         this.registerImages(app.components);
         subscribe(1);
     }
@@ -53,7 +53,7 @@ public class Deployment extends Timed {
     }
     
     private boolean checkRaStatus() {
-        for (ResourceAgent ra : ResourceAgent.resourceAgents) {
+        for (ResourceAgent ra : ResourceAgent.getResourceAgents()) {
             if (!ra.service.getState().equals(VirtualMachine.State.RUNNING)) {
                 return false;
             }
@@ -1,5 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.agent;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
@@ -16,24 +17,72 @@ import hu.u_szeged.inf.fog.simulator.util.SimLogger;
 import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter;
 import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.JsonOfferData;
 import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.QosPriority;
-import java.io.BufferedReader;
+import hu.u_szeged.inf.fog.simulator.util.agent.OfferRanking;
+import hu.u_szeged.inf.fog.simulator.util.agent.OfferSearch;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.SystemUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 public class ResourceAgent {
+
+    /**
+     * The ways an agent can disseminate the request of an application among the other agents.
+     */
+    public enum BroadcastMode {
+        /**
+         * The initiator exchanges a request and a response with each agent.
+         */
+        ALL_PAIRS,
+        
+        /**
+         * The request is forwarded along a tree of agents and the responses are aggregated
+         * on the way back (see {@link BroadcastSession#startTree()}).
+         */
+        TREE,
+        
+        /**
+         * The request is spread by epidemic gossip (see {@link BroadcastSession#startGossip()}).
+         */
+        GOSSIP
+    }
+    
+    /**
+     * The dissemination mode of the agents. It can be set with the
+     * hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.broadcastMode system property as well.
+     */
+    private static BroadcastMode broadcastMode = BroadcastMode.valueOf(System.getProperty(
+            "hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.broadcastMode", BroadcastMode.ALL_PAIRS.name()));
+    
+    /**
+     * The number of children of an agent in the tree mode, and the number of agents a request
+     * is forwarded to in the gossip mode. It can be set with the
+     * hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.fanout system property as well.
+     */
+    private static int fanout = Integer.getInteger("hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.fanout", 3);
+    
+    /**
+     * True if the offers are ranked by the external ranking script (see {@link AgentTest#rankingScriptDir}),
+     * otherwise they are ranked by {@link OfferRanking} (this is the default). It can be set with the
+     * hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.rankingScript system property as well.
+     */
+    private static boolean rankingScript = 
+            Boolean.getBoolean("hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.rankingScript");
+    
+    /**
+     * The maximum number of offers generated for an application, the cheapest ones are kept
+     * (see {@link OfferSearch#DEFAULT_LIMIT}, 0 means no limit). It can be set with the
+     * hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.maxOffers system property as well.
+     */
+    private static int maxOffers = Integer.getInteger("hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.maxOffers",
+            OfferSearch.DEFAULT_LIMIT);
       
     public static class Capacity {
         double cpu;
@@ -74,14 +123,25 @@ public class ResourceAgent {
      */
     public static final AlterableResourceConstraints agentArc = new AlterableResourceConstraints(1, 0.001, 536870912L);
     
-    public static ArrayList<ResourceAgent> resourceAgents = new ArrayList<>();
+    /**
+     * All resource agents created (each simulation context has its own list).
+     */
+    private static final SimulationContext.Key<ArrayList<ResourceAgent>> resourceAgents = 
+            new SimulationContext.Key<>(ArrayList::new);
+
+    /**
+     * Returns with the list of all resource agents of the current simulation.
+     */
+    public static ArrayList<ResourceAgent> getResourceAgents() {
+        return SimulationContext.current().get(resourceAgents);
+    }
     
     
     public ResourceAgent(String name, HashMap<ComputingAppliance, Capacity> capacityOfferings, double hourlyPrice) {
         this.capacityOfferings = capacityOfferings;
         this.name = name;
         this.hourlyPrice = hourlyPrice;
-        ResourceAgent.resourceAgents.add(this);
+        ResourceAgent.getResourceAgents().add(this);
         this.computingAppliance = this.getRandomAppliance();
         this.startAgent();
     }
@@ -101,6 +161,52 @@ public class ResourceAgent {
         }
     }
     
+    public static void setBroadcastMode(BroadcastMode broadcastMode) {
+        ResourceAgent.broadcastMode = broadcastMode;
+    }
+    
+    public static BroadcastMode getBroadcastMode() {
+        return broadcastMode;
+    }
+    
+    /**
+     * Sets the fan-out of the tree and the gossip modes.
+     *
+     * @param fanout the number of children or gossip targets of an agent (at least 1)
+     */
+    public static void setFanout(int fanout) {
+        if (fanout < 1) {
+            throw new IllegalArgumentException("The fan-out must be positive: " + fanout);
+        }
+        ResourceAgent.fanout = fanout;
+    }
+    
+    public static int getFanout() {
+        return fanout;
+    }
+    
+    /**
+     * Sets the maximum number of offers generated for an application.
+     *
+     * @param maxOffers the number of offers kept, 0 (or less) means no limit, which is exponential
+     *        in the number of resources
+     */
+    public static void setMaxOffers(int maxOffers) {
+        ResourceAgent.maxOffers = maxOffers;
+    }
+    
+    public static int getMaxOffers() {
+        return maxOffers;
+    }
+    
+    public static void setRankingScript(boolean rankingScript) {
+        ResourceAgent.rankingScript = rankingScript;
+    }
+    
+    public static boolean isRankingScript() {
+        return rankingScript;
+    }
+    
     private ComputingAppliance getRandomAppliance() {
         Object[] keys = this.capacityOfferings.keySet().toArray();
         Random random = new Random();
@@ -109,11 +215,19 @@ public class ResourceAgent {
     }
 
     public void broadcast(AgentApplication app, int bcastMessageSize) {
-        List<ResourceAgent> filteredAgents = ResourceAgent.resourceAgents.stream()
+        List<ResourceAgent> filteredAgents = ResourceAgent.getResourceAgents().stream()
                 .filter(agent -> agent.service.getState().equals(VirtualMachine.State.RUNNING))
                 .filter(agent -> !agent.equals(this))
                 .collect(Collectors.toList());
 
+        if (broadcastMode == BroadcastMode.TREE) {
+            new BroadcastSession(this, filteredAgents, app, bcastMessageSize, fanout).startTree();
+            return;
+        } else if (broadcastMode == BroadcastMode.GOSSIP) {
+            new BroadcastSession(this, filteredAgents, app, bcastMessageSize, fanout).startGossip();
+            return;
+        }
+        
         for (ResourceAgent neighbor : filteredAgents) {
             String reqName = this.name + "-" + neighbor.name + "-" + app.name + "-req";
             StorageObject reqMessage = new StorageObject(reqName, bcastMessageSize, false);
@@ -129,6 +243,7 @@ public class ResourceAgent {
                                 StorageObject resMessage = new StorageObject(resName, bcastMessageSize, false);
                                 neighbor.computingAppliance.iaas.repositories.get(0).registerObject(resMessage);
                                 app.bcastCounter++;
+                                app.bcastMessages += 2;
                                 try {
                                     neighbor.computingAppliance.iaas.repositories.get(0).requestContentDelivery(
                                             resName, computingAppliance.iaas.repositories.get(0), new ConsumptionEventAdapter() {
@@ -157,73 +272,56 @@ public class ResourceAgent {
     }
     
         
-    private void deploy(AgentApplication app) {
+    void deploy(AgentApplication app) {
+        SimLogger.logRun(name + " collected the responses for " + app.name + " at: " + Timed.getFireCount()
+            + ", messages: " + app.bcastMessages);
+        
         this.generateOffers(app);
         
-        this.writeFile(app);
+        JsonOfferData offerData = this.evaluateOffers(app);
         
-        this.callRankingScript(app);
+        if (rankingScript) {
+            AgentOfferWriter.writeOffers(offerData, app.name);
+            this.callRankingScript(app);
+        } else if (!app.offers.isEmpty()) {
+            int[] ranking = OfferRanking.rank(offerData, AgentTest.rankingMethodName);
+            List<Integer> numberList = Arrays.stream(ranking)
+                                             .map(n -> n + 1)
+                                             .boxed()
+                                             .collect(Collectors.toList());
+            
+            System.out.println("Sorted offer list: " + numberList);
+        }
     }
     
     private void callRankingScript(AgentApplication app) {
 
         String inputfile = ScenarioBase.resultDirectory + File.separator + app.name + "-offers.json";
         
-        try {
-            String command;
-            ProcessBuilder processBuilder;
-
-            // TODO: revise these commands
-            if (SystemUtils.IS_OS_WINDOWS) {
-                command = "cd /d " + AgentTest.rankingScriptDir
-                    + " && conda activate swarmchestrate && python call_ranking_func.py --method_name " + AgentTest.rankingMethodName
-                    + " --offers_loc " + inputfile;
-                processBuilder = new ProcessBuilder("cmd.exe", "/c", command);
-            } else if (SystemUtils.IS_OS_LINUX) {
-                command = "cd " + AgentTest.rankingScriptDir
-                    + " && python3 call_ranking_func.py --method_name " + AgentTest.rankingMethodName
-                    + " --offers_loc " + inputfile;
-
-                processBuilder = new ProcessBuilder("bash", "-c", command);
-            } else {
-                throw new UnsupportedOperationException("Unsupported operating system");
-            }
-
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                   // System.out.println(line);
-                    
-                    if (line.startsWith("[")) {
-
-                        String numbers = line.substring(1, line.length() - 1); // "2 0 1"
-                        List<Integer> numberList = Arrays.stream(numbers.split("\\s+")) 
-                                                         .map(Integer::parseInt) 
-                                                         .map(n -> n + 1)
-                                                         .collect(Collectors.toList()); 
-
-                        System.out.println("Sorted offer list: " + numberList);
-                    }
-                }
-            }
-            process.waitFor();
-        } catch (IOException | InterruptedException e) {
-            e.getStackTrace();
+        int[] ranking = OfferRanking.rankWithScript(AgentTest.rankingScriptDir, AgentTest.rankingMethodName, inputfile);
+        if (ranking != null) {
+            List<Integer> numberList = Arrays.stream(ranking)
+                                             .map(n -> n + 1)
+                                             .boxed()
+                                             .collect(Collectors.toList());
+            
+            System.out.println("Sorted offer list: " + numberList);
         }
     }
 
-    private void writeFile(AgentApplication app) {     
+    private JsonOfferData evaluateOffers(AgentApplication app) {     
 
-        List<Double> reliabilityList = new ArrayList<Double>(); 
-        List<Double> energyList = new ArrayList<Double>(); 
-        List<Double> bandwidthList = new ArrayList<Double>(); 
-        List<Double> latencyList = new ArrayList<Double>(); 
-        List<Double> priceList = new ArrayList<Double>(); 
+        int offerCount = app.offers.size();
+        double[] reliability = new double[offerCount]; 
+        double[] energy = new double[offerCount]; 
+        double[] bandwidth = new double[offerCount]; 
+        double[] latency = new double[offerCount]; 
+        double[] price = new double[offerCount]; 
+        
+        Random r = new Random();
 
-        for (Offer offer : app.offers) {
+        for (int i = 0; i < offerCount; i++) {
+            Offer offer = app.offers.get(i);
             double averageLatency = 0;
             double averageBandwidth = 0;
             double averageEnergy = 0;
@@ -238,11 +336,11 @@ public class ResourceAgent {
                 averageBandwidth += agent.computingAppliance.iaas.repositories.get(0).inbws.getPerTickProcessingPower() / 2.0;
                 averageBandwidth += agent.computingAppliance.iaas.repositories.get(0).outbws.getPerTickProcessingPower() / 2.0;
 
-                double energy = 0;
+                double pmEnergy = 0;
                 for (PhysicalMachine pm : agent.computingAppliance.iaas.machines) {
-                    energy += pm.getCurrentPowerBehavior().getConsumptionRange();
+                    pmEnergy += pm.getCurrentPowerBehavior().getConsumptionRange();
                 }
-                averageEnergy += energy / agent.computingAppliance.iaas.machines.size();
+                averageEnergy += pmEnergy / agent.computingAppliance.iaas.machines.size();
                 
                 for (Resource resource : offer.agentResourcesMap.get(agent)) {
                     averagePrice += agent.hourlyPrice * resource.getTotalReqCpu();
@@ -254,25 +352,21 @@ public class ResourceAgent {
             averageEnergy /= offer.agentResourcesMap.keySet().size();
             averagePrice /= offer.agentResourcesMap.keySet().size();
             
-            Random r = new Random();
-            reliabilityList.add(r.nextDouble());
+            reliability[i] = r.nextDouble();
             
             //double epsilon = averageEnergy * 1e-10 * r.nextDouble();
-            energyList.add(averageEnergy);
-            bandwidthList.add(averageBandwidth);
-            latencyList.add(averageLatency);
-            priceList.add(averagePrice);
+            energy[i] = averageEnergy;
+            bandwidth[i] = averageBandwidth;
+            latency[i] = averageLatency;
+            price[i] = averagePrice;
                         
             System.out.println("avg. latency: " + averageLatency + " avg. bandwidth: " 
                 + averageBandwidth + " avg. energy: " + averageEnergy +  " avg. price: " + averagePrice);
-            
-            QosPriority qosPriority = new QosPriority(r.nextDouble(), r.nextDouble(), r.nextDouble(), r.nextDouble());
-
-            JsonOfferData jsonData = new JsonOfferData(qosPriority, reliabilityList, energyList, bandwidthList, latencyList, priceList);
-            
-            AgentOfferWriter.writeOffers(jsonData, app.name);
-            
         }
+        
+        QosPriority qosPriority = new QosPriority(r.nextDouble(), r.nextDouble(), r.nextDouble(), r.nextDouble());
+
+        return new JsonOfferData(qosPriority, reliability, energy, bandwidth, latency, price);
     }
 
     
@@ -289,8 +383,32 @@ public class ResourceAgent {
     }
     */
     
-    private boolean checkInstanceAvailability(Resource resource, 
-            HashMap<ComputingAppliance, Capacity> copiedCapacityOfferings) {
+    /**
+     * Returns with the capacities offered by the agent as a flat array: the CPU, memory and storage
+     * of each computing appliance, in the iteration order of the capacity offerings.
+     */
+    private double[] offeredCapacities() {
+        double[] capacities = new double[3 * this.capacityOfferings.size()];
+        int i = 0;
+        for (Capacity capacity : this.capacityOfferings.values()) {
+            capacities[i++] = capacity.cpu;
+            capacities[i++] = capacity.memory;
+            capacities[i++] = capacity.storage;
+        }
+        return capacities;
+    }
+    
+    /**
+     * Reserves the capacities required by the resource from the free capacities of the agent (first
+     * fit, each instance of a compute resource is placed separately). The instances placed are not
+     * released if some other instance does not fit.
+     *
+     * @param agent the agent offering the capacities
+     * @param free the free capacities in the layout of {@link #offeredCapacities()}
+     * @param resource the resource to be hosted
+     * @return true if the resource fits
+     */
+    private static boolean checkInstanceAvailability(ResourceAgent agent, double[] free, Resource resource) {
         if (resource.size == null) { // compute type 
             int isAbleToHost = 0;
             
@@ -299,32 +417,31 @@ public class ResourceAgent {
             long reqMemory = (Long.parseLong(resource.memory));
             
             for (int i = 0; i < instances; i++) {
-                for (Map.Entry<ComputingAppliance, Capacity> entry : copiedCapacityOfferings.entrySet()) {
-                    ComputingAppliance ca = entry.getKey();
-                    Capacity capacity = entry.getValue();
-                    
+                int c = 0;
+                for (ComputingAppliance ca : agent.capacityOfferings.keySet()) {
                     if ((resource.provider == null || resource.provider.equals(ca.provider))
                             && (resource.location == null || resource.location.equals(ca.location))
-                            && reqCpu <= capacity.cpu && reqMemory <= capacity.memory) {
+                            && reqCpu <= free[c] && reqMemory <= free[c + 1]) {
                         isAbleToHost++;
-                        capacity.cpu -= reqCpu;
-                        capacity.memory -= reqMemory;
+                        free[c] -= reqCpu;
+                        free[c + 1] -= reqMemory;
                         break;
                     }
+                    c += 3;
                 }
             }
             return instances == isAbleToHost;
             
         } else { // storage type
-            for (Map.Entry<ComputingAppliance, Capacity> entry : copiedCapacityOfferings.entrySet()) {
-                ComputingAppliance ca = entry.getKey();
-                Capacity capacity = entry.getValue();
+            int c = 0;
+            for (ComputingAppliance ca : agent.capacityOfferings.keySet()) {
                 if ((resource.provider == null || resource.provider.equals(ca.provider))
                         && (resource.location == null || resource.location.equals(ca.location))
-                        && Long.parseLong(resource.size) <= capacity.storage) {
-                    capacity.storage -= (Long.parseLong(resource.size));
+                        && Long.parseLong(resource.size) <= free[c + 2]) {
+                    free[c + 2] -= (Long.parseLong(resource.size));
                     return true;
                 }
+                c += 3;
             }
             return false;
         }
@@ -333,17 +450,14 @@ public class ResourceAgent {
     private void generateOffers(AgentApplication app) {
         List<Pair<ResourceAgent, Resource>> agentResourcePairs = new ArrayList<>();
         
-        for (ResourceAgent agent : ResourceAgent.resourceAgents) {   
+        for (ResourceAgent agent : ResourceAgent.getResourceAgents()) {   
             
-            HashMap<ComputingAppliance, Capacity> copiedCapacityOfferings = new HashMap<>();
-            for (Map.Entry<ComputingAppliance, Capacity> entry : agent.capacityOfferings.entrySet()) {
-                copiedCapacityOfferings.put(entry.getKey(), new Capacity(entry.getValue()));
-            }
+            double[] free = agent.offeredCapacities();
             
             List<Resource> sortedResources = AgentApplication.getSortedResourcesByCpuThenSize(app.resources);
             
             for (Resource resource : sortedResources) {
-                boolean isAbleToHost = this.checkInstanceAvailability(resource, copiedCapacityOfferings);
+                boolean isAbleToHost = checkInstanceAvailability(agent, free, resource);
                 if (isAbleToHost) {
                     agentResourcePairs.add(Pair.of(agent, resource));
                 }
@@ -357,56 +471,34 @@ public class ResourceAgent {
             System.out.println("Agent: " + agent.name + ", Resource: " + resource.name);
         }
 
-        generateUniqueCombinations(agentResourcePairs, app);
+        generateBestCombinations(agentResourcePairs, app);
 
         for (Offer o : app.offers) {
             System.out.println(o);
         }
     } 
     
-    private void generateUniqueCombinations(List<Pair<ResourceAgent, Resource>> pairs, AgentApplication app) {
-    
-        Set<Set<Pair<ResourceAgent, Resource>>> uniqueCombinations = new HashSet<>();
-        Set<Pair<ResourceAgent, Resource>> currentCombination = new HashSet<>();
-        Set<Resource> includedResources = new HashSet<>();
-
-        generateCombinations(pairs, app.resources.size(), uniqueCombinations, currentCombination, includedResources);
-        
-        for (Set<Pair<ResourceAgent, Resource>> combination : uniqueCombinations) {
-            Map<ResourceAgent, Set<Resource>> agentResourcesMap = new HashMap<>();
+    /**
+     * Generates the offers of the application with {@link OfferSearch}, the offers are created
+     * in the order of their total hourly price. The resources assigned to an agent must fit its
+     * capacity offerings together.
+     */
+    private void generateBestCombinations(List<Pair<ResourceAgent, Resource>> pairs, AgentApplication app) {
+        OfferSearch.Capacities<ResourceAgent, Resource> capacities = new OfferSearch.Capacities<>() {
 
-            for (Pair<ResourceAgent, Resource> pair : combination) {
-                ResourceAgent agent = pair.getLeft();
-                Resource resource = pair.getRight();
-                
-                agentResourcesMap.putIfAbsent(agent, new HashSet<>());
-                agentResourcesMap.get(agent).add(resource);
+            @Override
+            public double[] of(ResourceAgent agent) {
+                return agent.offeredCapacities();
             }
-            
-            app.offers.add(new Offer(agentResourcesMap));
-        }
-    }
-
-    private void generateCombinations(List<Pair<ResourceAgent, Resource>> pairs, int resourceCount,
-                                      Set<Set<Pair<ResourceAgent, Resource>>> uniqueCombinations,
-                                      Set<Pair<ResourceAgent, Resource>> currentCombination,
-                                      Set<Resource> includedResources) {
 
-        if (includedResources.size() == resourceCount) {
-            uniqueCombinations.add(new HashSet<>(currentCombination));
-            return;
-        }
-        
-        for (Pair<ResourceAgent, Resource> pair : pairs) {
-            if (!currentCombination.contains(pair) && !includedResources.contains(pair.getRight())) {
-                currentCombination.add(pair);
-                includedResources.add(pair.getRight());
-
-                generateCombinations(pairs, resourceCount, uniqueCombinations, currentCombination, includedResources);
-
-                currentCombination.remove(pair);
-                includedResources.remove(pair.getRight());
+            @Override
+            public boolean place(ResourceAgent agent, double[] free, Resource resource) {
+                return checkInstanceAvailability(agent, free, resource);
             }
+        };
+        for (Map<ResourceAgent, Set<Resource>> agentResourcesMap : OfferSearch.cheapestOffers(app.resources, pairs,
+                (agent, resource) -> agent.hourlyPrice * resource.getTotalReqCpu(), capacities, maxOffers)) {
+            app.offers.add(new Offer(agentResourcesMap));
         }
     }
-}
\ No newline at end of file
+}
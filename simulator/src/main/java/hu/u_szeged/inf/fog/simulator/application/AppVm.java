@@ -15,6 +15,11 @@ public class AppVm {
      */
     public int id;
 
+    /**
+     * The position of this VM in the list of the VMs utilised by the application.
+     */
+    int index;
+
     /**
      * The physical machine that hosts this VM.
      */
@@ -67,6 +72,17 @@ public class AppVm {
         this.id = this.vm.hashCode();
     }
 
+    /**
+     * Returns the total time this VM has been switched on (ms), including its current
+     * running period if it is not shut down.
+     */
+    public long getRunningTime() {
+        if (this.vm.getState().equals(VirtualMachine.State.SHUTDOWN)) {
+            return this.workTime;
+        }
+        return this.workTime + Timed.getFireCount() - this.runningPeriod;
+    }
+
     /**
      * Returns a string representation of this AppVm instance.
      */
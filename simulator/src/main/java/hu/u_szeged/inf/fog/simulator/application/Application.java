@@ -1,5 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.application;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine.ResourceAllocation;
@@ -18,6 +19,7 @@ import hu.u_szeged.inf.fog.simulator.provider.Instance;
 import hu.u_szeged.inf.fog.simulator.util.SimLogger;
 import hu.u_szeged.inf.fog.simulator.util.TimelineVisualiser.TimelineEntry;
 import java.util.ArrayList;
+import java.util.BitSet;
 
 /**
  * This class is an abstract representation of an IoT application. It receives data
@@ -33,10 +35,18 @@ import java.util.ArrayList;
 public class Application extends Timed {
 
     /**
-     * A list containing references to all applications.
+     * A list containing references to all applications (each simulation context has its own list).
      * Each element in the list is an instance of the {@code Application} class.
      */
-    public static ArrayList<Application> allApplications = new ArrayList<>();
+    private static final SimulationContext.Key<ArrayList<Application>> allApplications = 
+            new SimulationContext.Key<>(ArrayList::new);
+
+    /**
+     * Returns with the list of all applications of the current simulation.
+     */
+    public static ArrayList<Application> getAllApplications() {
+        return SimulationContext.current().get(allApplications);
+    }
 
     /**
      * It aggregates the time of each file transfer during offloading decisions.
@@ -60,9 +70,30 @@ public class Application extends Timed {
 
     /**
      * A list containing references to the VMs utilized by the application.
+     * The VMs must be added by the application, as they are indexed by their state.
      */
     public ArrayList<AppVm> utilisedVms;
 
+    /**
+     * The positions (in the list of utilised VMs) of the running VMs.
+     */
+    private final BitSet runningVms = new BitSet();
+
+    /**
+     * The positions (in the list of utilised VMs) of the running VMs not processing a task.
+     */
+    private final BitSet idleVms = new BitSet();
+
+    /**
+     * The positions (in the list of utilised VMs) of the shut down VMs.
+     */
+    private final BitSet shutdownVms = new BitSet();
+
+    /**
+     * The total work time of all utilised VMs.
+     */
+    private long totalVmWorkTime;
+
     /**
      * A physical resource that the application uses (where the application has been 'deployed').
      */
@@ -146,7 +177,7 @@ public class Application extends Timed {
      */
     public Application(String name, long freq, long tasksize, double instructions, boolean serviceable,
             ApplicationStrategy applicationStrategy, Instance instance) {
-        Application.allApplications.add(this);
+        Application.getAllApplications().add(this);
         this.deviceList = new ArrayList<>();
         this.utilisedVms = new ArrayList<>();
         this.name = name;
@@ -160,25 +191,44 @@ public class Application extends Timed {
     }
 
     /**
-     * It sets the physical resource for this application and it also
-     * registers VM image file in the resource's first repository.
+     * It sets the physical resource for this application, it also
+     * registers VM image file in the resource's first repository and
+     * puts the application into the spatial index of the applications.
      *
      * @param ca a physical resource that this application uses
      */
     public void setComputingAppliance(ComputingAppliance ca) {
         this.computingAppliance = ca;
         this.computingAppliance.iaas.repositories.get(0).registerObject(this.instance.va);
+        ApplicationIndex.current().update(this);
     }
 
     /**
      * It returns the current cost of the application based on the total work time of all utilized VMs.
      */
     public double getCurrentCost() {
-        long totalWorkTime = 0;
-        for (AppVm appVm : this.utilisedVms) {
-            totalWorkTime += appVm.workTime;
-        }
-        return this.instance.calculateCloudCost(totalWorkTime);
+        return this.instance.calculateCloudCost(this.totalVmWorkTime);
+    }
+
+    /**
+     * Returns the positions (in the list of utilised VMs) of the running VMs.
+     */
+    public BitSet getRunningVms() {
+        return (BitSet) this.runningVms.clone();
+    }
+
+    /**
+     * Returns the positions (in the list of utilised VMs) of the running VMs not processing a task.
+     */
+    public BitSet getIdleVms() {
+        return (BitSet) this.idleVms.clone();
+    }
+
+    /**
+     * Returns the positions (in the list of utilised VMs) of the shut down VMs.
+     */
+    public BitSet getShutdownVms() {
+        return (BitSet) this.shutdownVms.clone();
     }
 
     /**
@@ -207,12 +257,44 @@ public class Application extends Timed {
      * otherwise it returns with null.
      */
     AppVm vmSearch() {
-        for (AppVm appVm : this.utilisedVms) {
-            if (!appVm.isWorking && appVm.vm.getState().equals(VirtualMachine.State.RUNNING)) {
-                return appVm;
-            }
-        }
-        return null;
+        int index = this.idleVms.nextSetBit(0);
+        return index < 0 ? null : this.utilisedVms.get(index);
+    }
+
+    /**
+     * Adds a new VM to the utilised VMs and keeps the VM indexes up to date with its state.
+     *
+     * @param appVm the VM to add
+     */
+    private void addVm(AppVm appVm) {
+        appVm.index = this.utilisedVms.size();
+        this.utilisedVms.add(appVm);
+        appVm.vm.subscribeStateChange((vm, oldState, newState) -> this.indexVm(appVm, newState));
+        this.indexVm(appVm, appVm.vm.getState());
+    }
+
+    /**
+     * Sets whether a VM is processing a task and updates the VM indexes accordingly.
+     *
+     * @param appVm the VM in question
+     * @param working true if the VM is processing a task
+     */
+    private void setWorking(AppVm appVm, boolean working) {
+        appVm.isWorking = working;
+        this.indexVm(appVm, appVm.vm.getState());
+    }
+
+    /**
+     * Updates the VM indexes based on the state of a VM.
+     *
+     * @param appVm the VM in question
+     * @param state the current state of the VM
+     */
+    private void indexVm(AppVm appVm, VirtualMachine.State state) {
+        boolean running = state.equals(VirtualMachine.State.RUNNING);
+        this.runningVms.set(appVm.index, running);
+        this.idleVms.set(appVm.index, running && !appVm.isWorking);
+        this.shutdownVms.set(appVm.index, state.equals(VirtualMachine.State.SHUTDOWN));
     }
 
     /**
@@ -230,7 +312,7 @@ public class Application extends Timed {
                         if (vm != null) {
                             AppVm appVm = new AppVm(vm);
                             appVm.pm = pm;
-                            this.utilisedVms.add(appVm);
+                            this.addVm(appVm);
                             SimLogger.logRun("\tVM-" + appVm.id + " is requested at: " + Timed.getFireCount());
                             return true;
                         }
@@ -249,9 +331,9 @@ public class Application extends Timed {
      * @return {@code true} if a VM is successfully turned on, {@code false} otherwise
      */
     private boolean turnOnVm() {
-        for (AppVm appVm : this.utilisedVms) {
-            if (appVm.vm.getState().equals(VirtualMachine.State.SHUTDOWN)
-                    && appVm.pm.isCurrentlyHostableRequest(this.instance.arc)) {
+        for (int i = this.shutdownVms.nextSetBit(0); i >= 0; i = this.shutdownVms.nextSetBit(i + 1)) {
+            AppVm appVm = this.utilisedVms.get(i);
+            if (appVm.pm.isCurrentlyHostableRequest(this.instance.arc)) {
                 try {
                     ResourceAllocation ra = appVm.pm.allocateResources(this.instance.arc, false,
                             PhysicalMachine.defaultAllocLen);
@@ -286,14 +368,13 @@ public class Application extends Timed {
      * Turns off any VM that is currently in the RUNNING state and not working.
      */
     private void turnOffVm() {
-        for (AppVm appVm : this.utilisedVms) {
-            if (appVm.vm.getState().equals(VirtualMachine.State.RUNNING) && appVm.isWorking == false) {
-                try {
-                    appVm.vm.switchoff(false);
-                    SimLogger.logRun("\t" + name + " VM-" + appVm.id + " is turned off at: " + Timed.getFireCount());
-                } catch (StateChangeException e) {
-                    e.printStackTrace();
-                }
+        for (int i = this.idleVms.nextSetBit(0); i >= 0; i = this.idleVms.nextSetBit(i + 1)) {
+            AppVm appVm = this.utilisedVms.get(i);
+            try {
+                appVm.vm.switchoff(false);
+                SimLogger.logRun("\t" + name + " VM-" + appVm.id + " is turned off at: " + Timed.getFireCount());
+            } catch (StateChangeException e) {
+                e.printStackTrace();
             }
         }
     }
@@ -302,11 +383,11 @@ public class Application extends Timed {
      * It updates the running  VMs' statistics related to up-times. 
      */
     private void countVmRunningTime() {
-        for (AppVm appVm : this.utilisedVms) {
-            if (appVm.vm.getState().equals(VirtualMachine.State.RUNNING)) {
-                appVm.workTime += (Timed.getFireCount() - appVm.runningPeriod);
-                appVm.runningPeriod = Timed.getFireCount();
-            }
+        for (int i = this.runningVms.nextSetBit(0); i >= 0; i = this.runningVms.nextSetBit(i + 1)) {
+            AppVm appVm = this.utilisedVms.get(i);
+            this.totalVmWorkTime += (Timed.getFireCount() - appVm.runningPeriod);
+            appVm.workTime += (Timed.getFireCount() - appVm.runningPeriod);
+            appVm.runningPeriod = Timed.getFireCount();
         }
     }
 
@@ -361,7 +442,7 @@ public class Application extends Timed {
                 alreadyProcessedData += allocatedData;
                 this.processedData += allocatedData;
                 Application.totalProcessedSize += allocatedData;
-                appVm.isWorking = true;
+                this.setWorking(appVm, true);
                 this.taskInProgress++;
                 try {
                     appVm.vm.newComputeTask(noi, ResourceConsumption.unlimitedProcessing,
@@ -373,7 +454,7 @@ public class Application extends Timed {
                                 @Override
                                 public void conComplete() {
                                     saveStorageObject(allocatedData);
-                                    appVm.isWorking = false;
+                                    setWorking(appVm, false);
                                     appVm.taskCounter++;
                                     taskInProgress--;
                                     Application.lastAction = Timed.getFireCount();
@@ -397,6 +478,7 @@ public class Application extends Timed {
         if (this.incomingData == 0 && this.taskInProgress == 0 && this.processedData == this.receivedData
                 && this.checkDeviceState()) {
             unsubscribe();
+            this.computingAppliance.applicationStopped();
 
             try {
                 if (this.computingAppliance.broker.vm.getState().equals(VirtualMachine.State.RUNNING)) {
@@ -0,0 +1,294 @@
+package hu.u_szeged.inf.fog.simulator.application;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * This class is a spatial index of the applications based on the location and the range
+ * of their computing appliances, it is used by the device strategies to find the applications
+ * that are able to receive data from a device.
+ *
+ * <p>The surface of the earth is divided into a grid of {@link #CELL_SIZE} degree cells, and each
+ * application is put into the cells its range may overlap with (applications whose range covers
+ * a large part of the earth are kept in a separate list instead). A query only has to check the
+ * applications of the cell of the device, and the results are returned in the same order as they
+ * are in {@link Application#getAllApplications()}, so the strategies behave the same way as with
+ * a linear search.</p>
+ *
+ * <p>An application is indexed when its computing appliance is set. If the location or the range
+ * of a computing appliance is changed afterwards, {@link #update(Application)} must be called.</p>
+ */
+public class ApplicationIndex {
+
+    /**
+     * The size of a cell of the grid (in degrees).
+     */
+    public static final double CELL_SIZE = 1.0;
+
+    /**
+     * The number of rows (latitude bands) of the grid.
+     */
+    private static final int ROWS = (int) Math.ceil(180 / CELL_SIZE);
+
+    /**
+     * The number of columns (longitude bands) of the grid.
+     */
+    private static final int COLUMNS = (int) Math.ceil(360 / CELL_SIZE);
+
+    /**
+     * The applications covering more cells than this are kept in the global list.
+     */
+    private static final int MAX_CELLS = ROWS * COLUMNS / 8;
+
+    /**
+     * The index of the applications (each simulation context has its own).
+     */
+    private static final SimulationContext.Key<ApplicationIndex> index =
+            new SimulationContext.Key<>(ApplicationIndex::new);
+
+    /**
+     * Returns with the index of the applications of the current simulation.
+     */
+    public static ApplicationIndex current() {
+        return SimulationContext.current().get(index);
+    }
+
+    /**
+     * The ordinals (positions in the list of all applications) of the applications per cell
+     * in ascending order, null if the cell is empty.
+     */
+    private final int[][] cells = new int[ROWS * COLUMNS][];
+
+    /**
+     * The number of applications stored in each cell.
+     */
+    private final int[] cellSizes = new int[ROWS * COLUMNS];
+
+    /**
+     * The ordinals of the applications with (practically) unlimited range in ascending order.
+     */
+    private int[] global = new int[0];
+
+    /**
+     * The cells covered by the indexed applications.
+     */
+    private final IdentityHashMap<Application, int[]> coveredCells = new IdentityHashMap<>();
+
+    /**
+     * Puts the application into the index, or updates its place if it is already indexed.
+     * It must be called when the location or the range of the computing appliance of
+     * an application has changed.
+     *
+     * @param app the application to (re)index
+     */
+    public void update(Application app) {
+        this.remove(app);
+        if (app.computingAppliance == null) {
+            return;
+        }
+        int ordinal = Application.getAllApplications().indexOf(app);
+        if (ordinal < 0) {
+            return;
+        }
+        int[] covered = cover(app.computingAppliance.geoLocation, app.computingAppliance.range * 1000.0);
+        if (covered == null) {
+            this.global = insert(this.global, this.global.length, ordinal);
+        } else {
+            for (int cell : covered) {
+                if (this.cells[cell] == null) {
+                    this.cells[cell] = new int[2];
+                } else if (this.cellSizes[cell] == this.cells[cell].length) {
+                    this.cells[cell] = Arrays.copyOf(this.cells[cell], this.cellSizes[cell] * 2);
+                }
+                insert(this.cells[cell], this.cellSizes[cell]++, ordinal);
+            }
+        }
+        this.coveredCells.put(app, covered);
+    }
+
+    /**
+     * Removes the application from the index.
+     *
+     * @param app the application to remove
+     */
+    public void remove(Application app) {
+        if (!this.coveredCells.containsKey(app)) {
+            return;
+        }
+        int[] covered = this.coveredCells.remove(app);
+        int ordinal = Application.getAllApplications().indexOf(app);
+        if (covered == null) {
+            if (delete(this.global, this.global.length, ordinal)) {
+                this.global = Arrays.copyOf(this.global, this.global.length - 1);
+            }
+        } else {
+            for (int cell : covered) {
+                if (delete(this.cells[cell], this.cellSizes[cell], ordinal)) {
+                    this.cellSizes[cell]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns with the serviceable applications whose range covers the given location,
+     * in the order of the list of all applications.
+     *
+     * @param location the location of the device
+     */
+    public ArrayList<Application> inRange(GeoLocation location) {
+        ArrayList<Application> result = new ArrayList<>();
+        ArrayList<Application> all = Application.getAllApplications();
+        if (Math.abs(location.latitude) > 90 || Double.isNaN(location.longitude)) {
+            for (Application app : all) {
+                if (isAvailable(app, location)) {
+                    result.add(app);
+                }
+            }
+            return result;
+        }
+        int cell = row(location.latitude) * COLUMNS + column(location.longitude);
+        int[] local = this.cells[cell];
+        int localSize = local == null ? 0 : this.cellSizes[cell];
+        int i = 0;
+        int j = 0;
+        while (i < localSize || j < this.global.length) {
+            int ordinal;
+            if (j == this.global.length || (i < localSize && local[i] < this.global[j])) {
+                ordinal = local[i++];
+            } else {
+                ordinal = this.global[j++];
+            }
+            Application app = all.get(ordinal);
+            if (isAvailable(app, location)) {
+                result.add(app);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns with the k nearest serviceable applications whose range covers the given location.
+     * The applications are ordered by their distance, the ties are broken by the order of the
+     * list of all applications.
+     *
+     * @param location the location of the device
+     * @param k the maximum number of applications to return
+     */
+    public ArrayList<Application> nearest(GeoLocation location, int k) {
+        ArrayList<Application> candidates = this.inRange(location);
+        int n = candidates.size();
+        double[] distances = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = location.calculateDistance(candidates.get(i).computingAppliance.geoLocation);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> distances[a] != distances[b] ? Double.compare(distances[a], distances[b])
+                : Integer.compare(a, b));
+        ArrayList<Application> result = new ArrayList<>(Math.min(k, n));
+        for (int i = 0; i < n && i < k; i++) {
+            result.add(candidates.get(order[i]));
+        }
+        return result;
+    }
+
+    /**
+     * The exact check of an application, as the cells only give candidates.
+     */
+    private static boolean isAvailable(Application app, GeoLocation location) {
+        return app.serviceable && location.calculateDistance(app.computingAppliance.geoLocation)
+                <= app.computingAppliance.range * 1000;
+    }
+
+    /**
+     * Determines the cells a circle may overlap with.
+     *
+     * @param center the center of the circle
+     * @param radius the radius of the circle (m)
+     * @return the indices of the cells, or null if the circle covers too many cells
+     */
+    private static int[] cover(GeoLocation center, double radius) {
+        if (Math.abs(center.latitude) > 90 || Double.isNaN(center.longitude)) {
+            return null;
+        }
+        // the angular radius is slightly enlarged, so the rounding errors
+        // of the distance calculation cannot make a cell missing
+        double delta = radius / (GeoLocation.earthRadius * 1000) * (1 + 1e-9) + 1e-12;
+        if (delta >= Math.PI / 2) {
+            return null;
+        }
+        double deltaDegrees = Math.toDegrees(delta);
+        int firstRow = row(center.latitude - deltaDegrees);
+        int lastRow = row(center.latitude + deltaDegrees);
+        int firstColumn;
+        int columnCount;
+        double sinLongitude = Math.sin(delta) / Math.cos(Math.toRadians(center.latitude));
+        if (center.latitude + deltaDegrees >= 90 || center.latitude - deltaDegrees <= -90 || sinLongitude >= 1) {
+            firstColumn = 0;
+            columnCount = COLUMNS;
+        } else {
+            double deltaLongitude = Math.toDegrees(Math.asin(sinLongitude));
+            long first = (long) Math.floor((center.longitude - deltaLongitude + 180) / CELL_SIZE);
+            long last = (long) Math.floor((center.longitude + deltaLongitude + 180) / CELL_SIZE);
+            firstColumn = (int) Math.floorMod(first, (long) COLUMNS);
+            columnCount = (int) Math.min(COLUMNS, last - first + 1);
+        }
+        int rowCount = lastRow - firstRow + 1;
+        if ((long) rowCount * columnCount > MAX_CELLS) {
+            return null;
+        }
+        int[] covered = new int[rowCount * columnCount];
+        int k = 0;
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                covered[k++] = r * COLUMNS + (firstColumn + c) % COLUMNS;
+            }
+        }
+        return covered;
+    }
+
+    private static int row(double latitude) {
+        return Math.max(0, Math.min(ROWS - 1, (int) Math.floor((latitude + 90) / CELL_SIZE)));
+    }
+
+    private static int column(double longitude) {
+        double normalised = ((longitude + 180) % 360 + 360) % 360;
+        return Math.min(COLUMNS - 1, (int) Math.floor(normalised / CELL_SIZE));
+    }
+
+    /**
+     * Inserts an ordinal into a sorted array, the array is grown if it is full.
+     *
+     * @return the array containing the ordinal
+     */
+    private static int[] insert(int[] array, int size, int ordinal) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size + 1);
+        }
+        int i = size;
+        while (i > 0 && array[i - 1] > ordinal) {
+            array[i] = array[i - 1];
+            i--;
+        }
+        array[i] = ordinal;
+        return array;
+    }
+
+    /**
+     * Deletes an ordinal from a sorted array, the elements after it are shifted left.
+     *
+     * @return false if the array did not contain the ordinal
+     */
+    private static boolean delete(int[] array, int size, int ordinal) {
+        int i = Arrays.binarySearch(array, 0, size, ordinal);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(array, i + 1, array, i, size - i - 1);
+        return true;
+    }
+}
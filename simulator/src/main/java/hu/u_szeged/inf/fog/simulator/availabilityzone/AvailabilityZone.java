@@ -10,6 +10,7 @@ import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption
 import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode.NetworkException;
 import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
 import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.SelectionStrategyEnum.SelectionStrategy;
 
 import java.util.List;
 
@@ -108,16 +109,35 @@ public class AvailabilityZone {
 
     /**
      * Handles the read request for a specified data object, downloading it from the
-     * selected availability zone.
+     * selected availability zone, without attributing it to a selection strategy.
      *
      * @param userPm       the user's physical machine initiating the read request
      * @param data         the data object to be read
      * @param selectedZone the availability zone containing the requested data
      * @param startTime    the start time of the operation
+     * @param statistics   the collector of the statistics
      * @return the simulated completion time of the operation.
      */
     public long readData(PhysicalMachineWithLocation userPm, StorageObject data, AvailabilityZone selectedZone,
             long startTime, StatisticsCollector statistics) {
+        return readData(userPm, data, selectedZone, startTime, statistics, null);
+    }
+
+    /**
+     * Handles the read request for a specified data object, downloading it from the
+     * selected availability zone.
+     *
+     * @param userPm       the user's physical machine initiating the read request
+     * @param data         the data object to be read
+     * @param selectedZone the availability zone containing the requested data
+     * @param startTime    the start time of the operation
+     * @param statistics   the collector of the statistics
+     * @param strategy     the strategy the zone was selected with, used for the
+     *                     statistics only, can be {@code null}
+     * @return the simulated completion time of the operation.
+     */
+    public long readData(PhysicalMachineWithLocation userPm, StorageObject data, AvailabilityZone selectedZone,
+            long startTime, StatisticsCollector statistics, SelectionStrategy strategy) {
         if (selectedZone.getRepository().lookup(data.id) == null) {
             System.err
                     .println("Data " + data.id + " not found in repository " + selectedZone.getRepository().getName());
@@ -156,7 +176,7 @@ public class AvailabilityZone {
                                     + " simulated seconds. File size: " + data.size);
                             Region.updateZoneUsage(selectedZone);
                             statistics.logRead(userPm.getLocation().getCity(), selectedZone.getLocation().getCity(),
-                                    delta);
+                                    strategy, delta);
                         }
 
                         @Override
@@ -185,28 +205,57 @@ public class AvailabilityZone {
         }
     }
 
+    /**
+     * Handles the write request for a data object, ensuring redundancy across
+     * multiple availability zones, without attributing it to a selection strategy
+     * and without a completion callback.
+     *
+     * @param userPm              the user's physical machine initiating the write
+     *                            request
+     * @param data                the data object to be written
+     * @param availabilityZones   the list of availability zones for redundant storage
+     * @param statisticsCollector the collector of the statistics
+     * @return the estimated simulated completion time of the first write operation.
+     * @see #writeData(PhysicalMachineWithLocation, StorageObject, List, StatisticsCollector, SelectionStrategy, Runnable)
+     */
+    public long writeData(PhysicalMachineWithLocation userPm, StorageObject data,
+            List<AvailabilityZone> availabilityZones, StatisticsCollector statisticsCollector) {
+        return writeData(userPm, data, availabilityZones, statisticsCollector, null, null);
+    }
+
     /**
      * Handles the write request for a data object, ensuring redundancy across
      * multiple availability zones.
+     * 
+     * <p>
+     * The write is asynchronous: the method only initiates the transfer to this
+     * zone and returns. Once that transfer completes, the propagation to the
+     * other available zones is started from its completion event. Thus several
+     * writes can overlap in simulated time, the caller is expected to run the
+     * simulation (e.g., with {@link Timed#simulateUntilLastEvent()}).
+     * </p>
      *
      * @param userPm            the user's physical machine initiating the write
      *                          request
      * @param data              the data object to be written
      * @param availabilityZones the list of availability zones for redundant storage
-     * @return the simulated completion time of the first write operation.
+     * @param statisticsCollector the collector of the statistics
+     * @param strategy          the strategy this zone was selected with, used for the
+     *                          statistics only, can be {@code null}
+     * @param onCompletion      called when the write request is finished, i.e., all
+     *                          propagations ended or the initial write failed, can
+     *                          be {@code null}
+     * @return the estimated simulated completion time of the first write operation.
      */
-
     public long writeData(PhysicalMachineWithLocation userPm, StorageObject data,
-            List<AvailabilityZone> availabilityZones, StatisticsCollector statisticsCollector) {
+            List<AvailabilityZone> availabilityZones, StatisticsCollector statisticsCollector,
+            SelectionStrategy strategy, Runnable onCompletion) {
 
         Repository userRepo = userPm.localDisk;
         long startTime = Timed.getFireCount();
 
         System.out.println("Handling write request for data: " + data.id + " in AZ: " + this.name);
 
-        // Perform the first write operation
-        long firstWriteCompletionTime;
-
         try {
             ResourceConsumption consumption = userRepo.requestContentDelivery(
                     data.id,
@@ -218,79 +267,135 @@ public class AvailabilityZone {
                             System.out.println("Data successfully written to AZ: " + name +
                                     " at simulated time: " + endTime);
                             statisticsCollector.logWrite(availabilityZones.get(0).getLocation().getCity(),
-                                    endTime - startTime);
+                                    strategy, endTime - startTime);
                             Region.updateZoneUsage(availabilityZones.get(0));
+                            System.out.println("Initial write to AZ: " + name + " completed. Starting propagation...");
+                            new Propagation(userPm, data, startTime, statisticsCollector, strategy, onCompletion)
+                                    .start(availabilityZones);
                         }
 
                         @Override
                         public void conCancelled(ResourceConsumption problematic) {
                             System.err.println("Data write to AZ: " + name + " was cancelled.");
+                            notifyCompletion(onCompletion);
                         }
                     });
 
             if (consumption == null) {
                 System.err.println("Write failed for AZ: " + name + ". Not enough space or error.");
                 statisticsCollector.logWriteFailure(userPm.getLocation().getCity(), "NOT ENOUGH SPACE", data.id);
+                notifyCompletion(onCompletion);
                 return startTime;
             }
 
-            firstWriteCompletionTime = startTime + consumption.getCompletionDistance();
+            return startTime + consumption.getCompletionDistance();
         } catch (NetworkException e) {
             System.err.println("Network exception occurred during write to AZ: " + name);
             statisticsCollector.logWriteFailure(userPm.getLocation().getCity(), "NETWORK ERROR", data.id);
             e.printStackTrace();
+            notifyCompletion(onCompletion);
             return startTime;
         }
+    }
 
-        while (Timed.getFireCount() < firstWriteCompletionTime || this.repository.lookup(data.id) == null) {
-            Timed.simulateUntilLastEvent();
+    private static void notifyCompletion(Runnable onCompletion) {
+        if (onCompletion != null) {
+            onCompletion.run();
         }
+    }
 
-        System.out.println("Initial write to AZ: " + this.name + " completed. Starting propagation...");
-
-        // Propagate data redundantly between other AZs
-        for (AvailabilityZone zone : availabilityZones) {
-            if (zone != this && zone.isAvailable() && zone.getRepository().lookup(data.id) == null) {
-                try {
-                    System.out.println("Initiating propagation to AZ: " + zone.getName());
-                    ResourceConsumption consumption = this.repository.requestContentDelivery(
-                            data.id,
-                            zone.getRepository(),
-                            new ResourceConsumption.ConsumptionEvent() {
-                                @Override
-                                public void conComplete() {
-                                    long endTime = Timed.getFireCount();
-                                    System.out.println("Data successfully propagated to AZ: " + zone.getName() +
-                                            " at simulated time: " + endTime);
-                                    statisticsCollector.logWrite(zone.getLocation().getCity(), endTime - startTime);
-                                    Region.updateZoneUsage(zone);
-
-                                }
-
-                                @Override
-                                public void conCancelled(ResourceConsumption problematic) {
-                                    System.err.println("Data propagation to AZ: " + zone.getName() + " was cancelled.");
-                                }
-                            });
-
-                    if (consumption == null) {
-                        System.err.println("Failed to initiate propagation to AZ: " + zone.getName());
-                    }
-                } catch (NetworkException e) {
-                    System.err.println("Network exception during propagation to AZ: " + zone.getName());
-                    statisticsCollector.logWriteFailure(userPm.getLocation().getCity(), "NETWORK ERROR", data.id);
-                    e.printStackTrace();
+    /**
+     * The redundant copying of a freshly written data object from this zone to
+     * the other zones. The copies are transferred concurrently, the write request
+     * is finished when the last of them completes (or gets cancelled).
+     */
+    private class Propagation implements ResourceConsumption.ConsumptionEvent {
+        private final PhysicalMachineWithLocation userPm;
+        private final StorageObject data;
+        private final long startTime;
+        private final StatisticsCollector statisticsCollector;
+        private final SelectionStrategy strategy;
+        private final Runnable onCompletion;
+        private int pending;
+
+        Propagation(PhysicalMachineWithLocation userPm, StorageObject data, long startTime,
+                StatisticsCollector statisticsCollector, SelectionStrategy strategy, Runnable onCompletion) {
+            this.userPm = userPm;
+            this.data = data;
+            this.startTime = startTime;
+            this.statisticsCollector = statisticsCollector;
+            this.strategy = strategy;
+            this.onCompletion = onCompletion;
+        }
+
+        void start(List<AvailabilityZone> availabilityZones) {
+            for (AvailabilityZone zone : availabilityZones) {
+                if (zone != AvailabilityZone.this && zone.isAvailable()
+                        && zone.getRepository().lookup(data.id) == null) {
+                    propagateTo(zone);
+                } else if (!zone.isAvailable()) {
+                    System.out.println("Skipping unavailable AZ: " + zone.getName());
                 }
-            } else if (!zone.isAvailable()) {
-                System.out.println("Skipping unavailable AZ: " + zone.getName());
+            }
+            if (pending == 0) {
+                finish();
             }
         }
 
-        long endTime = Timed.getFireCount();
-        long delta = endTime - startTime;
-        System.out.println("Write request completed: Data with ID: " + data.id +
-                " stored redundantly across all available AZs. Time taken: " + delta + " simulated seconds.");
-        return firstWriteCompletionTime;
+        private void propagateTo(AvailabilityZone zone) {
+            try {
+                System.out.println("Initiating propagation to AZ: " + zone.getName());
+                ResourceConsumption consumption = repository.requestContentDelivery(
+                        data.id,
+                        zone.getRepository(),
+                        new ResourceConsumption.ConsumptionEvent() {
+                            @Override
+                            public void conComplete() {
+                                long endTime = Timed.getFireCount();
+                                System.out.println("Data successfully propagated to AZ: " + zone.getName() +
+                                        " at simulated time: " + endTime);
+                                statisticsCollector.logWrite(zone.getLocation().getCity(), strategy, endTime - startTime);
+                                Region.updateZoneUsage(zone);
+                                Propagation.this.conComplete();
+                            }
+
+                            @Override
+                            public void conCancelled(ResourceConsumption problematic) {
+                                System.err.println("Data propagation to AZ: " + zone.getName() + " was cancelled.");
+                                Propagation.this.conCancelled(problematic);
+                            }
+                        });
+
+                if (consumption == null) {
+                    System.err.println("Failed to initiate propagation to AZ: " + zone.getName());
+                } else {
+                    pending++;
+                }
+            } catch (NetworkException e) {
+                System.err.println("Network exception during propagation to AZ: " + zone.getName());
+                statisticsCollector.logWriteFailure(userPm.getLocation().getCity(), "NETWORK ERROR", data.id);
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public void conComplete() {
+            if (--pending == 0) {
+                finish();
+            }
+        }
+
+        @Override
+        public void conCancelled(ResourceConsumption problematic) {
+            conComplete();
+        }
+
+        private void finish() {
+            long delta = Timed.getFireCount() - startTime;
+            System.out.println("Write request completed: Data with ID: " + data.id +
+                    " stored redundantly across all available AZs. Time taken: " + delta + " simulated seconds.");
+            notifyCompletion(onCompletion);
+        }
     }
 
 }
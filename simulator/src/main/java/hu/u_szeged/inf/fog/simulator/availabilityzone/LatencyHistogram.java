@@ -0,0 +1,182 @@
+package hu.u_szeged.inf.fog.simulator.availabilityzone;
+
+/**
+ * A constant-memory histogram of non-negative durations (e.g., the simulated
+ * time taken by read and write operations), following the bucketing scheme of
+ * HdrHistogram.
+ *
+ * <p>
+ * Values below {@code 2^precisionBits} are counted exactly. Larger values fall
+ * into logarithmic buckets (one per power of two), and each of those is split
+ * into {@code 2^(precisionBits-1)} linear sub-buckets. This bounds the relative
+ * error of the reported percentiles by {@code 2^-(precisionBits-1)}. The whole
+ * range of {@code long} values is covered with a fixed array of counters.
+ * Recording a value is an O(1) operation that does not allocate. The minimum,
+ * maximum, count and total of the recorded values are tracked exactly.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    /**
+     * The precision used by the default constructor, it gives a relative error
+     * below 1.6%.
+     */
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long[] counts;
+
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Constructs a histogram with {@link #DEFAULT_PRECISION_BITS}.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * Constructs a histogram with the given precision.
+     *
+     * @param precisionBits the number of bits kept from the recorded values, must be
+     *                      between 2 and 16
+     */
+    public LatencyHistogram(int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 16) {
+            throw new IllegalArgumentException("The precision must be between 2 and 16 bits: " + precisionBits);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.subBucketHalfCount = subBucketCount >>> 1;
+        this.counts = new long[subBucketCount + (Long.SIZE - precisionBits) * subBucketHalfCount];
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param value the value to record, must not be negative
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative values cannot be recorded: " + value);
+        }
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values recorded in another histogram of the same precision to this
+     * one.
+     *
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        if (other.precisionBits != precisionBits) {
+            throw new IllegalArgumentException("Histograms with different precisions cannot be added");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Determines the value below which the given percentage of the recorded
+     * values fall. The result is the upper end of the bucket the percentile is
+     * in, capped by the maximum recorded value.
+     *
+     * @param percentile the percentile to look for, between 0 and 100
+     * @return the value at the percentile, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the number of recorded values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the recorded values.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the smallest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the largest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the average of the recorded values, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * @return a one line summary of the distribution: count, mean and the
+     *         p50/p90/p99/p99.9/max values.
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d", count, getMean(),
+                getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99),
+                getValueAtPercentile(99.9), max);
+    }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        // The value's magnitude determines the bucket, the bits right after its
+        // leading one determine the sub-bucket
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - precisionBits;
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + subBucket - subBucketHalfCount;
+    }
+
+    private long highestValueOf(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = (index - subBucketCount) / subBucketHalfCount + 1;
+        long subBucket = (index - subBucketCount) % subBucketHalfCount + subBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
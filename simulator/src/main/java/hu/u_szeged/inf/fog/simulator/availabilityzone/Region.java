@@ -11,6 +11,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
 import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
 import hu.u_szeged.inf.fog.simulator.availabilityzone.SelectionStrategyEnum.SelectionStrategy;
@@ -48,9 +49,27 @@ public class Region {
     // Map to track the last usage time of each AZ
     private static Map<AvailabilityZone, Long> zoneLastUsage;
 
+    // Indexes for zone selection, the zones are identified by their position in this array
+    private final AvailabilityZone[] indexedZones;
+    private final ZoneIndex spatialIndex;
+    private final ZoneRanking loadRanking;
+    private final Map<String, ZoneRanking> latencyRankings = new HashMap<>();
+
+    // The listeners keeping the indexes up to date, indexed by the zones' ordinals
+    private final PhysicalMachine.StateChangeListener[] stateListeners;
+    private final Repository.StorageChangeListener[] storageListeners;
+
     /**
      * Constructs a Region instance with the specified Availability Zones and
      * selection strategy.
+     * 
+     * <p>
+     * The zones are indexed for the selection strategies at construction time:
+     * the nearest zone is looked up in a spatial index, while the least loaded
+     * and lowest latency zones are kept in rankings that follow the state and
+     * storage changes of the zones. Hence, the zone list should not be changed
+     * afterwards.
+     * </p>
      *
      * @param zones    the list of availability zones in the region
      * @param strategy the strategy for selecting availability zones
@@ -62,6 +81,54 @@ public class Region {
         Region.zoneLastUsage = new ConcurrentHashMap<>();
         // Initialize usage timestamps for all zones
         zones.forEach(zone -> zoneLastUsage.put(zone, 0L));
+
+        this.indexedZones = zones.toArray(new AvailabilityZone[0]);
+        this.spatialIndex = new ZoneIndex(zones);
+        this.loadRanking = new ZoneRanking(indexedZones, AvailabilityZone::getLoad);
+        this.stateListeners = new PhysicalMachine.StateChangeListener[indexedZones.length];
+        this.storageListeners = new Repository.StorageChangeListener[indexedZones.length];
+        for (int i = 0; i < indexedZones.length; i++) {
+            final int ordinal = i;
+            AvailabilityZone zone = indexedZones[i];
+            stateListeners[i] = (pm, oldState, newState) -> availabilityChanged(ordinal, newState);
+            storageListeners[i] = repo -> loadRanking.update(ordinal);
+            zone.getPm().subscribeStateChangeEvents(stateListeners[i]);
+            zone.getPm().localDisk.subscribeToStorageChanges(storageListeners[i]);
+            if (zone.isAvailable()) {
+                loadRanking.add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Tears down the region: it stops observing the state and storage changes of
+     * its zones, so the zones do not keep the region alive. The region must not
+     * be used afterwards.
+     */
+    public void close() {
+        for (int i = 0; i < indexedZones.length; i++) {
+            if (stateListeners[i] != null) {
+                indexedZones[i].getPm().unsubscribeStateChangeEvents(stateListeners[i]);
+                indexedZones[i].getPm().localDisk.unsubscribeFromStorageChanges(storageListeners[i]);
+                stateListeners[i] = null;
+                storageListeners[i] = null;
+            }
+        }
+        latencyRankings.clear();
+    }
+
+    /**
+     * Keeps the rankings in sync with the availability of the zones, only running
+     * zones are ranked.
+     */
+    private void availabilityChanged(int ordinal, PhysicalMachineWithLocation.State newState) {
+        if (newState == PhysicalMachineWithLocation.State.RUNNING) {
+            loadRanking.add(ordinal);
+            latencyRankings.values().forEach(ranking -> ranking.add(ordinal));
+        } else {
+            loadRanking.remove(ordinal);
+            latencyRankings.values().forEach(ranking -> ranking.remove(ordinal));
+        }
     }
 
     /**
@@ -84,14 +151,13 @@ public class Region {
             SelectionStrategy selectionStrategy) {
         long startTime = Timed.getFireCount(); // Capture start time
 
-        List<AvailabilityZone> availabilityZones = getSelectedZone(userPm, selectionStrategy, zones);
-        if (availabilityZones.size() > 0) {
-            AvailabilityZone selectedZone = availabilityZones.get(0);
-
+        AvailabilityZone selectedZone = getSelectedZone(userPm, selectionStrategy, zones);
+        if (selectedZone != null) {
             System.out.println(String.format("User from %s is reading data from AZ located in %s",
                     userPm.getLocation().getCity(), selectedZone.getLocation().getCity()));
 
-            long readCompletionTime = selectedZone.readData(userPm, data, selectedZone, startTime, statisticsCollector);
+            long readCompletionTime = selectedZone.readData(userPm, data, selectedZone, startTime, statisticsCollector,
+                    selectionStrategy);
 
             return readCompletionTime; // Pass back the completion time
         } else {
@@ -104,14 +170,15 @@ public class Region {
     }
 
     /**
-     * Gets a list of availability zones based on the specified selection strategy.
+     * Gets the availability zone to use based on the specified selection strategy.
      *
      * @param pm                     the physical machine making the request
      * @param selectedStrageStrategy the selection strategy to apply
      * @param selectableZone         the list of availability zones to consider
-     * @return a list of selected availability zones based on the strategy.
+     * @return the selected availability zone, or {@code null} if none of the
+     *         zones is available.
      */
-    private List<AvailabilityZone> getSelectedZone(PhysicalMachineWithLocation pm,
+    private AvailabilityZone getSelectedZone(PhysicalMachineWithLocation pm,
             SelectionStrategy selectedStrageStrategy, List<AvailabilityZone> selecteableZone) {
         switch (selectedStrageStrategy) {
             case NEAREST:
@@ -123,102 +190,104 @@ public class Region {
             case MOST_RECENTLY_USED:
                 return findMostRecentlyUsedAZ(selecteableZone);
             case LOWEST_LATENCY:
-                return findZonesByLatency(pm.localDisk.getName());
+                return findZoneByLatency(pm.localDisk.getName());
             default:
                 return null;
         }
     }
 
     /**
-     * Finds and returns a list of availability zones sorted by their latency to a
-     * specified target repository.
-     * Only zones that are currently available are included in the result.
+     * Finds the available zone with the lowest latency to a specified target
+     * repository. If a latency value is missing for a zone, it is treated as
+     * {@code Integer.MAX_VALUE}.
      *
      * <p>
-     * This method retrieves the latency from each zone's repository to the
-     * specified target repository
-     * and sorts the zones in ascending order of latency. If a latency value is
-     * missing for a zone,
-     * it defaults to {@code Integer.MAX_VALUE}, placing such zones at the end of
-     * the list.
+     * The zones are ranked separately for each target repository, the ranking is
+     * created on the first request towards the target and then maintained as the
+     * zones become (un)available. Latency changes are not observed, so the
+     * rankings must be dropped with {@link #invalidateLatencyRankings()} if
+     * the latencies of the zones' repositories are altered outside of
+     * {@link #assignLatencies(List, Random)}.
      * </p>
      *
      * @param targetRepoName the name of the target repository for which latency is
      *                       calculated
-     * @return a list of {@code AvailabilityZone} objects sorted by latency to the
-     *         specified target repository,
-     *         including only zones that are currently available
+     * @return the available zone with the lowest latency, or {@code null}.
      */
-    private List<AvailabilityZone> findZonesByLatency(String targetRepoName) {
-        // Sort zones by latency to the target repository and filter available zones
-        return zones.stream()
-                .filter(AvailabilityZone::isAvailable) // Only include available zones
-                .sorted(Comparator.comparingInt(zone -> {
-                    // Get the latency for each zone's repository to the target repository
-                    Map<String, Integer> latencies = zone.getPm().localDisk.getLatencies();
-                    return latencies.getOrDefault(targetRepoName, Integer.MAX_VALUE); // Default to a high value if
-                                                                                      // latency is missing
-                }))
-                .collect(Collectors.toList());
+    private AvailabilityZone findZoneByLatency(String targetRepoName) {
+        ZoneRanking ranking = latencyRankings.get(targetRepoName);
+        if (ranking == null) {
+            ranking = new ZoneRanking(indexedZones,
+                    zone -> zone.getPm().localDisk.getLatencies().getOrDefault(targetRepoName, Integer.MAX_VALUE));
+            for (int i = 0; i < indexedZones.length; i++) {
+                if (indexedZones[i].isAvailable()) {
+                    ranking.add(i);
+                }
+            }
+            latencyRankings.put(targetRepoName, ranking);
+        }
+        return ranking.first();
     }
 
     /**
-     * Finds the nearest availability zones based on the user's location.
+     * Drops the latency based rankings of the zones, they are rebuilt with the
+     * current latencies on the next request.
+     */
+    public void invalidateLatencyRankings() {
+        latencyRankings.clear();
+    }
+
+    /**
+     * Finds the nearest available zone based on the user's location.
      *
      * @param userLatitude  the user's latitude
      * @param userLongitude the user's longitude
-     * @return a list of the nearest availability zones.
+     * @return the nearest available zone, or {@code null}.
      */
-    private List<AvailabilityZone> findNearestAZ(double userLatitude, double userLongitude) {
-        // Find all zones sorted by distance, with available zones filtered
-        return zones.stream()
-                .filter(AvailabilityZone::isAvailable)
-                .sorted(Comparator.comparingDouble(zone -> zone.calculateDistance(userLatitude, userLongitude)))
-                .collect(Collectors.toList());
+    private AvailabilityZone findNearestAZ(double userLatitude, double userLongitude) {
+        return spatialIndex.nearest(userLatitude, userLongitude, AvailabilityZone::isAvailable);
     }
 
     /**
-     * Finds the least loaded availability zones.
+     * Finds the least loaded availability zone.
      *
-     * @return a list of the least loaded availability zones.
+     * @return the least loaded available zone, or {@code null}.
      */
-    private List<AvailabilityZone> findLeastLoadedAZ() {
-        // Find all zones sorted by load, with available zones filtered
-        return zones.stream()
-                .filter(AvailabilityZone::isAvailable)
-                .sorted(Comparator.comparingDouble(AvailabilityZone::getLoad))
-                .collect(Collectors.toList());
+    private AvailabilityZone findLeastLoadedAZ() {
+        return loadRanking.first();
     }
 
     /**
      * Finds a random availability zone.
      *
-     * @return a list of availability zones in random order.
+     * @return a randomly chosen available zone, or {@code null}.
      */
-    private List<AvailabilityZone> findRandomAZ() {
+    private AvailabilityZone findRandomAZ() {
         List<AvailabilityZone> availableZones = zones.stream()
                 .filter(AvailabilityZone::isAvailable)
                 .collect(Collectors.toList());
         if (availableZones.isEmpty())
-            return Collections.emptyList();
-        // Shuffle the list to return zones in random order
-        Collections.shuffle(availableZones, new Random());
-        return availableZones;
+            return null;
+        return availableZones.get(new Random().nextInt(availableZones.size()));
     }
 
     /**
-     * Finds the most recently used availability zones.
+     * Finds the most recently used availability zone.
      *
      * @param selectableZones the list of selectable zones
-     * @return a list of the most recently used availability zones.
+     * @return the most recently used available zone, or {@code null}.
      */
-    private List<AvailabilityZone> findMostRecentlyUsedAZ(List<AvailabilityZone> selectableZones) {
-        // Find all zones sorted by most recent usage
-        return selectableZones.stream()
-                .filter(AvailabilityZone::isAvailable)
-                .sorted((zone1, zone2) -> Long.compare(zoneLastUsage.getOrDefault(zone2, 0L),
-                        zoneLastUsage.getOrDefault(zone1, 0L)))
-                .collect(Collectors.toList());
+    private AvailabilityZone findMostRecentlyUsedAZ(List<AvailabilityZone> selectableZones) {
+        AvailabilityZone mostRecent = null;
+        long mostRecentUsage = Long.MIN_VALUE;
+        for (AvailabilityZone zone : selectableZones) {
+            long usage = zoneLastUsage.getOrDefault(zone, 0L);
+            if (zone.isAvailable() && usage > mostRecentUsage) {
+                mostRecent = zone;
+                mostRecentUsage = usage;
+            }
+        }
+        return mostRecent;
     }
 
     /**
@@ -230,15 +299,27 @@ public class Region {
      * @return the simulated completion time of the write operation.
      */
     public long handleWriteRequest(PhysicalMachineWithLocation userPm, StorageObject data) {
-        // Step 1: Select the AZs using the selection strategy
-        List<AvailabilityZone> availabilityZones = getSelectedZone(userPm, this.selectionStrategy, zones);
+        return handleWriteRequest(userPm, data, null);
+    }
 
-        if (availabilityZones.size() > 0) {
-            // Step 2: Get the selected AZ for the initial write
-            AvailabilityZone selectedZone = availabilityZones.get(0);
+    /**
+     * Handles a write request for a data object, ensuring redundancy across
+     * availability zones. The write proceeds asynchronously with the simulation.
+     *
+     * @param userPm       the physical machine making the write request
+     * @param data         the data object to write
+     * @param onCompletion called when the write and its propagation are finished,
+     *                     can be {@code null}
+     * @return the estimated simulated completion time of the initial write.
+     */
+    public long handleWriteRequest(PhysicalMachineWithLocation userPm, StorageObject data, Runnable onCompletion) {
+        // Step 1: Select the AZ using the selection strategy
+        AvailabilityZone selectedZone = getSelectedZone(userPm, this.selectionStrategy, zones);
 
+        if (selectedZone != null) {
             // Step 4: Perform the write operation
-            long completionTime = selectedZone.writeData(userPm, data, zones, statisticsCollector);
+            long completionTime = selectedZone.writeData(userPm, data, zones, statisticsCollector,
+                    this.selectionStrategy, onCompletion);
 
             // Return the completion time for further processing
             return completionTime;
@@ -246,6 +327,9 @@ public class Region {
             // Step 7: Log a failure case for write request
             statisticsCollector.logWriteFailure(userPm.getLocation().getCity(), "NO AVAILABLE ZONE", data.id);
             System.out.println("Write request failed: No available AZs for write.");
+            if (onCompletion != null) {
+                onCompletion.run();
+            }
             return Timed.getFireCount();
         }
     }
@@ -304,5 +388,6 @@ public class Region {
                 }
             }
         }
+        invalidateLatencyRankings();
     }
 }
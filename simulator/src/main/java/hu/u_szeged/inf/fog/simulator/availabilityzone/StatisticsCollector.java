@@ -2,13 +2,13 @@ package hu.u_szeged.inf.fog.simulator.availabilityzone;
 
 import hu.u_szeged.inf.fog.simulator.availabilityzone.SelectionStrategyEnum.SelectionStrategy;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * A class for collecting and managing statistics related to write and read operations
  * across Availability Zones (AZs) in a distributed system simulation.
- * 
+ *
  * The {@code StatisticsCollector} tracks:
  * <ul>
  *   <li>Total number of write and read operations</li>
@@ -18,118 +18,236 @@ import java.util.Map;
  * </ul>
  * This information can be used to analyze and evaluate the performance of different
  * selection strategies for AZs.
+ *
+ * <p>
+ * The times taken are recorded in {@link LatencyHistogram}s per AZ, operation and
+ * selection strategy, so besides the averages the tail latencies (p50, p90, p99,
+ * p99.9 and max) are reported as well. The memory used does not grow with the
+ * number of operations, and logging an operation on an already known AZ does not
+ * allocate.
+ * </p>
  */
 public class StatisticsCollector {
 
-    private Map<String, Integer> writeRequestsPerAZ = new HashMap<>();
-    private Map<String, Integer> readRequestsPerAZ = new HashMap<>();
-    private Map<String, Long> totalWriteTimePerAZ = new HashMap<>();
-    private Map<String, Long> totalReadTimePerAZ = new HashMap<>();
-    private int totalWrites = 0;
-    private int totalReads = 0;
-    private long totalWriteTime = 0;
-    private long totalReadTime = 0;
+    /**
+     * The kinds of operations the collector distinguishes.
+     */
+    public enum Operation {
+        READ, WRITE
+    }
+
+    private static final SelectionStrategy[] STRATEGIES = SelectionStrategy.values();
+
+    private Map<String, ZoneStatistics> statisticsPerAZ = new LinkedHashMap<>();
+    private LatencyHistogram[] totals = { new LatencyHistogram(), new LatencyHistogram() };
 
     // Track failed read operations
     private int totalReadFailures = 0;
-    private Map<String, Integer> readFailuresPerAZ = new HashMap<>();
-    private Map<String, Integer> readFailuresPerUser = new HashMap<>();
+    private Map<String, Counter> readFailuresPerAZ = new LinkedHashMap<>();
+    private Map<String, Counter> readFailuresPerUser = new LinkedHashMap<>();
 
     // Track all read requests with user location and AZ
-    private Map<String, Integer> readsUserToAZ = new HashMap<>();
+    private Map<String, Map<String, Counter>> readsUserToAZ = new LinkedHashMap<>();
 
     /**
-     * Logs a successful write operation to an AZ.
-     * 
+     * Logs a successful write operation to an AZ without attributing it to a
+     * selection strategy.
+     *
      * @param azName    the name of the AZ where the write operation occurred
      * @param timeTaken the simulated time taken for the write operation
      */
     public void logWrite(String azName, long timeTaken) {
-        writeRequestsPerAZ.put(azName, writeRequestsPerAZ.getOrDefault(azName, 0) + 1);
-        totalWriteTimePerAZ.put(azName, totalWriteTimePerAZ.getOrDefault(azName, 0L) + timeTaken);
-        totalWrites++;
-        totalWriteTime += timeTaken;
+        logWrite(azName, null, timeTaken);
     }
 
     /**
-     * Logs a successful read operation from an AZ by a user.
-     * 
+     * Logs a successful write operation to an AZ.
+     *
+     * @param azName    the name of the AZ where the write operation occurred
+     * @param strategy  the strategy the AZ was selected with, can be {@code null}
+     * @param timeTaken the simulated time taken for the write operation
+     */
+    public void logWrite(String azName, SelectionStrategy strategy, long timeTaken) {
+        zone(azName).histogram(Operation.WRITE, strategy).record(timeTaken);
+        totals[Operation.WRITE.ordinal()].record(timeTaken);
+    }
+
+    /**
+     * Logs a successful read operation from an AZ by a user without attributing it
+     * to a selection strategy.
+     *
      * @param userCity  the city of the user who initiated the read request
      * @param azName    the name of the AZ from which the data was read
      * @param timeTaken the simulated time taken for the read operation
      */
     public void logRead(String userCity, String azName, long timeTaken) {
-        readRequestsPerAZ.put(azName, readRequestsPerAZ.getOrDefault(azName, 0) + 1);
-        totalReadTimePerAZ.put(azName, totalReadTimePerAZ.getOrDefault(azName, 0L) + timeTaken);
-        totalReads++;
-        totalReadTime += timeTaken;
+        logRead(userCity, azName, null, timeTaken);
+    }
 
-        // Combine User and AZ for specific tracking
-        String userToAZKey = userCity + " -> " + azName;
-        readsUserToAZ.put(userToAZKey, readsUserToAZ.getOrDefault(userToAZKey, 0) + 1);
+    /**
+     * Logs a successful read operation from an AZ by a user.
+     *
+     * @param userCity  the city of the user who initiated the read request
+     * @param azName    the name of the AZ from which the data was read
+     * @param strategy  the strategy the AZ was selected with, can be {@code null}
+     * @param timeTaken the simulated time taken for the read operation
+     */
+    public void logRead(String userCity, String azName, SelectionStrategy strategy, long timeTaken) {
+        zone(azName).histogram(Operation.READ, strategy).record(timeTaken);
+        totals[Operation.READ.ordinal()].record(timeTaken);
+
+        // Track the User and AZ pair specifically
+        counter(readsUserToAZ.computeIfAbsent(userCity, user -> new LinkedHashMap<>()), azName).value++;
     }
 
     /**
      * Logs a failed read operation by a user.
-     * 
+     *
      * @param userCity the city of the user who initiated the failed read request
      * @param azName   the name of the AZ where the failure occurred
      * @param dataId   the ID of the data that could not be read
      */
     public void logReadFailure(String userCity, String azName, String dataId) {
         totalReadFailures++;
-        readFailuresPerUser.put(userCity, readFailuresPerUser.getOrDefault(userCity, 0) + 1);
-        readFailuresPerAZ.put(azName, readFailuresPerAZ.getOrDefault(azName, 0) + 1);
+        counter(readFailuresPerUser, userCity).value++;
+        counter(readFailuresPerAZ, azName).value++;
     }
 
     /**
      * Logs a failed write operation between two repositories.
-     * 
+     *
      * @param sourceRepoCity the city of the repository initiating the write request
      * @param targetRepoCity the city of the repository where the write failed
      * @param dataId         the ID of the data that could not be written
      */
     public void logWriteFailure(String sourceRepoCity, String targetRepoCity, String dataId) {
         totalReadFailures++;
-        readFailuresPerUser.put(sourceRepoCity, readFailuresPerUser.getOrDefault(sourceRepoCity, 0) + 1);
-        readFailuresPerAZ.put(targetRepoCity, readFailuresPerAZ.getOrDefault(targetRepoCity, 0) + 1);
+        counter(readFailuresPerUser, sourceRepoCity).value++;
+        counter(readFailuresPerAZ, targetRepoCity).value++;
+    }
+
+    /**
+     * Provides the distribution of the times taken by an operation over all AZs
+     * and strategies.
+     *
+     * @param operation the operation in question
+     * @return the histogram of the operation's times, it is updated as new
+     *         operations are logged.
+     */
+    public LatencyHistogram getHistogram(Operation operation) {
+        return totals[operation.ordinal()];
+    }
+
+    /**
+     * Provides the distribution of the times taken by an operation on a given AZ
+     * when it was selected with a particular strategy.
+     *
+     * @param azName    the name of the AZ
+     * @param operation the operation in question
+     * @param strategy  the selection strategy, {@code null} stands for operations
+     *                  logged without a strategy
+     * @return the histogram of the operation's times, or {@code null} if no such
+     *         operation was logged.
+     */
+    public LatencyHistogram getHistogram(String azName, Operation operation, SelectionStrategy strategy) {
+        ZoneStatistics zone = statisticsPerAZ.get(azName);
+        return zone == null ? null : zone.histograms[operation.ordinal()][slot(strategy)];
     }
 
     /**
      * Prints a detailed report of the collected statistics, including information
      * about read and write operations, failures, and selection strategies.
-     * 
+     *
      * @param userStrategy the selection strategy used for user read operations
      * @param azStrategy   the selection strategy used for AZ write operations
      */
     public void printStatistics(SelectionStrategy userStrategy, SelectionStrategy azStrategy) {
+        LatencyHistogram writes = getHistogram(Operation.WRITE);
+        LatencyHistogram reads = getHistogram(Operation.READ);
         System.out.println("========== Simulation Statistics ==========");
         System.out.println("AZ write strategy: " + azStrategy.toString());
         System.out.println("User read strategy: " + userStrategy.toString());
-        System.out.println("Total Writes: " + totalWrites);
-        System.out.println("Total Reads: " + totalReads);
+        System.out.println("Total Writes: " + writes.getCount());
+        System.out.println("Total Reads: " + reads.getCount());
         System.out.println("Total Read Failures: " + totalReadFailures);
-        System.out.println("Average Write Time: " + (totalWrites > 0 ? totalWriteTime / totalWrites : 0) + " simulated seconds");
-        System.out.println("Average Read Time: " + (totalReads > 0 ? totalReadTime / totalReads : 0) + " simulated seconds");
+        System.out.println("Average Write Time: " + (writes.getCount() > 0 ? writes.getTotal() / writes.getCount() : 0) + " simulated seconds");
+        System.out.println("Average Read Time: " + (reads.getCount() > 0 ? reads.getTotal() / reads.getCount() : 0) + " simulated seconds");
+        System.out.println("Write Time Distribution: " + writes);
+        System.out.println("Read Time Distribution: " + reads);
 
         System.out.println("\nWrite Requests per AZ:");
-        writeRequestsPerAZ.forEach((az, count) -> 
-            System.out.println("  " + az + ": " + count + " requests, Total Time: " + totalWriteTimePerAZ.get(az) + " simulated seconds"));
+        printRequestsPerAZ(Operation.WRITE);
 
         System.out.println("\nRead Requests per AZ:");
-        readRequestsPerAZ.forEach((az, count) -> 
-            System.out.println("  " + az + ": " + count + " requests, Total Time: " + totalReadTimePerAZ.get(az) + " simulated seconds"));
+        printRequestsPerAZ(Operation.READ);
 
         System.out.println("\nRead Requests per User -> AZ:");
-        readsUserToAZ.forEach((userToAZ, count) -> 
-            System.out.println("  " + userToAZ + ": " + count + " requests"));
+        readsUserToAZ.forEach((user, perAZ) -> perAZ.forEach((az, count) ->
+            System.out.println("  " + user + " -> " + az + ": " + count.value + " requests")));
 
         System.out.println("\nRead Failures per User:");
-        readFailuresPerUser.forEach((user, count) -> 
-            System.out.println("  " + user + ": " + count + " failures"));
+        readFailuresPerUser.forEach((user, count) ->
+            System.out.println("  " + user + ": " + count.value + " failures"));
 
         System.out.println("\nRead Failures per AZ:");
-        readFailuresPerAZ.forEach((az, count) -> 
-            System.out.println("  " + az + ": " + count + " failures"));
+        readFailuresPerAZ.forEach((az, count) ->
+            System.out.println("  " + az + ": " + count.value + " failures"));
+    }
+
+    private void printRequestsPerAZ(Operation operation) {
+        statisticsPerAZ.forEach((az, zone) -> {
+            LatencyHistogram[] perStrategy = zone.histograms[operation.ordinal()];
+            LatencyHistogram all = new LatencyHistogram();
+            for (LatencyHistogram histogram : perStrategy) {
+                if (histogram != null) {
+                    all.add(histogram);
+                }
+            }
+            if (all.getCount() == 0) {
+                return;
+            }
+            System.out.println("  " + az + ": " + all.getCount() + " requests, Total Time: " + all.getTotal() + " simulated seconds");
+            for (int i = 0; i < perStrategy.length; i++) {
+                if (perStrategy[i] != null) {
+                    System.out.println("    " + (i == 0 ? "unspecified" : STRATEGIES[i - 1].toString()) + ": " + perStrategy[i]);
+                }
+            }
+        });
+    }
+
+    private ZoneStatistics zone(String azName) {
+        return statisticsPerAZ.computeIfAbsent(azName, name -> new ZoneStatistics());
+    }
+
+    private static Counter counter(Map<String, Counter> counters, String key) {
+        return counters.computeIfAbsent(key, k -> new Counter());
+    }
+
+    private static int slot(SelectionStrategy strategy) {
+        return strategy == null ? 0 : strategy.ordinal() + 1;
+    }
+
+    /**
+     * The histograms of a single AZ indexed by operation and strategy, they are
+     * created on first use.
+     */
+    private static class ZoneStatistics {
+        final LatencyHistogram[][] histograms = new LatencyHistogram[Operation.values().length][STRATEGIES.length + 1];
+
+        LatencyHistogram histogram(Operation operation, SelectionStrategy strategy) {
+            LatencyHistogram[] perStrategy = histograms[operation.ordinal()];
+            int slot = slot(strategy);
+            if (perStrategy[slot] == null) {
+                perStrategy[slot] = new LatencyHistogram();
+            }
+            return perStrategy[slot];
+        }
+    }
+
+    /**
+     * A mutable counter so the counts can be updated without boxing.
+     */
+    private static class Counter {
+        int value;
     }
 }
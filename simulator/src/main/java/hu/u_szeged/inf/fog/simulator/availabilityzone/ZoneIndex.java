@@ -0,0 +1,194 @@
+package hu.u_szeged.inf.fog.simulator.availabilityzone;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A static k-d tree over the positions of availability zones, used to answer
+ * nearest zone queries without computing the distance to every zone.
+ *
+ * <p>
+ * The zones are placed on the unit sphere as three dimensional points. The
+ * straight-line (chord) distance between two such points grows monotonically
+ * with their great-circle distance, so the zone nearest in Euclidean space is
+ * also the nearest according to the Haversine formula used by
+ * {@link AvailabilityZone#calculateDistance(double, double)}.
+ * </p>
+ *
+ * <p>
+ * The tree is stored implicitly: the node of the index range {@code [lo, hi)}
+ * is at its middle, its subtrees are the ranges on the two sides of it. Ties
+ * are broken by the zone's position in the list the index was built from.
+ * </p>
+ */
+public final class ZoneIndex {
+    private final AvailabilityZone[] zones;
+    private final int[] ordinals;
+    private final double[] points;
+    private final byte[] axes;
+
+    // Search state, the index is only used from the simulation's thread
+    private final double[] query = new double[3];
+    private Predicate<AvailabilityZone> filter;
+    private double bestDistance;
+    private int best;
+
+    /**
+     * Builds the index for the given zones. Later changes to the list are not
+     * reflected by the index.
+     *
+     * @param zoneList the zones to index
+     */
+    public ZoneIndex(List<AvailabilityZone> zoneList) {
+        int n = zoneList.size();
+        this.zones = new AvailabilityZone[n];
+        this.ordinals = new int[n];
+        this.points = new double[3 * n];
+        this.axes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            AvailabilityZone zone = zoneList.get(i);
+            zones[i] = zone;
+            ordinals[i] = i;
+            toUnitVector(zone.getLocation().getLatitude(), zone.getLocation().getLongitude(), points, 3 * i);
+        }
+        build(0, n);
+    }
+
+    /**
+     * Finds the zone closest to the given location among the ones accepted by the
+     * filter.
+     *
+     * @param latitude  the latitude of the location
+     * @param longitude the longitude of the location
+     * @param filter    the condition the returned zone must satisfy
+     * @return the nearest accepted zone, or {@code null} if no zone is accepted.
+     */
+    public AvailabilityZone nearest(double latitude, double longitude, Predicate<AvailabilityZone> filter) {
+        toUnitVector(latitude, longitude, query, 0);
+        this.filter = filter;
+        this.bestDistance = Double.POSITIVE_INFINITY;
+        this.best = -1;
+        search(0, zones.length);
+        this.filter = null;
+        return best < 0 ? null : zones[best];
+    }
+
+    private void search(int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double d = distance(mid);
+        if (d <= bestDistance && (d < bestDistance || ordinals[mid] < ordinals[best]) && filter.test(zones[mid])) {
+            bestDistance = d;
+            best = mid;
+        }
+        if (hi - lo == 1) {
+            return;
+        }
+        int axis = axes[mid];
+        double diff = query[axis] - points[3 * mid + axis];
+        if (diff <= 0) {
+            search(lo, mid);
+            if (diff * diff <= bestDistance) {
+                search(mid + 1, hi);
+            }
+        } else {
+            search(mid + 1, hi);
+            if (diff * diff <= bestDistance) {
+                search(lo, mid);
+            }
+        }
+    }
+
+    private double distance(int node) {
+        double dx = query[0] - points[3 * node];
+        double dy = query[1] - points[3 * node + 1];
+        double dz = query[2] - points[3 * node + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo < 2) {
+            return;
+        }
+        int axis = widestAxis(lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis);
+        axes[mid] = (byte) axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double v = points[3 * i + axis];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widest = axis;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Partially orders the nodes of {@code [left, right]} along the axis so the
+     * k-th node is in its sorted position (quickselect).
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points[3 * ((left + right) >>> 1) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[3 * i + axis] < pivot) {
+                    i++;
+                }
+                while (points[3 * j + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        AvailabilityZone zone = zones[i];
+        zones[i] = zones[j];
+        zones[j] = zone;
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+        for (int c = 0; c < 3; c++) {
+            double v = points[3 * i + c];
+            points[3 * i + c] = points[3 * j + c];
+            points[3 * j + c] = v;
+        }
+    }
+
+    private static void toUnitVector(double latitude, double longitude, double[] target, int offset) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        target[offset] = cosLat * Math.cos(lon);
+        target[offset + 1] = cosLat * Math.sin(lon);
+        target[offset + 2] = Math.sin(lat);
+    }
+}
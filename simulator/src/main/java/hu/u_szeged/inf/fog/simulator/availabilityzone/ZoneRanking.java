@@ -0,0 +1,141 @@
+package hu.u_szeged.inf.fog.simulator.availabilityzone;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An indexed binary min-heap of availability zones ordered by a numeric key
+ * (e.g., their load or their latency towards a repository).
+ *
+ * <p>
+ * Zones are identified by their ordinal, i.e., their position in the zone
+ * array the ranking was created with. Keys are cached in the heap, thus the
+ * owner of the ranking must call {@link #update(int)} whenever the key of a
+ * ranked zone changes. Ties are broken by the ordinals, so the top of the
+ * heap is the same zone a stable sort of the zones would put first.
+ * </p>
+ */
+public final class ZoneRanking {
+    private final AvailabilityZone[] zones;
+    private final ToDoubleFunction<AvailabilityZone> key;
+    private final double[] keys;
+    private final int[] heap;
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Creates an empty ranking.
+     *
+     * @param zones the zones that can be ranked, indexed by their ordinals
+     * @param key   determines the current key of a zone, lower keys rank higher
+     */
+    public ZoneRanking(AvailabilityZone[] zones, ToDoubleFunction<AvailabilityZone> key) {
+        this.zones = zones;
+        this.key = key;
+        this.keys = new double[zones.length];
+        this.heap = new int[zones.length];
+        this.positions = new int[zones.length];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * @return the zone with the lowest key, or {@code null} if the ranking is
+     *         empty.
+     */
+    public AvailabilityZone first() {
+        return size == 0 ? null : zones[heap[0]];
+    }
+
+    public boolean contains(int ordinal) {
+        return positions[ordinal] >= 0;
+    }
+
+    /**
+     * Adds a zone to the ranking, it is a no-op if the zone is already ranked.
+     */
+    public void add(int ordinal) {
+        if (contains(ordinal)) {
+            return;
+        }
+        keys[ordinal] = key.applyAsDouble(zones[ordinal]);
+        heap[size] = ordinal;
+        positions[ordinal] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Removes a zone from the ranking, it is a no-op if the zone is not ranked.
+     */
+    public void remove(int ordinal) {
+        int pos = positions[ordinal];
+        if (pos < 0) {
+            return;
+        }
+        positions[ordinal] = -1;
+        int last = heap[--size];
+        if (pos != size) {
+            heap[pos] = last;
+            positions[last] = pos;
+            siftDown(pos);
+            siftUp(positions[last]);
+        }
+    }
+
+    /**
+     * Recalculates the key of a ranked zone and restores its position in the
+     * ranking.
+     */
+    public void update(int ordinal) {
+        int pos = positions[ordinal];
+        if (pos < 0) {
+            return;
+        }
+        double newKey = key.applyAsDouble(zones[ordinal]);
+        double oldKey = keys[ordinal];
+        keys[ordinal] = newKey;
+        if (newKey < oldKey) {
+            siftUp(pos);
+        } else if (newKey > oldKey) {
+            siftDown(pos);
+        }
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private void siftUp(int pos) {
+        int ordinal = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!less(ordinal, heap[parent])) {
+                break;
+            }
+            place(heap[parent], pos);
+            pos = parent;
+        }
+        place(ordinal, pos);
+    }
+
+    private void siftDown(int pos) {
+        int ordinal = heap[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], ordinal)) {
+                break;
+            }
+            place(heap[child], pos);
+            pos = child;
+        }
+        place(ordinal, pos);
+    }
+
+    private void place(int ordinal, int pos) {
+        heap[pos] = ordinal;
+        positions[ordinal] = pos;
+    }
+}
@@ -139,6 +139,7 @@ public class test_ZoneSimulation_MultipleUsersAndFiles {
 
         System.out.println("AWS-like Availability Zone simulation completed.");
         region.statisticsCollector.printStatistics(SelectedUserStrategy, SelectedAZStrategy);
+        region.close();
     }
 
 }
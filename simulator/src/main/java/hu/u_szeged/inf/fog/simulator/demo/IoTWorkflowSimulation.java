@@ -13,6 +13,7 @@ import hu.u_szeged.inf.fog.simulator.util.WorkflowGraphVisualiser;
 import hu.u_szeged.inf.fog.simulator.util.xml.ScientificWorkflowParser;
 import hu.u_szeged.inf.fog.simulator.util.xml.WorkflowJobModel;
 import hu.u_szeged.inf.fog.simulator.workflow.WorkflowExecutor;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.HeftScheduler;
 import hu.u_szeged.inf.fog.simulator.workflow.scheduler.IotWorkflowScheduler;
 import hu.u_szeged.inf.fog.simulator.workflow.scheduler.MaxMinScheduler;
 
@@ -37,6 +38,7 @@ public class IoTWorkflowSimulation {
 
         new WorkflowExecutor(new MaxMinScheduler(workflowArchitecture));
         //new WorkflowExecutor(new IotWorkflowScheduler(workflowArchitecture, actuatorArchitecture, 1000));
+        //new WorkflowExecutor(new HeftScheduler(workflowArchitecture, 1000, 2));
 
         Timed.simulateUntilLastEvent();
         ScenarioBase.logStreamProcessing();
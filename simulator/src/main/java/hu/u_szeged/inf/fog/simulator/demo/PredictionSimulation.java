@@ -16,6 +16,8 @@ public class PredictionSimulation {
         // runPredictionOnly();
         /** run with prediction and UI **/
         runPredictionWithUI();
+        /** run with the in-process predictor, without external applications **/
+        // runLocalPrediction();
     }
     
     private static void runPredictionOnly() throws Exception {
@@ -45,6 +47,28 @@ public class PredictionSimulation {
         predictionConfigurator.execute();
     }
     
+    private static void runLocalPrediction() throws Exception {
+        PredictionConfigurator predictionConfigurator = new PredictionConfigurator(new PredictionSimulationDefinition());
+        
+        predictionConfigurator.addSimulationSettings(new SimulationSettings(
+                new ExportSettings(true, ScenarioBase.resultDirectory, true, true, true, true),
+                new PredictionSettings(
+                        64,
+                        64,
+                        256,
+                        new PredictionSettings.SmoothingSettings(48, 5),
+                        true,
+                        0
+                ),
+                PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.ARIMA)
+                //PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.HOLT_WINTERS)
+                //PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.LINEAR_REGRESSION)
+                //PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.MOVING_AVERAGE)
+        ));
+        predictionConfigurator.useLocalPredictor();
+        predictionConfigurator.execute();
+    }
+    
     private static void runPredictionWithUI() throws Exception {
         PredictionConfigurator predictionConfigurator = new PredictionConfigurator(new PredictionSimulationDefinition());
         
@@ -132,7 +132,7 @@ public class PredictionSimulationDefinition implements PredictionConfigurator.Si
         ScenarioBase.calculateIoTCost();
         ScenarioBase.logBatchProcessing(stoptime - starttime);
         TimelineVisualiser.generateTimeline(ScenarioBase.resultDirectory);
-        // MapVisualiser.mapGenerator(ScenarioBase.scriptPath, ScenarioBase.resultDirectory, Device.allDevices);
+        // MapVisualiser.mapGenerator(ScenarioBase.scriptPath, ScenarioBase.resultDirectory, Device.getAllDevices());
     }
 
     private static ApplicationStrategy generateAppStrategy(String strategy, double activationRatio, double transferDivider) {
@@ -8,6 +8,7 @@ import hu.u_szeged.inf.fog.simulator.application.Application;
 import hu.u_szeged.inf.fog.simulator.iot.Device;
 import hu.u_szeged.inf.fog.simulator.iot.SmartDevice;
 import hu.u_szeged.inf.fog.simulator.iot.mobility.MobilityEvent;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.ProactiveHandover;
 import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
 import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
 import hu.u_szeged.inf.fog.simulator.prediction.FeatureManager;
@@ -26,6 +27,7 @@ import hu.u_szeged.inf.fog.simulator.workflow.DecentralizedWorkflowExecutor;
 import hu.u_szeged.inf.fog.simulator.workflow.WorkflowExecutor;
 import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob;
 import hu.u_szeged.inf.fog.simulator.workflow.scheduler.DecentralizedWorkflowScheduler;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.HeftScheduler;
 import hu.u_szeged.inf.fog.simulator.workflow.scheduler.WorkflowScheduler;
 
 import java.io.File;
@@ -75,9 +77,9 @@ public class ScenarioBase {
 
         for (ComputingAppliance ca : ComputingAppliance.getAllComputingAppliances()) {
             SimLogger.logRes("Computing Appliance: " + ca.name);
-            SimLogger.logRes("\tEnergy consumption (kWh): " + ca.energyConsumption / 1000 / 3_600_000);
+            SimLogger.logRes("\tEnergy consumption (kWh): " + ca.getEnergyConsumption() / 1000 / 3_600_000);
             SimLogger.logRes("\tBroker: " + ca.broker);
-            totalEnergyConsumption += ca.energyConsumption;
+            totalEnergyConsumption += ca.getEnergyConsumption();
 
             for (PhysicalMachine pm : ca.iaas.machines) {
                 if (pm.localDisk.getMaxStorageCapacity() - pm.localDisk.getFreeStorageCapacity() != 0) {
@@ -110,8 +112,12 @@ public class ScenarioBase {
             }
         }
 
-        SimLogger.logRes("Number of devices: " + Device.allDevices.size());
-        for (Device device : Device.allDevices) {
+        long population = 0;
+        for (Device device : Device.getAllDevices()) {
+            population += device.getPopulation();
+        }
+        SimLogger.logRes("Number of devices: " + population);
+        for (Device device : Device.getAllDevices()) {
             totalGeneratedData += device.generatedData;
             totalLocallyProcessedData += device.locallyProcessedData;
             totalMessageCount += device.messageCount;
@@ -135,9 +141,9 @@ public class ScenarioBase {
                 "Total energy consumption of the devices (kWh): " + totalDeviceEnergyConsumption / 1000 / 3_600_000);
         SimLogger.logRes("Total cost ($): " + totalCost);
         SimLogger.logRes("IoT costs ($): ");
-        for (int i = 0; i < Provider.allProviders.size(); i++) {
-            SimLogger.logRes("\t" + Provider.allProviders.get(i).name + ": "
-                    + BigDecimal.valueOf(Provider.allProviders.get(i).calculate()).toPlainString() + " ");
+        for (int i = 0; i < Provider.getAllProviders().size(); i++) {
+            SimLogger.logRes("\t" + Provider.getAllProviders().get(i).name + ": "
+                    + BigDecimal.valueOf(Provider.getAllProviders().get(i).calculate()).toPlainString() + " ");
         }
         SimLogger.logRes("Total amount of generated / received / processed / locally processed / stuck data (bytes): "
                 + totalGeneratedData + " / " + totalReceivedData + " / " + totalProcessedData + " / "
@@ -151,6 +157,18 @@ public class ScenarioBase {
                 + "\n\tChange node: " + MobilityEvent.changeNodeEventCounter + "\n\tConnect to node: "
                 + MobilityEvent.connectToNodeEventCounter + "\n\tDisconnect from node: "
                 + MobilityEvent.disconnectFromNodeEventCounter);
+        ProactiveHandover.Statistics handovers = ProactiveHandover.getStatistics();
+        SimLogger.logRes("Handover gap (seconds): "
+                + TimeUnit.SECONDS.convert(handovers.handoverGapTime, TimeUnit.MILLISECONDS));
+        if (ProactiveHandover.isEnabled()) {
+            SimLogger.logRes("Proactive handover"
+                    + "\n\tProactive handovers: " + handovers.proactiveHandoverCounter
+                    + "\n\tBroker warm-ups: " + handovers.warmUpCounter
+                    + "\n\tMispredictions: " + handovers.mispredictionCounter
+                    + "\n\tMispredicted warm-up time (seconds): "
+                    + TimeUnit.SECONDS.convert(handovers.mispredictedWarmUpTime, TimeUnit.MILLISECONDS)
+                    + "\n\tMispredicted warm-up cost: " + handovers.mispredictedWarmUpCost);
+        }
         
         SimLogger.logRes("Total number of predictions: " + FeatureManager.getInstance().getTotalNumOfPredictions());
 
@@ -175,9 +193,9 @@ public class ScenarioBase {
 
         final var cost = new Cost(
                 totalCost,
-                BigDecimal.valueOf(Provider.allProviders.get(0).calculate()).toPlainString(),
-                BigDecimal.valueOf(Provider.allProviders.get(1).calculate()).toPlainString(),
-                BigDecimal.valueOf(Provider.allProviders.get(2).calculate()).toPlainString()
+                BigDecimal.valueOf(Provider.getAllProviders().get(0).calculate()).toPlainString(),
+                BigDecimal.valueOf(Provider.getAllProviders().get(1).calculate()).toPlainString(),
+                BigDecimal.valueOf(Provider.getAllProviders().get(2).calculate()).toPlainString()
         );
 
         final var dataVolume = new DataVolume(
@@ -216,8 +234,8 @@ public class ScenarioBase {
             Instance i = WorkflowScheduler.workflowArchitecture.get(ca);
             SimLogger.logRes(ca.vmTime + " " + i.pricePerTick);
             totalCost += WorkflowScheduler.workflowArchitecture.get(ca).calculateCloudCost(ca.vmTime);
-            SimLogger.logRes("Energy Cons. by " + ca.name + " " + ca.energyConsumption);
-            totalEnergyConsumption += ca.energyConsumption;
+            SimLogger.logRes("Energy Cons. by " + ca.name + " " + ca.getEnergyConsumption());
+            totalEnergyConsumption += ca.getEnergyConsumption();
         }
 
         for (Entry<Integer, Integer> entry : WorkflowExecutor.vmTaskLogger.entrySet()) {
@@ -231,17 +249,22 @@ public class ScenarioBase {
         }
 
         int nonCompleted = 0;
-        for (WorkflowJob wj : WorkflowJob.workflowJobs) {
+        for (WorkflowJob wj : WorkflowJob.getWorkflowJobs()) {
             if (wj.state.equals(WorkflowJob.State.COMPLETED)) {
                 nonCompleted++;
             }
         }
-        SimLogger.logRes("Completed: " + nonCompleted + "/" + WorkflowJob.workflowJobs.size());
+        SimLogger.logRes("Completed: " + nonCompleted + "/" + WorkflowJob.getWorkflowJobs().size());
         SimLogger.logRes("Total cost: " + totalCost);
         SimLogger.logRes("Total energy consumption: " + totalEnergyConsumption);
         SimLogger.logRes("Execution time: " + Timed.getFireCount() + " Real execution time" + " "
                 + (Timed.getFireCount() - WorkflowExecutor.realStartTime) + "ms (~"
                 + (Timed.getFireCount() - WorkflowExecutor.realStartTime) / 1000 / 60 + " minutes)");
+        if (WorkflowExecutor.workflowScheduler instanceof HeftScheduler) {
+            HeftScheduler heft = (HeftScheduler) WorkflowExecutor.workflowScheduler;
+            SimLogger.logRes("Critical path length: " + Math.round(heft.criticalPathLength) + "ms Planned makespan: "
+                    + Math.round(heft.plannedMakespan) + "ms");
+        }
 
     }
     public static void logStreamProcessing(ArrayList<DecentralizedWorkflowScheduler> dws) {
@@ -260,8 +283,8 @@ public class ScenarioBase {
                 Instance i = dw.workflowArchitecture.get(ca);
                 SimLogger.logRes(ca.vmTime + " " + i.pricePerTick);
                 totalCost += dw.workflowArchitecture.get(ca).calculateCloudCost(ca.vmTime);
-                SimLogger.logRes("Energy Cons. by " + ca.name + " " + ca.energyConsumption);
-                totalEnergyConsumption += ca.energyConsumption;
+                SimLogger.logRes("Energy Cons. by " + ca.name + " " + ca.getEnergyConsumption());
+                totalEnergyConsumption += ca.getEnergyConsumption();
             }
         }
 
@@ -1,6 +1,7 @@
 package hu.u_szeged.inf.fog.simulator.iot;
 
 import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.PhysicalMachineEnergyMeter;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
@@ -35,9 +36,17 @@ public abstract class Device extends Timed {
     public static long lastAction;
 
     /**
-     * All IoT devices created are available in this list.
+     * All IoT devices created are available in this list (each simulation context has its own list).
      */
-    public static ArrayList<Device> allDevices = new ArrayList<Device>();
+    private static final SimulationContext.Key<ArrayList<Device>> allDevices = 
+            new SimulationContext.Key<>(ArrayList::new);
+
+    /**
+     * Returns with the list of all IoT devices of the current simulation.
+     */
+    public static ArrayList<Device> getAllDevices() {
+        return SimulationContext.current().get(allDevices);
+    }
 
     /**
      * The amount of the total generated data by IoT devices.
@@ -139,13 +148,19 @@ public abstract class Device extends Timed {
      */
     public long generatedData;
 
+    /**
+     * The file that collects the sensor readings not yet sent, if batched sensing is used.
+     */
+    SensorReadings openReadings;
+
     /**
      * The device starts its operation defined in its tick() method
-     * at the time specified with the startTime parameter.
+     * at the time specified with the startTime parameter (also if the
+     * device is created during the simulation).
      */
     protected void startMeter() {
         if (this.isSubscribed() == false) {
-            new DeferredEvent(this.startTime) {
+            new DeferredEvent(Math.max(0, this.startTime - Timed.getFireCount())) {
 
                 @Override
                 protected void eventAction() {
@@ -184,9 +199,24 @@ public abstract class Device extends Timed {
     }
     
     /**
-     * It starts a file transfer with each content of the local storage.  
+     * It starts a file transfer with each content of the local storage. 
+     * In the batched sensing mode only the file of the readings collected since 
+     * the previous transfer is sent, so the local storage does not need to be scanned.
      */
     private void realTransfer() {
+        if (Sensor.isBatching()) {
+            SensorReadings readings = this.openReadings;
+            if (readings != null && this.localMachine.localDisk.lookup(readings.id) == readings) {
+                this.openReadings = null;
+                try {
+                    NetworkNode.initTransfer(readings.size, ResourceConsumption.unlimitedProcessing,
+                            this.localMachine.localDisk, this.caRepository, new DeviceDataEvent(this, readings));
+                } catch (NetworkException e) {
+                    e.printStackTrace();
+                }
+            }
+            return;
+        }
         this.localMachine.localDisk.contents().stream()
             .filter(storageObject -> !(storageObject instanceof VirtualAppliance)).forEach(storageObject -> {
                 DeviceDataEvent soe = new DeviceDataEvent(this, storageObject);
@@ -218,6 +248,21 @@ public abstract class Device extends Timed {
         return temp;
     }
     
+    /**
+     * Returns with the number of real devices represented by this device.
+     */
+    public int getPopulation() {
+        return 1;
+    }
+
+    /**
+     * Returns with the total time the real devices represented by this device
+     * were generating data (ms).
+     */
+    public long getTotalRuntime() {
+        return this.stopTime - this.startTime;
+    }
+    
     /**
      * This initializes a PM energy meter, which requires a timed event (DataCollector class) 
      * to retrieve the total energy consumption of the PM.
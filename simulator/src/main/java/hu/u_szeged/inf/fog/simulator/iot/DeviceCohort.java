@@ -0,0 +1,349 @@
+package hu.u_szeged.inf.fog.simulator.iot;
+
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode.NetworkException;
+import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.MobilityEvent;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.MobilityStrategy;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.DeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.util.SimLogger;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * This class represents a population of statistically identical IoT devices as a single device.
+ * The cohort is one timed event and uses one physical machine (acting as a gateway) for networking,
+ * while the state of its members (position, data not yet sent, battery) is kept in primitive arrays.
+ * Thus large populations can be simulated without creating millions of devices.
+ *
+ * <p>The members are scattered around the position of the cohort and they move together with it
+ * according to its mobility strategy. The application is chosen once per tick for the whole cohort
+ * by its device strategy (using the position of the cohort), and the data of the members in the range
+ * of the chosen application is sent in a single transfer. If a member needs to be handled on its own
+ * (e.g. a strategy has to track it), it can be turned into a separate device with
+ * {@link #materialize(int, MobilityStrategy, DeviceStrategy, PhysicalMachine)}.</p>
+ */
+public class DeviceCohort extends Device {
+
+    /**
+     * The latitudes of the members' positions.
+     */
+    private final double[] latitudes;
+
+    /**
+     * The longitudes of the members' positions.
+     */
+    private final double[] longitudes;
+
+    /**
+     * The amount of data generated by the members, but not yet sent (byte).
+     */
+    private final long[] pendingData;
+
+    /**
+     * The remaining energy of the members' batteries, null if the members have no battery limit.
+     */
+    private final double[] batteries;
+
+    /**
+     * The energy needed for a single sensor reading.
+     */
+    private final double energyPerReading;
+
+    /**
+     * The time when the members start generating data.
+     */
+    private final long[] memberStartTimes;
+
+    /**
+     * The time when the members stop generating data.
+     */
+    private final long[] memberStopTimes;
+
+    /**
+     * The members that were turned into separate devices.
+     */
+    private final BitSet materialized;
+
+    /**
+     * This value is used to calculate how many times the tick method can be called after the last data is created.
+     * After that the data not sent will be registered as stuck data.
+     */
+    private int iterationCounter;
+
+    /**
+     * Defines a new cohort of devices. Similarly to the smart devices, a random value between 0-3 minutes
+     * is added to the start and stop times of each member.
+     *
+     * @param size the number of devices in the cohort
+     * @param spread the radius of the area around the start position in which the members are placed (m)
+     * @param startTime the time when the devices start generating data (ms)
+     * @param stopTime the time when the devices stop generating data (ms)
+     * @param fileSize the size of the data generated by a device in a measurement (byte)
+     * @param freq the time interval between two data measurement (ms)
+     * @param mobilityStrategy the strategy that defines the route of the cohort
+     * @param deviceStrategy the strategy that defines to which IoT application the cohort connects
+     * @param localMachine the physical machine for networking, shared by the members
+     * @param latency the minimum latency of data sending (ms)
+     * @param batteryCapacity the initial energy of the members' batteries, non-positive if unlimited
+     * @param energyPerReading the energy needed for a single sensor reading
+     */
+    public DeviceCohort(int size, double spread, long startTime, long stopTime, long fileSize, long freq,
+            MobilityStrategy mobilityStrategy, DeviceStrategy deviceStrategy, PhysicalMachine localMachine,
+            int latency, double batteryCapacity, double energyPerReading) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("A cohort must have at least one member: " + size);
+        }
+        Device.getAllDevices().add(this);
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.pendingData = new long[size];
+        this.memberStartTimes = new long[size];
+        this.memberStopTimes = new long[size];
+        this.materialized = new BitSet(size);
+        this.batteries = batteryCapacity > 0 ? new double[size] : null;
+        this.energyPerReading = energyPerReading;
+        this.startTime = Long.MAX_VALUE;
+        this.stopTime = Long.MIN_VALUE;
+        GeoLocation center = mobilityStrategy.startPosition;
+        for (int i = 0; i < size; i++) {
+            long delay = Math.abs(SeedSyncer.centralRnd.nextLong() % 180) * 1000;
+            this.memberStartTimes[i] = startTime + delay;
+            this.memberStopTimes[i] = stopTime + delay;
+            this.startTime = Math.min(this.startTime, this.memberStartTimes[i]);
+            this.stopTime = Math.max(this.stopTime, this.memberStopTimes[i]);
+            GeoLocation position = center.nextLocation(spread * Math.sqrt(SeedSyncer.centralRnd.nextDouble()),
+                    360 * SeedSyncer.centralRnd.nextDouble());
+            this.latitudes[i] = position.latitude;
+            this.longitudes[i] = position.longitude;
+            if (this.batteries != null) {
+                this.batteries[i] = batteryCapacity;
+            }
+        }
+        this.fileSize = fileSize;
+        this.geoLocation = center;
+        this.freq = freq;
+        this.localMachine = localMachine;
+        this.mobilityStrategy = mobilityStrategy;
+        this.isPathLogged = false;
+        this.devicePath = new ArrayList<GeoLocation>();
+        this.deviceStrategy = deviceStrategy;
+        this.deviceStrategy.device = this;
+        this.latency = latency;
+        this.startMeter();
+    }
+
+    /**
+     * The method defines the operation of the cohort, which is as follows.<br/>
+     * &ensp; 1 - movement <br/>
+     * &ensp; 2 - connecting to an application <br/>
+     * &ensp; 3 - data transfer of the members in range <br/>
+     * &ensp; 4 - data generation (it is sent in the next tick, like the readings of the sensors) <br/>
+     * &ensp; 5 - evaluation of the stop condition
+     */
+    @Override
+    public void tick(long fires) {
+        GeoLocation newLocation = this.mobilityStrategy.move(this);
+        if (newLocation != null) {
+            double deltaLatitude = newLocation.latitude - this.geoLocation.latitude;
+            double deltaLongitude = newLocation.longitude - this.geoLocation.longitude;
+            for (int i = 0; i < this.latitudes.length; i++) {
+                this.latitudes[i] += deltaLatitude;
+                this.longitudes[i] += deltaLongitude;
+            }
+        }
+        MobilityEvent.changePositionEvent(this, newLocation);
+
+        this.deviceStrategy.findApplication();
+
+        if (this.deviceStrategy.chosenApplication != null) {
+            this.sendPendingData(this.deviceStrategy.chosenApplication);
+        }
+
+        this.generateData();
+
+        if (Timed.getFireCount() > stopTime) {
+            if (this.generatedData == this.sentData) {
+                this.stopMeter();
+            } else if (++this.iterationCounter > 100) {
+                SimLogger.logRun("WARNING: 100 iteration after the cohort stopped metering, "
+                        + "IoT data are still stuck at " + this.localMachine.localDisk.getName()
+                        + " (the members' actual positions are not covered by any node.)");
+                this.stopMeter();
+                SmartDevice.stuckData += this.calculateStuckData();
+            }
+        }
+    }
+
+    /**
+     * Sends the data of the members in the range of the application in a single transfer.
+     * If the broker of the application is not running yet, the data remains at the members.
+     *
+     * @param app the application chosen by the device strategy
+     */
+    private void sendPendingData(Application app) {
+        if (!app.computingAppliance.broker.vm.getState().equals(VirtualMachine.State.RUNNING)) {
+            if (!app.isSubscribed()) {
+                app.subscribeApplication();
+            }
+            return;
+        }
+        if (this.caRepository == null) {
+            return;
+        }
+        double range = app.computingAppliance.range * 1000;
+        GeoLocation target = app.computingAppliance.geoLocation;
+        long dataToBeSent = 0;
+        for (int i = 0; i < this.pendingData.length; i++) {
+            if (this.pendingData[i] > 0 && GeoLocation.calculateDistance(this.latitudes[i], this.longitudes[i],
+                    target.latitude, target.longitude) <= range) {
+                dataToBeSent += this.pendingData[i];
+                this.pendingData[i] = 0;
+            }
+        }
+        if (dataToBeSent > 0) {
+            StorageObject so = new StorageObject(this.localMachine.localDisk.getName() + " " + Timed.getFireCount(),
+                    dataToBeSent, false);
+            try {
+                NetworkNode.initTransfer(so.size, ResourceConsumption.unlimitedProcessing,
+                        this.localMachine.localDisk, this.caRepository, new DeviceDataEvent(this, so));
+            } catch (NetworkException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Performs a sensor reading for each active member with enough energy left. Like a smart
+     * device, whose first tick comes one period after its start time, a member does not
+     * measure at its start time.
+     */
+    private void generateData() {
+        long now = Timed.getFireCount();
+        int readings = 0;
+        for (int i = 0; i < this.pendingData.length; i++) {
+            if (now > this.memberStartTimes[i] && now < this.memberStopTimes[i] && !this.materialized.get(i)
+                    && (this.batteries == null || this.batteries[i] >= this.energyPerReading)) {
+                this.pendingData[i] += this.fileSize;
+                if (this.batteries != null) {
+                    this.batteries[i] -= this.energyPerReading;
+                }
+                readings++;
+            }
+        }
+        this.generatedData += readings * this.fileSize;
+        Device.totalGeneratedSize += readings * this.fileSize;
+        this.messageCount += readings;
+    }
+
+    /**
+     * Turns a member into a separate smart device, which takes over the data not yet sent by the member.
+     * The member is no longer simulated by the cohort.
+     *
+     * @param member the index of the member
+     * @param mobilityStrategy the strategy that defines the route of the new device
+     * @param deviceStrategy the strategy that defines to which IoT application the new device connects
+     * @param localMachine the physical machine for networking and storing of the new device
+     * @return the new device
+     */
+    public SmartDevice materialize(int member, MobilityStrategy mobilityStrategy, DeviceStrategy deviceStrategy,
+            PhysicalMachine localMachine) {
+        if (this.materialized.get(member)) {
+            throw new IllegalStateException("Member " + member + " is already materialized");
+        }
+        this.materialized.set(member);
+        SmartDevice device = new SmartDevice(Timed.getFireCount(), this.memberStopTimes[member], this.fileSize,
+                this.freq, mobilityStrategy, deviceStrategy, localMachine, this.latency, false);
+        // the rest of the member's runtime belongs to the new device
+        this.memberStopTimes[member] = Math.max(this.memberStartTimes[member],
+                Math.min(this.memberStopTimes[member], Timed.getFireCount()));
+        long pending = this.pendingData[member];
+        if (pending > 0) {
+            StorageObject so = new StorageObject(localMachine.localDisk.getName() + " " + this.fileSize + " "
+                    + Timed.getFireCount(), pending, false);
+            if (localMachine.localDisk.registerObject(so)) {
+                this.pendingData[member] = 0;
+                this.generatedData -= pending;
+                device.generatedData += pending;
+            }
+        }
+        return device;
+    }
+
+    /**
+     * Returns with the current position of a member.
+     *
+     * @param member the index of the member
+     */
+    public GeoLocation getPosition(int member) {
+        return new GeoLocation(this.latitudes[member], this.longitudes[member]);
+    }
+
+    /**
+     * Returns with the time when a member starts generating data.
+     *
+     * @param member the index of the member
+     */
+    public long getStartTime(int member) {
+        return this.memberStartTimes[member];
+    }
+
+    /**
+     * Returns with the time when a member stops generating data (or when it was materialized).
+     *
+     * @param member the index of the member
+     */
+    public long getStopTime(int member) {
+        return this.memberStopTimes[member];
+    }
+
+    /**
+     * Returns with the remaining energy of a member's battery,
+     * or positive infinity if the members have no battery limit.
+     *
+     * @param member the index of the member
+     */
+    public double getRemainingBattery(int member) {
+        return this.batteries == null ? Double.POSITIVE_INFINITY : this.batteries[member];
+    }
+
+    /**
+     * Returns with the number of members simulated by the cohort (the materialized ones excluded).
+     */
+    @Override
+    public int getPopulation() {
+        return this.pendingData.length - this.materialized.cardinality();
+    }
+
+    /**
+     * Returns with the sum of the members' runtimes, including the runtime of the
+     * materialized members until their materialization.
+     */
+    @Override
+    public long getTotalRuntime() {
+        long total = 0;
+        for (int i = 0; i < this.memberStartTimes.length; i++) {
+            total += this.memberStopTimes[i] - this.memberStartTimes[i];
+        }
+        return total;
+    }
+
+    /**
+     * The data of the cohort that is not yet sent (held by the members or stored by the gateway).
+     */
+    @Override
+    public long calculateStuckData() {
+        long temp = super.calculateStuckData();
+        for (long pending : this.pendingData) {
+            temp += pending;
+        }
+        return temp;
+    }
+}
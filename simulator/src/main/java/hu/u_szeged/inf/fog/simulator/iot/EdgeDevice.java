@@ -78,7 +78,7 @@ public class EdgeDevice extends Device {
         this.freq = freq;
         this.localMachine = localMachine;
         this.mobilityStrategy = mobilityStrategy;
-        Device.allDevices.add(this);
+        Device.getAllDevices().add(this);
         this.instructionPerByte = instructionPerByte;
         this.isPathLogged = pathLogging;
         this.devicePath = new ArrayList<GeoLocation>();
@@ -135,7 +135,7 @@ public class EdgeDevice extends Device {
     @Override
     public void tick(long fires) {
         if (Timed.getFireCount() < stopTime && Timed.getFireCount() >= startTime) {
-            new Sensor(this, 1);
+            Sensor.measure(this, 1);
         }
 
         GeoLocation newLocation = this.mobilityStrategy.move(this);
@@ -1,7 +1,9 @@
 package hu.u_szeged.inf.fog.simulator.iot;
 
 import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
 import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
 import hu.u_szeged.inf.fog.simulator.util.TimelineVisualiser.TimelineEntry;
 import java.util.ArrayList;
@@ -9,20 +11,47 @@ import java.util.ArrayList;
 /**
  * This class is an abstract representation of an IoT sensor, its only task
  * is to create a file with a given delay as a result of a measurement.
+ *
+ * <p>By default, each measurement is a separate event and produces a separate file.
+ * In the batched sensing mode (see {@link #setBatching(boolean)}) the measurements
+ * of all devices due at the same time are performed by a single event, and the readings
+ * of a device are folded into a single {@link SensorReadings} file until it is sent.</p>
  */
 public class Sensor extends DeferredEvent {
 
     /**
-     * It contains the log of a sensor events. 
+     * It contains the log of a sensor events.
      * It is used only for visualization, in IoT workflow simulations.
      */
     public static ArrayList<TimelineEntry> sensorEventList = new ArrayList<>();
 
     /**
-     * The device that utilizes this sensor. 
+     * True if the batched sensing mode is used. It can be turned on with the
+     * hu.u_szeged.inf.fog.simulator.iot.Sensor.batching system property as well.
+     */
+    private static boolean batching = Boolean.getBoolean("hu.u_szeged.inf.fog.simulator.iot.Sensor.batching");
+
+    /**
+     * The batch of measurements that is still open for new devices (each simulation context has its own).
+     */
+    private static final SimulationContext.Key<Sensor[]> openBatch =
+            new SimulationContext.Key<>(() -> new Sensor[1]);
+
+    /**
+     * The device that utilizes this sensor (if it is not a batch).
      */
     private Device device;
 
+    /**
+     * The devices measuring in this batch (if it is a batch).
+     */
+    private ArrayList<Device> devices;
+
+    /**
+     * The time of the measurements in this batch.
+     */
+    private long dueTime;
+
     /**
      * Defines a sensor measurement.
      *
@@ -34,20 +63,96 @@ public class Sensor extends DeferredEvent {
         this.device = device;
     }
 
+    /**
+     * Defines a batch of sensor measurements, devices can join it until it is due.
+     *
+     * @param delay the length of the measurements (ms)
+     */
+    private Sensor(long delay) {
+        super(delay);
+        this.devices = new ArrayList<>();
+        this.dueTime = Timed.getFireCount() + delay;
+    }
+
+    /**
+     * Performs a measurement for the device with the given delay. In the batched sensing
+     * mode the device joins the batch of measurements due at the same time.
+     *
+     * @param device the device that will store the generated data
+     * @param delay the length of the measurement (ms)
+     */
+    static void measure(Device device, long delay) {
+        if (!batching) {
+            new Sensor(device, delay);
+            return;
+        }
+        Sensor[] open = SimulationContext.current().get(openBatch);
+        if (open[0] == null || open[0].dueTime != Timed.getFireCount() + delay) {
+            open[0] = new Sensor(delay);
+        }
+        open[0].devices.add(device);
+    }
+
+    /**
+     * Turns the batched sensing mode on or off. It affects the measurements started afterwards.
+     */
+    public static void setBatching(boolean batching) {
+        Sensor.batching = batching;
+    }
+
+    /**
+     * Returns true if the batched sensing mode is used.
+     */
+    public static boolean isBatching() {
+        return batching;
+    }
+
     /**
      * It creates and saves the file in the storage of the device.
-     * If the data cannot be save (e.g. due to lack of space), 
+     * If the data cannot be save (e.g. due to lack of space),
      * the simulation terminates.
      */
     @Override
     protected void eventAction() {
-        StorageObject so = new StorageObject(
-                this.device.localMachine.localDisk.getName() + " " + this.device.fileSize + " " + Timed.getFireCount(),
-                this.device.fileSize, false);
-        if (this.device.localMachine.localDisk.registerObject(so)) {
-            this.device.generatedData += so.size;
-            Device.totalGeneratedSize += so.size;
-            this.device.messageCount++;
+        if (this.devices == null) {
+            StorageObject so = new StorageObject(
+                    this.device.localMachine.localDisk.getName() + " " + this.device.fileSize + " "
+                    + Timed.getFireCount(), this.device.fileSize, false);
+            store(this.device, this.device.localMachine.localDisk.registerObject(so));
+        } else {
+            Sensor[] open = SimulationContext.current().get(openBatch);
+            if (open[0] == this) {
+                open[0] = null;
+            }
+            for (Device d : this.devices) {
+                store(d, readingsOf(d).addReading(d.localMachine.localDisk));
+            }
+        }
+    }
+
+    /**
+     * Returns the file collecting the readings of the device, a new file is started
+     * if the previous one is already sent or removed from the local storage.
+     */
+    private static SensorReadings readingsOf(Device device) {
+        Repository localDisk = device.localMachine.localDisk;
+        SensorReadings readings = device.openReadings;
+        if (readings == null || (readings.getReadingCount() > 0 && localDisk.lookup(readings.id) != readings)) {
+            readings = new SensorReadings(localDisk.getName() + " " + device.fileSize + " " + Timed.getFireCount(),
+                    device.fileSize);
+            device.openReadings = readings;
+        }
+        return readings;
+    }
+
+    /**
+     * Updates the statistics of the device after a measurement.
+     */
+    private static void store(Device device, boolean stored) {
+        if (stored) {
+            device.generatedData += device.fileSize;
+            Device.totalGeneratedSize += device.fileSize;
+            device.messageCount++;
         } else {
             try {
                 System.err.println("ERROR in Sensor.java: Saving data into the local repository is unsuccessful.");
@@ -0,0 +1,65 @@
+package hu.u_szeged.inf.fog.simulator.iot;
+
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+
+/**
+ * This class represents the readings of a device's sensor folded into a single file,
+ * it is used when batched sensing is turned on (see {@link Sensor#setBatching(boolean)}).
+ * The file grows with each measurement until it is picked up for transfer, while
+ * the number of readings it contains is kept for the statistics.
+ */
+public class SensorReadings extends StorageObject {
+
+    /**
+     * The size of the data produced by a single sensor reading (byte).
+     */
+    private final long readingSize;
+
+    /**
+     * The number of sensor readings folded into this file.
+     */
+    private int readingCount;
+
+    /**
+     * Creates an empty file for the readings of the device.
+     *
+     * @param id the identifier of the file
+     * @param readingSize the size of the data produced by a single sensor reading (byte)
+     */
+    public SensorReadings(String id, long readingSize) {
+        super(id, 0, false);
+        this.readingSize = readingSize;
+    }
+
+    /**
+     * Stores a new reading in the file, the file is registered in the
+     * repository with its first reading and grown by the later ones.
+     *
+     * @param repository the repository that stores the readings of the device
+     * @return false if the repository has not enough space to store the reading
+     */
+    public boolean addReading(Repository repository) {
+        boolean stored;
+        if (this.readingCount == 0) {
+            this.size = this.readingSize;
+            stored = repository.registerObject(this);
+            if (!stored) {
+                this.size = 0;
+            }
+        } else {
+            stored = repository.growObject(this, this.readingSize);
+        }
+        if (stored) {
+            this.readingCount++;
+        }
+        return stored;
+    }
+
+    /**
+     * Returns the number of sensor readings folded into this file.
+     */
+    public int getReadingCount() {
+        return this.readingCount;
+    }
+}
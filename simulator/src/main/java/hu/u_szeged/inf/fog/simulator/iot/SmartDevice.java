@@ -49,7 +49,7 @@ public class SmartDevice extends Device {
     public SmartDevice(long startTime, long stopTime, long fileSize, long freq,
             MobilityStrategy mobilityStrategy, DeviceStrategy deviceStrategy, 
             PhysicalMachine localMachine, int latency, boolean pathLogging) {
-        Device.allDevices.add(this);
+        Device.getAllDevices().add(this);
         long delay = Math.abs(SeedSyncer.centralRnd.nextLong() % 180) * 1000; 
         this.startTime = startTime + delay;
         this.stopTime = stopTime + delay;
@@ -83,7 +83,7 @@ public class SmartDevice extends Device {
     @Override
     public void tick(long fires) {
         if (Timed.getFireCount() < stopTime && Timed.getFireCount() >= startTime) {
-            new Sensor(this, 1);
+            Sensor.measure(this, 1);
         }
 
         GeoLocation newLocation = this.mobilityStrategy.move(this);
@@ -10,7 +10,7 @@ public class GeoLocation {
     /**
      * The approximate radius of the earth considered in the simulator (in km). 
      */
-    static final double earthRadius = 6378.137;
+    public static final double earthRadius = 6378.137;
 
     /**
      * The latitude of the location (-90 to +90 degrees). 
@@ -40,12 +40,26 @@ public class GeoLocation {
      * @param other the other position
      */
     public double calculateDistance(GeoLocation other) {
+        return calculateDistance(this.latitude, this.longitude, other.latitude, other.longitude);
+    }
+
+    /**
+     * Calculates and returns the distance between two positions given by their
+     * coordinates using the Haversine formula (in meters).
+     *
+     * @param latitude the latitude of the first position
+     * @param longitude the longitude of the first position
+     * @param otherLatitude the latitude of the second position
+     * @param otherLongitude the longitude of the second position
+     */
+    public static double calculateDistance(double latitude, double longitude, 
+            double otherLatitude, double otherLongitude) {
         
-        double deltaLatitude = (other.latitude * Math.PI / 180) - (this.latitude * Math.PI / 180);
-        double deltaLongitude = (other.longitude * Math.PI / 180) - (this.longitude * Math.PI / 180);
+        double deltaLatitude = (otherLatitude * Math.PI / 180) - (latitude * Math.PI / 180);
+        double deltaLongitude = (otherLongitude * Math.PI / 180) - (longitude * Math.PI / 180);
         
-        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2) + Math.cos(this.latitude * Math.PI / 180)
-                * Math.cos(other.latitude * Math.PI / 180) 
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2) + Math.cos(latitude * Math.PI / 180)
+                * Math.cos(otherLatitude * Math.PI / 180) 
                 * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
@@ -54,23 +68,25 @@ public class GeoLocation {
     }
 
     /**
-     * Calculates and returns the angle between this position and the other position.
+     * Calculates and returns the initial bearing from this position to the other position
+     * (in degrees, clockwise from north), the same convention as used by {@link #nextLocation}.
      *
      * @param other the other GeoLocation
      */
     public double angle(GeoLocation other) {
 
-        double deltaLongitude = (other.longitude - longitude);
+        double deltaLongitude = Math.toRadians(other.longitude - longitude);
+        double latitude1 = Math.toRadians(latitude);
+        double latitude2 = Math.toRadians(other.latitude);
 
-        double y = Math.sin(deltaLongitude) * Math.cos(other.latitude);
-        double x = Math.cos(latitude) * Math.sin(other.latitude)
-                - Math.sin(latitude) * Math.cos(other.latitude) * Math.cos(deltaLongitude);
+        double y = Math.sin(deltaLongitude) * Math.cos(latitude2);
+        double x = Math.cos(latitude1) * Math.sin(latitude2)
+                - Math.sin(latitude1) * Math.cos(latitude2) * Math.cos(deltaLongitude);
 
         double brng = Math.atan2(y, x);
 
         brng = Math.toDegrees(brng);
         brng = (brng + 360) % 360;
-        //brng = 359 - brng; count degrees counter-clockwise - remove to make clockwise // TODO: Check it
 
         return brng;
     }
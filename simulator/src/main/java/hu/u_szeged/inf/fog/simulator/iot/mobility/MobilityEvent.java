@@ -40,6 +40,9 @@ public class MobilityEvent {
      */
     public static void changePositionEvent(Device device, GeoLocation geoLocation) {
         if (geoLocation != null) {
+            if (ProactiveHandover.isEnabled()) {
+                ProactiveHandover.moved(device, geoLocation);
+            }
             device.geoLocation = geoLocation;
             changePositionEventCounter++;
         }
@@ -126,12 +129,18 @@ public class MobilityEvent {
 
     /**
      * Refreshes the device's connection with an application node based on
-     * the current and the future connection of a device.
+     * the current and the future connection of a device. If the proactive
+     * handover is turned on, the device may be redirected to the application
+     * selected in advance (see {@link ProactiveHandover}). The handover gap
+     * is measured in both modes.
      *
      * @param device      the device to refresh
      * @param application the new application to be associated with the device
      */
     public static void refresh(Device device, Application application) {
+        if (ProactiveHandover.isEnabled()) {
+            application = ProactiveHandover.redirect(device, application);
+        }
         if (application == null && device.application != null) {
             MobilityEvent.disconnectFromNodeEvent(device, application);
         }
@@ -141,5 +150,9 @@ public class MobilityEvent {
         if (application != null && device.application != null && application != device.application) {
             MobilityEvent.changeNodeEvent(device, application);
         }
+        if (ProactiveHandover.isEnabled()) {
+            ProactiveHandover.plan(device);
+        }
+        ProactiveHandover.observe(device);
     }
 }
\ No newline at end of file
@@ -0,0 +1,301 @@
+package hu.u_szeged.inf.fog.simulator.iot.mobility;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.ApplicationIndex;
+import hu.u_szeged.inf.fog.simulator.iot.Device;
+import hu.u_szeged.inf.fog.simulator.prediction.mobility.Predictor;
+import java.util.IdentityHashMap;
+
+/**
+ * This class implements the proactive handover of moving devices. The direction of each device
+ * is predicted by a {@link Predictor}, and if the device is predicted to leave the range of its
+ * application before its next measurement, the application covering its predicted location
+ * is selected in advance and its broker is switched on. Once the broker is running and the device
+ * is in the range of the new application, the uploads of the device are redirected to it, so
+ * the device does not have to wait for the broker after it has crossed the boundary.
+ *
+ * <p>A prediction that is not fulfilled within the horizon, or that is replaced by another one,
+ * is a misprediction. If the broker of the mispredicted application was switched on for it, and
+ * no device has connected to the application since then, the running time of the broker since
+ * the warm-up and its cost (at the price of the application's instance) are charged to the mode.</p>
+ *
+ * <p>The mode can be turned on with {@link #setEnabled(boolean)} or with the
+ * hu.u_szeged.inf.fog.simulator.iot.mobility.ProactiveHandover.enabled system property.
+ * The handover gap is measured in both modes, so the reactive handover can be compared with
+ * the proactive one. The results are collected per simulation context, see {@link #getStatistics()}.</p>
+ */
+public class ProactiveHandover {
+
+    /**
+     * The number of previous directions considered by the predictors.
+     */
+    public static final int BACKLOG_SIZE = 3;
+
+    /**
+     * The number of measurement periods of the device to look ahead for the next application.
+     * If the predicted handover does not happen within one more period, it is considered
+     * as a misprediction.
+     */
+    public static final int PREDICTION_HORIZON = 3;
+
+    /**
+     * True if the proactive handover is used.
+     */
+    private static boolean enabled =
+            Boolean.getBoolean("hu.u_szeged.inf.fog.simulator.iot.mobility.ProactiveHandover.enabled");
+
+    /**
+     * The counters of the handovers (each simulation context has its own).
+     */
+    private static final SimulationContext.Key<Statistics> statistics =
+            new SimulationContext.Key<>(Statistics::new);
+
+    /**
+     * The state of the devices (each simulation context has its own).
+     */
+    private static final SimulationContext.Key<IdentityHashMap<Device, ProactiveHandover>> states =
+            new SimulationContext.Key<>(IdentityHashMap::new);
+
+    /**
+     * The predictor of the device's direction.
+     */
+    private final Predictor predictor = new Predictor(BACKLOG_SIZE);
+
+    /**
+     * The last known position of the device.
+     */
+    private GeoLocation lastLocation;
+
+    /**
+     * The application the device was connected to when the handover was predicted.
+     */
+    private Application source;
+
+    /**
+     * The application selected for the predicted handover, null if no handover is predicted.
+     */
+    private Application target;
+
+    /**
+     * The time until the predicted handover must happen.
+     */
+    private long deadline;
+
+    /**
+     * True if the device has been redirected to the target, the redirection is kept
+     * while the strategy of the device chooses the previous application.
+     */
+    private boolean redirected;
+
+    /**
+     * The running time of the target's broker when it was switched on for the prediction,
+     * negative if the broker was already running.
+     */
+    private long warmUpRunningTime = -1;
+
+    /**
+     * Turns the proactive handover on or off.
+     */
+    public static void setEnabled(boolean enabled) {
+        ProactiveHandover.enabled = enabled;
+    }
+
+    /**
+     * Returns true if the proactive handover is used.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the counters of the handovers in the current simulation context.
+     */
+    public static Statistics getStatistics() {
+        return SimulationContext.current().get(statistics);
+    }
+
+    private static ProactiveHandover of(Device device) {
+        return SimulationContext.current().get(states).computeIfAbsent(device, d -> new ProactiveHandover());
+    }
+
+    /**
+     * Updates the direction history of the device after it has moved. The previous position is
+     * kept by value, as some mobility strategies update the location object of the device in place.
+     *
+     * @param device the device that moved
+     * @param newLocation the new location of the device
+     */
+    static void moved(Device device, GeoLocation newLocation) {
+        ProactiveHandover state = of(device);
+        if (state.lastLocation != null && (state.lastLocation.latitude != newLocation.latitude
+                || state.lastLocation.longitude != newLocation.longitude)) {
+            state.predictor.updateBacklog(state.lastLocation, newLocation);
+        }
+        state.lastLocation = new GeoLocation(newLocation.latitude, newLocation.longitude);
+    }
+
+    /**
+     * Redirects the device to the application selected in advance, if the device is
+     * about to leave the range of the application chosen by its strategy. The device stays
+     * with the new application until its strategy chooses another one than the previous,
+     * so it does not switch back while it is in the range of both applications.
+     *
+     * @param device the device to refresh
+     * @param application the application chosen by the strategy of the device
+     * @return the application the device should be connected to
+     */
+    static Application redirect(Device device, Application application) {
+        ProactiveHandover state = of(device);
+        Application target = state.target;
+        if (target == null || application == null || application != state.source || !target.serviceable
+                || !isRunning(target) || device.geoLocation.calculateDistance(
+                        target.computingAppliance.geoLocation) > target.computingAppliance.range * 1000) {
+            if (state.redirected) {
+                state.target = null;
+                state.redirected = false;
+            }
+            return application;
+        }
+        if (!state.redirected) {
+            getStatistics().proactiveHandoverCounter++;
+            state.redirected = true;
+        }
+        device.deviceStrategy.chosenApplication = target;
+        return target;
+    }
+
+    /**
+     * Evaluates the previous prediction of the device and predicts whether the device
+     * leaves the range of its application before its next measurement. In that case the
+     * application covering the first predicted location (looking ahead at most
+     * {@link #PREDICTION_HORIZON} measurements) is selected and its broker is switched on.
+     * A prediction that is neither fulfilled nor used for a redirection until its deadline,
+     * or that is replaced by another one, is a misprediction.
+     *
+     * @param device the device whose connection was refreshed
+     */
+    static void plan(Device device) {
+        ProactiveHandover state = of(device);
+        long now = Timed.getFireCount();
+        if (state.target != null && !state.redirected) {
+            if (device.application == state.target) {
+                state.target = null;
+            } else if (now > state.deadline) {
+                state.mispredicted();
+            }
+        }
+        if (device.application == null || device.mobilityStrategy == null) {
+            return;
+        }
+        double speed = device.mobilityStrategy.speed;
+        int direction = state.predictor.predictDirection();
+        if (!state.predictor.predictDisconnection(device, direction, speed)) {
+            return;
+        }
+        Application next = null;
+        for (int step = 1; step <= PREDICTION_HORIZON && next == null; step++) {
+            GeoLocation futureLocation = state.predictor.predictLocation(device, direction, speed * step);
+            for (Application app : ApplicationIndex.current().nearest(futureLocation, 2)) {
+                if (app != device.application) {
+                    next = app;
+                    break;
+                }
+            }
+        }
+        if (next == null || next == state.target) {
+            return;
+        }
+        if (state.target != null && !state.redirected) {
+            state.mispredicted();
+        }
+        state.redirected = false;
+        state.source = device.application;
+        state.target = next;
+        state.deadline = now + (PREDICTION_HORIZON + 1) * device.freq;
+        state.warmUpRunningTime = -1;
+        if (!isRunning(next) && !next.isSubscribed()) {
+            state.warmUpRunningTime = next.computingAppliance.broker.getRunningTime();
+            next.subscribeApplication();
+            getStatistics().warmUpCounter++;
+        }
+    }
+
+    /**
+     * Drops the target of the device as a misprediction. If its broker was switched on for
+     * the prediction and it has not served any device since then, its running time since the
+     * warm-up is charged.
+     */
+    private void mispredicted() {
+        Statistics stats = getStatistics();
+        stats.mispredictionCounter++;
+        if (this.warmUpRunningTime >= 0 && this.target.deviceList.isEmpty()) {
+            long wasted = this.target.computingAppliance.broker.getRunningTime() - this.warmUpRunningTime;
+            stats.mispredictedWarmUpTime += wasted;
+            stats.mispredictedWarmUpCost += this.target.instance.calculateCloudCost(wasted);
+        }
+        this.target = null;
+        this.warmUpRunningTime = -1;
+    }
+
+    /**
+     * Measures the handover gap: if the device has data to send, but it has no application
+     * with running broker, the time until its next measurement is added to the gap.
+     * It is called in the reactive mode as well.
+     *
+     * @param device the device whose connection was refreshed
+     */
+    static void observe(Device device) {
+        Application application = device.deviceStrategy.chosenApplication;
+        if ((application == null || !isRunning(application))
+                && device.localMachine.localDisk.getFreeStorageCapacity()
+                    < device.localMachine.localDisk.getMaxStorageCapacity()) {
+            getStatistics().handoverGapTime += device.freq;
+        }
+    }
+
+    private static boolean isRunning(Application application) {
+        return application.computingAppliance.broker.vm.getState().equals(VirtualMachine.State.RUNNING);
+    }
+
+    /**
+     * The counters of the proactive handover mode.
+     */
+    public static class Statistics {
+
+        /**
+         * The number of handovers performed before the device left the range of its application.
+         */
+        public long proactiveHandoverCounter;
+
+        /**
+         * The number of brokers switched on in advance.
+         */
+        public long warmUpCounter;
+
+        /**
+         * The number of predicted handovers that did not happen within the horizon,
+         * or were replaced by another prediction.
+         */
+        public long mispredictionCounter;
+
+        /**
+         * The total running time of the brokers switched on for mispredicted handovers (ms).
+         */
+        public long mispredictedWarmUpTime;
+
+        /**
+         * The cost of the brokers switched on for mispredicted handovers, at the price of
+         * the instances of their applications.
+         */
+        public double mispredictedWarmUpCost;
+
+        /**
+         * The total time the devices spent with unsent data, but without an application
+         * with running broker (ms).
+         */
+        public long handoverGapTime;
+    }
+}
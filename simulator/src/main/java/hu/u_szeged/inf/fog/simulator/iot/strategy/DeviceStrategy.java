@@ -1,9 +1,9 @@
 package hu.u_szeged.inf.fog.simulator.iot.strategy;
 
 import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.ApplicationIndex;
 import hu.u_szeged.inf.fog.simulator.iot.Device;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
 
 /**
  * This abstract class represents a strategy for finding an IoT application suitable for an IoT device.
@@ -28,13 +28,18 @@ public abstract class DeviceStrategy {
     /**
      * Returns with the list of available applications, which are able to receive IoT data
      * directly from the IoT device. The device must be located inside of the applications range.
+     * The applications are looked up in the spatial index, in the order of the list of all applications.
      */
     public ArrayList<Application> getAvailableApplications() {
-        ArrayList<Application> availableApplications = Application.allApplications.stream()
-                .filter(app -> app.serviceable && this.device.geoLocation
-                        .calculateDistance(app.computingAppliance.geoLocation) <= app.computingAppliance.range * 1000)
-                .collect(Collectors.toCollection(ArrayList::new));
+        return ApplicationIndex.current().inRange(this.device.geoLocation);
+    }
 
-        return availableApplications;
+    /**
+     * Returns with the k closest available applications in increasing order of distance.
+     *
+     * @param k the maximum number of applications to return
+     */
+    public ArrayList<Application> getNearestApplications(int k) {
+        return ApplicationIndex.current().nearest(this.device.geoLocation, k);
     }
-}
\ No newline at end of file
+}
@@ -15,20 +15,9 @@ public class DistanceBasedDeviceStrategy extends DeviceStrategy {
      */
     @Override
     public void findApplication() {
-        this.chosenApplication = null;
-        ArrayList<Application> availableApplications = this.getAvailableApplications();
+        ArrayList<Application> nearestApplications = this.getNearestApplications(1);
+        this.chosenApplication = nearestApplications.isEmpty() ? null : nearestApplications.get(0);
 
-        if (availableApplications.size() > 0) {
-            double min = Double.MAX_VALUE;
-            this.chosenApplication = null;
-            for (Application app : availableApplications) {
-                if (this.device.geoLocation.calculateDistance(app.computingAppliance.geoLocation) < min) {
-                    min = this.device.geoLocation.calculateDistance(app.computingAppliance.geoLocation);
-                    this.chosenApplication = app;
-                }
-            }
-        }
-        
         MobilityEvent.refresh(this.device, this.chosenApplication);
     }
 }
\ No newline at end of file
@@ -107,7 +107,7 @@ public class PliantDeviceStrategy extends DeviceStrategy {
         sig = new Sigmoid(Double.valueOf(-0.125), Double.valueOf(sumStations / (availableApplications.size())));
         for (int i = 0; i < availableApplications.size(); ++i) {
             numberofstation
-                    .add(kappa.getAt(sig.getAt(Double.valueOf(Application.allApplications.get(i).deviceList.size()))));
+                    .add(kappa.getAt(sig.getAt(Double.valueOf(Application.getAllApplications().get(i).deviceList.size()))));
         }
 
         Vector<Double> numberofActiveStation = new Vector<Double>();
@@ -1,7 +1,10 @@
 package hu.u_szeged.inf.fog.simulator.node;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.EnergyMeter;
 import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.IaaSEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.VectorizedIaaSEnergyMeter;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
@@ -37,10 +40,11 @@ public class ComputingAppliance {
     public static AlterableResourceConstraints brokerArc = new AlterableResourceConstraints(1, 0.001, 1294967296L);
 
     /**
-     * A list containing references to all computing appliances.
+     * A list containing references to all computing appliances (each simulation context has its own list).
      * Each element in the list is an instance of the {@code ComputingAppliance} class.
      */
-    public static ArrayList<ComputingAppliance> allComputingAppliances = new ArrayList<>();
+    private static final SimulationContext.Key<ArrayList<ComputingAppliance>> allComputingAppliances = 
+            new SimulationContext.Key<>(ArrayList::new);
 
     /**
      * The physical position of the node.
@@ -91,6 +95,11 @@ public class ComputingAppliance {
      */
     public double energyConsumption;
 
+    /**
+     * The meter of the physical resource if it is read on demand (analytical metering).
+     */
+    private EnergyMeter energyMeter;
+
     /**
      * A helper variable to store every important event of the runtime of 
      * this computing appliance.
@@ -122,7 +131,7 @@ public class ComputingAppliance {
         this.applications = new ArrayList<>();
         this.range = range <= 0 ? Integer.MAX_VALUE : range;
         this.modifyRepoName(this.iaas.repositories.get(0).getName() + "-" + this.name);
-        ComputingAppliance.allComputingAppliances.add(this);
+        ComputingAppliance.getAllComputingAppliances().add(this);
         this.readEnergy();
     }
     
@@ -160,9 +169,17 @@ public class ComputingAppliance {
     /**
      * Reads and monitors energy consumption of the computing appliance.
      * Energy consumption data is collected periodically using an {@code IaaSEnergyMeter}.
-     * The time period is set to 1 minute.
+     * The time period is set to 1 minute. If the energy meters are analytical, there is
+     * no periodic collection, a {@code VectorizedIaaSEnergyMeter} is read on demand and
+     * stopped when the last application stops.
      */
     public void readEnergy() {
+        if (EnergyMeter.isAnalytical()) {
+            this.energyMeter = new VectorizedIaaSEnergyMeter(this.iaas);
+            this.energyMeter.startMeter(1 * 60 * 1000, true);
+            return;
+        }
+        
         final IaaSEnergyMeter iaasEnergyMeter = new IaaSEnergyMeter(this.iaas);
         
         /**
@@ -203,6 +220,27 @@ public class ComputingAppliance {
         dc.start();
     }
 
+    /**
+     * Returns the energy consumed by this physical resource so far.
+     */
+    public double getEnergyConsumption() {
+        if (this.energyMeter != null && this.energyMeter.isMetering()) {
+            this.energyConsumption = this.energyMeter.getTotalConsumption();
+        }
+        return this.energyConsumption;
+    }
+
+    /**
+     * Notifies the computing appliance that one of its applications stopped. The analytical
+     * energy meter is stopped when all applications are stopped.
+     */
+    public void applicationStopped() {
+        if (this.energyMeter != null && this.energyMeter.isMetering() && this.checkApplicationStatus()) {
+            this.energyConsumption = this.energyMeter.getTotalConsumption();
+            this.energyMeter.stopMeter();
+        }
+    }
+
     /**
      * Returns true if all applications are stopped.
      */
@@ -296,9 +334,9 @@ public class ComputingAppliance {
     }
     
     /**
-     * Returns with the list of all computing appliance instances.
+     * Returns with the list of all computing appliance instances of the current simulation.
      */
     public static ArrayList<ComputingAppliance> getAllComputingAppliances() {
-        return allComputingAppliances;
+        return SimulationContext.current().get(allComputingAppliances);
     }
 }
\ No newline at end of file
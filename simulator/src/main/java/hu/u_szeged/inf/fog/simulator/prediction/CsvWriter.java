@@ -0,0 +1,164 @@
+package hu.u_szeged.inf.fog.simulator.prediction;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Helper class writing the semicolon separated CSV files of the predictions. Each cell is
+ * followed by a separator and each row by a line break.
+ *
+ * <p>The numbers are written with 16 decimals like the "%.16f" format (using the decimal
+ * separator of the default locale), but the digits are produced in reused buffers, so writing
+ * a number does not create a formatter and a string.</p>
+ */
+public class CsvWriter implements Closeable {
+
+    private static final int DECIMALS = 16;
+
+    private final Writer writer;
+
+    private final char decimalSeparator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    /**
+     * The shortest representation of the current number.
+     */
+    private final StringBuilder shortest = new StringBuilder(32);
+
+    /**
+     * The significant digits of the current number.
+     */
+    private final char[] digits = new char[32];
+
+    /**
+     * Constructs a CSV writer.
+     *
+     * @param writer the writer the file is written to, it should be buffered
+     */
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Writes a text cell.
+     */
+    public CsvWriter cell(String text) throws IOException {
+        writer.write(text);
+        writer.write(';');
+        return this;
+    }
+
+    /**
+     * Writes a numeric cell with 16 decimals.
+     */
+    public CsvWriter cell(double value) throws IOException {
+        writeFixed(value);
+        writer.write(';');
+        return this;
+    }
+
+    /**
+     * Writes an empty cell.
+     */
+    public CsvWriter empty() throws IOException {
+        writer.write(';');
+        return this;
+    }
+
+    /**
+     * Closes the current row.
+     */
+    public CsvWriter endRow() throws IOException {
+        writer.write('\n');
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Writes the number in fixed-point notation. The shortest decimal representation of the number
+     * is rounded half-up to 16 decimals, which is what the "%.16f" format does.
+     */
+    private void writeFixed(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            shortest.setLength(0);
+            shortest.append(value);
+            writer.append(shortest);
+            return;
+        }
+        shortest.setLength(0);
+        shortest.append(value);
+
+        // the digits without the sign, the decimal point and the leading zeros, and the position
+        // of the decimal point relative to the first digit
+        int length = 0;
+        int point = 0;
+        boolean seenPoint = false;
+        int i = shortest.charAt(0) == '-' ? 1 : 0;
+        for (; i < shortest.length(); i++) {
+            char c = shortest.charAt(i);
+            if (c == '.') {
+                seenPoint = true;
+            } else if (c == 'E') {
+                break;
+            } else if (length == 0 && c == '0') {
+                if (seenPoint) {
+                    point--;
+                }
+            } else {
+                digits[length++] = c;
+                if (!seenPoint) {
+                    point++;
+                }
+            }
+        }
+        if (i < shortest.length()) {
+            int exponent = 0;
+            boolean negative = shortest.charAt(++i) == '-';
+            for (i = negative ? i + 1 : i; i < shortest.length(); i++) {
+                exponent = exponent * 10 + shortest.charAt(i) - '0';
+            }
+            point += negative ? -exponent : exponent;
+        }
+
+        // rounding to the last decimal kept
+        int kept = point + DECIMALS;
+        if (kept < length) {
+            boolean up = kept >= 0 && digits[kept] >= '5';
+            length = Math.max(kept, 0);
+            if (up) {
+                int d = length - 1;
+                while (d >= 0 && digits[d] == '9') {
+                    digits[d--] = '0';
+                }
+                if (d >= 0) {
+                    digits[d]++;
+                } else {
+                    System.arraycopy(digits, 0, digits, 1, length);
+                    digits[0] = '1';
+                    length++;
+                    point++;
+                }
+            }
+        }
+
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            writer.write('-');
+        }
+        if (point <= 0) {
+            writer.write('0');
+        } else {
+            for (int d = 0; d < point; d++) {
+                writer.write(d < length ? digits[d] : '0');
+            }
+        }
+        writer.write(decimalSeparator);
+        for (int d = point; d < point + DECIMALS; d++) {
+            writer.write(d >= 0 && d < length ? digits[d] : '0');
+        }
+    }
+}
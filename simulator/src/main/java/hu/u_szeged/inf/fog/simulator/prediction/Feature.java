@@ -1,18 +1,25 @@
 package hu.u_szeged.inf.fog.simulator.prediction;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * The Feature class represents a measurable characteristic or property used in time series analysis.
  * It provides methods to compute, store, and retrieve the feature's values.
+ *
+ * <p>The values are stored in a growable primitive array, the lists returned by {@link #getValues()}
+ * and {@link #getWindowValues(int)} are read-only views of it.</p>
  */
 public abstract class Feature {
     
     private String name;
-    private List<Double> values;
+    private double[] values;
+    private int size;
     private List<Prediction> predictions;
     private boolean hasNewValue;
 
@@ -23,7 +30,7 @@ public abstract class Feature {
      */
     public Feature(String name) {
         this.name = name;
-        this.values = new ArrayList<>();
+        this.values = new double[16];
         this.predictions = new ArrayList<>();
         this.hasNewValue = false;
     }
@@ -40,7 +47,11 @@ public abstract class Feature {
      * Computes the feature's value and adds it to the list of values.
      */
     public void computeValue() {
-        values.add(compute());
+        double value = compute();
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
         hasNewValue = true;
     }
 
@@ -52,7 +63,7 @@ public abstract class Feature {
     public JSONObject toJson() throws JSONException {
         return new JSONObject()
                 .put("name", name)
-                .put("values", Utils.listToJsonArray(values));
+                .put("values", Utils.listToJsonArray(getValues()));
     }
     
     /**
@@ -75,10 +86,43 @@ public abstract class Feature {
      * @return a list of the feature's values within the window size
      */
     public List<Double> getWindowValues(int windowSize) {
-        if (values.size() < windowSize) {
+        if (size < windowSize) {
             return new ArrayList<>();
         }
-        return values.subList(values.size() - windowSize, values.size());
+        return new ValueView(size - windowSize, windowSize);
+    }
+
+    /**
+     * Copies the feature's values within a specified window size into a new array.
+     * If the number of values is less than the window size, an empty array is returned.
+     *
+     * @param windowSize the size of the window
+     * @return the last values of the feature
+     */
+    public double[] getWindowArray(int windowSize) {
+        if (size < windowSize) {
+            return new double[0];
+        }
+        return Arrays.copyOfRange(values, size - windowSize, size);
+    }
+
+    /**
+     * Returns the number of values of the feature.
+     */
+    public int getValueCount() {
+        return size;
+    }
+
+    /**
+     * Returns a value of the feature.
+     *
+     * @param index the index of the value (0 is the first computed value)
+     */
+    public double getValue(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
     }
 
     public void setHasNewValue(boolean hasNewValue) {
@@ -97,8 +141,11 @@ public abstract class Feature {
         predictions.add(result);
     }
 
+    /**
+     * Returns a read-only view of the feature's values, new values appear in it.
+     */
     public List<Double> getValues() {
-        return values;
+        return new ValueView(0, -1);
     }
 
     public List<Prediction> getPredictions() {
@@ -109,8 +156,39 @@ public abstract class Feature {
     public String toString() {
         return "Feature{" 
                 + "name='" + name + '\''
-                + ", values=" + values.size() 
+                + ", values=" + size 
                 + ", predictions=" + predictions.size() 
                 + '}';
     }
-}
\ No newline at end of file
+
+    /**
+     * A read-only list view of a range of the values.
+     */
+    private class ValueView extends AbstractList<Double> implements RandomAccess {
+
+        private final int from;
+
+        /**
+         * The length of the range, or -1 if the view follows the number of values.
+         */
+        private final int length;
+
+        ValueView(int from, int length) {
+            this.from = from;
+            this.length = length;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            return values[from + index];
+        }
+
+        @Override
+        public int size() {
+            return length < 0 ? Feature.this.size - from : length;
+        }
+    }
+}
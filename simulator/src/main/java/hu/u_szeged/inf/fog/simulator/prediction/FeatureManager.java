@@ -1,14 +1,17 @@
 package hu.u_szeged.inf.fog.simulator.prediction;
 
+import hu.u_szeged.inf.fog.simulator.prediction.communication.BatchFrame;
 import hu.u_szeged.inf.fog.simulator.prediction.communication.ServerSocket;
 import hu.u_szeged.inf.fog.simulator.prediction.communication.SocketMessage;
 import hu.u_szeged.inf.fog.simulator.prediction.communication.launchers.ElectronLauncher;
 import hu.u_szeged.inf.fog.simulator.prediction.communication.launchers.Launcher;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.LocalPredictor;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.SimulationSettings;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import org.json.JSONObject;
 
@@ -20,12 +23,15 @@ public class FeatureManager {
     
     private static FeatureManager featureManager;
     private List<Feature> features;
+    private HashMap<String, Feature> featuresByName;
+    private LocalPredictor localPredictor;
 
     /**
      * Private constructor to enforce singleton pattern.
      */
     private FeatureManager() {
         this.features = new ArrayList<>();
+        this.featuresByName = new HashMap<>();
     }
     
     /**
@@ -46,7 +52,7 @@ public class FeatureManager {
      * @param feature the feature to be added
      */
     public FeatureManager addFeature(Feature feature) {
-        if (getFeatureByName(feature.getName()) == null) {
+        if (featuresByName.putIfAbsent(feature.getName(), feature) == null) {
             features.add(feature);
         }
         return this;
@@ -59,12 +65,7 @@ public class FeatureManager {
      * @return the feature with the specified name, or null if it does not exist
      */
     public Feature getFeatureByName(String name) {
-        for (Feature feature : features) {
-            if (feature.getName().equals(name)) {
-                return feature;
-            }
-        }
-        return null;
+        return featuresByName.get(name);
     }
 
     /**
@@ -78,29 +79,26 @@ public class FeatureManager {
         String fullPath = path + fileName;
         PredictionLogger.info("FeatureManager-exportDatasetToCSV", 
                 String.format("Exporting dataset to %s...", fullPath));
-        try (PrintWriter printWriter = new PrintWriter(fullPath)) {
-            StringBuilder sb = new StringBuilder();
-
+        try (CsvWriter csv = new CsvWriter(Files.newBufferedWriter(Paths.get(fullPath)))) {
             // Columns
             for (Feature feature : features) {
-                sb.append(feature.getName()).append(";");
+                csv.cell(feature.getName());
             }
-
-            sb.append("\n");
+            csv.endRow();
 
             // Values
-            for (int i = 0; i < getFeatureValuesMaxLength(); i++) {
+            int length = getFeatureValuesMaxLength();
+            for (int i = 0; i < length; i++) {
                 for (Feature feature : features) {
-                    if (i < feature.getValues().size()) {
-                        sb.append(String.format("%.16f", feature.getValues().get(i)).replace("\\.", ",")).append(";");
+                    if (i < feature.getValueCount()) {
+                        csv.cell(feature.getValue(i));
                     } else {
-                        sb.append("").append(";");
+                        csv.empty();
                     }
                 }
-                sb.append("\n");
+                csv.endRow();
             }
 
-            printWriter.write(sb.toString());
             PredictionLogger.info("FeatureManager-exportDatasetToCSV", "Export done!");
         } catch (Exception e) {
             e.printStackTrace();
@@ -118,39 +116,30 @@ public class FeatureManager {
         String fullPath = path + fileName;
         PredictionLogger.info("FeatureManager-exportMetricsToCSV", 
                 String.format("Exporting metrics to %s...", fullPath));
-        try (PrintWriter printWriter = new PrintWriter(fullPath)) {
-            StringBuilder sb = new StringBuilder();
-
+        try (CsvWriter csv = new CsvWriter(Files.newBufferedWriter(Paths.get(fullPath)))) {
             // Columns
             for (Feature feature : features) {
-                sb.append(String.format("%s::%s", feature.getName(), "RMSE")).append(";");
-                sb.append(String.format("%s::%s", feature.getName(), "MSE")).append(";");
-                sb.append(String.format("%s::%s", feature.getName(), "MAE")).append(";");
+                csv.cell(feature.getName() + "::RMSE");
+                csv.cell(feature.getName() + "::MSE");
+                csv.cell(feature.getName() + "::MAE");
             }
-
-            sb.append("\n");
+            csv.endRow();
 
             // Values
-            for (int i = 0; i < getFeaturePredictionsMaxLength(); i++) {
+            int length = getFeaturePredictionsMaxLength();
+            for (int i = 0; i < length; i++) {
                 for (Feature feature : features) {
                     if (i < feature.getPredictions().size() 
                             && feature.getPredictions().get(i).getErrorMetrics() != null) {
-                        sb.append(String.format("%.16f", feature.getPredictions()
-                                .get(i).getErrorMetrics().getRmse()).replace("\\.", ",")).append(";");
-                        sb.append(String.format("%.16f", feature.getPredictions()
-                                .get(i).getErrorMetrics().getMse()).replace("\\.", ",")).append(";");
-                        sb.append(String.format("%.16f", feature.getPredictions()
-                                .get(i).getErrorMetrics().getMae()).replace("\\.", ",")).append(";");
+                        Prediction.ErrorMetrics errorMetrics = feature.getPredictions().get(i).getErrorMetrics();
+                        csv.cell(errorMetrics.getRmse()).cell(errorMetrics.getMse()).cell(errorMetrics.getMae());
                     } else {
-                        sb.append("").append(";")
-                                .append("").append(";")
-                                .append("").append(";");
+                        csv.empty().empty().empty();
                     }
                 }
-                sb.append("\n");
+                csv.endRow();
             }
 
-            printWriter.write(sb.toString());
             PredictionLogger.info("FeatureManager-exportErrorMetricsToCSV", "Export done!");
         } catch (Exception e) {
             e.printStackTrace();
@@ -168,29 +157,25 @@ public class FeatureManager {
         String fullPath = path + fileName;
         PredictionLogger.info("FeatureManager-exportPredictionsToCSV", 
                 String.format("Exporting predictions to %s...", fullPath));
-        try (PrintWriter printWriter = new PrintWriter(fullPath)) {
-            StringBuilder sb = new StringBuilder();
-
+        try (CsvWriter csv = new CsvWriter(Files.newBufferedWriter(Paths.get(fullPath)))) {
             // Columns
             for (Feature feature : features) {
-                sb.append(feature.getName()).append(";");
+                csv.cell(feature.getName());
             }
+            csv.endRow();
 
-            sb.append("\n");
-
-            for (int i = 0; i < getFeaturePredictionsMaxLength(); i++) {
+            int length = getFeaturePredictionsMaxLength();
+            for (int i = 0; i < length; i++) {
                 for (Feature feature : features) {
                     if (i < feature.getPredictions().size()) {
-                        sb.append(String.format("%.16f", 
-                                feature.getPredictions().get(i).getPredictionTime()).replace("\\.", ",")).append(";");
+                        csv.cell(feature.getPredictions().get(i).getPredictionTime());
                     } else {
-                        sb.append("").append(";");
+                        csv.empty();
                     }
                 }
-                sb.append("\n");
+                csv.endRow();
             }
 
-            printWriter.write(sb.toString());
             PredictionLogger.info("FeatureManager-exportPredictionsToCSV", "Export done!");
         } catch (Exception e) {
             e.printStackTrace();
@@ -198,7 +183,22 @@ public class FeatureManager {
     }
 
     /**
-     * Sends features for prediction.
+     * Sets the in-process predictor used instead of the external predictor application.
+     *
+     * @param localPredictor the predictor, or null to use the external predictor
+     */
+    public void setLocalPredictor(LocalPredictor localPredictor) {
+        this.localPredictor = localPredictor;
+    }
+
+    public LocalPredictor getLocalPredictor() {
+        return localPredictor;
+    }
+
+    /**
+     * Predicts the features with the in-process predictor if it is set, otherwise sends them
+     * to the external predictor. If the external predictor supports it, all features are sent
+     * in a single binary frame (see {@link BatchFrame}), otherwise one message is sent per feature.
      *
      * @param features the list of features to predict
      * @param windowSize the size of the window for prediction
@@ -207,24 +207,48 @@ public class FeatureManager {
     public List<Prediction> predict(List<Feature> features, int windowSize) throws Exception {
         PredictionLogger.info("FeatureManager-sendFeatures", "Send features for prediction");
         List<Prediction> predictions = new ArrayList<>();
-        for (Feature feature : features) {
-            feature.setHasNewValue(false);
-            SocketMessage message = ServerSocket.getInstance().sendAndGet(
+        if (localPredictor != null) {
+            for (Feature feature : features) {
+                feature.setHasNewValue(false);
+                Prediction result = localPredictor.predict(feature, windowSize);
+                feature.addPrediction(result);
+                predictions.add(result);
+            }
+        } else if (ServerSocket.getInstance().isBatchSupported(SocketMessage.SocketApplication.APPLICATION_PREDICTOR)) {
+            byte[] reply = ServerSocket.getInstance().sendAndGetFrame(
                     SocketMessage.SocketApplication.APPLICATION_PREDICTOR,
-                    new SocketMessage(
-                            "predict-feature",
-                            new JSONObject().put("feature", feature.toJson(windowSize))
-                    )
+                    BatchFrame.encodeFeatures(features, windowSize)
             );
-
-            if (message.hasError()) {
-                PredictionLogger.error("socket-prediction-result", message.getData().get("error").toString());
-                continue;
+            List<Prediction> results = BatchFrame.decodePredictions(reply, SimulationSettings.get());
+            for (int i = 0; i < features.size(); i++) {
+                Feature feature = features.get(i);
+                feature.setHasNewValue(false);
+                Prediction result = i < results.size() ? results.get(i) : null;
+                if (result != null) {
+                    feature.addPrediction(result);
+                    predictions.add(result);
+                }
             }
+        } else {
+            for (Feature feature : features) {
+                feature.setHasNewValue(false);
+                SocketMessage message = ServerSocket.getInstance().sendAndGet(
+                        SocketMessage.SocketApplication.APPLICATION_PREDICTOR,
+                        new SocketMessage(
+                                "predict-feature",
+                                new JSONObject().put("feature", feature.toJson(windowSize))
+                        )
+                );
 
-            Prediction result = new Prediction(message.getData().getJSONObject("prediction"));
-            feature.addPrediction(result);
-            predictions.add(result);
+                if (message.hasError()) {
+                    PredictionLogger.error("socket-prediction-result", message.getData().get("error").toString());
+                    continue;
+                }
+
+                Prediction result = new Prediction(message.getData().getJSONObject("prediction"));
+                feature.addPrediction(result);
+                predictions.add(result);
+            }
         }
 
         if (Launcher.hasApplication(ElectronLauncher.class.getSimpleName())) {
@@ -248,8 +272,8 @@ public class FeatureManager {
     private int getFeatureValuesMaxLength() {
         int max = Integer.MIN_VALUE;
         for (Feature feature : features) {
-            if (feature.getValues().size() > max) {
-                max = feature.getValues().size();
+            if (feature.getValueCount() > max) {
+                max = feature.getValueCount();
             }
         }
         return max;
@@ -278,7 +302,7 @@ public class FeatureManager {
         List<Feature> result = new ArrayList<>();
 
         for (Feature feature : features) {
-            if (feature.getValues().size() >= windowSize && feature.getHasNewValue()) {
+            if (feature.getValueCount() >= windowSize && feature.getHasNewValue()) {
                 result.add(feature);
             }
         }
@@ -292,7 +316,7 @@ public class FeatureManager {
         TableBuilder table = new TableBuilder();
         table.addHeader("Feature name", "Dataset length", "Number of predictions");
         for (Feature feature : features) {
-            table.addRow(feature.getName(), feature.getValues().size(), feature.getPredictions().size());
+            table.addRow(feature.getName(), feature.getValueCount(), feature.getPredictions().size());
         }
         System.out.println(table);
     }
@@ -15,7 +15,7 @@ public class Prediction {
     /**
      * Represents error metrics including RMSE, MSE, and MAE.
      */
-    public class ErrorMetrics {
+    public static class ErrorMetrics {
         
         private double rmse;
         private double mse;
@@ -32,6 +32,15 @@ public class Prediction {
             this.mae = jsonObject.getDouble("MAE");
         }
 
+        /**
+         * Constructs ErrorMetrics object from the values of the metrics.
+         */
+        public ErrorMetrics(double rmse, double mse, double mae) {
+            this.rmse = rmse;
+            this.mse = mse;
+            this.mae = mae;
+        }
+
         public double getRmse() {
             return rmse;
         }
@@ -60,7 +69,7 @@ public class Prediction {
     /**
      * Represents a dataset with timestamps and data points.
      */
-    public class Data {
+    public static class Data {
         
         private List<Integer> timestamp;
         private List<Double> data;
@@ -84,6 +93,25 @@ public class Prediction {
             }
         }
 
+        /**
+         * Constructs Data from arrays of the same length.
+         *
+         * @param timestamp the timestamps
+         * @param data the data points
+         */
+        public Data(int[] timestamp, double[] data) {
+            this.timestamp = new ArrayList<>(timestamp.length);
+            this.data = new ArrayList<>(data.length);
+
+            for (double d : data) {
+                this.data.add(d);
+            }
+
+            for (int t : timestamp) {
+                this.timestamp.add(t);
+            }
+        }
+
         public List<Integer> getTimestamp() {
             return timestamp;
         }
@@ -161,6 +189,37 @@ public class Prediction {
         this.predictionTime = jsonObject.getDouble("prediction_time");
     }
 
+    /**
+     * Constructs a Prediction from its parts, the optional parts can be null.
+     *
+     * @param featureName the name of the predicted feature
+     * @param predictionNumber the number of the prediction of the feature (starting from 0)
+     * @param simulationSettings the settings the prediction was made with
+     * @param originalData the values of the feature
+     * @param preprocessedData the values after the preprocessing
+     * @param testDataBeginning the first part of the preprocessed values
+     * @param testDataEnd the last part of the preprocessed values, used for testing
+     * @param predictionFuture the predicted future values (optional)
+     * @param predictionTest the values predicted for the test data (optional)
+     * @param errorMetrics the error of the prediction on the test data (optional)
+     * @param predictionTime the time the prediction took (ms)
+     */
+    public Prediction(String featureName, int predictionNumber, SimulationSettings simulationSettings,
+            Data originalData, Data preprocessedData, Data testDataBeginning, Data testDataEnd,
+            Data predictionFuture, Data predictionTest, ErrorMetrics errorMetrics, double predictionTime) {
+        this.featureName = featureName;
+        this.predictionNumber = predictionNumber;
+        this.simulationSettings = simulationSettings;
+        this.originalData = originalData;
+        this.preprocessedData = preprocessedData;
+        this.testDataBeginning = testDataBeginning;
+        this.testDataEnd = testDataEnd;
+        this.predictionFuture = predictionFuture;
+        this.predictionTest = predictionTest;
+        this.errorMetrics = errorMetrics;
+        this.predictionTime = predictionTime;
+    }
+
     public String getFeatureName() {
         return featureName;
     }
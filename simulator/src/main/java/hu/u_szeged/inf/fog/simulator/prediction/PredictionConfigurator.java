@@ -2,6 +2,7 @@ package hu.u_szeged.inf.fog.simulator.prediction;
 
 import hu.u_szeged.inf.fog.simulator.prediction.communication.ServerSocket;
 import hu.u_szeged.inf.fog.simulator.prediction.communication.launchers.Launcher;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.LocalPredictor;
 import hu.u_szeged.inf.fog.simulator.prediction.settings.SimulationSettings;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -43,6 +44,14 @@ public class PredictionConfigurator {
         }
     }
 
+    /**
+     * Predicts the features inside the simulator instead of the external predictor application,
+     * so no predictor launcher is needed.
+     */
+    public void useLocalPredictor() {
+        FeatureManager.getInstance().setLocalPredictor(new LocalPredictor());
+    }
+
     /**
      * Starts the server socket and waits for connections and prediction settings.
      */
@@ -53,15 +62,17 @@ public class PredictionConfigurator {
     }
 
     /**
-     * Executes the prediction simulation by opening applications, starting the socket, 
-     * running the simulation, exporting results, stopping threads, and printing information.
+     * Executes the prediction simulation by opening applications, starting the socket 
+     * (if there is any application to connect), running the simulation, exporting results, stopping threads, and printing information.
      */
     public void execute() throws Exception {
         for (Launcher application : launchers) {
             application.open();
         }
 
-        startSocket();
+        if (!launchers.isEmpty()) {
+            startSocket();
+        }
         simulationDefinition.simulation();
         export();
         
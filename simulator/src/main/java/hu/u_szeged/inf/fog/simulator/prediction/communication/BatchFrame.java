@@ -0,0 +1,140 @@
+package hu.u_szeged.inf.fog.simulator.prediction.communication;
+
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.Prediction;
+import hu.u_szeged.inf.fog.simulator.prediction.PredictionLogger;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.SimulationSettings;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class encodes and decodes the binary frames used to predict several features in a single
+ * round-trip. All numbers are big-endian, the strings are UTF-8 bytes preceded by their length.
+ *
+ * <p>A frame is the {@link #MAGIC} int, the length of the body and the body itself. The body of
+ * a request is the number of features, then the name, the number of values and the values (doubles)
+ * of each feature. The body of a reply contains an entry for each feature in the same order:
+ * the name of the feature and a status byte. A failed entry continues with the error message,
+ * a successful one with the number of the prediction, the prediction time (ms), a flag byte
+ * ({@link #HAS_FUTURE}, {@link #HAS_TEST}, {@link #HAS_ERROR_METRICS}), the original, preprocessed,
+ * test beginning and test end series, the optional series and finally the RMSE, MSE and MAE.
+ * A series is its length, the timestamps (ints) and the data points (doubles).</p>
+ *
+ * <p>The magic number cannot be the beginning of a JSON message, so the predictor can tell the
+ * frames from the line-based messages by their first four bytes.</p>
+ */
+public class BatchFrame {
+
+    /**
+     * The first four bytes of each frame ("DCFB").
+     */
+    public static final int MAGIC = 0x44434642;
+
+    public static final byte STATUS_OK = 0;
+
+    public static final byte STATUS_ERROR = 1;
+
+    public static final byte HAS_FUTURE = 1;
+
+    public static final byte HAS_TEST = 2;
+
+    public static final byte HAS_ERROR_METRICS = 4;
+
+    /**
+     * Creates a request frame containing the last values of the features.
+     *
+     * @param features the features to predict
+     * @param windowSize the number of values sent of each feature
+     */
+    public static byte[] encodeFeatures(List<Feature> features, int windowSize) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeInt(features.size());
+        for (Feature feature : features) {
+            writeString(out, feature.getName());
+            double[] values = feature.getWindowArray(windowSize);
+            out.writeInt(values.length);
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+        out.flush();
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(body.size() + 8);
+        DataOutputStream header = new DataOutputStream(frame);
+        header.writeInt(MAGIC);
+        header.writeInt(body.size());
+        body.writeTo(frame);
+        return frame.toByteArray();
+    }
+
+    /**
+     * Decodes the body of a reply frame. The failed predictions are logged and null is
+     * returned in their place, so the result has an element for each requested feature.
+     *
+     * @param body the body of the frame (without the magic number and the length)
+     * @param simulationSettings the settings the predictions were made with
+     */
+    public static List<Prediction> decodePredictions(byte[] body, SimulationSettings simulationSettings)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        int count = in.readInt();
+        List<Prediction> predictions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String featureName = readString(in);
+            byte status = in.readByte();
+            if (status != STATUS_OK) {
+                PredictionLogger.error("socket-prediction-result",
+                        String.format("%s: %s", featureName, readString(in)));
+                predictions.add(null);
+                continue;
+            }
+            int predictionNumber = in.readInt();
+            double predictionTime = in.readDouble();
+            byte flags = in.readByte();
+            Prediction.Data originalData = readData(in);
+            Prediction.Data preprocessedData = readData(in);
+            Prediction.Data testDataBeginning = readData(in);
+            Prediction.Data testDataEnd = readData(in);
+            Prediction.Data predictionFuture = (flags & HAS_FUTURE) != 0 ? readData(in) : null;
+            Prediction.Data predictionTest = (flags & HAS_TEST) != 0 ? readData(in) : null;
+            Prediction.ErrorMetrics errorMetrics = (flags & HAS_ERROR_METRICS) != 0
+                    ? new Prediction.ErrorMetrics(in.readDouble(), in.readDouble(), in.readDouble()) : null;
+            predictions.add(new Prediction(featureName, predictionNumber, simulationSettings, originalData,
+                    preprocessedData, testDataBeginning, testDataEnd, predictionFuture, predictionTest,
+                    errorMetrics, predictionTime));
+        }
+        return predictions;
+    }
+
+    private static Prediction.Data readData(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        int[] timestamp = new int[length];
+        double[] data = new double[length];
+        for (int i = 0; i < length; i++) {
+            timestamp[i] = in.readInt();
+        }
+        for (int i = 0; i < length; i++) {
+            data[i] = in.readDouble();
+        }
+        return new Prediction.Data(timestamp, data);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
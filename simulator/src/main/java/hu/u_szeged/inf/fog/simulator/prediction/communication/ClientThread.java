@@ -1,24 +1,27 @@
 package hu.u_szeged.inf.fog.simulator.prediction.communication;
 
 import hu.u_szeged.inf.fog.simulator.prediction.PredictionLogger;
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import org.json.JSONObject;
 
 public class ClientThread extends Thread {
     private Socket socket;
     private String name;
-    private BufferedReader in;
+    private boolean batchSupported;
+    private DataInputStream in;
     private DataOutputStream out;
 
     public ClientThread(Socket socket) {
         this.socket = socket;
 
         try {
-            this.in = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
             this.out = new DataOutputStream(this.socket.getOutputStream());
         } catch (IOException e) {
             e.printStackTrace();
@@ -27,6 +30,7 @@ public class ClientThread extends Thread {
         try {
             SocketMessage message = sendAndGet(new SocketMessage("get-name", new JSONObject().put("message", "name")));
             this.name = message.getData().getString("name");
+            this.batchSupported = message.getData().optBoolean("batch", false);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -58,11 +62,11 @@ public class ClientThread extends Thread {
             out.write(createByteArrayMessage(messageSize));
             out.flush();
 
-            String r = in.readLine(); // ACK for message size
+            String r = readLine(); // ACK for message size
 
             out.write(createByteArrayMessage(message));
             out.flush();
-            String data = in.readLine();
+            String data = readLine();
 
             if (data == null) {
                 PredictionLogger.warning("socket", "Message data is null.");
@@ -79,10 +83,57 @@ public class ClientThread extends Thread {
         return inMessage;
     }
 
+    /**
+     * Sends a frame created by {@link BatchFrame} and waits for the reply frame.
+     *
+     * @param frame the request frame
+     * @return the body of the reply frame
+     */
+    public byte[] sendAndGetFrame(byte[] frame) throws IOException {
+        PredictionLogger.info("socket-out", String.format("[%s]: frame (%d bytes)", name, frame.length));
+        out.write(frame);
+        out.flush();
+
+        int magic = in.readInt();
+        if (magic != BatchFrame.MAGIC) {
+            throw new IOException(String.format("Unexpected reply from %s: %08x", name, magic));
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        PredictionLogger.info("socket-in", String.format("[%s]: frame (%d bytes)", name, body.length + 8));
+        return body;
+    }
+
+    /**
+     * Reads a line sent by the client, the binary frames are read from the same stream.
+     *
+     * @return the line without the line terminator, or null if the stream has ended
+     */
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
     public String getSocketName() {
         return name;
     }
 
+    /**
+     * Returns true if the client can answer the frames of {@link BatchFrame}.
+     */
+    public boolean isBatchSupported() {
+        return batchSupported;
+    }
+
     private static byte[] createByteArrayMessage(SocketMessage message) {
         return message.toString().getBytes();
     }
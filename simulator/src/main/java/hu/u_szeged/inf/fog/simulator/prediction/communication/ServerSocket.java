@@ -24,7 +24,8 @@ public class ServerSocket {
 
     public static ServerSocket getInstance() {
         if (ServerSocket.SERVER_SOCKET == null) {
-            ServerSocket.SERVER_SOCKET = new ServerSocket(65432);
+            ServerSocket.SERVER_SOCKET = new ServerSocket(Integer.getInteger(
+                    "hu.u_szeged.inf.fog.simulator.prediction.communication.ServerSocket.port", 65432));
         }
         return ServerSocket.SERVER_SOCKET;
     }
@@ -89,6 +90,13 @@ public class ServerSocket {
         }
     }
 
+    /**
+     * Returns the port the server listens on (useful if the port was chosen by the system).
+     */
+    public int getPort() {
+        return server == null ? port : server.getLocalPort();
+    }
+
     public void waitForPredictionSettings() {
         PredictionLogger.info("ServerSocket", "Waiting for prediction settings...");
         if (Launcher.hasApplication(ElectronLauncher.class.getSimpleName())) {
@@ -104,6 +112,10 @@ public class ServerSocket {
         }
         PredictionLogger.info("ServerSocket", "Prediction settings have been arrive!");
 
+        if (getClientThreadByApplication(SocketMessage.SocketApplication.APPLICATION_PREDICTOR) == null) {
+            return;
+        }
+
         try {
             sendAndGet(
                     SocketMessage.SocketApplication.APPLICATION_PREDICTOR,
@@ -141,4 +153,26 @@ public class ServerSocket {
         ClientThread clientThread = getClientThreadByApplication(application);
         return clientThread.sendAndGet(message);
     }
+
+    /**
+     * Returns true if the application is connected and it can answer the frames of {@link BatchFrame}.
+     *
+     * @param application the application to check
+     */
+    public boolean isBatchSupported(SocketMessage.SocketApplication application) {
+        ClientThread clientThread = getClientThreadByApplication(application);
+        return clientThread != null && clientThread.isBatchSupported();
+    }
+
+    /**
+     * Sends a frame created by {@link BatchFrame} to the application and waits for the reply frame.
+     *
+     * @param application the application to send the frame to
+     * @param frame the request frame
+     * @return the body of the reply frame
+     */
+    public byte[] sendAndGetFrame(SocketMessage.SocketApplication application, byte[] frame) throws Exception {
+        ClientThread clientThread = getClientThreadByApplication(application);
+        return clientThread.sendAndGetFrame(frame);
+    }
 }
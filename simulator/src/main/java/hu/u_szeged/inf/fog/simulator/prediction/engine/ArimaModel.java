@@ -0,0 +1,87 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+/**
+ * A lightweight ARIMA model: the values are differenced d times, an autoregressive model of
+ * order p (with intercept) is fitted to the differences by least squares, and the forecast of
+ * the differences is integrated back. The moving average part (q) is not estimated, so the model
+ * corresponds to ARIMA(p, d, 0), which is the default setting of the predictor.
+ */
+public class ArimaModel implements PredictorModel {
+
+    private final int p;
+
+    private final int d;
+
+    /**
+     * Constructs the model.
+     *
+     * @param p the order of the autoregressive part
+     * @param d the number of differencing
+     */
+    public ArimaModel(int p, int d) {
+        if (p < 0 || d < 0) {
+            throw new IllegalArgumentException("The orders cannot be negative: " + p + ", " + d);
+        }
+        this.p = p;
+        this.d = d;
+    }
+
+    @Override
+    public double[] forecast(double[] values, int length) {
+        int order = Math.min(this.d, values.length - 1);
+        // the last value of each level of differencing, needed for the integration
+        double[] last = new double[order];
+        double[] series = values.clone();
+        int n = series.length;
+        for (int level = 0; level < order; level++) {
+            last[level] = series[n - 1];
+            for (int i = 0; i < n - 1; i++) {
+                series[i] = series[i + 1] - series[i];
+            }
+            n--;
+        }
+
+        // at least two observations are needed for each coefficient
+        int lags = Math.max(0, Math.min(this.p, (n - 1) / 2));
+        double[] coefficients;
+        if (lags == 0) {
+            double mean = 0;
+            for (int i = 0; i < n; i++) {
+                mean += series[i];
+            }
+            coefficients = new double[] { mean / n };
+        } else {
+            double[][] design = new double[n - lags][lags + 1];
+            double[] target = new double[n - lags];
+            for (int t = lags; t < n; t++) {
+                design[t - lags][0] = 1;
+                for (int l = 1; l <= lags; l++) {
+                    design[t - lags][l] = series[t - l];
+                }
+                target[t - lags] = series[t];
+            }
+            coefficients = LeastSquares.fit(design, target);
+        }
+
+        double[] history = new double[lags + length];
+        System.arraycopy(series, n - lags, history, 0, lags);
+        double[] result = new double[length];
+        for (int h = 0; h < length; h++) {
+            double next = coefficients[0];
+            for (int l = 1; l <= lags; l++) {
+                next += coefficients[l] * history[lags + h - l];
+            }
+            history[lags + h] = next;
+            result[h] = next;
+        }
+
+        for (int level = order - 1; level >= 0; level--) {
+            double previous = last[level];
+            for (int h = 0; h < length; h++) {
+                previous += result[h];
+                result[h] = previous;
+            }
+        }
+        return result;
+    }
+}
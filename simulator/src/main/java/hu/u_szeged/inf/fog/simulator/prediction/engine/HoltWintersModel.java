@@ -0,0 +1,151 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+/**
+ * Holt-Winters exponential smoothing with fixed smoothing parameters. Both the trend and the
+ * seasonal component can be additive, multiplicative or missing. If the values do not cover two
+ * seasons, the seasonal component is left out (Holt's linear method, or simple exponential
+ * smoothing without trend).
+ *
+ * <p>Like the Python predictor, the values are shifted to be positive before fitting,
+ * which the multiplicative components require.</p>
+ */
+public class HoltWintersModel implements PredictorModel {
+
+    /**
+     * The types of the trend and the seasonal component.
+     */
+    public enum Component {
+        NONE, ADD, MUL;
+
+        /**
+         * Parses the name used in the predictor settings ("add", "mul", or anything else for none).
+         */
+        public static Component of(Object name) {
+            if (name != null) {
+                String s = name.toString().toLowerCase();
+                if (s.startsWith("add")) {
+                    return ADD;
+                }
+                if (s.startsWith("mul")) {
+                    return MUL;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    private final Component trend;
+
+    private final Component seasonal;
+
+    private final int seasonalPeriods;
+
+    private final double alpha;
+
+    private final double beta;
+
+    private final double gamma;
+
+    /**
+     * Constructs the model.
+     *
+     * @param trend the type of the trend
+     * @param seasonal the type of the seasonal component
+     * @param seasonalPeriods the length of a season
+     * @param alpha the smoothing parameter of the level
+     * @param beta the smoothing parameter of the trend
+     * @param gamma the smoothing parameter of the seasonal component
+     */
+    public HoltWintersModel(Component trend, Component seasonal, int seasonalPeriods,
+            double alpha, double beta, double gamma) {
+        this.trend = trend;
+        this.seasonal = seasonal;
+        this.seasonalPeriods = seasonalPeriods;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+    }
+
+    @Override
+    public double[] forecast(double[] values, int length) {
+        int n = values.length;
+        double min = Double.POSITIVE_INFINITY;
+        for (double v : values) {
+            min = Math.min(min, v);
+        }
+        double shift = min <= 0 ? 1 - min : 0;
+
+        int m = this.seasonal != Component.NONE && this.seasonalPeriods > 1 && n >= 2 * this.seasonalPeriods
+                ? this.seasonalPeriods : 0;
+        double[] season = new double[Math.max(m, 1)];
+        double level;
+        double slope = this.trend == Component.MUL ? 1 : 0;
+        int start;
+        if (m > 0) {
+            double first = 0;
+            double second = 0;
+            for (int i = 0; i < m; i++) {
+                first += values[i] + shift;
+                second += values[m + i] + shift;
+            }
+            first /= m;
+            second /= m;
+            level = first;
+            if (this.trend == Component.ADD) {
+                slope = (second - first) / m;
+            } else if (this.trend == Component.MUL) {
+                slope = Math.pow(second / first, 1.0 / m);
+            }
+            for (int i = 0; i < m; i++) {
+                season[i] = this.seasonal == Component.ADD ? values[i] + shift - first : (values[i] + shift) / first;
+            }
+            start = m;
+        } else {
+            level = values[0] + shift;
+            if (n > 1) {
+                if (this.trend == Component.ADD) {
+                    slope = values[1] - values[0];
+                } else if (this.trend == Component.MUL) {
+                    slope = (values[1] + shift) / (values[0] + shift);
+                }
+            }
+            start = 1;
+        }
+        Component seasonal = m > 0 ? this.seasonal : Component.NONE;
+
+        for (int t = start; t < n; t++) {
+            double y = values[t] + shift;
+            int s = m > 0 ? t % m : 0;
+            double deseasonalised = seasonal == Component.ADD ? y - season[s]
+                    : seasonal == Component.MUL ? y / season[s] : y;
+            double previousLevel = level;
+            double expected = this.trend == Component.ADD ? level + slope
+                    : this.trend == Component.MUL ? level * slope : level;
+            level = this.alpha * deseasonalised + (1 - this.alpha) * expected;
+            if (this.trend == Component.ADD) {
+                slope = this.beta * (level - previousLevel) + (1 - this.beta) * slope;
+            } else if (this.trend == Component.MUL) {
+                slope = this.beta * (level / previousLevel) + (1 - this.beta) * slope;
+            }
+            if (seasonal == Component.ADD) {
+                season[s] = this.gamma * (y - level) + (1 - this.gamma) * season[s];
+            } else if (seasonal == Component.MUL) {
+                season[s] = this.gamma * (y / level) + (1 - this.gamma) * season[s];
+            }
+        }
+
+        double[] result = new double[length];
+        for (int h = 1; h <= length; h++) {
+            double value = this.trend == Component.ADD ? level + h * slope
+                    : this.trend == Component.MUL ? level * Math.pow(slope, h) : level;
+            int s = m > 0 ? (n + h - 1) % m : 0;
+            if (seasonal == Component.ADD) {
+                value += season[s];
+            } else if (seasonal == Component.MUL) {
+                value *= season[s];
+            }
+            result[h - 1] = value - shift;
+        }
+        return result;
+    }
+}
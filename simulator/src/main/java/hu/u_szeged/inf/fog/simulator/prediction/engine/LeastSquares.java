@@ -0,0 +1,94 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+/**
+ * Helper class solving the small linear systems of the models.
+ */
+class LeastSquares {
+
+    /**
+     * Solves the normal equations of a least squares problem.
+     *
+     * @param design the rows of the design matrix
+     * @param target the target value of each row
+     * @return the coefficients minimising the squared error
+     */
+    static double[] fit(double[][] design, double[] target) {
+        int k = design[0].length;
+        double[][] normal = new double[k][k];
+        double[] right = new double[k];
+        for (int r = 0; r < design.length; r++) {
+            double[] row = design[r];
+            for (int i = 0; i < k; i++) {
+                right[i] += row[i] * target[r];
+                for (int j = i; j < k; j++) {
+                    normal[i][j] += row[i] * row[j];
+                }
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < i; j++) {
+                normal[i][j] = normal[j][i];
+            }
+        }
+        return solve(normal, right);
+    }
+
+    /**
+     * Solves a linear system with Gaussian elimination and partial pivoting. The unknowns
+     * belonging to (numerically) zero pivots are set to zero, so a rank deficient system
+     * still gets a solution.
+     *
+     * @param a the coefficient matrix, it is overwritten
+     * @param b the right-hand side, it is overwritten
+     */
+    static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        double scale = 0;
+        for (double[] row : a) {
+            for (double v : row) {
+                scale = Math.max(scale, Math.abs(v));
+            }
+        }
+        double epsilon = scale * 1e-12;
+        boolean[] singular = new boolean[n];
+        for (int c = 0; c < n; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < n; r++) {
+                if (Math.abs(a[r][c]) > Math.abs(a[pivot][c])) {
+                    pivot = r;
+                }
+            }
+            double[] row = a[c];
+            a[c] = a[pivot];
+            a[pivot] = row;
+            double value = b[c];
+            b[c] = b[pivot];
+            b[pivot] = value;
+            if (Math.abs(a[c][c]) <= epsilon) {
+                singular[c] = true;
+                continue;
+            }
+            for (int r = c + 1; r < n; r++) {
+                double factor = a[r][c] / a[c][c];
+                if (factor != 0) {
+                    for (int j = c; j < n; j++) {
+                        a[r][j] -= factor * a[c][j];
+                    }
+                    b[r] -= factor * b[c];
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            if (singular[r]) {
+                continue;
+            }
+            double sum = b[r];
+            for (int j = r + 1; j < n; j++) {
+                sum -= a[r][j] * x[j];
+            }
+            x[r] = sum / a[r][r];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,30 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+/**
+ * Fits a line to the values (ordinary least squares on the timestamps) and extrapolates it.
+ */
+public class LinearRegressionModel implements PredictorModel {
+
+    @Override
+    public double[] forecast(double[] values, int length) {
+        int n = values.length;
+        double meanT = (n - 1) / 2.0;
+        double meanY = 0;
+        for (double v : values) {
+            meanY += v;
+        }
+        meanY /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (int t = 0; t < n; t++) {
+            covariance += (t - meanT) * (values[t] - meanY);
+            variance += (t - meanT) * (t - meanT);
+        }
+        double slope = variance == 0 ? 0 : covariance / variance;
+        double[] result = new double[length];
+        for (int h = 0; h < length; h++) {
+            result[h] = meanY + slope * (n + h - meanT);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,261 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.Prediction;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.PredictionSettings;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.PredictorSettings;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.SimulationSettings;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class predicts the features inside the simulator, without the external Python predictor.
+ * It follows the steps of the Python predictor: the window of the feature is smoothed with
+ * a Savitzky-Golay filter and scaled into [0, 1] (if the settings ask for them), the last
+ * testSize values are held back to compute the error metrics of the model, and the future values
+ * are predicted from the whole window. The results are returned in the same form as the ones
+ * of the external predictor.
+ *
+ * <p>The ARIMA (without the moving average part), HOLT_WINTERS, LINEAR_REGRESSION and
+ * MOVING_AVERAGE predictors are supported, ONLY_SIMULATION returns predictions without
+ * predicted values. The minimum prediction time of the settings is not simulated.</p>
+ */
+public class LocalPredictor {
+
+    /**
+     * The number of predictions made for each feature.
+     */
+    private final HashMap<String, Integer> predictionNumbers = new HashMap<>();
+
+    /**
+     * Predicts the future values of a feature based on its last values, using the
+     * current simulation settings.
+     *
+     * @param feature the feature to predict
+     * @param windowSize the number of the last values used
+     */
+    public Prediction predict(Feature feature, int windowSize) {
+        return this.predict(feature.getName(), feature.getWindowArray(windowSize), SimulationSettings.get());
+    }
+
+    /**
+     * Predicts the values following the given ones.
+     *
+     * @param featureName the name of the feature
+     * @param values the last values of the feature
+     * @param settings the settings of the prediction and the predictor
+     */
+    public Prediction predict(String featureName, double[] values, SimulationSettings settings) {
+        if (values.length < 2) {
+            throw new IllegalArgumentException("At least two values are needed to predict " + featureName);
+        }
+        long start = System.nanoTime();
+        int predictionNumber = this.predictionNumbers.merge(featureName, 1, Integer::sum) - 1;
+        PredictionSettings prediction = settings.getPrediction();
+        PredictorModel model = createModel(settings.getPredictor());
+        int n = values.length;
+
+        PredictionSettings.SmoothingSettings smoothing = prediction.getSmoothing();
+        double[] preprocessed = smoothing == null ? values.clone()
+                : smooth(values, smoothing.getWindowSize(), smoothing.getPolynomialDegree());
+        double[] scale = prediction.isScale() ? scale(preprocessed) : null;
+
+        int testSize = Math.max(1, Math.min(prediction.getTestSize(), n - 1));
+        double[] beginning = new double[n - testSize];
+        double[] end = new double[testSize];
+        System.arraycopy(preprocessed, 0, beginning, 0, n - testSize);
+        System.arraycopy(preprocessed, n - testSize, end, 0, testSize);
+
+        Prediction.Data predictionFuture = null;
+        Prediction.Data predictionTest = null;
+        Prediction.ErrorMetrics errorMetrics = null;
+        if (model != null) {
+            double[] future = model.forecast(preprocessed, prediction.getLength());
+            double[] test = model.forecast(beginning, testSize);
+            double squared = 0;
+            double absolute = 0;
+            for (int i = 0; i < testSize; i++) {
+                double error = end[i] - test[i];
+                squared += error * error;
+                absolute += Math.abs(error);
+            }
+            errorMetrics = new Prediction.ErrorMetrics(Math.sqrt(squared / testSize), squared / testSize,
+                    absolute / testSize);
+            predictionFuture = data(n, unscale(future, scale));
+            predictionTest = data(n - testSize, unscale(test, scale));
+        }
+
+        double predictionTime = model == null ? -1 : (System.nanoTime() - start) / 1e6;
+        return new Prediction(featureName, predictionNumber, settings,
+                data(0, values.clone()),
+                data(0, unscale(preprocessed, scale)),
+                data(0, unscale(beginning, scale)),
+                data(n - testSize, unscale(end, scale)),
+                predictionFuture, predictionTest, errorMetrics, predictionTime);
+    }
+
+    /**
+     * Creates the model described by the predictor settings.
+     *
+     * @return the model, or null if the values are not predicted (ONLY_SIMULATION)
+     * @throws IllegalArgumentException if the predictor is not supported in-process
+     */
+    public static PredictorModel createModel(PredictorSettings predictor) {
+        Map<String, Object> hyperparameters = predictor.getHyperparameters();
+        switch (predictor.getPredictor()) {
+          case "ARIMA":
+              return new ArimaModel(
+                      (int) number(hyperparameters, "p_value", 3),
+                      (int) number(hyperparameters, "d_value", 0)
+              );
+          case "HOLT_WINTERS":
+              return new HoltWintersModel(
+                      HoltWintersModel.Component.of(value(hyperparameters, "trend")),
+                      HoltWintersModel.Component.of(value(hyperparameters, "seasonal")),
+                      (int) number(hyperparameters, "seasonal_periods", 60),
+                      number(hyperparameters, "alpha", 0.1),
+                      number(hyperparameters, "beta", 0.1),
+                      number(hyperparameters, "gamma", 0.1)
+              );
+          case "LINEAR_REGRESSION":
+              return new LinearRegressionModel();
+          case "MOVING_AVERAGE":
+              return new MovingAverageModel((int) number(hyperparameters, "window_size", 10));
+          case "ONLY_SIMULATION":
+              return null;
+          default:
+        }
+        throw new IllegalArgumentException("The " + predictor.getPredictor()
+                + " predictor is not supported by the local predictor.");
+    }
+
+    private static Object value(Map<String, Object> hyperparameters, String key) {
+        return hyperparameters == null ? null : hyperparameters.get(key);
+    }
+
+    /**
+     * Reads a numeric hyperparameter, the settings coming from the UI may contain them as text.
+     */
+    private static double number(Map<String, Object> hyperparameters, String key, double defaultValue) {
+        Object value = value(hyperparameters, key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                // the default is used
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Smooths the values with a Savitzky-Golay filter: a polynomial is fitted to the window around
+     * each value, and at the edges the polynomial of the first (or last) window is used. The values
+     * are returned unchanged if the window does not fit into them.
+     *
+     * @param values the values to smooth
+     * @param windowSize the length of the window
+     * @param degree the degree of the polynomial
+     */
+    static double[] smooth(double[] values, int windowSize, int degree) {
+        int n = values.length;
+        if (windowSize < 2 || windowSize > n || degree < 0 || degree >= windowSize) {
+            return values.clone();
+        }
+        // the projection matrix of the least squares polynomial fit on a window
+        double[][] vandermonde = new double[windowSize][degree + 1];
+        double center = (windowSize - 1) / 2.0;
+        for (int i = 0; i < windowSize; i++) {
+            double x = (i - center) / windowSize;
+            double power = 1;
+            for (int k = 0; k <= degree; k++) {
+                vandermonde[i][k] = power;
+                power *= x;
+            }
+        }
+        double[][] normal = new double[degree + 1][degree + 1];
+        for (int i = 0; i < windowSize; i++) {
+            for (int a = 0; a <= degree; a++) {
+                for (int b = 0; b <= degree; b++) {
+                    normal[a][b] += vandermonde[i][a] * vandermonde[i][b];
+                }
+            }
+        }
+        double[][] inverse = new double[degree + 1][];
+        for (int k = 0; k <= degree; k++) {
+            double[][] copy = new double[degree + 1][];
+            for (int a = 0; a <= degree; a++) {
+                copy[a] = normal[a].clone();
+            }
+            double[] unit = new double[degree + 1];
+            unit[k] = 1;
+            inverse[k] = LeastSquares.solve(copy, unit);
+        }
+        double[][] projection = new double[windowSize][windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            for (int j = 0; j < windowSize; j++) {
+                double sum = 0;
+                for (int a = 0; a <= degree; a++) {
+                    for (int b = 0; b <= degree; b++) {
+                        sum += vandermonde[i][a] * inverse[a][b] * vandermonde[j][b];
+                    }
+                }
+                projection[i][j] = sum;
+            }
+        }
+
+        double[] result = new double[n];
+        int half = (windowSize - 1) / 2;
+        for (int t = 0; t < n; t++) {
+            int first = Math.max(0, Math.min(t - half, n - windowSize));
+            double[] weights = projection[t - first];
+            double sum = 0;
+            for (int j = 0; j < windowSize; j++) {
+                sum += weights[j] * values[first + j];
+            }
+            result[t] = sum;
+        }
+        return result;
+    }
+
+    /**
+     * Scales the values into [0, 1] in place.
+     *
+     * @return the minimum and the range of the values, needed to scale them back
+     */
+    static double[] scale(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        double range = max - min == 0 ? 1 : max - min;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (values[i] - min) / range;
+        }
+        return new double[] { min, range };
+    }
+
+    private static double[] unscale(double[] values, double[] scale) {
+        if (scale == null) {
+            return values;
+        }
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] * scale[1] + scale[0];
+        }
+        return result;
+    }
+
+    private static Prediction.Data data(int firstTimestamp, double[] values) {
+        int[] timestamp = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            timestamp[i] = firstTimestamp + i;
+        }
+        return new Prediction.Data(timestamp, values);
+    }
+}
@@ -0,0 +1,38 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+import java.util.Arrays;
+
+/**
+ * Predicts the mean of the last values for the whole prediction length.
+ */
+public class MovingAverageModel implements PredictorModel {
+
+    /**
+     * The number of values averaged.
+     */
+    private final int windowSize;
+
+    /**
+     * Constructs a model averaging the given number of values.
+     *
+     * @param windowSize the number of the last values averaged
+     */
+    public MovingAverageModel(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window size must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public double[] forecast(double[] values, int length) {
+        int from = Math.max(0, values.length - windowSize);
+        double sum = 0;
+        for (int i = from; i < values.length; i++) {
+            sum += values[i];
+        }
+        double[] result = new double[length];
+        Arrays.fill(result, sum / (values.length - from));
+        return result;
+    }
+}
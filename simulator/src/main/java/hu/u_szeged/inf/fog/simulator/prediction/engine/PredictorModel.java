@@ -0,0 +1,17 @@
+package hu.u_szeged.inf.fog.simulator.prediction.engine;
+
+/**
+ * A time series model of the in-process predictor. The model is fitted to the given values
+ * (taken at consecutive timestamps) on each call, so the implementations are stateless.
+ */
+public interface PredictorModel {
+
+    /**
+     * Fits the model to the values and predicts the following ones.
+     *
+     * @param values the values of the time series, at least one
+     * @param length the number of values to predict
+     * @return the predicted values
+     */
+    double[] forecast(double[] values, int length);
+}
@@ -3,7 +3,7 @@ package hu.u_szeged.inf.fog.simulator.prediction.mobility;
 public class Backlog {
 
     final int kk;
-    LimitedQueue<Integer> directionQueue;
+    public LimitedQueue<Integer> directionQueue;
     LimitedQueue<Double> weightQueue;
 
     public Backlog(int k) {
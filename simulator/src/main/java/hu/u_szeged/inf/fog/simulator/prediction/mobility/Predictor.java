@@ -10,9 +10,9 @@ import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
  */
 public class Predictor {
     final int kk;
-    final Backlog backlog;
+    public final Backlog backlog;
     int prevAngle = -1;
-    ProbabilityMatrix probabilityMatrix;
+    public ProbabilityMatrix probabilityMatrix;
 
     /**
      * Instantiates a predictor object.
@@ -51,20 +51,23 @@ public class Predictor {
     public int predictDirection() {
         LimitedQueue<Double> weights = backlog.applyWeights();
         int dirQueueSize = backlog.directionQueue.size();
-        double[][][] cache = new double[dirQueueSize][ProbabilityMatrix.POSSIBLE_DIR][ProbabilityMatrix.POSSIBLE_DIR];
+        double[][] transitionMatrix = probabilityMatrix.getTransitionMatrix();
+        // only the rows of the current directions are needed from the powers of the
+        // transition matrix, so the rows are multiplied instead of the whole matrix
+        double[][] cache = new double[dirQueueSize][];
         for (int i = 0; i < dirQueueSize; i++) {
-            cache[i] = Utils.pow(probabilityMatrix.getTransitionMatrix(), i + 1);
+            double[] row = transitionMatrix[backlog.directionQueue.get(i)].clone();
+            for (int j = 0; j < i; j++) {
+                row = Utils.multiplyRow(row, transitionMatrix);
+            }
+            cache[i] = row;
         }
         int predicted = -1;
         double max = Double.MIN_VALUE;
         for (int n = 0; n < ProbabilityMatrix.POSSIBLE_DIR; n++) {
             double product = 1.0;
             for (int i = 0; i < dirQueueSize; i++) {
-                // double[][] POW_MATRIX = Utils.pow(probabilityMatrix.getTransitionMatrix(), i
-                // + 1);
-                double[][] powMatrix = cache[i];
-                Integer currDirectrion = backlog.directionQueue.get(i);
-                product += powMatrix[currDirectrion][n] * weights.get(i);
+                product += cache[i][n] * weights.get(i);
             }
             if (product > max) {
                 max = product;
@@ -91,7 +94,7 @@ public class Predictor {
         for (ComputingAppliance ca : ComputingAppliance.getAllComputingAppliances()) {
             double futureDistance = futureLocation.calculateDistance(ca.geoLocation);
             // int futureLatency = device.latency + (int) (futureDistance / 1000);
-            if (futureDistance <= ca.range) {
+            if (futureDistance <= ca.range * 1000) {
                 return true;
             }
         }
@@ -118,11 +121,23 @@ public class Predictor {
         GeoLocation futureLocation = future(device, direction, speed);
         double futureDistance = futureLocation.calculateDistance(device.application.computingAppliance.geoLocation);
         //int futureLatency = device.latency + (int) (futureDistance / 1000);
-        return futureDistance > device.application.computingAppliance.range;
+        return futureDistance > device.application.computingAppliance.range * 1000;
+    }
+
+    /**
+     * Predicts the location of a device at its next measurement, if it moves in the predicted direction.
+     *
+     * @param device    The device that moves
+     * @param direction The predicted direction
+     * @param speed     The speed of the device
+     * @return The predicted location of the device
+     */
+    public GeoLocation predictLocation(Device device, int direction, double speed) {
+        return future(device, direction, speed);
     }
 
     private GeoLocation future(Device device, int direction, double speed) {
-        GeoLocation currentPosition = device.mobilityStrategy.currentPosition;
+        GeoLocation currentPosition = device.geoLocation;
         double distance = speed * device.freq;
         return currentPosition.nextLocation(distance, direction);
     }
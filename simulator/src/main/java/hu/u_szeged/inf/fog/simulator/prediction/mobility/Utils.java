@@ -76,6 +76,28 @@ public class Utils {
         return result;
     }
 
+    /**
+     * Multiplies a row vector with a matrix.
+     *
+     * @param v The row vector
+     * @param m The matrix
+     * @return v * M
+     */
+    public static double[] multiplyRow(double[] v, double[][] m) {
+        double[] result = new double[m[0].length];
+        for (int i = 0; i < v.length; i++) {
+            double vi = v[i];
+            if (vi == 0) {
+                continue;
+            }
+            double[] row = m[i];
+            for (int col = 0; col < result.length; col++) {
+                result[col] += vi * row[col];
+            }
+        }
+        return result;
+    }
+
     /**
      * Calculates the value of a cell during matrix multiplication (row x col
      * composition).
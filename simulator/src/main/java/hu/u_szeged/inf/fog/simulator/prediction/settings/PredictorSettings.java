@@ -21,6 +21,7 @@ public class PredictorSettings {
         HOLT_WINTERS("HOLT_WINTERS"),
         LSTM("LSTM"),
         LINEAR_REGRESSION("LINEAR_REGRESSION"),
+        MOVING_AVERAGE("MOVING_AVERAGE"),
         ONLY_SIMULATION("ONLY_SIMULATION");
 
         public final String value;
@@ -150,6 +151,14 @@ public class PredictorSettings {
                         null,
                         null
                 );
+          case MOVING_AVERAGE:
+              return new PredictorSettings(
+                        PredictorEnum.MOVING_AVERAGE,
+                        Map.of(
+                                "window_size", 10
+                        ),
+                        null
+                );
           case SVR:
               return new PredictorSettings(
                         PredictorEnum.SVR,
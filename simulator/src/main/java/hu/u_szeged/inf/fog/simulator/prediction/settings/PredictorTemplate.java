@@ -155,6 +155,14 @@ public class PredictorTemplate {
         predictorTemplates.add(
                 new PredictorTemplate("LINEAR_REGRESSION", "Linear regression")
         );
+        predictorTemplates.add(
+                new PredictorTemplate("MOVING_AVERAGE", "Moving average",
+                        Arrays.asList(
+                                new Parameter("Window size").required()
+                                .setType(Parameter.ParameterType.TEXT).setDefaultValue("10")
+                        )
+                )
+        );
         predictorTemplates.add(
                 new PredictorTemplate("SVR", "SVR",
                         Arrays.asList(
@@ -35,7 +35,7 @@ public class AwsProvider extends Provider {
      */
     public AwsProvider() {
         this.name = "AWS";
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
 
     /**
@@ -48,7 +48,7 @@ public class AwsProvider extends Provider {
         this.connectivityCostPerMessages = connectivityCostPerMessages;
         this.publishingCostPerMessages = publishingCostPerMessages;
         this.name = "AWS";
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
 
     /**
@@ -71,8 +71,8 @@ public class AwsProvider extends Provider {
         long totalDeviceRuntime = 0;
         long totalMessageCount = 0;
 
-        for (Device d : Device.allDevices) {
-            totalDeviceRuntime += (d.stopTime - d.startTime);
+        for (Device d : Device.getAllDevices()) {
+            totalDeviceRuntime += d.getTotalRuntime();
             totalMessageCount += d.messageCount;
         }
         this.cost += (totalDeviceRuntime / 1000 / 60) * connectivityCostPerMessages;
@@ -46,7 +46,7 @@ public class AzureProvider extends Provider {
      */
     public AzureProvider() {
         this.name = "Azure";
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
     
     /**
@@ -62,7 +62,7 @@ public class AzureProvider extends Provider {
         this.monthlyCost = monthlyCost;
         this.messageSize = messageSize;
         this.name = "Azure";
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
 
     /**
@@ -86,7 +86,7 @@ public class AzureProvider extends Provider {
         }
 
         int countOfServicableApplications = 0;
-        for (Application app : Application.allApplications) {
+        for (Application app : Application.getAllApplications()) {
             if (app.serviceable) {
                 countOfServicableApplications++;
             }
@@ -97,11 +97,13 @@ public class AzureProvider extends Provider {
 
         long totalMessageCount = 0;
         double totalDeviceFileSize = 0.0;
-        for (Device d : Device.allDevices) {
-            totalDeviceFileSize += d.fileSize;
+        long totalPopulation = 0;
+        for (Device d : Device.getAllDevices()) {
+            totalDeviceFileSize += (double) d.fileSize * d.getPopulation();
+            totalPopulation += d.getPopulation();
             totalMessageCount += d.messageCount;
         }
-        if ((totalDeviceFileSize / Device.allDevices.size()) > messageSize) {
+        if ((totalDeviceFileSize / totalPopulation) > messageSize) {
             System.err.println("The message size is larger than the category allows for the Azure IoT provider.");
         }
 
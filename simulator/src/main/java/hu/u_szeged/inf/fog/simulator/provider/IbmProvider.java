@@ -63,7 +63,7 @@ public class IbmProvider extends Provider {
      */
     public IbmProvider() {
         this.name = "IBM";
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
 
     /**
@@ -74,7 +74,7 @@ public class IbmProvider extends Provider {
     public IbmProvider(ArrayList<DataTier> dataTier) {
         this.name = "IBM";
         IbmProvider.dataTiers = dataTier;
-        Provider.allProviders.add(this);
+        Provider.getAllProviders().add(this);
     }
 
     /**
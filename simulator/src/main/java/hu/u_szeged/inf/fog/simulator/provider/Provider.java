@@ -1,5 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.provider;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import java.util.ArrayList;
 
 /**
@@ -10,9 +11,17 @@ import java.util.ArrayList;
 public abstract class Provider {
     
     /**
-     * A list containing all instances of providers.
+     * A list containing all instances of providers (each simulation context has its own list).
      */
-    public static ArrayList<Provider> allProviders = new ArrayList<>();
+    private static final SimulationContext.Key<ArrayList<Provider>> allProviders = 
+            new SimulationContext.Key<>(ArrayList::new);
+
+    /**
+     * Returns with the list of all providers of the current simulation.
+     */
+    public static ArrayList<Provider> getAllProviders() {
+        return SimulationContext.current().get(allProviders);
+    }
 
     /**
      * The name of the provider.
@@ -57,7 +57,7 @@ public class TimelineVisualiser {
             }
         }
 
-        for (Device device : Device.allDevices) {
+        for (Device device : Device.getAllDevices()) {
             if (device instanceof EdgeDevice) {
                 EdgeDevice ed = (EdgeDevice) device;
                 for (TimelineEntry tc : ed.timelineEntries) {
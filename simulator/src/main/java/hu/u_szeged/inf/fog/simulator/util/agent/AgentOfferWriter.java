@@ -5,7 +5,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 
 public class AgentOfferWriter {
 
@@ -26,14 +25,14 @@ public class AgentOfferWriter {
     public static class JsonOfferData {
     
         public QosPriority qos_priority;
-        public List<Double> reliability;
-        public List<Double> energy;
-        public List<Double> bandwidth;
-        public List<Double> latency;
-        public List<Double> price;
+        public double[] reliability;
+        public double[] energy;
+        public double[] bandwidth;
+        public double[] latency;
+        public double[] price;
 
-        public JsonOfferData(QosPriority qosPriority, List<Double> reliability, List<Double> energy, 
-                List<Double> bandwidth, List<Double> latency, List<Double> price) {
+        public JsonOfferData(QosPriority qosPriority, double[] reliability, double[] energy, 
+                double[] bandwidth, double[] latency, double[] price) {
             this.qos_priority = qosPriority;
             this.reliability = reliability;
             this.energy = energy;
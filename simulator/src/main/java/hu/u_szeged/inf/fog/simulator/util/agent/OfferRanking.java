@@ -0,0 +1,157 @@
+package hu.u_szeged.inf.fog.simulator.util.agent;
+
+import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.JsonOfferData;
+import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.QosPriority;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.SystemUtils;
+
+/**
+ * This class ranks the offers of an application inside the simulator, instead of the external
+ * ranking script. The ranking is a weighted vote: each QoS criterion orders the offers, and
+ * an offer gets as many points from a criterion as many offers it beats (a tie is worth half
+ * a point), multiplied by the priority of the criterion. Lower energy, latency and price, and
+ * higher bandwidth and reliability are better.
+ *
+ * <p>The "vote_wo_reliability" method leaves the reliability out, the "vote" method counts it
+ * with weight 1, as the QoS priorities do not contain a reliability weight.</p>
+ *
+ * <p>The external script can be called with {@link #rankWithScript(String, String, String)}.</p>
+ */
+public class OfferRanking {
+
+    /**
+     * Ranks the offers with the given method.
+     *
+     * @param data the QoS values of the offers and the priorities of the criteria
+     * @param methodName "vote" or "vote_wo_reliability"
+     * @return the indices of the offers, the best one first
+     */
+    public static int[] rank(JsonOfferData data, String methodName) {
+        switch (methodName) {
+          case "vote":
+              return rank(data, true);
+          case "vote_wo_reliability":
+              return rank(data, false);
+          default:
+        }
+        throw new IllegalArgumentException("Unknown ranking method: " + methodName);
+    }
+
+    /**
+     * Ranks the offers by the weighted vote of the QoS criteria.
+     *
+     * @param data the QoS values of the offers and the priorities of the criteria
+     * @param withReliability true if the reliability of the offers votes as well
+     * @return the indices of the offers, the best one first (equal scores keep their order)
+     */
+    public static int[] rank(JsonOfferData data, boolean withReliability) {
+        QosPriority priority = data.qos_priority;
+        int n = data.price.length;
+        double[] score = new double[n];
+        vote(data.energy, priority.energy, false, score);
+        vote(data.bandwidth, priority.bandwidth, true, score);
+        vote(data.latency, priority.latency, false, score);
+        vote(data.price, priority.price, false, score);
+        if (withReliability) {
+            vote(data.reliability, 1, true, score);
+        }
+        return IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> -score[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Adds the points of a criterion to the scores of the offers.
+     *
+     * @param values the values of the criterion
+     * @param weight the priority of the criterion
+     * @param higherIsBetter true if the higher values are preferred
+     * @param score the scores of the offers
+     */
+    private static void vote(double[] values, double weight, boolean higherIsBetter, double[] score) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        for (int i = 0; i < n; i++) {
+            int lower = lowerBound(sorted, values[i]);
+            int upper = lowerBound(sorted, Math.nextUp(values[i]));
+            int beaten = higherIsBetter ? lower : n - upper;
+            score[i] += weight * (beaten + (upper - lower - 1) / 2.0);
+        }
+    }
+
+    /**
+     * Ranks the offers written by {@link AgentOfferWriter} with the external ranking script.
+     *
+     * @param scriptDir the directory of the call_ranking_func.py script
+     * @param methodName the ranking method of the script
+     * @param offersFile the JSON file of the offers
+     * @return the indices of the offers, the best one first, or null if the script gave no ranking
+     */
+    public static int[] rankWithScript(String scriptDir, String methodName, String offersFile) {
+        try {
+            String command;
+            ProcessBuilder processBuilder;
+
+            // TODO: revise these commands
+            if (SystemUtils.IS_OS_WINDOWS) {
+                command = "cd /d " + scriptDir
+                    + " && conda activate swarmchestrate && python call_ranking_func.py --method_name " + methodName
+                    + " --offers_loc " + offersFile;
+                processBuilder = new ProcessBuilder("cmd.exe", "/c", command);
+            } else if (SystemUtils.IS_OS_LINUX) {
+                command = "cd " + scriptDir
+                    + " && python3 call_ranking_func.py --method_name " + methodName
+                    + " --offers_loc " + offersFile;
+
+                processBuilder = new ProcessBuilder("bash", "-c", command);
+            } else {
+                throw new UnsupportedOperationException("Unsupported operating system");
+            }
+
+            processBuilder.redirectErrorStream(true);
+            Process process = processBuilder.start();
+
+            int[] ranking = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("[")) {
+                        String numbers = line.substring(1, line.length() - 1).trim(); // "2 0 1"
+                        ranking = Arrays.stream(numbers.split("\\s+")) 
+                                        .mapToInt(Integer::parseInt) 
+                                        .toArray(); 
+                    }
+                }
+            }
+            process.waitFor();
+            return ranking;
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the index of the first value not less than the key.
+     */
+    private static int lowerBound(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,223 @@
+package hu.u_szeged.inf.fog.simulator.util.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToDoubleBiFunction;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * This class generates the offers of an application: each offer assigns every resource to one of the
+ * agents able to host it (according to the agent-resource pairs). The offers are searched with
+ * branch-and-bound in the order of their total hourly price, and only the cheapest ones are kept.
+ * A branch is cut when even the cheapest agents of the remaining resources cannot make it better
+ * than the worst offer kept, or when the resources assigned to an agent do not fit its free
+ * capacities together.
+ */
+public class OfferSearch {
+
+    /**
+     * The number of offers kept by default. Without a limit every assignment is kept, which
+     * is exponential in the number of resources.
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+
+    /**
+     * The free capacities of the agents. The search tracks the capacities left by the resources
+     * already assigned to each agent, so it only generates offers the agents can host.
+     */
+    public interface Capacities<A, R> {
+
+        /**
+         * Returns with the free capacities of the agent as a flat array, it is not modified by the
+         * search.
+         */
+        double[] of(A agent);
+
+        /**
+         * Reserves the capacities required by the resource. The array may be modified even if the
+         * resource does not fit, the search restores it.
+         *
+         * @param agent the agent the capacities belong to
+         * @param free the free capacities of the agent, in the layout returned by {@link #of}
+         * @param resource the resource to be hosted by the agent
+         * @return true if the resource fits
+         */
+        boolean place(A agent, double[] free, R resource);
+    }
+
+    /**
+     * Returns the cheapest offers without checking the capacities of the agents together, the
+     * cheapest one first.
+     *
+     * @param resources the resources of the application
+     * @param pairs the agent-resource pairs, an agent is paired with the resources it is able to host
+     * @param price the price of hosting a resource by an agent
+     * @param limit the maximum number of offers, 0 (or less) means no limit
+     * @return the offers, each one maps the agents to the resources they host
+     */
+    public static <A, R> List<Map<A, Set<R>>> cheapestOffers(List<R> resources, List<Pair<A, R>> pairs,
+            ToDoubleBiFunction<A, R> price, int limit) {
+        return cheapestOffers(resources, pairs, price, null, limit);
+    }
+
+    /**
+     * Returns the cheapest offers whose resources fit the capacities of their agents, the cheapest
+     * one first.
+     *
+     * @param resources the resources of the application
+     * @param pairs the agent-resource pairs, an agent is paired with the resources it is able to host
+     * @param price the price of hosting a resource by an agent
+     * @param capacities the free capacities of the agents, null if they are not checked
+     * @param limit the maximum number of offers, 0 (or less) means no limit
+     * @return the offers, each one maps the agents to the resources they host
+     */
+    public static <A, R> List<Map<A, Set<R>>> cheapestOffers(List<R> resources, List<Pair<A, R>> pairs,
+            ToDoubleBiFunction<A, R> price, Capacities<A, R> capacities, int limit) {
+        int resourceCount = resources.size();
+        List<List<A>> candidates = new ArrayList<>(resourceCount);
+        double[][] prices = new double[resourceCount][];
+
+        List<R> orderedResources = new ArrayList<>(resources);
+        Map<R, List<A>> agentsOfResource = new HashMap<>();
+        for (Pair<A, R> pair : pairs) {
+            agentsOfResource.computeIfAbsent(pair.getRight(), r -> new ArrayList<>()).add(pair.getLeft());
+        }
+        // the resources with the fewest candidates first, thus the search tree is narrow at the top
+        orderedResources.sort(Comparator.comparingInt(
+            r -> agentsOfResource.getOrDefault(r, Collections.emptyList()).size()));
+
+        for (int i = 0; i < resourceCount; i++) {
+            R resource = orderedResources.get(i);
+            List<A> agents = agentsOfResource.getOrDefault(resource, Collections.emptyList());
+            if (agents.isEmpty()) {
+                return new ArrayList<>(); // the resource cannot be hosted, there is no offer
+            }
+            agents.sort(Comparator.comparingDouble(a -> price.applyAsDouble(a, resource)));
+            candidates.add(agents);
+            prices[i] = new double[agents.size()];
+            for (int j = 0; j < agents.size(); j++) {
+                prices[i][j] = price.applyAsDouble(agents.get(j), resource);
+            }
+        }
+
+        // the lowest price of the resources from the given one to the last one
+        double[] lowestRemaining = new double[resourceCount + 1];
+        for (int i = resourceCount - 1; i >= 0; i--) {
+            lowestRemaining[i] = lowestRemaining[i + 1] + prices[i][0];
+        }
+
+        Search<A, R> search = new Search<>(orderedResources, candidates, prices, lowestRemaining, capacities,
+                limit < 1 ? Integer.MAX_VALUE : limit);
+        search.run(0, 0);
+        PriorityQueue<Combination> best = search.best;
+
+        List<Combination> combinations = new ArrayList<>(best);
+        Collections.sort(combinations);
+        List<Map<A, Set<R>>> offers = new ArrayList<>(combinations.size());
+        for (Combination combination : combinations) {
+            Map<A, Set<R>> agentResourcesMap = new HashMap<>();
+            for (int i = 0; i < resourceCount; i++) {
+                A agent = candidates.get(i).get(combination.choices[i]);
+                agentResourcesMap.computeIfAbsent(agent, a -> new HashSet<>()).add(orderedResources.get(i));
+            }
+            offers.add(agentResourcesMap);
+        }
+        return offers;
+    }
+
+    /**
+     * The state of the depth-first search: the choices made so far and the free capacities left
+     * for the agents.
+     */
+    private static class Search<A, R> {
+        final List<R> resources;
+        final List<List<A>> candidates;
+        final double[][] prices;
+        final double[] lowestRemaining;
+        final Capacities<A, R> capacities;
+        final int limit;
+        final int[] choices;
+        final PriorityQueue<Combination> best = new PriorityQueue<>(Comparator.reverseOrder());
+
+        /**
+         * The free capacities of the agents (created when the agent is first chosen), and the
+         * capacities of the chosen agent saved at each depth, so they can be restored.
+         */
+        final Map<A, double[]> free = new HashMap<>();
+        final double[][] saved;
+
+        Search(List<R> resources, List<List<A>> candidates, double[][] prices, double[] lowestRemaining,
+                Capacities<A, R> capacities, int limit) {
+            this.resources = resources;
+            this.candidates = candidates;
+            this.prices = prices;
+            this.lowestRemaining = lowestRemaining;
+            this.capacities = capacities;
+            this.limit = limit;
+            this.choices = new int[prices.length];
+            this.saved = new double[prices.length][];
+        }
+
+        void run(int depth, double price) {
+            if (depth == choices.length) {
+                if (best.size() < limit) {
+                    best.add(new Combination(choices.clone(), price));
+                } else if (price < best.peek().price) {
+                    best.poll();
+                    best.add(new Combination(choices.clone(), price));
+                }
+                return;
+            }
+            for (int j = 0; j < prices[depth].length; j++) {
+                double bound = price + prices[depth][j] + lowestRemaining[depth + 1];
+                if (best.size() == limit && bound >= best.peek().price) {
+                    break; // the candidates are ordered by price, the rest cannot be better either
+                }
+                choices[depth] = j;
+                if (capacities == null) {
+                    run(depth + 1, price + prices[depth][j]);
+                    continue;
+                }
+                A agent = candidates.get(depth).get(j);
+                double[] agentFree = free.computeIfAbsent(agent, a -> capacities.of(a).clone());
+                if (saved[depth] == null || saved[depth].length < agentFree.length) {
+                    saved[depth] = new double[agentFree.length];
+                }
+                System.arraycopy(agentFree, 0, saved[depth], 0, agentFree.length);
+                if (capacities.place(agent, agentFree, resources.get(depth))) {
+                    run(depth + 1, price + prices[depth][j]);
+                }
+                System.arraycopy(saved[depth], 0, agentFree, 0, agentFree.length);
+            }
+        }
+    }
+
+    /**
+     * An offer found by the search: the index of the chosen agent of each resource and the
+     * total hourly price. Each resource is assigned exactly once in a fixed order, so the choices
+     * identify the offer without further deduplication.
+     */
+    private static class Combination implements Comparable<Combination> {
+        final int[] choices;
+        final double price;
+
+        Combination(int[] choices, double price) {
+            this.choices = choices;
+            this.price = price;
+        }
+
+        @Override
+        public int compareTo(Combination other) {
+            int result = Double.compare(this.price, other.price);
+            return result != 0 ? result : Arrays.compare(this.choices, other.choices);
+        }
+    }
+}
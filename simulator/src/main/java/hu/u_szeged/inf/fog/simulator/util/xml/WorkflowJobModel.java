@@ -98,7 +98,7 @@ public class WorkflowJobModel {
                         WorkflowJob.State.SUBMITTED, inputs, outputs);
             }
         }
-        System.out.println(WorkflowJob.workflowJobs.size() + " jobs loaded.");
+        System.out.println(WorkflowJob.getWorkflowJobs().size() + " jobs loaded.");
     }
     
     public static void loadWorkflowXml(String workflowfile, 
@@ -1,6 +1,7 @@
 package hu.u_szeged.inf.fog.simulator.workflow;
 
 import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VMManager;
@@ -23,6 +24,7 @@ import hu.u_szeged.inf.fog.simulator.workflow.scheduler.DecentralizedWorkflowSch
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 public class DecentralizedWorkflowExecutor {
@@ -38,10 +40,22 @@ public class DecentralizedWorkflowExecutor {
 
     public static long realStartTime = 0;
 
+    /**
+     * The jobs of the workflows by their identifiers, separately for each scheduler
+     * (each simulation context has its own index).
+     */
+    private static final SimulationContext.Key<IdentityHashMap<DecentralizedWorkflowScheduler,
+            HashMap<String, WorkflowJob>>> workflowJobIndex = new SimulationContext.Key<>(IdentityHashMap::new);
+
     public DecentralizedWorkflowExecutor(ArrayList<DecentralizedWorkflowScheduler> workflowSchedulers,
             ArrayList<Actuator> actuatorArchitecutre) {
 
         for (DecentralizedWorkflowScheduler workflowScheduler : workflowSchedulers) {
+            HashMap<String, WorkflowJob> jobs = new HashMap<String, WorkflowJob>();
+            for (WorkflowJob workflowJob : workflowScheduler.workflowJobs) {
+                jobs.putIfAbsent(workflowJob.id, workflowJob);
+            }
+            SimulationContext.current().get(workflowJobIndex).put(workflowScheduler, jobs);
             workflowScheduler.init();
             workflowScheduler.schedule();
             DecentralizedWorkflowExecutor.workflowSchedulers.add(workflowScheduler);
@@ -51,23 +65,55 @@ public class DecentralizedWorkflowExecutor {
 
     }
 
+    /**
+     * The execution starts in the time unit after each computing appliance of each workflow has
+     * at least one running VM. The VMs are observed instead of checking it in every time unit.
+     */
     private void checkFirstVmState() {
-        new DeferredEvent(1) {
+        if (checkComputingAppliances()) {
+            this.deferStart();
+            return;
+        }
+        ArrayList<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+        for (DecentralizedWorkflowScheduler workflowScheduler : workflowSchedulers) {
+            for (WorkflowComputingAppliance ca : workflowScheduler.workflowArchitecture.keySet()) {
+                vms.addAll(ca.workflowVms);
+            }
+        }
+        VirtualMachine.StateChange listener = new VirtualMachine.StateChange() {
 
             @Override
-            protected void eventAction() {
-                if (checkComputingAppliances()) {
-                    startSensors();
-                    execute();
-                    WorkflowExecutor.realStartTime = Timed.getFireCount();
-                } else {
-                    checkFirstVmState();
+            public void stateChanged(VirtualMachine vm, VirtualMachine.State oldState,
+                    VirtualMachine.State newState) {
+                if (newState.equals(VirtualMachine.State.RUNNING) && checkComputingAppliances()) {
+                    for (VirtualMachine observed : vms) {
+                        observed.unsubscribeStateChange(this);
+                    }
+                    deferStart();
                 }
             }
+        };
+        for (VirtualMachine vm : vms) {
+            vm.subscribeStateChange(listener);
+        }
+    }
 
+    private void deferStart() {
+        new DeferredEvent(1) {
+
+            @Override
+            protected void eventAction() {
+                start();
+            }
         };
     }
 
+    private void start() {
+        startSensors();
+        execute();
+        WorkflowExecutor.realStartTime = Timed.getFireCount();
+    }
+
     public static void execute() {
         for (DecentralizedWorkflowScheduler workflowScheduler : workflowSchedulers) {
             if (workflowScheduler.actuatorArchitecture != null) {
@@ -154,6 +200,7 @@ public class DecentralizedWorkflowExecutor {
                                             + Timed.getFireCount() + " on "
                                             + workflowJob.ca.name);
                                         sendFileToChildren(workflowJob, workflowScheduler);
+                                        workflowScheduler.jobFinished(workflowJob);
                                         if (vmTaskLogger.get(vm.hashCode()) == null) {
                                             vmTaskLogger.put(vm.hashCode(), 1);
                                         } else {
@@ -170,24 +217,8 @@ public class DecentralizedWorkflowExecutor {
         }
     }
 
-    /*
-    private static WorkflowJob findWorkflowJob(String id) {
-        for (WorkflowJob workflowJob : WorkflowJob.workflowJobs) {
-            if (workflowJob.id.equals(id)) {
-                return workflowJob;
-            }
-        }
-        return null;
-    }
-    */
-    
     private static WorkflowJob findWorkflowJob(String id, DecentralizedWorkflowScheduler workflowScheduler) {
-        for (WorkflowJob workflowJob : workflowScheduler.workflowJobs) {
-            if (workflowJob.id.equals(id)) {
-                return workflowJob;
-            }
-        }
-        return null;
+        return SimulationContext.current().get(workflowJobIndex).get(workflowScheduler).get(id);
     }
 
     private static VirtualMachine findVm(WorkflowJob workflowJob) {
@@ -197,6 +228,9 @@ public class DecentralizedWorkflowExecutor {
             if (vm.getState().equals(VirtualMachine.State.RUNNING) && vm.underProcessing.size() < min) {
                 virtualMachine = vm;
                 min = vm.underProcessing.size();
+                if (min == 0) {
+                    break;
+                }
             }
         }
 
@@ -227,53 +261,48 @@ public class DecentralizedWorkflowExecutor {
     private static void sendFileToChildren(WorkflowJob currentJob, DecentralizedWorkflowScheduler workflowScheduler) {
         for (Uses uses : currentJob.outputs) {
             if (uses.type.equals(Uses.Type.ACTUATE)) {
-                for (WorkflowJob wj : workflowScheduler.workflowJobs) {
-                    if (wj.id.equals(uses.id)) {
-                        wj.inputs.get(0).amount--;
-                        workflowScheduler.schedule(wj);
-                        execute();
-                    }
-                    continue;
+                WorkflowJob wj = findWorkflowJob(uses.id, workflowScheduler);
+                if (wj != null) {
+                    wj.inputs.get(0).amount--;
+                    workflowScheduler.schedule(wj);
+                    execute();
                 }
             } else if (uses.type.equals(Uses.Type.DATA)) {
-                for (WorkflowJob wj : workflowScheduler.workflowJobs) {
-                    if (wj.id.equals(uses.id)) {
-                        StorageObject so = new StorageObject(uses.id + "-" + currentJob.id, uses.size, false);
-                        currentJob.ca.iaas.repositories.get(0).registerObject(so);
-                        WorkflowJob childWorkflowJob = wj;
-                        System.out.println(currentJob.id + " sends " + uses.size + " bytes to " + childWorkflowJob.id
-                                + " at " + Timed.getFireCount());
-                        if (childWorkflowJob.ca == currentJob.ca) {
-                            childWorkflowJob.inputs.get(0).amount--;
-                            childWorkflowJob.fileRecieved += uses.size;
-                            childWorkflowJob.filesRecieved.add(so);
-                            System.out
-                                    .println(childWorkflowJob.id + " amount: " + childWorkflowJob.inputs.get(0).amount);
-                            workflowScheduler.schedule(childWorkflowJob);
-                            execute();
-                        } else {
-                            try {
-                                childWorkflowJob.underRecieving++;
-                                currentJob.ca.iaas.repositories.get(0).requestContentDelivery(so.id,
-                                        childWorkflowJob.ca.iaas.repositories.get(0), new ConsumptionEventAdapter() {
-
-                                            @Override
-                                            public void conComplete() {
-                                                childWorkflowJob.underRecieving--;
-                                                childWorkflowJob.inputs.get(0).amount--;
-                                                childWorkflowJob.fileRecieved += uses.size;
-                                                childWorkflowJob.filesRecieved.add(so);
-                                                System.out.println(childWorkflowJob.id + " amount: "
-                                                        + childWorkflowJob.inputs.get(0).amount);
-                                                workflowScheduler.schedule(childWorkflowJob);
-                                                execute();
-                                            }
-                                        });
-                            } catch (NetworkException e) {
-                                e.printStackTrace();
-                            }
+                WorkflowJob childWorkflowJob = findWorkflowJob(uses.id, workflowScheduler);
+                if (childWorkflowJob != null) {
+                    StorageObject so = new StorageObject(uses.id + "-" + currentJob.id, uses.size, false);
+                    currentJob.ca.iaas.repositories.get(0).registerObject(so);
+                    System.out.println(currentJob.id + " sends " + uses.size + " bytes to " + childWorkflowJob.id
+                            + " at " + Timed.getFireCount());
+                    if (childWorkflowJob.ca == currentJob.ca) {
+                        childWorkflowJob.inputs.get(0).amount--;
+                        childWorkflowJob.fileRecieved += uses.size;
+                        childWorkflowJob.filesRecieved.add(so);
+                        System.out
+                                .println(childWorkflowJob.id + " amount: " + childWorkflowJob.inputs.get(0).amount);
+                        workflowScheduler.schedule(childWorkflowJob);
+                        execute();
+                    } else {
+                        try {
+                            childWorkflowJob.underRecieving++;
+                            currentJob.ca.iaas.repositories.get(0).requestContentDelivery(so.id,
+                                    childWorkflowJob.ca.iaas.repositories.get(0), new ConsumptionEventAdapter() {
+
+                                        @Override
+                                        public void conComplete() {
+                                            childWorkflowJob.underRecieving--;
+                                            childWorkflowJob.inputs.get(0).amount--;
+                                            childWorkflowJob.fileRecieved += uses.size;
+                                            childWorkflowJob.filesRecieved.add(so);
+                                            System.out.println(childWorkflowJob.id + " amount: "
+                                                    + childWorkflowJob.inputs.get(0).amount);
+                                            workflowScheduler.schedule(childWorkflowJob);
+                                            execute();
+                                        }
+                                    });
+                        } catch (NetworkException e) {
+                            e.printStackTrace();
                         }
-                        break;
                     }
                 }
             }
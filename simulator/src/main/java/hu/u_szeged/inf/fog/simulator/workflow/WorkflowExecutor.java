@@ -18,6 +18,7 @@ import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
 import hu.u_szeged.inf.fog.simulator.util.TimelineVisualiser.TimelineEntry;
 import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob.Uses;
 import hu.u_szeged.inf.fog.simulator.workflow.scheduler.WorkflowScheduler;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -36,12 +37,22 @@ public class WorkflowExecutor {
 
     public static long realStartTime = 0;
 
+    /**
+     * The jobs of the workflow by their identifiers.
+     */
+    private static HashMap<String, WorkflowJob> workflowJobIndex = new HashMap<String, WorkflowJob>();
+
     public WorkflowExecutor(WorkflowScheduler workflowScheduler) {
         WorkflowExecutor.workflowScheduler = workflowScheduler;
 
+        WorkflowExecutor.workflowJobIndex = new HashMap<String, WorkflowJob>();
+        for (WorkflowJob workflowJob : WorkflowJob.getWorkflowJobs()) {
+            WorkflowExecutor.workflowJobIndex.putIfAbsent(workflowJob.id, workflowJob);
+        }
+
         WorkflowExecutor.workflowScheduler.init();
 
-        for (WorkflowJob workflowJob : WorkflowJob.workflowJobs) {
+        for (WorkflowJob workflowJob : WorkflowJob.getWorkflowJobs()) {
             WorkflowExecutor.workflowScheduler.schedule(workflowJob);
         }
 
@@ -49,24 +60,54 @@ public class WorkflowExecutor {
 
     }
 
+    /**
+     * The execution starts in the time unit after each computing appliance has at least one running VM.
+     * Instead of checking it in every time unit, the VMs of the computing appliances are observed,
+     * and the condition is evaluated only when one of them gets to running state.
+     */
     private void checkFirstVmState() {
-        new DeferredEvent(1) {
+        if (checkComputingAppliances()) {
+            this.deferStart();
+            return;
+        }
+        ArrayList<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+        for (WorkflowComputingAppliance ca : WorkflowScheduler.workflowArchitecture.keySet()) {
+            vms.addAll(ca.workflowVms);
+        }
+        VirtualMachine.StateChange listener = new VirtualMachine.StateChange() {
 
             @Override
-            protected void eventAction() {
-                if (checkComputingAppliances()) {
-                    startSensors();
-                    execute();
-                    WorkflowExecutor.realStartTime = Timed.getFireCount();
-
-                } else {
-                    checkFirstVmState();
+            public void stateChanged(VirtualMachine vm, VirtualMachine.State oldState,
+                    VirtualMachine.State newState) {
+                if (newState.equals(VirtualMachine.State.RUNNING) && checkComputingAppliances()) {
+                    for (VirtualMachine observed : vms) {
+                        observed.unsubscribeStateChange(this);
+                    }
+                    deferStart();
                 }
             }
+        };
+        for (VirtualMachine vm : vms) {
+            vm.subscribeStateChange(listener);
+        }
+    }
+
+    private void deferStart() {
+        new DeferredEvent(1) {
 
+            @Override
+            protected void eventAction() {
+                start();
+            }
         };
     }
 
+    private void start() {
+        startSensors();
+        execute();
+        WorkflowExecutor.realStartTime = Timed.getFireCount();
+    }
+
     public static void execute() {
         if (WorkflowScheduler.actuatorArchitecture != null) {
             for (Actuator a : WorkflowScheduler.actuatorArchitecture) {
@@ -127,6 +168,7 @@ public class WorkflowExecutor {
                                 System.out.println(workflowJob.id + " is finished at " + Timed.getFireCount() + " on "
                                         + workflowJob.ca.name);
                                 sendFileToChildren(workflowJob);
+                                workflowScheduler.jobFinished(workflowJob);
                                 if (vmTaskLogger.get(vm.hashCode()) == null) {
                                     vmTaskLogger.put(vm.hashCode(), 1);
                                 } else {
@@ -145,12 +187,7 @@ public class WorkflowExecutor {
     }
 
     private static WorkflowJob findWorkflowJob(String id) {
-        for (WorkflowJob workflowJob : WorkflowJob.workflowJobs) {
-            if (workflowJob.id.equals(id)) {
-                return workflowJob;
-            }
-        }
-        return null;
+        return workflowJobIndex.get(id);
     }
 
     private static VirtualMachine findVm(WorkflowJob workflowJob) {
@@ -160,6 +197,9 @@ public class WorkflowExecutor {
             if (vm.getState().equals(VirtualMachine.State.RUNNING) && vm.underProcessing.size() < min) {
                 virtualMachine = vm;
                 min = vm.underProcessing.size();
+                if (min == 0) {
+                    break;
+                }
             }
         }
 
@@ -185,54 +225,48 @@ public class WorkflowExecutor {
     private static void sendFileToChildren(WorkflowJob currentJob) {
         for (Uses uses : currentJob.outputs) {
             if (uses.type.equals(Uses.Type.ACTUATE)) {
-                for (WorkflowJob wj : WorkflowJob.workflowJobs) {
-                    if (wj.id.equals(uses.id)) {
-                        wj.inputs.get(0).amount--;
-                        workflowScheduler.schedule(wj);
-                        execute();
-                    }
-                    continue;
+                WorkflowJob wj = findWorkflowJob(uses.id);
+                if (wj != null) {
+                    wj.inputs.get(0).amount--;
+                    workflowScheduler.schedule(wj);
+                    execute();
                 }
             } else if (uses.type.equals(Uses.Type.DATA)) {
-
-                for (WorkflowJob wj : WorkflowJob.workflowJobs) {
-                    if (wj.id.equals(uses.id)) {
-                        StorageObject so = new StorageObject(uses.id + "-" + currentJob.id, uses.size, false);
-                        currentJob.ca.iaas.repositories.get(0).registerObject(so);
-                        WorkflowJob childWorkflowJob = wj;
-                        System.out.println(currentJob.id + " sends " + uses.size + " bytes to " + childWorkflowJob.id
-                                + " at " + Timed.getFireCount());
-                        if (childWorkflowJob.ca == currentJob.ca) {
-                            childWorkflowJob.inputs.get(0).amount--;
-                            childWorkflowJob.fileRecieved += uses.size;
-                            childWorkflowJob.filesRecieved.add(so);
-                            System.out
-                                    .println(childWorkflowJob.id + " amount: " + childWorkflowJob.inputs.get(0).amount);
-                            workflowScheduler.schedule(childWorkflowJob);
-                            execute();
-                        } else {
-                            try {
-                                childWorkflowJob.underRecieving++;
-                                currentJob.ca.iaas.repositories.get(0).requestContentDelivery(so.id,
-                                        childWorkflowJob.ca.iaas.repositories.get(0), new ConsumptionEventAdapter() {
-
-                                            @Override
-                                            public void conComplete() {
-                                                childWorkflowJob.underRecieving--;
-                                                childWorkflowJob.inputs.get(0).amount--;
-                                                childWorkflowJob.fileRecieved += uses.size;
-                                                childWorkflowJob.filesRecieved.add(so);
-                                                System.out.println(childWorkflowJob.id + " amount: "
-                                                        + childWorkflowJob.inputs.get(0).amount);
-                                                workflowScheduler.schedule(childWorkflowJob);
-                                                execute();
-                                            }
-                                        });
-                            } catch (NetworkException e) {
-                                e.printStackTrace();
-                            }
+                WorkflowJob childWorkflowJob = findWorkflowJob(uses.id);
+                if (childWorkflowJob != null) {
+                    StorageObject so = new StorageObject(uses.id + "-" + currentJob.id, uses.size, false);
+                    currentJob.ca.iaas.repositories.get(0).registerObject(so);
+                    System.out.println(currentJob.id + " sends " + uses.size + " bytes to " + childWorkflowJob.id
+                            + " at " + Timed.getFireCount());
+                    if (childWorkflowJob.ca == currentJob.ca) {
+                        childWorkflowJob.inputs.get(0).amount--;
+                        childWorkflowJob.fileRecieved += uses.size;
+                        childWorkflowJob.filesRecieved.add(so);
+                        System.out
+                                .println(childWorkflowJob.id + " amount: " + childWorkflowJob.inputs.get(0).amount);
+                        workflowScheduler.schedule(childWorkflowJob);
+                        execute();
+                    } else {
+                        try {
+                            childWorkflowJob.underRecieving++;
+                            currentJob.ca.iaas.repositories.get(0).requestContentDelivery(so.id,
+                                    childWorkflowJob.ca.iaas.repositories.get(0), new ConsumptionEventAdapter() {
+
+                                        @Override
+                                        public void conComplete() {
+                                            childWorkflowJob.underRecieving--;
+                                            childWorkflowJob.inputs.get(0).amount--;
+                                            childWorkflowJob.fileRecieved += uses.size;
+                                            childWorkflowJob.filesRecieved.add(so);
+                                            System.out.println(childWorkflowJob.id + " amount: "
+                                                    + childWorkflowJob.inputs.get(0).amount);
+                                            workflowScheduler.schedule(childWorkflowJob);
+                                            execute();
+                                        }
+                                    });
+                        } catch (NetworkException e) {
+                            e.printStackTrace();
                         }
-                        break;
                     }
                 }
             }
@@ -241,7 +275,7 @@ public class WorkflowExecutor {
     }
 
     private void startSensors() {
-        for (WorkflowJob workflowJob : WorkflowJob.workflowJobs) {
+        for (WorkflowJob workflowJob : WorkflowJob.getWorkflowJobs()) {
             if (workflowJob.id.contains("sensor")) {
 
                 HashMap<String, Integer> latencyMap = new HashMap<String, Integer>();
@@ -1,5 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.workflow;
 
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
 import hu.u_szeged.inf.fog.simulator.iot.Actuator;
 import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
@@ -9,9 +10,17 @@ import java.util.ArrayList;
 public class WorkflowJob {
 
     /**
-     * A list containing jobs created so far.
+     * A list containing jobs created so far (each simulation context has its own list).
      */
-    public static ArrayList<WorkflowJob> workflowJobs = new ArrayList<>();
+    private static final SimulationContext.Key<ArrayList<WorkflowJob>> workflowJobs = 
+            new SimulationContext.Key<>(ArrayList::new);
+
+    /**
+     * Returns with the list of jobs created so far in the current simulation.
+     */
+    public static ArrayList<WorkflowJob> getWorkflowJobs() {
+        return SimulationContext.current().get(workflowJobs);
+    }
 
     public static int numberOfStartedWorkflowJobs = 0;
 
@@ -73,7 +82,7 @@ public class WorkflowJob {
         this.latitude = latitude;
         this.fileRecieved = 0;
         this.filesRecieved = new ArrayList<StorageObject>();
-        WorkflowJob.workflowJobs.add(this);
+        WorkflowJob.getWorkflowJobs().add(this);
     }
     
     public WorkflowJob(String id, double runtime, double longitude, double latitude, State state,
@@ -1,5 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.workflow.aco;
 
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
 import hu.u_szeged.inf.fog.simulator.iot.Actuator;
 import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
 import hu.u_szeged.inf.fog.simulator.provider.Instance;
@@ -9,7 +10,15 @@ import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
+/**
+ * Ant colony based clustering of the computing appliances. Each appliance has an ant, which
+ * deposits pheromone on the other appliances according to their distance. The ants work
+ * independently, thus they are run concurrently (see {@link AntPool}), each with its own
+ * random generator derived from the {@link SeedSyncer}. The pheromone values of all ants
+ * are kept in a single matrix.
+ */
 public class Acoc {
     private int numberOfNodes;
     private int numberOfClusters;
@@ -18,6 +27,18 @@ public class Acoc {
     private final double randomFactor;
     private final int baseLatency;
     private List<Ant> ants;
+
+    /**
+     * The pheromone matrix in row-major order, the row of an ant contains
+     * the pheromone it deposited on the other appliances.
+     */
+    private double[] pheromoneMatrix;
+
+    /**
+     * The pheromone values of the pairs of appliances merged during clustering,
+     * in the same layout as the pheromone matrix.
+     */
+    private double[] mergeMatrix;
     private ArrayList<LinkedHashMap<WorkflowComputingAppliance, Instance>> workflowArchitectures;
 
     /**
@@ -38,15 +59,23 @@ public class Acoc {
             LinkedHashMap<WorkflowComputingAppliance, Instance> workflowArchitecture,
                         ArrayList<Actuator> actuatorArchitecutre) throws IOException {
         numberOfNodes = workflowArchitecture.size();
+        pheromoneMatrix = new double[numberOfNodes * numberOfNodes];
+        mergeMatrix = new double[numberOfNodes * numberOfNodes];
+        Arrays.fill(pheromoneMatrix, 0.2);
+        WorkflowComputingAppliance[] nodes = workflowArchitecture.keySet().toArray(new WorkflowComputingAppliance[0]);
+        SplittableRandom random = new SplittableRandom(SeedSyncer.centralRnd.nextLong());
         for (Map.Entry<WorkflowComputingAppliance, Instance> entry : workflowArchitecture.entrySet()) {
-            Ant ant = new Ant(numberOfNodes, entry.getKey(), entry.getValue());
+            ants.add(new Ant(ants.size(), entry.getKey(), entry.getValue(), random.split()));
+        }
+        AntPool.forEach(numberOfNodes, a -> {
+            Ant ant = ants.get(a);
+            double[] kernels = ant.calculateKernels(nodes);
             for (int iteration = 0; iteration < maxIterations; iteration++) {
-                ant.generateSolution(randomFactor, entry.getKey(), workflowArchitecture, iteration, evaporationRate);
+                ant.generateSolution(pheromoneMatrix, kernels, randomFactor, iteration, evaporationRate);
 
                 evaporatePheromones(ant, iteration);
             }
-            ants.add(ant);
-        }
+        });
 
         generateClusters();
         // AcoVisualiser.mapGenerator(ScenarioBase.scriptPath, ScenarioBase.resultDirectory, ants);
@@ -56,9 +85,10 @@ public class Acoc {
     }
 
     private void evaporatePheromones(Ant ant, int position) {
-        for (int i = 0; i < ant.pheromoneMatrix.length; i++) {
+        int row = ant.index * numberOfNodes;
+        for (int i = 0; i < numberOfNodes; i++) {
             if (i != position) {
-                ant.pheromoneMatrix[i] = ant.pheromoneMatrix[i] * (1 - evaporationRate);
+                pheromoneMatrix[row + i] = pheromoneMatrix[row + i] * (1 - evaporationRate);
             }
         }
     }
@@ -74,10 +104,12 @@ public class Acoc {
             for (int j = 0; j < numberOfNodes; j++) {
                 if (i != j) {
                     Ant antj = ants.get(j);
-                    if (anti.mergeMatrix[j] == 0 & antj.mergeMatrix[i] == 0) {
-                        double number = (anti.pheromoneMatrix[j] + antj.pheromoneMatrix[i]) / 2;
-                        anti.mergeMatrix[j] = number;
-                        antj.mergeMatrix[i] = number;
+                    int ij = i * numberOfNodes + j;
+                    int ji = j * numberOfNodes + i;
+                    if (mergeMatrix[ij] == 0 & mergeMatrix[ji] == 0) {
+                        double number = (pheromoneMatrix[ij] + pheromoneMatrix[ji]) / 2;
+                        mergeMatrix[ij] = number;
+                        mergeMatrix[ji] = number;
                         if (anti.bestValue < number) {
                             anti.bestValue = number;
                             anti.bestNode = j;
@@ -86,16 +118,16 @@ public class Acoc {
                             antj.bestValue = number;
                             antj.bestNode = i;
                         }
-                    } else if (anti.mergeMatrix[j] != 0) {
-                        double number = anti.pheromoneMatrix[j];
-                        antj.mergeMatrix[i] = number;
+                    } else if (mergeMatrix[ij] != 0) {
+                        double number = pheromoneMatrix[ij];
+                        mergeMatrix[ji] = number;
                         if (antj.bestValue < number) {
                             antj.bestValue = number;
                             antj.bestNode = i;
                         }
-                    } else if (antj.mergeMatrix[i] != 0) {
-                        double number = antj.pheromoneMatrix[i];
-                        anti.mergeMatrix[j] = number;
+                    } else if (mergeMatrix[ji] != 0) {
+                        double number = pheromoneMatrix[ji];
+                        mergeMatrix[ij] = number;
                         if (anti.bestValue < number) {
                             anti.bestValue = number;
                             anti.bestNode = j;
@@ -151,18 +183,19 @@ public class Acoc {
             if (runCondition) {
                 for (Ant ant : ants) {
                     ant.bestValue = 0;
+                    int row = ant.index * numberOfNodes;
                     if (numberOfClusters <= 1) {
-                        for (int i = 0; i < ant.mergeMatrix.length; i++) {
-                            if (ant.bestValue < ant.mergeMatrix[i] 
+                        for (int i = 0; i < numberOfNodes; i++) {
+                            if (ant.bestValue < mergeMatrix[row + i] 
                                     & ant.clusterNumber == -1 & ants.get(i).clusterNumber == -1) {
-                                ant.bestValue = ant.mergeMatrix[i];
+                                ant.bestValue = mergeMatrix[row + i];
                                 ant.bestNode = i;
                             }
                         }
                     } else {
-                        for (int i = 0; i < ant.mergeMatrix.length; i++) {
-                            if (ant.bestValue < ant.mergeMatrix[i]) {
-                                ant.bestValue = ant.mergeMatrix[i];
+                        for (int i = 0; i < numberOfNodes; i++) {
+                            if (ant.bestValue < mergeMatrix[row + i]) {
+                                ant.bestValue = mergeMatrix[row + i];
                                 ant.bestNode = i;
                             }
                         }
@@ -173,16 +206,18 @@ public class Acoc {
     }
 
     private void mergeMatrixes(Ant first, Ant second) {
-        for (int i = 0; i < first.pheromoneMatrix.length; i++) {
-            if (first.pheromoneMatrix[i] == 0 | second.pheromoneMatrix[i] == 0) {
-                first.pheromoneMatrix[i] = 0;
-                first.mergeMatrix[i] = 0;
-                second.pheromoneMatrix[i] = 0;
-                second.mergeMatrix[i] = 0;
+        int firstRow = first.index * numberOfNodes;
+        int secondRow = second.index * numberOfNodes;
+        for (int i = 0; i < numberOfNodes; i++) {
+            if (pheromoneMatrix[firstRow + i] == 0 | pheromoneMatrix[secondRow + i] == 0) {
+                pheromoneMatrix[firstRow + i] = 0;
+                mergeMatrix[firstRow + i] = 0;
+                pheromoneMatrix[secondRow + i] = 0;
+                mergeMatrix[secondRow + i] = 0;
             } else {
-                double number = first.mergeMatrix[i];
-                first.pheromoneMatrix[i] = number;
-                second.pheromoneMatrix[i] = number;
+                double number = mergeMatrix[firstRow + i];
+                pheromoneMatrix[firstRow + i] = number;
+                pheromoneMatrix[secondRow + i] = number;
             }
         }
     }
@@ -222,20 +257,24 @@ class Ant implements Comparable<Ant> {
     double bestValue;
     int bestNode;
     int clusterNumber;
-    double[] pheromoneMatrix;
-    double[] mergeMatrix;
+    /**
+     * The index of the ant, it is also the index of its row in the pheromone matrix.
+     */
+    int index;
     WorkflowComputingAppliance node;
     Instance instance;
+    /**
+     * The own random generator of the ant, so the ants can work concurrently.
+     */
+    private final SplittableRandom random;
 
-    public Ant(int numberOfNodes, WorkflowComputingAppliance node, Instance instance) {
+    public Ant(int index, WorkflowComputingAppliance node, Instance instance, SplittableRandom random) {
+        this.index = index;
         this.node = node;
         this.instance = instance;
+        this.random = random;
         this.clusterNumber = -1;
         this.bestValue = 0;
-        this.pheromoneMatrix = new double[numberOfNodes];
-        this.mergeMatrix = new double[numberOfNodes];
-        Arrays.fill(pheromoneMatrix, 0.2);
-        Arrays.fill(mergeMatrix, 0);
     }
     
     @Override
@@ -250,31 +289,42 @@ class Ant implements Comparable<Ant> {
     }
 
     /**
-     * Generates a solution "String" which is int array for given ant.
+     * Generates a solution "String" which is the row of the ant in the pheromone matrix.
      * Uses both exploitation and biased exploration.
      */
-    public void generateSolution(double randomFactor, WorkflowComputingAppliance node,
-            LinkedHashMap<WorkflowComputingAppliance, Instance> workflowArchitecture,
+    public void generateSolution(double[] pheromoneMatrix, double[] kernels, double randomFactor,
             int position, double evaporationRate) {
         double randomNumber;
         double number;
+        int row = index * kernels.length;
         
-        for (int i = 0; i < pheromoneMatrix.length; i++) {
+        for (int i = 0; i < kernels.length; i++) {
             if (i != position) {
-                randomNumber = Math.random();
+                randomNumber = random.nextDouble();
                 if (randomNumber > randomFactor) {
-                    pheromoneMatrix[i] = gaussianKernel(calculateHeuristics(i, node, workflowArchitecture) / 1000, 2)
-                            + pheromoneMatrix[i];
+                    pheromoneMatrix[row + i] = kernels[i] + pheromoneMatrix[row + i];
 
                 } else {
-                    number = (evaporationRate * pheromoneMatrix[i]) / (1 - evaporationRate);
-                    pheromoneMatrix[i] += number;
+                    number = (evaporationRate * pheromoneMatrix[row + i]) / (1 - evaporationRate);
+                    pheromoneMatrix[row + i] += number;
                 }
             } else {
-                pheromoneMatrix[i] = 0;
+                pheromoneMatrix[row + i] = 0;
             }
         }
     }
+
+    /**
+     * Calculates the pheromone deposited on the appliances in the exploitation steps,
+     * it depends only on the distance, so it is calculated once.
+     */
+    double[] calculateKernels(WorkflowComputingAppliance[] nodes) {
+        double[] kernels = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            kernels[i] = gaussianKernel(calculateHeuristics(nodes[i]) / 1000, 2);
+        }
+        return kernels;
+    }
     
     public double gaussianKernel(double x, double h) {
         double u = x / h;
@@ -284,22 +334,10 @@ class Ant implements Comparable<Ant> {
     /**
      * This function exist so it's easier to change the heuristics.
      */
-    private double calculateHeuristics(int x, WorkflowComputingAppliance current, 
-            LinkedHashMap<WorkflowComputingAppliance, Instance> workflowArchitecture) {
-        int i = 0;
-        WorkflowComputingAppliance node = null;
-        for (Map.Entry<WorkflowComputingAppliance, Instance> entry : workflowArchitecture.entrySet()) {
-            if (i == x) {
-                node = entry.getKey();
-            }
-            i++;
-            if (node == current) {
-                return Double.MAX_VALUE;
-            }
-            if (node != null) {
-                break;
-            }
+    private double calculateHeuristics(WorkflowComputingAppliance other) {
+        if (other == node) {
+            return Double.MAX_VALUE;
         }
-        return current.geoLocation.calculateDistance(node.geoLocation) / 1000;
+        return node.geoLocation.calculateDistance(other.geoLocation) / 1000;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package hu.u_szeged.inf.fog.simulator.workflow.aco;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * This class manages the threads the ant colony optimisers use to evaluate their ants concurrently.
+ * Each ant draws its random numbers from its own generator, thus the results of the optimisers
+ * do not depend on the number of threads.
+ *
+ * <p>By default as many threads are used as many processors are available to the JVM. The initial
+ * parallelism can be set with the hu.u_szeged.inf.fog.simulator.workflow.aco.AntPool.parallelism
+ * system property as well, 1 evaluates the ants on the caller's thread.</p>
+ */
+public class AntPool {
+
+    /**
+     * The pool evaluating the ants, null if they are evaluated on the caller's thread.
+     */
+    private static volatile ForkJoinPool pool = createPool(Integer.getInteger(
+            "hu.u_szeged.inf.fog.simulator.workflow.aco.AntPool.parallelism",
+            Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Sets how many threads can be used to evaluate the ants.
+     *
+     * @param parallelism the number of threads, 1 (or less) means the ants are evaluated
+     *                    one after the other on the caller's thread
+     */
+    public static void setParallelism(int parallelism) {
+        ForkJoinPool old = pool;
+        pool = createPool(parallelism);
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of threads used to evaluate the ants.
+     */
+    public static int getParallelism() {
+        ForkJoinPool current = pool;
+        return current == null ? 1 : current.getParallelism();
+    }
+
+    private static ForkJoinPool createPool(int parallelism) {
+        return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Performs the action for each ant, the ants are split into as many contiguous ranges as many
+     * threads are available. The action must only modify the state of the given ant.
+     *
+     * @param numberOfAnts the number of ants
+     * @param action the action to perform with the index of the ant
+     */
+    static void forEach(int numberOfAnts, IntConsumer action) {
+        ForkJoinPool current = pool;
+        if (current == null || numberOfAnts < 2) {
+            for (int i = 0; i < numberOfAnts; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        int chunks = Math.min(numberOfAnts, current.getParallelism());
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            int from = (int) ((long) numberOfAnts * c / chunks);
+            int to = (int) ((long) numberOfAnts * (c + 1) / chunks);
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> result : current.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while evaluating the ants", e);
+            }
+        }
+    }
+}
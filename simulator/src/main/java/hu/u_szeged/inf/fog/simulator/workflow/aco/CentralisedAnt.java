@@ -1,6 +1,6 @@
 package hu.u_szeged.inf.fog.simulator.workflow.aco;
 
-import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * An agent to build a solution.
@@ -8,9 +8,18 @@ import java.util.Arrays;
 public class CentralisedAnt implements Comparable<CentralisedAnt> {
 
     int[] solution;
-    
+
     double fitness;
-    
+
+    /**
+     * The own random generator of the ant, so the ants can build their solutions concurrently.
+     */
+    private final SplittableRandom random;
+
+    public CentralisedAnt(SplittableRandom random) {
+        this.random = random;
+    }
+
     @Override
     public int compareTo(CentralisedAnt other) {
         if (this.fitness < other.fitness) {
@@ -22,46 +31,52 @@ public class CentralisedAnt implements Comparable<CentralisedAnt> {
         return 0;
     }
 
-    public void generateSolution(double[][] pheromoneMatrix, int numberOfNodes, double probability) {
-        int[] solution = new int[numberOfNodes];
-        double[] randomSolution = new double[numberOfNodes];
-        for (int i = 0; i < numberOfNodes; i++) {
-            randomSolution[i] = Math.random();
+    /**
+     * Assigns each node to a center based on the pheromone matrix.
+     *
+     * @param pheromoneMatrix the pheromone matrix in row-major order (a row for each node)
+     * @param numberOfNodes the number of nodes to be clustered
+     * @param numberOfCenters the number of center nodes
+     * @param probability the probability of choosing the center with the most pheromone
+     */
+    public void generateSolution(double[] pheromoneMatrix, int numberOfNodes, int numberOfCenters,
+            double probability) {
+        if (this.solution == null || this.solution.length != numberOfNodes) {
+            this.solution = new int[numberOfNodes];
         }
         int maxIndex = 0;
         for (int i = 0; i < numberOfNodes; i++) {
-            if (randomSolution[i] < probability) {
+            int row = i * numberOfCenters;
+            if (random.nextDouble() < probability) {
                 double max = Double.MIN_VALUE;
-                
-                for (int j = 0; j < pheromoneMatrix[i].length; j++) {
-                    if (pheromoneMatrix[i][j] > max) {
-                        max = pheromoneMatrix[i][j];
+
+                for (int j = 0; j < numberOfCenters; j++) {
+                    if (pheromoneMatrix[row + j] > max) {
+                        max = pheromoneMatrix[row + j];
                         maxIndex = j;
                     }
                 }
             } else {
                 double sum = 0;
-               
-                for (int j = 0; j < pheromoneMatrix[i].length; j++) {
-                    sum += pheromoneMatrix[i][j];
+
+                for (int j = 0; j < numberOfCenters; j++) {
+                    sum += pheromoneMatrix[row + j];
                 }
 
-                double randomNum = Math.random();
+                double randomNum = random.nextDouble();
                 double cumulativeProbability = 0.0;
-                
-                for (int j = 0; j < pheromoneMatrix[i].length; j++) {
-                    double num = pheromoneMatrix[i][j] / sum;
+
+                for (int j = 0; j < numberOfCenters; j++) {
+                    double num = pheromoneMatrix[row + j] / sum;
                     cumulativeProbability += num;
 
                     if (randomNum < cumulativeProbability) {
                         maxIndex = j;
-                        break;  
+                        break;
                     }
                 }
             }
-            solution[i] = maxIndex;
+            this.solution[i] = maxIndex;
         }
-        //System.out.println(Arrays.toString(solution));
-        this.solution = solution;
     }
 }
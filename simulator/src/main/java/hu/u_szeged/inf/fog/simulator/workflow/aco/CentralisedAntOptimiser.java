@@ -1,67 +1,76 @@
 package hu.u_szeged.inf.fog.simulator.workflow.aco;
 
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
 import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SplittableRandom;
 
+/**
+ * A centralised ant colony optimiser assigning nodes to given center nodes, so that the nodes
+ * are close to their centers. The ants of an iteration build and evaluate their solutions
+ * concurrently (see {@link AntPool}), each with its own random generator derived from the
+ * {@link SeedSyncer}, so the same seed gives the same clusters regardless of the number of threads.
+ */
 public class CentralisedAntOptimiser {
 
     /**
      * The global pheromone matrix is to be updated depending on the quality of solutions
-     * produced by the agents.
+     * produced by the agents. It is stored in row-major order, a row for each node to be clustered.
      */
-    private static double[][] globalPheromoneMatrix;
+    private static double[] globalPheromoneMatrix;
 
     public static HashMap<WorkflowComputingAppliance, ArrayList<WorkflowComputingAppliance>> runOptimiser(
             ArrayList<WorkflowComputingAppliance> centerNodes, 
             ArrayList<WorkflowComputingAppliance> nodesToBeClustered, 
             int numberOfAnts, int numberOfIteration, double probability, double topPercentAnts,
             double pheromoneIncrement, double evaporationRate) {
-        
-        globalPheromoneMatrix = new double[nodesToBeClustered.size()][centerNodes.size()];
-        for (int i = 0; i < nodesToBeClustered.size(); i++) {
-            for (int j = 0; j < centerNodes.size(); j++) {
-                globalPheromoneMatrix[i][j] = Math.random();
-            }
+
+        final int numberOfNodes = nodesToBeClustered.size();
+        final int numberOfCenters = centerNodes.size();
+        SplittableRandom random = new SplittableRandom(SeedSyncer.centralRnd.nextLong());
+
+        globalPheromoneMatrix = new double[numberOfNodes * numberOfCenters];
+        for (int i = 0; i < globalPheromoneMatrix.length; i++) {
+            globalPheromoneMatrix[i] = random.nextDouble();
+        }
+        final double[] heuristics = calculateHeuristics(centerNodes, nodesToBeClustered);
+
+        CentralisedAnt[] ants = new CentralisedAnt[numberOfAnts];
+        for (int j = 0; j < numberOfAnts; j++) {
+            ants[j] = new CentralisedAnt(random.split());
         }
-        printMatrix("Init pheromone: ", globalPheromoneMatrix);
 
         for (int i = 0; i < numberOfIteration; i++) {
-            System.out.println("Iteration: " + i);
-            
-            CentralisedAnt[] ants = new CentralisedAnt[numberOfAnts];
-            for (int j = 0; j < numberOfAnts; j++) {
-                ants[j] = new CentralisedAnt();
-            }
-            
-            for (CentralisedAnt ant : ants) {
-                ant.generateSolution(globalPheromoneMatrix, nodesToBeClustered.size(), probability);
-            }
-            
-            calculateFitness(centerNodes, nodesToBeClustered, ants);
-            updatePheromones(nodesToBeClustered, ants, topPercentAnts, pheromoneIncrement);
+            final double[] pheromoneMatrix = globalPheromoneMatrix;
+            AntPool.forEach(numberOfAnts, j -> {
+                ants[j].generateSolution(pheromoneMatrix, numberOfNodes, numberOfCenters, probability);
+                calculateFitness(ants[j], heuristics, numberOfCenters);
+            });
+            updatePheromones(numberOfNodes, numberOfCenters, ants, topPercentAnts, pheromoneIncrement);
             evaporatePheromones(globalPheromoneMatrix, evaporationRate);
-            printMatrix("updated pheromone matrix: ", globalPheromoneMatrix);
         }
         return generateClusters(globalPheromoneMatrix, nodesToBeClustered, centerNodes);
     }
     
     private static HashMap<WorkflowComputingAppliance, ArrayList<WorkflowComputingAppliance>> generateClusters(
-            double[][] globalPheromoneMatrix,
+            double[] globalPheromoneMatrix,
             ArrayList<WorkflowComputingAppliance> nodesToBeClustered,
             ArrayList<WorkflowComputingAppliance> centerNodes) {
 
         HashMap<WorkflowComputingAppliance, ArrayList<WorkflowComputingAppliance>> clusterAssignment = new HashMap<>();
+        int numberOfCenters = centerNodes.size();
 
-        for (int i = 0; i < globalPheromoneMatrix.length; i++) {
+        for (int i = 0; i < nodesToBeClustered.size(); i++) {
+            int row = i * numberOfCenters;
             int clusterIndex = 0;
-            double maxValue = globalPheromoneMatrix[i][0];
+            double maxValue = globalPheromoneMatrix[row];
             
-            for (int j = 1; j < globalPheromoneMatrix[i].length; j++) {
-                if (globalPheromoneMatrix[i][j] > maxValue) {
-                    maxValue = globalPheromoneMatrix[i][j];
+            for (int j = 1; j < numberOfCenters; j++) {
+                if (globalPheromoneMatrix[row + j] > maxValue) {
+                    maxValue = globalPheromoneMatrix[row + j];
                     clusterIndex = j;
                 }
             }
@@ -78,39 +87,47 @@ public class CentralisedAntOptimiser {
         return clusterAssignment;
     }
 
-    private static void evaporatePheromones(double[][] globalPheromoneMatrix, double evaporationRate) {
+    private static void evaporatePheromones(double[] globalPheromoneMatrix, double evaporationRate) {
         for (int i = 0; i < globalPheromoneMatrix.length; i++) {
-            for (int j = 0; j < globalPheromoneMatrix[i].length; j++) {
-                globalPheromoneMatrix[i][j] *= (1 - evaporationRate);
-            }
+            globalPheromoneMatrix[i] *= (1 - evaporationRate);
         }
     }
 
-    private static void updatePheromones(ArrayList<WorkflowComputingAppliance> nodesToBeClustered, 
+    private static void updatePheromones(int numberOfNodes, int numberOfCenters,
             CentralisedAnt[] ants, double topPercentAnts, double pheromoneIncrement) {
         Arrays.sort(ants);
         int number = (int) Math.ceil(ants.length * topPercentAnts);
         for (int i = 0; i < number; i++) {
-            for (int j = 0; j < nodesToBeClustered.size(); j++) {
-                globalPheromoneMatrix[j][ants[i].solution[j]] += pheromoneIncrement;
+            for (int j = 0; j < numberOfNodes; j++) {
+                globalPheromoneMatrix[j * numberOfCenters + ants[i].solution[j]] += pheromoneIncrement;
             }
         }
     }
 
-    private static void calculateFitness(ArrayList<WorkflowComputingAppliance> centerNodes, 
-            ArrayList<WorkflowComputingAppliance> nodesToBeClustered, CentralisedAnt[] ants) {
-        for (CentralisedAnt ant : ants) {
-            double fitnessLevel = 0.0;
-            for (int i = 0; i < nodesToBeClustered.size(); i++) {
-                fitnessLevel += calculateHeuristic(nodesToBeClustered.get(i), centerNodes.get(ant.solution[i]));
+    private static void calculateFitness(CentralisedAnt ant, double[] heuristics, int numberOfCenters) {
+        double fitnessLevel = 0.0;
+        for (int i = 0; i < ant.solution.length; i++) {
+            fitnessLevel += heuristics[i * numberOfCenters + ant.solution[i]];
+        }
+        ant.fitness = fitnessLevel;
+    }
+
+    /**
+     * Calculates the heuristic value of each node-center pair once, in the layout of the pheromone matrix.
+     */
+    private static double[] calculateHeuristics(ArrayList<WorkflowComputingAppliance> centerNodes,
+            ArrayList<WorkflowComputingAppliance> nodesToBeClustered) {
+        double[] heuristics = new double[nodesToBeClustered.size() * centerNodes.size()];
+        for (int i = 0; i < nodesToBeClustered.size(); i++) {
+            for (int j = 0; j < centerNodes.size(); j++) {
+                heuristics[i * centerNodes.size() + j] = calculateHeuristic(nodesToBeClustered.get(i),
+                        centerNodes.get(j));
             }
-            ant.fitness = fitnessLevel;
-            //System.out.println(ant.fitness);
         }
+        return heuristics;
     }
     
     private static double calculateHeuristic(WorkflowComputingAppliance node, WorkflowComputingAppliance center) {
-        //System.out.println(node.name + " " + center.name);
         return center.geoLocation.calculateDistance(node.geoLocation);
     }
 
@@ -0,0 +1,343 @@
+package hu.u_szeged.inf.fog.simulator.workflow.scheduler;
+
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowExecutor;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob.Uses;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * This class implements the Heterogeneous Earliest Finish Time (HEFT) list scheduling algorithm
+ * for workflows, e.g. the ones created by the ScientificWorkflowParser.
+ *
+ * <p>The upward rank of each job (the length of the longest path from the job to an exit job,
+ * using the average computation and communication costs) is computed once for the whole DAG
+ * in reverse topological order. The jobs are then placed in decreasing order of their ranks
+ * to the computing appliance where they are expected to finish the earliest, considering
+ * the VMs of the appliance and the data transfers from their predecessors. During the execution,
+ * the jobs ready to run are started in the order of their ranks, thus the jobs on the critical
+ * path are preferred.</p>
+ */
+public class HeftScheduler extends WorkflowScheduler {
+
+    /**
+     * The number of VMs started on each computing appliance.
+     */
+    int vmCount;
+
+    /**
+     * The length of the critical path of the workflow estimated with the average costs (ms).
+     */
+    public double criticalPathLength;
+
+    /**
+     * The makespan of the workflow according to the plan of the scheduler (ms).
+     */
+    public double plannedMakespan;
+
+    /**
+     * The upward ranks of the jobs.
+     */
+    public HashMap<WorkflowJob, Double> upwardRanks = new HashMap<WorkflowJob, Double>();
+
+    /**
+     * The jobs ready to run, but waiting for a free VM on their appliances.
+     */
+    HashMap<WorkflowComputingAppliance, PriorityQueue<WorkflowJob>> pendingJobs =
+            new HashMap<WorkflowComputingAppliance, PriorityQueue<WorkflowJob>>();
+
+    /**
+     * The number of jobs passed to the executor and not yet finished on each appliance.
+     */
+    HashMap<WorkflowComputingAppliance, Integer> runningJobs = new HashMap<WorkflowComputingAppliance, Integer>();
+
+    /**
+     * Constructs a scheduler starting one VM on each computing appliance.
+     *
+     * @param workflowArchitecture the computing appliances and the instance types of their VMs
+     * @param defaultLatency the latency used between appliances without a direct connection (ms)
+     */
+    public HeftScheduler(HashMap<WorkflowComputingAppliance, Instance> workflowArchitecture, int defaultLatency) {
+        this(workflowArchitecture, defaultLatency, 1);
+    }
+
+    /**
+     * Constructs a scheduler.
+     *
+     * @param workflowArchitecture the computing appliances and the instance types of their VMs
+     * @param defaultLatency the latency used between appliances without a direct connection (ms)
+     * @param vmCount the number of VMs started on each computing appliance
+     */
+    public HeftScheduler(HashMap<WorkflowComputingAppliance, Instance> workflowArchitecture, int defaultLatency,
+            int vmCount) {
+        if (vmCount < 1) {
+            throw new IllegalArgumentException("At least one VM is needed on each appliance: " + vmCount);
+        }
+        WorkflowScheduler.workflowArchitecture = workflowArchitecture;
+        this.defaultLatency = defaultLatency;
+        this.vmCount = vmCount;
+    }
+
+    /**
+     * The job is queued on the appliance chosen by the plan once all of its inputs have arrived.
+     * The executor starts each job passed to it at once, so the jobs are passed only if the
+     * appliance has a free VM, otherwise they wait in the order of their ranks.
+     */
+    @Override
+    public void schedule(WorkflowJob workflowJob) {
+        if (workflowJob.inputs.get(0).amount == 0) {
+            this.pendingJobs.get(workflowJob.ca).add(workflowJob);
+            this.release(workflowJob.ca);
+        }
+    }
+
+    @Override
+    public void jobFinished(WorkflowJob workflowJob) {
+        this.runningJobs.merge(workflowJob.ca, -1, Integer::sum);
+        if (this.release(workflowJob.ca)) {
+            WorkflowExecutor.execute();
+        }
+    }
+
+    /**
+     * Passes the pending jobs with the highest ranks to the executor while the appliance has free VMs.
+     *
+     * @return true if any job was passed
+     */
+    private boolean release(WorkflowComputingAppliance ca) {
+        PriorityQueue<WorkflowJob> pending = this.pendingJobs.get(ca);
+        boolean released = false;
+        while (this.runningJobs.get(ca) < this.vmCount && !pending.isEmpty()) {
+            ca.workflowQueue.add(pending.poll());
+            this.runningJobs.merge(ca, 1, Integer::sum);
+            released = true;
+        }
+        return released;
+    }
+
+    @Override
+    public void init() {
+        for (WorkflowComputingAppliance ca : WorkflowScheduler.workflowArchitecture.keySet()) {
+            Instance i = WorkflowScheduler.workflowArchitecture.get(ca);
+            ca.iaas.repositories.get(0).registerObject(i.va);
+            for (int v = 0; v < this.vmCount; v++) {
+                this.addVm(ca);
+            }
+            Comparator<WorkflowJob> byRank =
+                (o1, o2) -> Double.compare(this.upwardRanks.get(o2), this.upwardRanks.get(o1));
+            ca.workflowQueue = new PriorityQueue<WorkflowJob>(byRank);
+            this.pendingJobs.put(ca, new PriorityQueue<WorkflowJob>(byRank));
+            this.runningJobs.put(ca, 0);
+        }
+        this.plan(WorkflowJob.getWorkflowJobs());
+    }
+
+    /**
+     * Computes the upward ranks of the jobs and assigns each job to a computing appliance.
+     *
+     * @param jobs the jobs of the workflow
+     */
+    public void plan(ArrayList<WorkflowJob> jobs) {
+        ArrayList<WorkflowComputingAppliance> appliances = new ArrayList<WorkflowComputingAppliance>();
+        for (ComputingAppliance ca : ComputingAppliance.getAllComputingAppliances()) {
+            if (WorkflowScheduler.workflowArchitecture.containsKey(ca)) {
+                appliances.add((WorkflowComputingAppliance) ca);
+            }
+        }
+        final int n = jobs.size();
+        final int m = appliances.size();
+
+        HashMap<String, Integer> index = new HashMap<String, Integer>();
+        for (int j = 0; j < n; j++) {
+            index.putIfAbsent(jobs.get(j).id, j);
+        }
+
+        // the edges of the DAG in compressed form: the successors of job j are
+        // successors[first[j]..first[j + 1]), the sizes of the data sent to them in edgeSizes
+        int[] first = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            first[j + 1] = first[j];
+            for (Uses uses : jobs.get(j).outputs) {
+                if (index.containsKey(uses.id)) {
+                    first[j + 1]++;
+                }
+            }
+        }
+        int[] successors = new int[first[n]];
+        long[] edgeSizes = new long[first[n]];
+        int[] predecessorCount = new int[n];
+        long[] inputSizes = new long[n];
+        for (int j = 0, e = 0; j < n; j++) {
+            for (Uses uses : jobs.get(j).outputs) {
+                Integer s = index.get(uses.id);
+                if (s != null) {
+                    successors[e] = s;
+                    edgeSizes[e] = uses.type.equals(Uses.Type.DATA) ? uses.size : 0;
+                    predecessorCount[s]++;
+                    inputSizes[s] += edgeSizes[e];
+                    e++;
+                }
+            }
+        }
+
+        // Kahn's algorithm
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        int[] remaining = predecessorCount.clone();
+        for (int j = 0; j < n; j++) {
+            if (remaining[j] == 0) {
+                order[tail++] = j;
+            }
+        }
+        while (head < tail) {
+            int j = order[head++];
+            for (int e = first[j]; e < first[j + 1]; e++) {
+                if (--remaining[successors[e]] == 0) {
+                    order[tail++] = successors[e];
+                }
+            }
+        }
+        if (tail < n) {
+            throw new IllegalStateException("The workflow contains a cycle, it cannot be scheduled.");
+        }
+
+        double[][] computationCosts = new double[n][m];
+        double[] averageComputationCosts = new double[n];
+        for (int j = 0; j < n; j++) {
+            for (int c = 0; c < m; c++) {
+                computationCosts[j][c] = computationCost(jobs.get(j), inputSizes[j],
+                        WorkflowScheduler.workflowArchitecture.get(appliances.get(c)));
+                averageComputationCosts[j] += computationCosts[j][c] / m;
+            }
+        }
+        double[][] latencies = new double[m][m];
+        double[][] bandwidths = new double[m][m];
+        double averageLatency = 0;
+        double averageInverseBandwidth = 0;
+        for (int a = 0; a < m; a++) {
+            for (int b = 0; b < m; b++) {
+                if (a != b) {
+                    Repository from = appliances.get(a).iaas.repositories.get(0);
+                    Repository to = appliances.get(b).iaas.repositories.get(0);
+                    Integer latency = from.getLatencies().get(to.getName());
+                    latencies[a][b] = latency == null ? this.defaultLatency : latency;
+                    bandwidths[a][b] = Math.min(from.getOutputbw(), to.getInputbw());
+                    averageLatency += latencies[a][b];
+                    averageInverseBandwidth += 1 / bandwidths[a][b];
+                }
+            }
+        }
+        if (m > 1) {
+            averageLatency /= m * (m - 1);
+            averageInverseBandwidth /= m * (m - 1);
+        }
+
+        double[] ranks = new double[n];
+        this.criticalPathLength = 0;
+        for (int k = n - 1; k >= 0; k--) {
+            int j = order[k];
+            double longest = 0;
+            for (int e = first[j]; e < first[j + 1]; e++) {
+                longest = Math.max(longest, averageLatency + edgeSizes[e] * averageInverseBandwidth
+                        + ranks[successors[e]]);
+            }
+            ranks[j] = averageComputationCosts[j] + longest;
+            this.upwardRanks.put(jobs.get(j), ranks[j]);
+            this.criticalPathLength = Math.max(this.criticalPathLength, ranks[j]);
+        }
+
+        // the jobs in decreasing order of their ranks, the ties are broken by the
+        // topological order, so each job is placed after all of its predecessors
+        int[] position = new int[n];
+        for (int k = 0; k < n; k++) {
+            position[order[k]] = k;
+        }
+        Integer[] priority = new Integer[n];
+        for (int j = 0; j < n; j++) {
+            priority[j] = j;
+        }
+        Arrays.sort(priority, (a, b) -> ranks[a] != ranks[b] ? Double.compare(ranks[b], ranks[a])
+                : Integer.compare(position[a], position[b]));
+
+        // the predecessors of the jobs, needed for the earliest start times
+        int[] firstPredecessor = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            firstPredecessor[j + 1] = firstPredecessor[j] + predecessorCount[j];
+        }
+        int[] predecessors = new int[first[n]];
+        int[] predecessorEdges = new int[first[n]];
+        int[] filled = new int[n];
+        for (int j = 0; j < n; j++) {
+            for (int e = first[j]; e < first[j + 1]; e++) {
+                int s = successors[e];
+                predecessors[firstPredecessor[s] + filled[s]] = j;
+                predecessorEdges[firstPredecessor[s] + filled[s]] = e;
+                filled[s]++;
+            }
+        }
+
+        double[][] vmAvailable = new double[m][this.vmCount];
+        double[] finishTimes = new double[n];
+        int[] placement = new int[n];
+        this.plannedMakespan = 0;
+        for (int k = 0; k < n; k++) {
+            int j = priority[k];
+            double bestFinish = Double.MAX_VALUE;
+            int bestAppliance = 0;
+            int bestVm = 0;
+            for (int c = 0; c < m; c++) {
+                int vm = 0;
+                for (int v = 1; v < this.vmCount; v++) {
+                    if (vmAvailable[c][v] < vmAvailable[c][vm]) {
+                        vm = v;
+                    }
+                }
+                double start = vmAvailable[c][vm];
+                for (int p = firstPredecessor[j]; p < firstPredecessor[j + 1]; p++) {
+                    int pred = predecessors[p];
+                    double arrival = finishTimes[pred];
+                    if (placement[pred] != c) {
+                        arrival += latencies[placement[pred]][c]
+                                + edgeSizes[predecessorEdges[p]] / bandwidths[placement[pred]][c];
+                    }
+                    start = Math.max(start, arrival);
+                }
+                double finish = start + computationCosts[j][c];
+                if (finish < bestFinish) {
+                    bestFinish = finish;
+                    bestAppliance = c;
+                    bestVm = vm;
+                }
+            }
+            finishTimes[j] = bestFinish;
+            placement[j] = bestAppliance;
+            vmAvailable[bestAppliance][bestVm] = bestFinish;
+            jobs.get(j).ca = appliances.get(bestAppliance);
+            this.plannedMakespan = Math.max(this.plannedMakespan, bestFinish);
+        }
+    }
+
+    /**
+     * Estimates the execution time of a job on a VM of the given instance type, in the same way
+     * as the executor determines the number of instructions of the job.
+     *
+     * @param workflowJob the job to be executed
+     * @param inputSize the total size of the data received by the job (byte)
+     * @param instance the instance type of the VMs of the appliance
+     */
+    private static double computationCost(WorkflowJob workflowJob, long inputSize, Instance instance) {
+        if (workflowJob.runtime != 0) {
+            return 1000 * workflowJob.runtime;
+        }
+        return inputSize * instance.processingRatio
+                / (instance.arc.getRequiredCPUs() * instance.arc.getRequiredProcessingPower());
+    }
+}
@@ -30,6 +30,15 @@ public abstract class WorkflowScheduler {
 
     public abstract void init();
 
+    /**
+     * It is called by the executors (both the central and the decentralized one) when a job
+     * has finished on a computing appliance and its outputs have been sent to its children.
+     *
+     * @param workflowJob the finished job
+     */
+    public void jobFinished(WorkflowJob workflowJob) {
+    }
+
     public void jobReAssign(WorkflowJob workflowJob, ComputingAppliance futureAppliance) {
 
         if (workflowJob.state.equals(WorkflowJob.State.SUBMITTED) && workflowJob.ca != futureAppliance
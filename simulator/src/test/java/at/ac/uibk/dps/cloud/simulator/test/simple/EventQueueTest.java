@@ -0,0 +1,262 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package at.ac.uibk.dps.cloud.simulator.test.simple;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import at.ac.uibk.dps.cloud.simulator.test.TestFoundation;
+import hu.mta.sztaki.lpds.cloud.simulator.CalendarEventQueue;
+import hu.mta.sztaki.lpds.cloud.simulator.EventQueue;
+import hu.mta.sztaki.lpds.cloud.simulator.PriorityEventQueue;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+
+public class EventQueueTest extends TestFoundation {
+	private EventQueue originalQueue;
+
+	/**
+	 * Records the time instances and the order of the events fired. The next
+	 * frequency of the object only depends on its own random generator so its
+	 * behaviour does not depend on the order of the simultaneous events.
+	 */
+	class Recorder extends Timed {
+		final int id;
+		final boolean back;
+		final Random rnd;
+		final ArrayList<String> log;
+		int remaining;
+
+		Recorder(int id, ArrayList<String> log) {
+			this.id = id;
+			this.log = log;
+			rnd = new Random(id);
+			back = rnd.nextBoolean();
+			remaining = 1 + rnd.nextInt(30);
+			setBackPreference(back);
+			subscribe(rnd.nextInt(50));
+		}
+
+		void cancel() {
+			unsubscribe();
+		}
+
+		void changeFreq(long freq) {
+			updateFrequency(freq);
+		}
+
+		@Override
+		public void tick(long fires) {
+			log.add(fires + (back ? "b" : "f") + id);
+			if (--remaining == 0) {
+				unsubscribe();
+			} else if (rnd.nextInt(4) == 0) {
+				updateFrequency(rnd.nextInt(100));
+			}
+		}
+	}
+
+	@BeforeEach
+	public void saveQueue() {
+		originalQueue = Timed.getEventQueue();
+	}
+
+	@AfterEach
+	public void restoreQueue() {
+		Timed.resetTimed();
+		Timed.setEventQueue(originalQueue);
+	}
+
+	private ArrayList<String> runRandomScenario(Supplier<EventQueue> queue) {
+		Timed.resetTimed();
+		Timed.setEventQueue(queue.get());
+		final ArrayList<String> log = new ArrayList<>();
+		final ArrayList<Recorder> recorders = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			recorders.add(new Recorder(i, log));
+		}
+		final Random cancelRnd = new Random(42);
+		while (Timed.getNextFire() >= 0) {
+			Timed.jumpTime(Long.MAX_VALUE);
+			Timed.fire();
+			final Recorder r = recorders.get(cancelRnd.nextInt(recorders.size()));
+			if (r.isSubscribed() && cancelRnd.nextInt(10) == 0) {
+				r.remaining = 1;
+				r.cancel();
+			}
+		}
+		return log;
+	}
+
+	/**
+	 * Groups the log by time instance and back preference, the order within such
+	 * a group is not fixed.
+	 */
+	private static TreeMap<String, TreeSet<String>> groupLog(ArrayList<String> log) {
+		final TreeMap<String, TreeSet<String>> groups = new TreeMap<>();
+		String prevKey = null;
+		for (String entry : log) {
+			final int sep = Math.max(entry.indexOf('b'), entry.indexOf('f'));
+			final String key = String.format("%010d", Long.parseLong(entry.substring(0, sep))) + entry.charAt(sep);
+			if (prevKey != null) {
+				assertTrue(prevKey.compareTo(key) <= 0, "Events should arrive in time and back preference order");
+			}
+			prevKey = key;
+			groups.computeIfAbsent(key, k -> new TreeSet<>()).add(entry);
+		}
+		return groups;
+	}
+
+	@Test
+	@Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+	public void calendarMatchesPriorityQueue() {
+		final ArrayList<String> heapLog = runRandomScenario(PriorityEventQueue::new);
+		final ArrayList<String> calendarLog = runRandomScenario(CalendarEventQueue::new);
+		assertEquals(heapLog.size(), calendarLog.size(), "Both queues should deliver the same amount of events");
+		assertEquals(groupLog(heapLog), groupLog(calendarLog),
+				"Both queues should deliver the same events at the same time instances");
+	}
+
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void calendarFifoTieBreaking() {
+		Timed.setEventQueue(new CalendarEventQueue());
+		final ArrayList<String> log = new ArrayList<>();
+		final ArrayList<Recorder> recorders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			recorders.add(new Recorder(i, log) {
+				@Override
+				public void tick(long fires) {
+					log.add(back + ":" + id);
+					unsubscribe();
+				}
+			});
+		}
+		for (Recorder r : recorders) {
+			r.changeFreq(5);
+		}
+		Timed.simulateUntilLastEvent();
+		final ArrayList<String> expected = new ArrayList<>();
+		for (boolean back : new boolean[] { false, true }) {
+			for (Recorder r : recorders) {
+				if (r.back == back) {
+					expected.add(back + ":" + r.id);
+				}
+			}
+		}
+		assertEquals(expected, log, "Simultaneous events should arrive in their queueing order");
+	}
+
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void queueReplacementKeepsEvents() {
+		final ArrayList<String> log = new ArrayList<>();
+		final Recorder r1 = new Recorder(1, log);
+		final Recorder r2 = new Recorder(2, log);
+		r1.changeFreq(10);
+		r2.changeFreq(20);
+		Timed.setEventQueue(new CalendarEventQueue());
+		assertEquals(2, Timed.getEventQueue().size(), "Should move all events to the new queue");
+		assertEquals(10, Timed.getNextFire(), "Should keep the next event");
+		r1.cancel();
+		assertEquals(20, Timed.getNextFire(), "Should allow removal after replacement");
+		Timed.setEventQueue(new PriorityEventQueue());
+		assertEquals(20, Timed.getNextFire(), "Should move the events back");
+	}
+
+	@Test
+	@Timeout(value = 1000, unit = TimeUnit.MILLISECONDS)
+	public void calendarSparseAndDenseEvents() {
+		final CalendarEventQueue q = new CalendarEventQueue();
+		Timed.setEventQueue(q);
+		final ArrayList<String> log = new ArrayList<>();
+		final Recorder far = new Recorder(0, log);
+		far.changeFreq(Long.MAX_VALUE / 2);
+		final ArrayList<Recorder> near = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++) {
+			final Recorder r = new Recorder(i, log);
+			r.changeFreq(i * 7);
+			near.add(r);
+		}
+		for (int i = 0; i < near.size(); i += 2) {
+			near.get(i).cancel();
+		}
+		assertEquals(501, q.size(), "Removals should be reflected in the queue");
+		assertEquals(14, Timed.getNextFire(), "Earliest remaining event should be next");
+		far.cancel();
+		near.forEach(Recorder::cancel);
+		assertTrue(q.isEmpty(), "Every event should be removed");
+		assertEquals(-1, Timed.getNextFire());
+	}
+
+	/**
+	 * Every object reschedules itself with an eight times longer interval after
+	 * each of its events, so the event set becomes sparser and sparser.
+	 */
+	private ArrayList<Long> runGrowingIntervals(Supplier<EventQueue> queue) {
+		Timed.resetTimed();
+		Timed.setEventQueue(queue.get());
+		final ArrayList<Long> fired = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			final long first = 1 + (long) Math.pow(1.0017, i);
+			new Recorder(i, null) {
+				long freq = first;
+				int left = 18;
+
+				@Override
+				public void tick(long fires) {
+					fired.add(fires);
+					if (--left == 0) {
+						unsubscribe();
+					} else {
+						freq *= 8;
+						updateFrequency(freq);
+					}
+				}
+			}.changeFreq(first);
+		}
+		Timed.simulateUntilLastEvent();
+		return fired;
+	}
+
+	@Test
+	@Timeout(value = 2000, unit = TimeUnit.MILLISECONDS)
+	public void calendarGrowingIntervals() {
+		// The next event is repeatedly beyond a year of the calendar, so it is
+		// found via the direct search
+		final ArrayList<Long> calendar = runGrowingIntervals(CalendarEventQueue::new);
+		assertEquals(runGrowingIntervals(PriorityEventQueue::new), calendar,
+				"Both queues should deliver the events at the same time instances");
+	}
+}
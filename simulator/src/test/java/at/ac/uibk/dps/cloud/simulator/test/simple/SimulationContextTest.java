@@ -0,0 +1,128 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ */
+
+package at.ac.uibk.dps.cloud.simulator.test.simple;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import at.ac.uibk.dps.cloud.simulator.test.TestFoundation;
+import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinConsumer;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinProvider;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+
+public class SimulationContextTest extends TestFoundation {
+	private static final SimulationContext.Key<ArrayList<String>> testKey = new SimulationContext.Key<>(
+			ArrayList::new);
+
+	/**
+	 * A small simulation with random deferred events and resource consumptions.
+	 * 
+	 * @return a textual summary of the simulation's outcome
+	 */
+	private static String randomScenario() {
+		SeedSyncer.resetCentral();
+		final StringBuilder outcome = new StringBuilder();
+		final MaxMinProvider provider = new MaxMinProvider(1);
+		final MaxMinConsumer consumer = new MaxMinConsumer(1);
+		for (int i = 0; i < 300; i++) {
+			final int id = i;
+			new DeferredEvent(1 + SeedSyncer.centralRnd.nextInt(1000)) {
+				@Override
+				protected void eventAction() {
+					new ResourceConsumption(1 + SeedSyncer.centralRnd.nextInt(500), ResourceConsumption.unlimitedProcessing,
+							consumer, provider, new ConsumptionEventAdapter() {
+								@Override
+								public void conComplete() {
+									outcome.append(id).append('@').append(Timed.getFireCount()).append(' ');
+								}
+							}).registerConsumption();
+				}
+			};
+		}
+		Timed.simulateUntilLastEvent();
+		return outcome.append("end:").append(Timed.getFireCount()).toString();
+	}
+
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void contextsHaveSeparateTime() {
+		final SimulationContext other = new SimulationContext();
+		new DeferredEvent(10) {
+			@Override
+			protected void eventAction() {
+			}
+		};
+		other.run(() -> {
+			assertEquals(-1, Timed.getNextFire(), "Events of the default context should not be visible");
+			Timed.jumpTime(1000);
+		});
+		assertEquals(0, Timed.getFireCount(), "The time of the default context should not change");
+		assertEquals(10, Timed.getNextFire(), "The events of the default context should be kept");
+		assertEquals(1000, (long) other.call(Timed::getFireCount), "The other context should keep its time");
+	}
+
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void contextsHaveSeparateState() {
+		SimulationContext.current().get(testKey).add("default");
+		final SimulationContext other = new SimulationContext();
+		assertTrue(other.get(testKey).isEmpty(), "A new context should start with the initial value");
+		other.run(() -> SimulationContext.current().get(testKey).add("other"));
+		assertEquals("other", other.get(testKey).get(0), "The context should keep its own state");
+		assertEquals(1, SimulationContext.getDefault().get(testKey).size(), "The default context should be intact");
+		SimulationContext.getDefault().get(testKey).clear();
+	}
+
+	@Test
+	@Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+	public void concurrentSimulationsAreIndependent() throws Exception {
+		final String expected = new SimulationContext().call(SimulationContextTest::randomScenario);
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			final ArrayList<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(pool.submit(() -> new SimulationContext().call(SimulationContextTest::randomScenario)));
+			}
+			for (Future<String> result : results) {
+				assertEquals(expected, result.get(), "Parallel runs should behave like a standalone run");
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(0, Timed.getFireCount(), "The default context should not be affected");
+	}
+}
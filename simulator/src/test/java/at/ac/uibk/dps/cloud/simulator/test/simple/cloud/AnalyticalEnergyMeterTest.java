@@ -0,0 +1,211 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor 
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *  
+ *  This file is part of DISSECT-CF.
+ *  
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *  
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *  
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *  
+ *  (C) Copyright 2014, Gabor Kecskemeti (gkecskem@dps.uibk.ac.at,
+ *   									  kecskemeti.gabor@sztaki.mta.hu)
+ */
+
+package at.ac.uibk.dps.cloud.simulator.test.simple.cloud;
+
+import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.EnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.IaaSEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.SimpleVMEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.specialized.VectorizedIaaSEnergyMeter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.ResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.pmscheduling.SchedulingDependentMachines;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.vmscheduling.FirstFitScheduler;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import at.ac.uibk.dps.cloud.simulator.test.ConsumptionEventAssert;
+import at.ac.uibk.dps.cloud.simulator.test.IaaSRelatedFoundation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalyticalEnergyMeterTest extends IaaSRelatedFoundation {
+
+	@AfterEach
+	public void resetMeteringMode() {
+		EnergyMeter.setAnalytical(false);
+	}
+
+	/**
+	 * Stops the meter after the given time, the analytical meters do not
+	 * generate events on their own.
+	 */
+	private static void stopAfter(final EnergyMeter meter, final long delay) {
+		new DeferredEvent(delay) {
+			@Override
+			protected void eventAction() {
+				meter.stopMeter();
+			}
+		};
+	}
+
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void VMmeasurementTest() throws Exception {
+		EnergyMeter.setAnalytical(true);
+		PhysicalMachine pm = dummyPMcreator();
+		Repository repo = dummyRepoCreator(true);
+		repo.setState(NetworkNode.State.RUNNING);
+		pm.turnon();
+		Timed.simulateUntilLastEvent();
+		VirtualMachine vm = pm.requestVM((VirtualAppliance) repo.contents().iterator().next(), pm.getCapacities(), repo,
+				1)[0];
+		Timed.simulateUntilLastEvent();
+		final EnergyMeter meter = new SimpleVMEnergyMeter(vm);
+		meter.startMeter(aSecond / 10, true);
+		assertTrue(meter.isAnalyticalSession());
+		long before = Timed.getFireCount();
+		Timed.simulateUntilLastEvent();
+		assertEquals(before, Timed.getFireCount(), "Analytical meters should not create events");
+		stopAfter(meter, aSecond);
+		Timed.simulateUntilLastEvent();
+		assertEquals(totalIdle * aSecond, meter.getTotalConsumption(), 0.1,
+				"The idle machine is not consuming as much as expected");
+
+		meter.startMeter(aSecond / 10, true);
+		ResourceConstraints rc = vm.getResourceAllocation().allocated;
+		final long taskleninms = 10 * aSecond;
+		vm.newComputeTask(rc.getTotalProcessingPower() * taskleninms, ResourceConsumption.unlimitedProcessing,
+				new ConsumptionEventAssert(Timed.getFireCount() + taskleninms, true) {
+					@Override
+					public void conComplete() {
+						super.conComplete();
+						meter.stopMeter();
+					}
+				});
+		Timed.simulateUntilLastEvent();
+		assertEquals(1, ConsumptionEventAssert.hits.size());
+		assertEquals(taskleninms * (maxpower - idlepower + totalIdle), meter.getTotalConsumption(), 0.1,
+				"The consumption is not properly reported if there is a task processed");
+
+		meter.startMeter(aSecond / 10, true);
+		vm.newComputeTask(rc.getTotalProcessingPower() * taskleninms, rc.getRequiredProcessingPower() * 0.5,
+				new ConsumptionEventAssert());
+		Timed.simulateUntil(Timed.getFireCount() + taskleninms);
+		assertEquals(taskleninms * (0.5 * (maxpower - idlepower) + totalIdle), meter.getTotalConsumption(), 0.1,
+				"The consumption is not properly reported if there is a task processed");
+		meter.stopMeter();
+		Timed.simulateUntilLastEvent();
+	}
+
+	/**
+	 * Runs VMs on an IaaS with switching on and off machines, and reads its
+	 * energy meter once all VMs have completed.
+	 * 
+	 * @param analytical
+	 *            the metering mode
+	 * @param interval
+	 *            the metering period of the polling meters
+	 * @param meterCreator
+	 *            creates the meter of the IaaS
+	 */
+	private double meterIaaS(final boolean analytical, final long interval,
+			final Function<IaaSService, EnergyMeter> meterCreator) throws Exception {
+		Timed.resetTimed();
+		EnergyMeter.setAnalytical(analytical);
+		final IaaSService iaas = setupIaaS(FirstFitScheduler.class, SchedulingDependentMachines.class, 3, 2);
+		final long[] fireAt = { 100, 250, 4000, 4100, 90000 };
+		final double[] process = { 400, 1200, 50, 800, 300 };
+		final int[] cores = { 2, 1, 2, 1, 2 };
+		for (int i = 0; i < fireAt.length; i++) {
+			fireVMat(iaas, fireAt[i], process[i], cores[i]);
+		}
+		final EnergyMeter meter = meterCreator.apply(iaas);
+		meter.startMeter(interval, true);
+		new Timed() {
+			{
+				subscribe(60 * aSecond);
+			}
+
+			@Override
+			public void tick(long fires) {
+				int completed = 0;
+				for (PhysicalMachine pm : iaas.machines) {
+					completed += pm.getCompletedVMs();
+				}
+				if (completed == fireAt.length) {
+					meter.stopMeter();
+					unsubscribe();
+				}
+			}
+		};
+		Timed.simulateUntilLastEvent();
+		assertFalse(meter.isMetering());
+		return meter.getTotalConsumption();
+	}
+
+	@Test
+	@Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+	public void matchesPolledConsumption() throws Exception {
+		// polling every tick is the closest to the exact consumption
+		final double polled = meterIaaS(false, 1, IaaSEnergyMeter::new);
+		final double analytical = meterIaaS(true, 5 * aSecond, IaaSEnergyMeter::new);
+		assertTrue(polled > 0);
+		assertEquals(polled, analytical, polled * 1e-4,
+				"The analytical meter should report the same consumption as the finely polling one");
+	}
+
+	@Test
+	@Timeout(value = 1000, unit = TimeUnit.MILLISECONDS)
+	public void vectorizedMatchesAggregated() throws Exception {
+		final double aggregated = meterIaaS(true, aSecond, IaaSEnergyMeter::new);
+		// the vectorized meter is analytical even if the others are polling
+		final double vectorized = meterIaaS(false, aSecond, VectorizedIaaSEnergyMeter::new);
+		assertTrue(aggregated > 0);
+		assertEquals(aggregated, vectorized, aggregated * 1e-9,
+				"The vectorized meter should report the same consumption as the per machine meters");
+	}
+
+	@Test
+	@Timeout(value = 1000, unit = TimeUnit.MILLISECONDS)
+	public void vectorizedFollowsCapacityChanges() throws Exception {
+		final IaaSService iaas = setupIaaS(FirstFitScheduler.class, SchedulingDependentMachines.class, 2, 2);
+		final VectorizedIaaSEnergyMeter meter = new VectorizedIaaSEnergyMeter(iaas);
+		assertEquals(10, meter.getMeteredCount());
+		meter.startMeter(aSecond, true);
+		Timed.simulateUntil(Timed.getFireCount() + aSecond);
+		final double beforeRemoval = meter.getTotalConsumption();
+		iaas.deregisterHost(iaas.machines.get(0));
+		assertEquals(5, meter.getMeteredCount());
+		assertEquals(beforeRemoval, meter.getTotalConsumption(), 1e-9,
+				"The consumption of the removed machine should remain part of the reading");
+		iaas.registerHost(dummyPMcreator());
+		assertEquals(10, meter.getMeteredCount());
+		meter.stopMeter();
+		assertFalse(meter.isMetering());
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ *  ========================================================================
+ *  DIScrete event baSed Energy Consumption simulaTor
+ *    					             for Clouds and Federations (DISSECT-CF)
+ *  ========================================================================
+ *
+ *  This file is part of DISSECT-CF.
+ *
+ *  DISSECT-CF is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or (at
+ *  your option) any later version.
+ *
+ *  DISSECT-CF is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser
+ *  General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with DISSECT-CF.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package at.ac.uibk.dps.cloud.simulator.test.simple.cloud;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.FreqSyncer;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinConsumer;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinProvider;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceSpreader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Runs random consumption graphs event by event, and after each event
+ * compares the state of the spreaders with what the algorithms used before
+ * the progressive filling over scratch arrays and the incremental influence
+ * groups computed:
+ * <ul>
+ * <li>the processing limits are the max-min fair shares of the active
+ * consumptions, determined here by plain water-filling,
+ * <li>the influence groups are the connected components of the active
+ * consumptions, determined here from scratch.
+ * </ul>
+ * The consumptions complete over time (splitting the groups), and some
+ * completions register new consumptions (merging them).
+ */
+public class ProgressiveFillingTest {
+	private static final int GRAPHS = 150;
+
+	private static class Graph {
+		final Random rnd;
+		final MaxMinProvider[] providers;
+		final MaxMinConsumer[] consumers;
+		final List<ResourceConsumption> active = new ArrayList<>();
+		int followUps;
+
+		Graph(final long seed) {
+			rnd = new Random(seed);
+			providers = new MaxMinProvider[2 + rnd.nextInt(7)];
+			consumers = new MaxMinConsumer[2 + rnd.nextInt(7)];
+			for (int i = 0; i < providers.length; i++) {
+				providers[i] = new MaxMinProvider(1 + rnd.nextInt(100) + rnd.nextDouble());
+			}
+			for (int i = 0; i < consumers.length; i++) {
+				consumers[i] = new MaxMinConsumer(1 + rnd.nextInt(100) + rnd.nextDouble());
+			}
+			followUps = rnd.nextInt(10);
+		}
+
+		void register() {
+			final double limit = rnd.nextInt(3) == 0 ? ResourceConsumption.unlimitedProcessing
+					: 0.5 + rnd.nextInt(50);
+			final ResourceConsumption[] con = new ResourceConsumption[1];
+			con[0] = new ResourceConsumption(100 + rnd.nextInt(10000), limit,
+					consumers[rnd.nextInt(consumers.length)], providers[rnd.nextInt(providers.length)],
+					new ConsumptionEventAdapter() {
+						@Override
+						public void conComplete() {
+							super.conComplete();
+							active.remove(con[0]);
+							if (followUps > 0 && rnd.nextBoolean()) {
+								followUps--;
+								register();
+							}
+						}
+					});
+			assertTrue(con[0].registerConsumption(), "Could not register " + con[0]);
+			active.add(con[0]);
+		}
+	}
+
+	/**
+	 * Water-filling: the rates of all unfrozen consumptions are raised
+	 * together until a consumption reaches its limit or a spreader gets
+	 * saturated, then the affected consumptions are frozen.
+	 */
+	private static Map<ResourceConsumption, Double> maxMinShares(final List<ResourceConsumption> cons) {
+		final Map<ResourceConsumption, Double> rates = new IdentityHashMap<>();
+		final List<ResourceConsumption> unfrozen = new ArrayList<>(cons);
+		cons.forEach(c -> rates.put(c, 0.0));
+		while (!unfrozen.isEmpty()) {
+			final Map<ResourceSpreader, Double> remaining = new IdentityHashMap<>();
+			final Map<ResourceSpreader, Integer> counts = new IdentityHashMap<>();
+			for (final ResourceConsumption c : cons) {
+				for (final ResourceSpreader s : new ResourceSpreader[] { c.getProvider(), c.getConsumer() }) {
+					remaining.merge(s, s.getPerTickProcessingPower(), (a, b) -> a);
+					remaining.merge(s, -rates.get(c), Double::sum);
+				}
+			}
+			for (final ResourceConsumption c : unfrozen) {
+				counts.merge(c.getProvider(), 1, Integer::sum);
+				counts.merge(c.getConsumer(), 1, Integer::sum);
+			}
+			double delta = Double.MAX_VALUE;
+			for (final ResourceConsumption c : unfrozen) {
+				delta = Math.min(delta, c.getProcessingLimit() - rates.get(c));
+				delta = Math.min(delta, remaining.get(c.getProvider()) / counts.get(c.getProvider()));
+				delta = Math.min(delta, remaining.get(c.getConsumer()) / counts.get(c.getConsumer()));
+			}
+			final double step = delta;
+			unfrozen.forEach(c -> rates.merge(c, step, Double::sum));
+			unfrozen.removeIf(c -> {
+				final double eps = 1e-9 * Math.max(1, rates.get(c));
+				return c.getProcessingLimit() - rates.get(c) <= eps
+						|| remaining.get(c.getProvider()) - step * counts.get(c.getProvider()) <= eps
+						|| remaining.get(c.getConsumer()) - step * counts.get(c.getConsumer()) <= eps;
+			});
+		}
+		return rates;
+	}
+
+	private static ResourceSpreader find(final Map<ResourceSpreader, ResourceSpreader> parent, ResourceSpreader s) {
+		while (parent.get(s) != s) {
+			s = parent.get(s);
+		}
+		return s;
+	}
+
+	/**
+	 * The spreaders connected by active consumptions must share their freq
+	 * syncer, the ones not connected must have different ones.
+	 */
+	private static void assertGroups(final Graph g, final String when) {
+		final Map<ResourceSpreader, ResourceSpreader> parent = new IdentityHashMap<>();
+		for (final ResourceConsumption c : g.active) {
+			parent.putIfAbsent(c.getProvider(), c.getProvider());
+			parent.putIfAbsent(c.getConsumer(), c.getConsumer());
+			parent.put(find(parent, c.getProvider()), find(parent, c.getConsumer()));
+		}
+		final Map<ResourceSpreader, FreqSyncer> syncerOfComponent = new IdentityHashMap<>();
+		final Map<FreqSyncer, ResourceSpreader> componentOfSyncer = new HashMap<>();
+		for (final ResourceSpreader s : parent.keySet()) {
+			final FreqSyncer syncer = s.getSyncer();
+			assertNotNull(syncer, "No influence group for " + s + " " + when);
+			final ResourceSpreader component = find(parent, s);
+			assertSame(syncerOfComponent.computeIfAbsent(component, k -> syncer), syncer,
+					"A connected component is split into several influence groups " + when);
+			assertSame(componentOfSyncer.computeIfAbsent(syncer, k -> component), component,
+					"Disconnected spreaders are in the same influence group " + when);
+		}
+	}
+
+	private static void assertShares(final Graph g, final String when) {
+		final Map<ResourceConsumption, Double> expected = maxMinShares(g.active);
+		for (final ResourceConsumption c : g.active) {
+			final double share = expected.get(c);
+			assertEquals(share, c.getRealLimit(), 1e-6 * Math.max(1, share),
+					"Wrong processing limit for " + c + " " + when);
+		}
+	}
+
+	private static int runGraph(final long seed) {
+		return new SimulationContext().call(() -> {
+			final Graph g = new Graph(seed);
+			final int initial = 1 + g.rnd.nextInt(30);
+			for (int i = 0; i < initial; i++) {
+				g.register();
+			}
+			int events = 0;
+			while (Timed.getNextFire() >= 0) {
+				Timed.jumpTime(Long.MAX_VALUE);
+				Timed.fire();
+				events++;
+				final String when = "at " + (Timed.getFireCount() - 1) + " in graph " + seed;
+				assertGroups(g, when);
+				assertShares(g, when);
+			}
+			assertTrue(g.active.isEmpty(), "Unfinished consumptions in graph " + seed);
+			return events;
+		});
+	}
+
+	@Test
+	@Timeout(value = 30, unit = TimeUnit.SECONDS)
+	public void matchesWaterFillingAndComponents() {
+		int events = 0;
+		for (long seed = 0; seed < GRAPHS; seed++) {
+			events += runGraph(seed);
+		}
+		assertTrue(events > GRAPHS * 5, "Too few events to compare: " + events);
+	}
+
+	@Test
+	@Timeout(value = 30, unit = TimeUnit.SECONDS)
+	public void independentOfSolverParallelism() {
+		final int previous = FreqSyncer.getParallelism();
+		FreqSyncer.setParallelism(4);
+		try {
+			for (long seed = 0; seed < GRAPHS / 5; seed++) {
+				runGraph(seed);
+			}
+		} finally {
+			FreqSyncer.setParallelism(previous);
+		}
+	}
+}
@@ -102,6 +102,28 @@ public class RepositoryTest extends PMRelatedFoundation {
 		assertFalse(source.deregisterObject(so), "It was possible to remove a non stored object!");
 	}
 
+	@Test
+	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
+	public void growthTest() {
+		final int[] notifications = { 0 };
+		source.subscribeToStorageChanges(repo -> notifications[0]++);
+		assertFalse(source.growObject(so, 10), "A non stored object should not grow");
+		registerWithCheck(so);
+		assertTrue(source.growObject(so, 10), "A stored object should grow");
+		assertEquals(so.size, source.lookup(storageObjectID).size, "The stored object should be the grown one");
+		assertEquals(source.getMaxStorageCapacity() - so.size, source.getFreeStorageCapacity(),
+				"The free capacity should follow the growth");
+		assertFalse(source.growObject(new StorageObject(storageObjectID), 10),
+				"An object with the same id should not grow the stored one");
+		assertFalse(source.growObject(so, source.getFreeStorageCapacity() + 1),
+				"The object should not grow beyond the capacity");
+		assertEquals(2, notifications[0], "The listeners should be notified about the registration and the growth");
+		source.deregisterObject(so);
+		emptyCheck();
+		assertEquals(source.getMaxStorageCapacity(), source.getFreeStorageCapacity(),
+				"Should not have any occupied storage");
+	}
+
 	@Test
 	@Timeout(value = 100, unit = TimeUnit.MILLISECONDS)
 	public void simpleTransferTest() throws NetworkException {
@@ -28,12 +28,16 @@ package at.ac.uibk.dps.cloud.simulator.test.simple.cloud;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import at.ac.uibk.dps.cloud.simulator.test.ConsumptionEventAssert;
 import at.ac.uibk.dps.cloud.simulator.test.ConsumptionEventFoundation;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAdapter;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.FreqSyncer;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinConsumer;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.MaxMinProvider;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ResourceConsumption;
@@ -278,4 +282,71 @@ public class ResourceSpreadingTest extends ConsumptionEventFoundation {
 				.registerConsumption();
 		Timed.simulateUntilLastEvent();
 	}
+
+	/**
+	 * A provider recording the threads its influence groups are scheduled on.
+	 */
+	private static class SolvingProvider extends MaxMinProvider {
+		private final Set<Thread> solvers;
+
+		SolvingProvider(final double perTickProcessing, final Set<Thread> solvers) {
+			super(perTickProcessing);
+			this.solvers = solvers;
+		}
+
+		@Override
+		protected long singleGroupwiseFreqUpdater() {
+			solvers.add(Thread.currentThread());
+			return super.singleGroupwiseFreqUpdater();
+		}
+	}
+
+	private List<String> splittingGroupScenario(final Set<Thread> solvers) {
+		final List<String> completions = new ArrayList<>();
+		final MaxMinConsumer bridge = new MaxMinConsumer(64);
+		for (int g = 0; g < 64; g++) {
+			final MaxMinProvider prov = new SolvingProvider(10 + g % 7, solvers);
+			final MaxMinConsumer cons = new MaxMinConsumer(5 + g % 5);
+			// Keeps all groups together until it completes
+			new ResourceConsumption(10, ResourceConsumption.unlimitedProcessing, bridge, prov,
+					new ConsumptionEventAdapter()).registerConsumption();
+			for (int c = 0; c < 6; c++) {
+				final String id = g + "-" + c;
+				new ResourceConsumption(1000 + 137 * c + 11 * g, ResourceConsumption.unlimitedProcessing, cons, prov,
+						new ConsumptionEventAdapter() {
+							@Override
+							public void conComplete() {
+								completions.add(id + "@" + Timed.getFireCount());
+							}
+						}).registerConsumption();
+			}
+		}
+		Timed.simulateUntilLastEvent();
+		return completions;
+	}
+
+	@Test
+	@Timeout(value = 2000, unit = TimeUnit.MILLISECONDS)
+	public void parallelGroupSolving() {
+		// Separate simulations, so both runs see the same spreader hash codes
+		final Set<Thread> sequentialSolvers = ConcurrentHashMap.newKeySet();
+		final List<String> sequential = new SimulationContext()
+				.call(() -> splittingGroupScenario(sequentialSolvers));
+		assertEquals(64 * 6, sequential.size(), "Not all consumptions completed");
+		assertEquals(Set.of(Thread.currentThread()), sequentialSolvers,
+				"The groups should be scheduled on the simulation's thread");
+		final int origParallelism = FreqSyncer.getParallelism();
+		FreqSyncer.setParallelism(4);
+		try {
+			assertEquals(4, FreqSyncer.getParallelism(), "Parallelism was not set");
+			final Set<Thread> parallelSolvers = ConcurrentHashMap.newKeySet();
+			assertEquals(sequential, new SimulationContext().call(() -> splittingGroupScenario(parallelSolvers)),
+					"Parallel group solving should not change the simulation's outcome");
+			// The split of the 384 consumptions bridged together is solved by the pool
+			parallelSolvers.remove(Thread.currentThread());
+			assertFalse(parallelSolvers.isEmpty(), "The groups of the split were not scheduled by the pool");
+		} finally {
+			FreqSyncer.setParallelism(origParallelism);
+		}
+	}
 }
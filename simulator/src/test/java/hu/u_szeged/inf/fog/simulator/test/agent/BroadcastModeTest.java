@@ -0,0 +1,115 @@
+package hu.u_szeged.inf.fog.simulator.test.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import hu.u_szeged.inf.fog.simulator.agent.AgentApplication;
+import hu.u_szeged.inf.fog.simulator.agent.Deployment;
+import hu.u_szeged.inf.fog.simulator.agent.Offer;
+import hu.u_szeged.inf.fog.simulator.agent.ResourceAgent;
+import hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.BroadcastMode;
+import hu.u_szeged.inf.fog.simulator.agent.ResourceAgent.Capacity;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.util.agent.AgentApplicationReader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the agent scenario with more agents than the fan-out in each broadcast mode, and checks
+ * that every mode collects the same offers.
+ */
+public class BroadcastModeTest {
+
+    private static final int AGENTS = 12;
+
+    /**
+     * An offer without its id: the agents with the names of the resources they host.
+     */
+    private static Set<String> canonical(Offer offer) {
+        Set<String> assignments = new HashSet<>();
+        String[] lines = offer.toString().split(System.lineSeparator());
+        for (int i = 1; i < lines.length; i++) {
+            String[] parts = lines[i].split(":", 2);
+            String[] resources = parts[1].trim().split(" ");
+            Arrays.sort(resources);
+            assignments.add(parts[0] + "=" + String.join(",", resources));
+        }
+        return assignments;
+    }
+
+    private static Set<Set<String>> offers(BroadcastMode mode) {
+        return new SimulationContext().call(() -> {
+            BroadcastMode previousMode = ResourceAgent.getBroadcastMode();
+            boolean previousRankingScript = ResourceAgent.isRankingScript();
+            try {
+                ResourceAgent.setBroadcastMode(mode);
+                ResourceAgent.setRankingScript(false);
+
+                String cloudfile = ScenarioBase.resourcePath + "ELKH_original.xml";
+                List<ComputingAppliance> clouds = new ArrayList<>();
+                double[][] locations = { { 47.45, 19.04 }, { 52.52, 13.40 }, { 48.85, 2.35 }, { 40.71, -74.00 },
+                    { 43.7, -79.42 } };
+                for (int i = 0; i < locations.length; i++) {
+                    ComputingAppliance cloud = new ComputingAppliance(cloudfile, "cloud" + (i + 1),
+                            new GeoLocation(locations[i][0], locations[i][1]), "EU", "AWS");
+                    clouds.add(cloud);
+                }
+                for (int i = 0; i < clouds.size(); i++) {
+                    ComputingAppliance.setConnection(clouds.get(i), 50 + 10 * i);
+                }
+                for (int i = 0; i < AGENTS; i++) {
+                    HashMap<ComputingAppliance, Capacity> capacityOffer = new HashMap<>();
+                    capacityOffer.put(clouds.get(i % clouds.size()), new Capacity(8.0 + i % 3 * 8,
+                            (8L + i % 4 * 8) * 1_073_741_824L, 100 * 1_073_741_824L));
+                    new ResourceAgent("Agent-" + (i + 1), capacityOffer, 0.0110 + 0.0001 * i);
+                }
+
+                EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions =
+                        PowerTransitionGenerator.generateTransitions(20, 200, 300, 10, 20);
+                Repository repository = new Repository(Long.MAX_VALUE, "Image Service", 125_000, 125_000, 125_000,
+                        new HashMap<>(), transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                        transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+                Deployment.setImageRegistry(repository, 100);
+
+                AgentApplication app = AgentApplicationReader.readAgentApplications(
+                        ScenarioBase.resourcePath + "AGENT_examples" + File.separator + "app_input.json");
+                new Deployment(app, 100);
+                Timed.simulateUntilLastEvent();
+
+                Set<Set<String>> offers = new HashSet<>();
+                for (Offer offer : app.offers) {
+                    offers.add(canonical(offer));
+                }
+                assertEquals(app.offers.size(), offers.size(), "duplicate offers in " + mode);
+                return offers;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                ResourceAgent.setBroadcastMode(previousMode);
+                ResourceAgent.setRankingScript(previousRankingScript);
+            }
+        });
+    }
+
+    @Test
+    public void modesCollectTheSameOffers() {
+        Set<Set<String>> allPairs = offers(BroadcastMode.ALL_PAIRS);
+        assertFalse(allPairs.isEmpty());
+        assertEquals(allPairs, offers(BroadcastMode.TREE));
+        assertEquals(allPairs, offers(BroadcastMode.GOSSIP));
+    }
+}
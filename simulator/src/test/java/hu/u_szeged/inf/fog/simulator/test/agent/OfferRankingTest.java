@@ -0,0 +1,125 @@
+package hu.u_szeged.inf.fog.simulator.test.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.JsonOfferData;
+import hu.u_szeged.inf.fog.simulator.util.agent.AgentOfferWriter.QosPriority;
+import hu.u_szeged.inf.fog.simulator.util.agent.OfferRanking;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+public class OfferRankingTest {
+
+    private static JsonOfferData offers() {
+        return new JsonOfferData(new QosPriority(1, 0, 0, 0.5),
+                new double[] { 0.9, 0.1, 0.5 },   // reliability
+                new double[] { 3, 1, 2 },         // energy
+                new double[] { 10, 20, 30 },      // bandwidth
+                new double[] { 5, 5, 5 },         // latency
+                new double[] { 1, 1, 5 });        // price
+    }
+
+    @Test
+    void voteWithoutReliability() {
+        // energy: 0, 2, 1 points, price (weight 0.5): 1.5, 1.5, 0 points
+        assertArrayEquals(new int[] { 1, 2, 0 }, OfferRanking.rank(offers(), "vote_wo_reliability"));
+    }
+
+    @Test
+    void voteWithReliability() {
+        // the reliability adds 2, 0, 1 points, the first two offers are equal
+        assertArrayEquals(new int[] { 0, 1, 2 }, OfferRanking.rank(offers(), "vote"));
+    }
+
+    @Test
+    void unknownMethod() {
+        assertThrows(IllegalArgumentException.class, () -> OfferRanking.rank(offers(), "topsis"));
+    }
+
+    /**
+     * The offers written by the agent scenarios (app_input.json and app_input2.json) and their
+     * recorded rankings. Each {@code <app>-offers.json} has a {@code <app>-rankings.json} with the
+     * ranking of each method and the source of the rankings.
+     */
+    private static final Path fixtures = Path.of(System.getProperty("user.dir"), "src", "test", "resources",
+            "agent", "ranking");
+
+    private static final String[] methods = { "vote", "vote_wo_reliability" };
+
+    /**
+     * The directory of the external ranking script, the rankings are only recorded with the
+     * script if it is given.
+     */
+    private static final String scriptDir = System.getProperty("hu.u_szeged.inf.fog.simulator.agent.rankingScriptDir");
+
+    private static double[] array(JsonNode node) {
+        double[] values = new double[node.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = node.get(i).asDouble();
+        }
+        return values;
+    }
+
+    private static JsonOfferData readOffers(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        JsonNode priority = root.get("qos_priority");
+        return new JsonOfferData(new QosPriority(priority.get("energy").asDouble(), priority.get("bandwidth").asDouble(),
+                priority.get("latency").asDouble(), priority.get("price").asDouble()),
+                array(root.get("reliability")), array(root.get("energy")), array(root.get("bandwidth")),
+                array(root.get("latency")), array(root.get("price")));
+    }
+
+    private static File[] offerFiles() {
+        File[] offerFiles = fixtures.toFile().listFiles((dir, name) -> name.endsWith("-offers.json"));
+        assertNotNull(offerFiles, "missing fixtures: " + fixtures);
+        assertTrue(offerFiles.length > 0, "missing fixtures: " + fixtures);
+        return offerFiles;
+    }
+
+    private static File rankingsFile(File offerFile) {
+        return new File(offerFile.getParentFile(), offerFile.getName().replace("-offers.json", "-rankings.json"));
+    }
+
+    @Test
+    void matchesRecordedRankings() throws IOException {
+        for (File offerFile : offerFiles()) {
+            JsonOfferData offers = readOffers(offerFile);
+            JsonNode rankings = new ObjectMapper().readTree(rankingsFile(offerFile));
+            for (String method : methods) {
+                int[] expected = new ObjectMapper().treeToValue(rankings.get(method), int[].class);
+                assertArrayEquals(expected, OfferRanking.rank(offers, method), offerFile.getName() + " " + method
+                        + " (recorded by " + rankings.get("source").asText() + ")");
+            }
+        }
+    }
+
+    /**
+     * Records the rankings of the external script for the fixtures. It only runs if the
+     * hu.u_szeged.inf.fog.simulator.agent.rankingScriptDir system property gives the directory
+     * of the script, {@link #matchesRecordedRankings()} then compares OfferRanking with them.
+     */
+    @Test
+    void recordScriptRankings() throws IOException {
+        assumeTrue(scriptDir != null && new File(scriptDir, "call_ranking_func.py").isFile(),
+                "the ranking script is not available");
+        for (File offerFile : offerFiles()) {
+            ObjectNode rankings = new ObjectMapper().createObjectNode();
+            rankings.put("source", "call_ranking_func.py");
+            for (String method : methods) {
+                int[] ranking = OfferRanking.rankWithScript(scriptDir, method, offerFile.getPath());
+                assertNotNull(ranking, "no ranking from the script for " + offerFile.getName() + " " + method);
+                rankings.putPOJO(method, ranking);
+            }
+            new ObjectMapper().writer(new DefaultPrettyPrinter()).writeValue(rankingsFile(offerFile), rankings);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package hu.u_szeged.inf.fog.simulator.test.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.u_szeged.inf.fog.simulator.util.agent.OfferSearch;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.apache.commons.lang3.tuple.Pair;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class OfferSearchTest {
+
+    /**
+     * The exhaustive enumeration the offers were generated with before the branch-and-bound search:
+     * every permutation of the agent-resource pairs, deduplicated by a set of sets.
+     */
+    private static <A, R> Set<Map<A, Set<R>>> exhaustiveOffers(List<R> resources, List<Pair<A, R>> pairs) {
+        Set<Set<Pair<A, R>>> uniqueCombinations = new HashSet<>();
+        generateCombinations(pairs, resources.size(), uniqueCombinations, new HashSet<>(), new HashSet<>());
+        Set<Map<A, Set<R>>> offers = new HashSet<>();
+        for (Set<Pair<A, R>> combination : uniqueCombinations) {
+            Map<A, Set<R>> agentResourcesMap = new HashMap<>();
+            for (Pair<A, R> pair : combination) {
+                agentResourcesMap.computeIfAbsent(pair.getLeft(), a -> new HashSet<>()).add(pair.getRight());
+            }
+            offers.add(agentResourcesMap);
+        }
+        return offers;
+    }
+
+    private static <A, R> void generateCombinations(List<Pair<A, R>> pairs, int resourceCount,
+            Set<Set<Pair<A, R>>> uniqueCombinations, Set<Pair<A, R>> currentCombination, Set<R> includedResources) {
+        if (includedResources.size() == resourceCount) {
+            uniqueCombinations.add(new HashSet<>(currentCombination));
+            return;
+        }
+        for (Pair<A, R> pair : pairs) {
+            if (!currentCombination.contains(pair) && !includedResources.contains(pair.getRight())) {
+                currentCombination.add(pair);
+                includedResources.add(pair.getRight());
+                generateCombinations(pairs, resourceCount, uniqueCombinations, currentCombination, includedResources);
+                currentCombination.remove(pair);
+                includedResources.remove(pair.getRight());
+            }
+        }
+    }
+
+    private static List<String> resources(int count) {
+        List<String> resources = new ArrayList<>();
+        for (int r = 0; r < count; r++) {
+            resources.add("R" + r);
+        }
+        return resources;
+    }
+
+    /**
+     * Each agent is able to host each resource with the given probability.
+     */
+    private static List<Pair<String, String>> randomPairs(Random random, List<String> resources, int agents,
+            double probability) {
+        List<Pair<String, String>> pairs = new ArrayList<>();
+        for (int a = 0; a < agents; a++) {
+            for (String resource : resources) {
+                if (random.nextDouble() < probability) {
+                    pairs.add(Pair.of("A" + a, resource));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static double price(Map<String, Set<String>> offer, Map<String, Double> hourlyPrices) {
+        double price = 0;
+        for (Map.Entry<String, Set<String>> entry : offer.entrySet()) {
+            price += hourlyPrices.get(entry.getKey()) * entry.getValue().size();
+        }
+        return price;
+    }
+
+    @Test
+    void unlimitedSearchMatchesExhaustiveEnumeration() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            List<String> resources = resources(1 + random.nextInt(4));
+            int agents = 1 + random.nextInt(5);
+            List<Pair<String, String>> pairs = randomPairs(random, resources, agents, 0.7);
+            Map<String, Double> hourlyPrices = new HashMap<>();
+            for (int a = 0; a < agents; a++) {
+                hourlyPrices.put("A" + a, (double) random.nextInt(3));
+            }
+
+            List<Map<String, Set<String>>> offers = OfferSearch.cheapestOffers(resources, pairs,
+                    (agent, resource) -> hourlyPrices.get(agent), 0);
+            Set<Map<String, Set<String>>> expected = exhaustiveOffers(resources, pairs);
+            assertEquals(expected.size(), offers.size(), "duplicate or missing offers in round " + round);
+            assertEquals(expected, new HashSet<>(offers), "round " + round);
+            for (int i = 1; i < offers.size(); i++) {
+                assertTrue(price(offers.get(i - 1), hourlyPrices) <= price(offers.get(i), hourlyPrices));
+            }
+        }
+    }
+
+    @Test
+    void limitedSearchKeepsTheCheapestOffers() {
+        Random random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            List<String> resources = resources(2 + random.nextInt(3));
+            int agents = 2 + random.nextInt(4);
+            List<Pair<String, String>> pairs = randomPairs(random, resources, agents, 0.8);
+            Map<String, Double> hourlyPrices = new HashMap<>();
+            for (int a = 0; a < agents; a++) {
+                hourlyPrices.put("A" + a, random.nextDouble());
+            }
+            int limit = 1 + random.nextInt(10);
+
+            List<Map<String, Set<String>>> offers = OfferSearch.cheapestOffers(resources, pairs,
+                    (agent, resource) -> hourlyPrices.get(agent), limit);
+            List<Double> expectedPrices = new ArrayList<>();
+            for (Map<String, Set<String>> offer : exhaustiveOffers(resources, pairs)) {
+                expectedPrices.add(price(offer, hourlyPrices));
+            }
+            expectedPrices.sort(null);
+            expectedPrices = expectedPrices.subList(0, Math.min(limit, expectedPrices.size()));
+
+            List<Double> prices = new ArrayList<>();
+            for (Map<String, Set<String>> offer : offers) {
+                prices.add(price(offer, hourlyPrices));
+            }
+            assertEquals(expectedPrices.size(), prices.size());
+            for (int i = 0; i < prices.size(); i++) {
+                assertEquals(expectedPrices.get(i), prices.get(i), 1e-9, "round " + round);
+            }
+        }
+    }
+
+    /**
+     * Each agent offers a single CPU capacity, and each resource requires some CPUs of it.
+     */
+    private static OfferSearch.Capacities<String, String> cpuCapacities(Map<String, Double> agentCpus,
+            Map<String, Double> resourceCpus) {
+        return new OfferSearch.Capacities<>() {
+
+            @Override
+            public double[] of(String agent) {
+                return new double[] { agentCpus.get(agent) };
+            }
+
+            @Override
+            public boolean place(String agent, double[] free, String resource) {
+                free[0] -= resourceCpus.get(resource);
+                return free[0] >= 0;
+            }
+        };
+    }
+
+    private static boolean fits(Map<String, Set<String>> offer, Map<String, Double> agentCpus,
+            Map<String, Double> resourceCpus) {
+        for (Map.Entry<String, Set<String>> entry : offer.entrySet()) {
+            double cpus = 0;
+            for (String resource : entry.getValue()) {
+                cpus += resourceCpus.get(resource);
+            }
+            if (cpus > agentCpus.get(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    void capacitiesCutTheOffersNotFitting() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            List<String> resources = resources(1 + random.nextInt(4));
+            int agents = 1 + random.nextInt(5);
+            List<Pair<String, String>> pairs = randomPairs(random, resources, agents, 0.8);
+            Map<String, Double> hourlyPrices = new HashMap<>();
+            Map<String, Double> agentCpus = new HashMap<>();
+            for (int a = 0; a < agents; a++) {
+                hourlyPrices.put("A" + a, (double) random.nextInt(3));
+                agentCpus.put("A" + a, (double) (2 + random.nextInt(6)));
+            }
+            Map<String, Double> resourceCpus = new HashMap<>();
+            for (String resource : resources) {
+                resourceCpus.put(resource, (double) (1 + random.nextInt(4)));
+            }
+
+            List<Map<String, Set<String>>> offers = OfferSearch.cheapestOffers(resources, pairs,
+                    (agent, resource) -> hourlyPrices.get(agent), cpuCapacities(agentCpus, resourceCpus), 0);
+            Set<Map<String, Set<String>>> expected = new HashSet<>();
+            for (Map<String, Set<String>> offer : exhaustiveOffers(resources, pairs)) {
+                if (fits(offer, agentCpus, resourceCpus)) {
+                    expected.add(offer);
+                }
+            }
+            assertEquals(expected.size(), offers.size(), "duplicate or missing offers in round " + round);
+            assertEquals(expected, new HashSet<>(offers), "round " + round);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void tenResourcesOnTwentyAgentsWithDefaultLimit() {
+        Random random = new Random(3);
+        List<String> resources = resources(10);
+        List<Pair<String, String>> pairs = randomPairs(random, resources, 20, 1);
+        Map<String, Double> hourlyPrices = new HashMap<>();
+        Map<String, Double> agentCpus = new HashMap<>();
+        for (int a = 0; a < 20; a++) {
+            hourlyPrices.put("A" + a, 0.01 + random.nextInt(10) * 0.001);
+            agentCpus.put("A" + a, (double) (4 + random.nextInt(8)));
+        }
+        Map<String, Double> resourceCpus = new HashMap<>();
+        for (String resource : resources) {
+            resourceCpus.put(resource, (double) (1 + random.nextInt(4)));
+        }
+
+        List<Map<String, Set<String>>> offers = OfferSearch.cheapestOffers(resources, pairs,
+                (agent, resource) -> hourlyPrices.get(agent) * resourceCpus.get(resource),
+                cpuCapacities(agentCpus, resourceCpus), OfferSearch.DEFAULT_LIMIT);
+        assertEquals(OfferSearch.DEFAULT_LIMIT, offers.size());
+        assertEquals(OfferSearch.DEFAULT_LIMIT, new HashSet<>(offers).size(), "duplicate offers");
+        double previous = 0;
+        for (Map<String, Set<String>> offer : offers) {
+            assertTrue(fits(offer, agentCpus, resourceCpus), offer.toString());
+            double price = 0;
+            for (Map.Entry<String, Set<String>> entry : offer.entrySet()) {
+                for (String resource : entry.getValue()) {
+                    price += hourlyPrices.get(entry.getKey()) * resourceCpus.get(resource);
+                }
+            }
+            assertTrue(previous <= price + 1e-12);
+            previous = price;
+        }
+    }
+}
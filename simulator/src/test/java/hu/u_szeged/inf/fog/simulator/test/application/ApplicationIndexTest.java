@@ -0,0 +1,189 @@
+package hu.u_szeged.inf.fog.simulator.test.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.ApplicationIndex;
+import hu.u_szeged.inf.fog.simulator.application.strategy.RandomApplicationStrategy;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.Device;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.DeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the lookups of the device strategies, which use {@link ApplicationIndex}, with the
+ * linear scans of all applications they replaced.
+ */
+public class ApplicationIndexTest {
+
+    private static final int QUERIES = 20_000;
+
+    /**
+     * A device that only has a position, it is never started.
+     */
+    private static class IdleDevice extends Device {
+
+        IdleDevice(GeoLocation geoLocation) {
+            this.geoLocation = geoLocation;
+        }
+
+        @Override
+        public void tick(long fires) {
+        }
+    }
+
+    /**
+     * A strategy that only exposes the lookups, it never chooses an application.
+     */
+    private static class LookupStrategy extends DeviceStrategy {
+
+        LookupStrategy(Device device) {
+            this.device = device;
+        }
+
+        @Override
+        public void findApplication() {
+        }
+    }
+
+    /**
+     * The previous implementation of {@link DeviceStrategy#getAvailableApplications()}.
+     */
+    private static ArrayList<Application> linearAvailable(GeoLocation location) {
+        return Application.getAllApplications().stream()
+                .filter(app -> app.serviceable && location
+                        .calculateDistance(app.computingAppliance.geoLocation) <= app.computingAppliance.range * 1000)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * The k nearest of the linear scan, a stable sort keeps the order of the list of all applications
+     * for the applications at the same distance.
+     */
+    private static ArrayList<Application> linearNearest(GeoLocation location, int k) {
+        return linearAvailable(location).stream()
+                .sorted(Comparator.comparingDouble(app -> location.calculateDistance(app.computingAppliance.geoLocation)))
+                .limit(k)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static long randomRange(Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return 0; // unlimited
+            case 1:
+                return 3000 + random.nextInt(12_000);
+            default:
+                return 1 + random.nextInt(600);
+        }
+    }
+
+    private static GeoLocation randomLocation(Random random) {
+        switch (random.nextInt(8)) {
+            case 0:
+                // close to the poles
+                return new GeoLocation((random.nextBoolean() ? 1 : -1) * (88 + random.nextDouble() * 2),
+                        random.nextDouble() * 360 - 180);
+            case 1:
+                // around the antimeridian
+                return new GeoLocation(random.nextDouble() * 140 - 70,
+                        (random.nextBoolean() ? 1 : -1) * (178 + random.nextDouble() * 2));
+            case 2:
+                // longitudes outside of [-180, 180]
+                return new GeoLocation(random.nextDouble() * 140 - 70, random.nextDouble() * 720 - 360);
+            default:
+                // a dense region, so the ranges overlap
+                return new GeoLocation(44 + random.nextDouble() * 6, 16 + random.nextDouble() * 8);
+        }
+    }
+
+    private static ArrayList<Application> createApplications(Random random, int count) {
+        ArrayList<Application> applications = new ArrayList<>();
+        GeoLocation shared = null;
+        for (int i = 0; i < count; i++) {
+            // a few nodes share their location, so there are ties in the distances
+            GeoLocation location = shared != null && random.nextInt(5) == 0
+                    ? new GeoLocation(shared.latitude, shared.longitude) : randomLocation(random);
+            shared = location;
+            ComputingAppliance ca = new ComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml",
+                    "node" + i, location, randomRange(random));
+            Application application = new Application("app" + i, 60_000, 1, 1, random.nextInt(8) != 0,
+                    new RandomApplicationStrategy(0.9, 2), null);
+            application.computingAppliance = ca;
+            ApplicationIndex.current().update(application);
+            applications.add(application);
+        }
+        return applications;
+    }
+
+    private static GeoLocation randomQuery(Random random, ArrayList<Application> applications) {
+        if (random.nextInt(4) == 0) {
+            return randomLocation(random);
+        }
+        // close to the border of the range of a node
+        ComputingAppliance ca = applications.get(random.nextInt(applications.size())).computingAppliance;
+        double range = Math.min(ca.range, 15_000) * 1000.0;
+        GeoLocation query = ca.geoLocation.nextLocation(range * (0.9 + random.nextDouble() * 0.2),
+                random.nextDouble() * 360);
+        return random.nextInt(10) == 0 ? new GeoLocation(ca.geoLocation.latitude, ca.geoLocation.longitude) : query;
+    }
+
+    private static ArrayList<String> names(ArrayList<Application> applications) {
+        return applications.stream().map(app -> app.name).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static void compare(Random random, ArrayList<Application> applications, int queries) {
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            GeoLocation location = randomQuery(random, applications);
+            DeviceStrategy strategy = new LookupStrategy(new IdleDevice(location));
+            ArrayList<Application> available = strategy.getAvailableApplications();
+            assertEquals(names(linearAvailable(location)), names(available), "available at " + location);
+            int k = 1 + random.nextInt(4);
+            assertEquals(names(linearNearest(location, k)), names(strategy.getNearestApplications(k)),
+                    "nearest at " + location);
+            found += available.size();
+        }
+        assertTrue(found > queries, "the queries rarely hit any application");
+    }
+
+    @Test
+    public void matchesLinearScan() {
+        new SimulationContext().run(() -> {
+            Random random = new Random(12);
+            ArrayList<Application> applications = createApplications(random, 60);
+            compare(random, applications, QUERIES);
+        });
+    }
+
+    @Test
+    public void matchesLinearScanAfterUpdates() {
+        new SimulationContext().run(() -> {
+            Random random = new Random(21);
+            ArrayList<Application> applications = createApplications(random, 40);
+            for (int round = 0; round < 20; round++) {
+                // the nodes move, some applications leave and come back
+                for (Application application : applications) {
+                    if (random.nextInt(3) == 0) {
+                        GeoLocation next = randomLocation(random);
+                        application.computingAppliance.geoLocation.latitude = next.latitude;
+                        application.computingAppliance.geoLocation.longitude = next.longitude;
+                        ApplicationIndex.current().update(application);
+                    } else if (random.nextInt(10) == 0) {
+                        ApplicationIndex.current().remove(application);
+                        ApplicationIndex.current().update(application);
+                    }
+                }
+                compare(random, applications, QUERIES / 20);
+            }
+        });
+    }
+}
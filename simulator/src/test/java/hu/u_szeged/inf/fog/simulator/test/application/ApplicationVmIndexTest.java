@@ -0,0 +1,176 @@
+package hu.u_szeged.inf.fog.simulator.test.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.u_szeged.inf.fog.simulator.application.AppVm;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.strategy.DefaultApplicationStrategy;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.FeatureManager;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.util.SimLogger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs an application through bursts of data, so its VMs are started, they process tasks, become
+ * idle, are shut down and started again, and compares the state indexes of the VMs with the states
+ * of the VMs, and the total work time with the linear scan of all VMs it replaced.
+ */
+public class ApplicationVmIndexTest {
+
+    private static final long freq = 60 * 1000;
+
+    /**
+     * An application checking its indexes before and after each tick.
+     */
+    private static class CheckedApplication extends Application {
+
+        /**
+         * The start of the current running period of each VM, as the previous implementation kept it.
+         */
+        final ArrayList<Long> runningPeriods = new ArrayList<>();
+
+        /**
+         * The total work time of the VMs, scanning all VMs.
+         */
+        long linearWorkTime;
+
+        int restarts;
+        boolean sawWorking;
+        boolean sawIdle;
+        boolean sawShutdown;
+
+        CheckedApplication(Instance instance) {
+            super("App", ApplicationVmIndexTest.freq, 100, 120, true, new DefaultApplicationStrategy(), instance);
+        }
+
+        @Override
+        public void tick(long fires) {
+            // the VMs finishing their tasks since the previous tick are idle now
+            checkIndexes();
+            long now = Timed.getFireCount();
+            ArrayList<VirtualMachine.State> before = new ArrayList<>();
+            for (int i = 0; i < utilisedVms.size(); i++) {
+                VirtualMachine.State state = utilisedVms.get(i).vm.getState();
+                if (state.equals(VirtualMachine.State.RUNNING)) {
+                    linearWorkTime += now - runningPeriods.get(i);
+                    runningPeriods.set(i, now);
+                }
+                before.add(state);
+            }
+            super.tick(fires);
+            for (int i = 0; i < utilisedVms.size(); i++) {
+                if (i >= before.size()) {
+                    runningPeriods.add(now);
+                } else if (before.get(i).equals(VirtualMachine.State.SHUTDOWN)
+                        && !utilisedVms.get(i).vm.getState().equals(VirtualMachine.State.SHUTDOWN)) {
+                    runningPeriods.set(i, now);
+                    restarts++;
+                }
+            }
+            checkIndexes();
+        }
+
+        void checkIndexes() {
+            BitSet running = getRunningVms();
+            BitSet idle = getIdleVms();
+            BitSet shutdown = getShutdownVms();
+            for (int i = 0; i < utilisedVms.size(); i++) {
+                VirtualMachine.State state = utilisedVms.get(i).vm.getState();
+                String vm = "VM " + i + " (" + state + ") at " + Timed.getFireCount();
+                assertEquals(state.equals(VirtualMachine.State.RUNNING), running.get(i), vm);
+                assertEquals(state.equals(VirtualMachine.State.SHUTDOWN), shutdown.get(i), vm);
+                assertTrue(!idle.get(i) || running.get(i), vm);
+                sawWorking |= running.get(i) && !idle.get(i);
+                sawIdle |= idle.get(i);
+                sawShutdown |= shutdown.get(i);
+            }
+            // idle, working, shut down and the others (e.g. starting up) do not overlap
+            BitSet all = new BitSet();
+            all.or(running);
+            all.or(shutdown);
+            assertEquals(running.cardinality() + shutdown.cardinality(), all.cardinality());
+            assertTrue(all.length() <= utilisedVms.size());
+        }
+    }
+
+    /**
+     * The features registered by other tests, the applications compute the features of their nodes.
+     */
+    private final ArrayList<Feature> features = new ArrayList<>();
+
+    @BeforeEach
+    public void hideFeatures() {
+        features.addAll(FeatureManager.getInstance().getFeatures());
+        FeatureManager.getInstance().getFeatures().clear();
+    }
+
+    @AfterEach
+    public void restoreFeatures() {
+        FeatureManager.getInstance().getFeatures().addAll(features);
+    }
+
+    /**
+     * Delivers data to the application at the given time.
+     */
+    private static void burst(Application application, long time, long data) {
+        new DeferredEvent(time) {
+            @Override
+            protected void eventAction() {
+                application.receivedData += data;
+                if (!application.isSubscribed()) {
+                    application.subscribeApplication();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void indexesFollowTheVmStates() {
+        SimLogger.setLogging(0, false);
+        new SimulationContext().run(() -> {
+            VirtualAppliance va = new VirtualAppliance("va", 100, 0, false, 1_073_741_824L);
+            AlterableResourceConstraints arc = new AlterableResourceConstraints(2, 0.001, 4_294_967_296L);
+            // one unit per ms, so the cost is the work time
+            CheckedApplication application = new CheckedApplication(new Instance("instance", va, arc, 1));
+            ComputingAppliance ca = new ComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml",
+                    "node", new GeoLocation(47.0, 19.0), 0);
+            ca.addApplication(application);
+
+            burst(application, freq, 1_500);
+            burst(application, 5 * freq, 200);
+            burst(application, 40 * freq, 2_000);
+            burst(application, 41 * freq, 700);
+            Timed.simulateUntilLastEvent();
+
+            assertTrue(application.utilisedVms.size() > 1);
+            assertTrue(application.restarts > 0, "no VM was started again");
+            assertTrue(application.sawWorking);
+            assertTrue(application.sawIdle);
+            assertTrue(application.sawShutdown);
+            assertEquals(application.receivedData, application.processedData);
+            application.checkIndexes();
+            assertFalse(application.getRunningVms().intersects(application.getShutdownVms()));
+
+            assertTrue(application.linearWorkTime > 0);
+            assertEquals(application.linearWorkTime, application.getCurrentCost());
+            assertEquals(application.linearWorkTime,
+                    application.utilisedVms.stream().mapToLong((AppVm appVm) -> appVm.workTime).sum());
+        });
+    }
+}
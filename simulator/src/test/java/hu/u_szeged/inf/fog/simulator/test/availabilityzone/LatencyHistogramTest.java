@@ -0,0 +1,164 @@
+package hu.u_szeged.inf.fog.simulator.test.availabilityzone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.LatencyHistogram;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the buckets of {@link LatencyHistogram} at their boundaries, and compares its percentiles
+ * with the exact percentiles of the recorded values.
+ */
+public class LatencyHistogramTest {
+
+    private static final double[] PERCENTILES = { 0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100 };
+
+    /**
+     * The exact percentile of the sorted values, using the same rank as the histogram.
+     */
+    private static long exactPercentile(long[] sorted, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * sorted.length));
+        return sorted[(int) rank - 1];
+    }
+
+    /**
+     * Returns with the value the histogram reports for the median of a single value and a
+     * much larger one, i.e. the upper end of the bucket of the value.
+     */
+    private static long bucketEnd(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotal());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(17));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().record(-1));
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(7).add(new LatencyHistogram(8)));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, bucketEnd(value));
+            histogram.record(value);
+        }
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(63, histogram.getValueAtPercentile(50));
+        assertEquals(127, histogram.getValueAtPercentile(100));
+        assertEquals(127 * 128 / 2, histogram.getTotal());
+        assertEquals(63.5, histogram.getMean());
+    }
+
+    @Test
+    public void bucketBoundaries() {
+        // above 2^7, each power of two is split into 64 sub-buckets
+        assertEquals(129, bucketEnd(128));
+        assertEquals(129, bucketEnd(129));
+        assertEquals(131, bucketEnd(130));
+        assertEquals(255, bucketEnd(254));
+        assertEquals(255, bucketEnd(255));
+        assertEquals(259, bucketEnd(256));
+        assertEquals(259, bucketEnd(259));
+        assertEquals(263, bucketEnd(260));
+        assertEquals(1023, bucketEnd(1020));
+        assertEquals(1039, bucketEnd(1024));
+        for (int shift = 7; shift < 63; shift++) {
+            long power = 1L << shift;
+            // the width of the sub-buckets below and above the power of two
+            long below = power >>> 7;
+            long above = power >>> 6;
+            assertEquals(power - 1, bucketEnd(power - below), "below 2^" + shift);
+            assertEquals(power - 1, bucketEnd(power - 1), "below 2^" + shift);
+            assertEquals(power + above - 1, bucketEnd(power), "at 2^" + shift);
+            assertEquals(power + above - 1, bucketEnd(power + above - 1), "above 2^" + shift);
+            assertEquals(power + 2 * above - 1, bucketEnd(power + above), "above 2^" + shift);
+        }
+    }
+
+    @Test
+    public void largestValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE - 1);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertEquals(Long.MAX_VALUE - 1, histogram.getMin());
+    }
+
+    @Test
+    public void percentilesWithinRelativeError() {
+        Random random = new Random(9);
+        for (int precisionBits : new int[] { 2, 4, 7, 10 }) {
+            LatencyHistogram histogram = new LatencyHistogram(precisionBits);
+            long[] values = new long[20_000];
+            for (int i = 0; i < values.length; i++) {
+                // log-uniform, so each bucket magnitude gets values
+                values[i] = (long) Math.exp(random.nextDouble() * 30);
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+            double relativeError = Math.pow(2, -(precisionBits - 1));
+            for (double percentile : PERCENTILES) {
+                long exact = exactPercentile(values, percentile);
+                long reported = histogram.getValueAtPercentile(percentile);
+                String message = "p" + percentile + " with " + precisionBits + " bits";
+                assertTrue(reported >= exact, message + ": " + reported + " < " + exact);
+                assertTrue(reported - exact <= exact * relativeError, message + ": " + reported + " vs " + exact);
+            }
+            assertEquals(values[0], histogram.getMin());
+            assertEquals(values[values.length - 1], histogram.getMax());
+            assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+            assertEquals(Arrays.stream(values).sum(), histogram.getTotal());
+        }
+    }
+
+    @Test
+    public void mergedHistogramMatchesCombinedRecording() {
+        Random random = new Random(4);
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        LatencyHistogram combined = new LatencyHistogram();
+        for (int i = 0; i < 5000; i++) {
+            long value = (long) Math.exp(random.nextDouble() * 20);
+            (i % 3 == 0 ? first : second).record(value);
+            combined.record(value);
+        }
+        // the maximum is only recorded in the second histogram
+        second.record(1_000_000_000L);
+        combined.record(1_000_000_000L);
+
+        LatencyHistogram merged = new LatencyHistogram();
+        merged.add(new LatencyHistogram());
+        merged.add(first);
+        merged.add(second);
+        merged.add(new LatencyHistogram());
+        assertEquals(combined.getCount(), merged.getCount());
+        assertEquals(combined.getTotal(), merged.getTotal());
+        assertEquals(combined.getMin(), merged.getMin());
+        assertEquals(combined.getMax(), merged.getMax());
+        for (double percentile : PERCENTILES) {
+            assertEquals(combined.getValueAtPercentile(percentile), merged.getValueAtPercentile(percentile),
+                    "p" + percentile);
+        }
+        assertEquals(combined.toString(), merged.toString());
+    }
+}
@@ -0,0 +1,154 @@
+package hu.u_szeged.inf.fog.simulator.test.availabilityzone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.StorageObject;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.AvailabilityZone;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.Locations;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.PhysicalMachineWithLocation;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.Region;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.SelectionStrategyEnum.SelectionStrategy;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.StatisticsCollector;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Several users write files to the same (nearest) zone at the same time, the writes and their
+ * propagations overlap in simulated time.
+ */
+public class RegionWriteTest {
+
+    private static final long CAPACITY = 1_000_000L;
+
+    private static final long[] SIZES = { 12_000, 2_000, 6_000 };
+
+    /**
+     * The order and the simulated time of the finished writes.
+     */
+    private static class Completions {
+        final List<String> order = new ArrayList<>();
+        final Map<String, Long> times = new HashMap<>();
+        long end;
+    }
+
+    private static PhysicalMachineWithLocation machine(String name, Locations.Location location,
+            List<Repository> repositories) {
+        EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions;
+        try {
+            transitions = PowerTransitionGenerator.generateTransitions(0.065, 1.475, 2.0, 1, 2);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        Repository repo = new Repository(CAPACITY, name, 3250, 3250, 3250, new HashMap<>(),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+        PhysicalMachineWithLocation pm = new PhysicalMachineWithLocation(4, 0.01, 8_000_000L, repo, 10_000, 10_000,
+                transitions.get(PowerTransitionGenerator.PowerStateKind.host), location);
+        pm.turnon();
+        while (pm.getState() != PhysicalMachineWithLocation.State.RUNNING) {
+            Timed.simulateUntilLastEvent();
+        }
+        repositories.add(repo);
+        return pm;
+    }
+
+    /**
+     * Writes the files of {@link #SIZES} from different users, all of them near to the first zone.
+     *
+     * @param overlapping if true, the writes are started at once, otherwise one after the other
+     */
+    private static Completions write(boolean overlapping) {
+        return new SimulationContext().call(() -> {
+            List<Repository> repositories = new ArrayList<>();
+            List<AvailabilityZone> zones = new ArrayList<>();
+            Locations.Location[] zoneLocations = { new Locations.Location("Szeged", 46.25, 20.15),
+                new Locations.Location("Vienna", 48.21, 16.37), new Locations.Location("Berlin", 52.52, 13.40) };
+            for (Locations.Location location : zoneLocations) {
+                PhysicalMachineWithLocation pm = machine(location.getCity() + " Repo", location, repositories);
+                zones.add(new AvailabilityZone(location.getCity(), pm.localDisk, pm, location));
+            }
+            List<PhysicalMachineWithLocation> users = new ArrayList<>();
+            for (int i = 0; i < SIZES.length; i++) {
+                users.add(machine("UserRepo" + i, new Locations.Location("User" + i, 46.2 + i * 0.01, 20.1),
+                        repositories));
+            }
+            for (Repository repo : repositories) {
+                for (Repository other : repositories) {
+                    if (repo != other) {
+                        repo.addLatencies(other.getName(), 20);
+                    }
+                }
+            }
+
+            Region region = new Region(zones, SelectionStrategy.NEAREST);
+            Completions completions = new Completions();
+            long start = Timed.getFireCount();
+            List<StorageObject> files = new ArrayList<>();
+            for (int i = 0; i < SIZES.length; i++) {
+                StorageObject file = new StorageObject("File" + i, SIZES[i], false);
+                files.add(file);
+                assertTrue(users.get(i).localDisk.registerObject(file));
+                region.handleWriteRequest(users.get(i), file, () -> {
+                    completions.order.add(file.id);
+                    completions.times.put(file.id, Timed.getFireCount() - start);
+                });
+                if (!overlapping) {
+                    Timed.simulateUntilLastEvent();
+                }
+            }
+            Timed.simulateUntilLastEvent();
+            completions.end = Timed.getFireCount() - start;
+
+            // every zone has a copy of every file, the users keep their own ones
+            long total = 0;
+            for (StorageObject file : files) {
+                assertTrue(region.isDataAvailableInAllAZs(file), file.id);
+                total += file.size;
+            }
+            for (AvailabilityZone zone : zones) {
+                Repository repo = zone.getRepository();
+                assertEquals(files.size(), repo.contents().size(), zone.getName());
+                for (StorageObject file : files) {
+                    assertEquals(file.size, repo.lookup(file.id).size, zone.getName() + " " + file.id);
+                }
+                assertEquals(CAPACITY - total, repo.getFreeStorageCapacity(), zone.getName());
+            }
+            for (int i = 0; i < users.size(); i++) {
+                Repository repo = users.get(i).localDisk;
+                assertEquals(1, repo.contents().size());
+                assertSame(files.get(i), repo.lookup(files.get(i).id));
+            }
+            assertEquals(files.size() * zones.size(),
+                    region.statisticsCollector.getHistogram(StatisticsCollector.Operation.WRITE).getCount());
+            region.close();
+            return completions;
+        });
+    }
+
+    @Test
+    public void overlappingWritesToSameZone() {
+        Completions overlapping = write(true);
+        Completions sequential = write(false);
+
+        // the writes share the bandwidth, thus the smaller files finish first
+        assertEquals(List.of("File1", "File2", "File0"), overlapping.order);
+        assertEquals(List.of("File0", "File1", "File2"), sequential.order);
+        assertTrue(overlapping.times.get("File1") < overlapping.times.get("File2"));
+        assertTrue(overlapping.times.get("File2") < overlapping.times.get("File0"));
+        assertTrue(overlapping.times.get("File0") <= overlapping.end);
+
+        // the writes do not wait for each other
+        assertTrue(overlapping.end < sequential.end,
+                "overlapping: " + overlapping.end + ", sequential: " + sequential.end);
+    }
+}
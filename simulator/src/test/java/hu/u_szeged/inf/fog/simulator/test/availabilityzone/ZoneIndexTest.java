@@ -0,0 +1,77 @@
+package hu.u_szeged.inf.fog.simulator.test.availabilityzone;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.AvailabilityZone;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.Locations;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.ZoneIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the nearest zone queries of {@link ZoneIndex} with a linear scan over the Haversine
+ * distances, which picks the first of the equally distant zones.
+ */
+public class ZoneIndexTest {
+
+    private static AvailabilityZone linearScan(List<AvailabilityZone> zones, double latitude, double longitude,
+            Predicate<AvailabilityZone> filter) {
+        AvailabilityZone nearest = null;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (AvailabilityZone zone : zones) {
+            double distance = zone.calculateDistance(latitude, longitude);
+            if (filter.test(zone) && distance < nearestDistance) {
+                nearest = zone;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    @Test
+    public void matchesLinearScan() {
+        Random random = new Random(7);
+        List<AvailabilityZone> zones = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Locations.Location location;
+            if (i > 0 && random.nextInt(5) == 0) {
+                // zones at the same place, the one earlier in the list must win
+                location = zones.get(random.nextInt(i)).getLocation();
+            } else {
+                location = new Locations.Location("City-" + i, random.nextDouble() * 180 - 90,
+                        random.nextDouble() * 360 - 180);
+            }
+            zones.add(new AvailabilityZone("AZ-" + i, null, null, location));
+        }
+        ZoneIndex index = new ZoneIndex(zones);
+
+        for (int query = 0; query < 2_000; query++) {
+            double latitude;
+            double longitude;
+            if (query % 4 == 0) {
+                Locations.Location location = zones.get(random.nextInt(zones.size())).getLocation();
+                latitude = location.getLatitude();
+                longitude = location.getLongitude();
+            } else {
+                latitude = random.nextDouble() * 180 - 90;
+                longitude = random.nextDouble() * 360 - 180;
+            }
+            int modulus = 1 + random.nextInt(4);
+            Predicate<AvailabilityZone> filter = zone -> zone.getName().hashCode() % modulus == 0;
+            assertSame(linearScan(zones, latitude, longitude, filter), index.nearest(latitude, longitude, filter),
+                    "query " + query);
+        }
+    }
+
+    @Test
+    public void noAcceptedZone() {
+        List<AvailabilityZone> zones = List.of(
+                new AvailabilityZone("AZ-0", null, null, new Locations.Location("Szeged", 46.25, 20.15)),
+                new AvailabilityZone("AZ-1", null, null, new Locations.Location("Vienna", 48.21, 16.37)));
+        assertNull(new ZoneIndex(zones).nearest(47, 19, zone -> false));
+        assertNull(new ZoneIndex(new ArrayList<>()).nearest(47, 19, zone -> true));
+    }
+}
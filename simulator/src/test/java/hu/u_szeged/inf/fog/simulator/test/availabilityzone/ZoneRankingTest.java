@@ -0,0 +1,124 @@
+package hu.u_szeged.inf.fog.simulator.test.availabilityzone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.AvailabilityZone;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.Locations;
+import hu.u_szeged.inf.fog.simulator.availabilityzone.ZoneRanking;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the heap of {@link ZoneRanking} with a stable sort of the ranked zones by their keys,
+ * which is what the region did before the rankings were maintained incrementally.
+ */
+public class ZoneRankingTest {
+
+    private static AvailabilityZone[] zones(int count) {
+        AvailabilityZone[] zones = new AvailabilityZone[count];
+        for (int i = 0; i < count; i++) {
+            zones[i] = new AvailabilityZone("AZ-" + i, null, null, new Locations.Location("City-" + i, 0, 0));
+        }
+        return zones;
+    }
+
+    private static List<AvailabilityZone> stableSort(AvailabilityZone[] zones, List<Integer> ranked, double[] keys) {
+        List<Integer> ordinals = new ArrayList<>(ranked);
+        ordinals.sort(Integer::compare);
+        ordinals.sort(Comparator.comparingDouble(o -> keys[o]));
+        List<AvailabilityZone> sorted = new ArrayList<>();
+        for (int ordinal : ordinals) {
+            sorted.add(zones[ordinal]);
+        }
+        return sorted;
+    }
+
+    @Test
+    public void emptyRanking() {
+        ZoneRanking ranking = new ZoneRanking(zones(3), zone -> 0);
+        assertNull(ranking.first());
+        ranking.add(1);
+        ranking.remove(1);
+        ranking.remove(1);
+        assertNull(ranking.first());
+        assertFalse(ranking.contains(1));
+    }
+
+    @Test
+    public void tiesAreBrokenByOrdinal() {
+        AvailabilityZone[] zones = zones(5);
+        double[] keys = {3, 1, 2, 1, 1};
+        ZoneRanking ranking = new ZoneRanking(zones, zone -> keys[Integer.parseInt(zone.getName().substring(3))]);
+        ranking.add(4);
+        ranking.add(3);
+        ranking.add(0);
+        assertSame(zones[3], ranking.first());
+        ranking.add(1);
+        assertSame(zones[1], ranking.first());
+
+        // lowering a key to an existing minimum does not overtake a lower ordinal
+        keys[2] = 1;
+        ranking.add(2);
+        assertSame(zones[1], ranking.first());
+        ranking.remove(1);
+        assertSame(zones[2], ranking.first());
+
+        // raising the key of the first zone hands over to the next lowest ordinal of the tie
+        keys[2] = 5;
+        ranking.update(2);
+        assertSame(zones[3], ranking.first());
+    }
+
+    @Test
+    public void followsStableSortUnderRandomOperations() {
+        Random random = new Random(42);
+        AvailabilityZone[] zones = zones(40);
+        double[] keys = new double[zones.length];
+        ZoneRanking ranking = new ZoneRanking(zones, zone -> keys[Integer.parseInt(zone.getName().substring(3))]);
+        List<Integer> ranked = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int ordinal = random.nextInt(zones.length);
+            switch (random.nextInt(3)) {
+                case 0:
+                    // few distinct keys, so there are many ties
+                    if (!ranked.contains(ordinal)) {
+                        keys[ordinal] = random.nextInt(5);
+                        ranked.add(ordinal);
+                    }
+                    ranking.add(ordinal);
+                    break;
+                case 1:
+                    ranking.remove(ordinal);
+                    ranked.remove(Integer.valueOf(ordinal));
+                    break;
+                default:
+                    if (ranked.contains(ordinal)) {
+                        keys[ordinal] = random.nextInt(5);
+                        ranking.update(ordinal);
+                    }
+                    break;
+            }
+            assertEquals(ranked.contains(ordinal), ranking.contains(ordinal));
+            List<AvailabilityZone> expected = stableSort(zones, ranked, keys);
+            assertSame(expected.isEmpty() ? null : expected.get(0), ranking.first(), "step " + step);
+        }
+
+        // draining the ranking yields the whole stable order
+        List<AvailabilityZone> expected = stableSort(zones, ranked, keys);
+        List<AvailabilityZone> drained = new ArrayList<>();
+        while (ranking.first() != null) {
+            AvailabilityZone first = ranking.first();
+            drained.add(first);
+            ranking.remove(Integer.parseInt(first.getName().substring(3)));
+        }
+        assertEquals(expected, drained);
+        assertTrue(drained.size() > 0);
+    }
+}
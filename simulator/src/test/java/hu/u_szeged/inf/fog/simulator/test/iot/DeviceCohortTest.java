@@ -0,0 +1,241 @@
+package hu.u_szeged.inf.fog.simulator.test.iot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.strategy.DefaultApplicationStrategy;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.Device;
+import hu.u_szeged.inf.fog.simulator.iot.DeviceCohort;
+import hu.u_szeged.inf.fog.simulator.iot.SmartDevice;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.StaticMobilityStrategy;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.DeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.DistanceBasedDeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.FeatureManager;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.util.SimLogger;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares a cohort of devices with the same number of smart devices measuring at the same times
+ * next to a single node: they must generate and deliver the same amount of data, also when a
+ * member is turned into a separate device or the batteries of the members run out.
+ */
+public class DeviceCohortTest {
+
+    private static final int SIZE = 20;
+
+    private static final long freq = 1000;
+
+    private static final long fileSize = 100;
+
+    /**
+     * The members start 0-3 minutes after this, so the smart devices can be started at the same times.
+     */
+    private static final long startTime = 180 * 1000;
+
+    private static final long stopTime = startTime + 600 * freq;
+
+    private static final GeoLocation position = new GeoLocation(47.0, 19.0);
+
+    /**
+     * The data generated, delivered and left at the devices.
+     */
+    private static class Result {
+        long generatedData;
+        long receivedData;
+        long stuckData;
+        int messageCount;
+        final ArrayList<long[]> memberTimes = new ArrayList<>();
+        final ArrayList<Double> batteries = new ArrayList<>();
+    }
+
+    /**
+     * The features registered by other tests, the applications compute the features of their nodes.
+     */
+    private final ArrayList<Feature> features = new ArrayList<>();
+
+    @BeforeEach
+    public void hideFeatures() {
+        features.addAll(FeatureManager.getInstance().getFeatures());
+        FeatureManager.getInstance().getFeatures().clear();
+    }
+
+    @AfterEach
+    public void restoreFeatures() {
+        FeatureManager.getInstance().getFeatures().addAll(features);
+    }
+
+    private static PhysicalMachine localMachine() {
+        EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions =
+                PowerTransitionGenerator.generateTransitions(0.065, 1.475, 2.0, 1, 2);
+        Repository repo = new Repository(4_294_967_296L, "device-repo", 3_250, 3_250, 3_250, new HashMap<>(),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+        return new PhysicalMachine(1, 0.001, 1_073_741_824L, repo, 0, 0,
+                transitions.get(PowerTransitionGenerator.PowerStateKind.host));
+    }
+
+    private static Application application() {
+        VirtualAppliance va = new VirtualAppliance("va", 100, 0, false, 1_073_741_824L);
+        AlterableResourceConstraints arc = new AlterableResourceConstraints(2, 0.001, 4_294_967_296L);
+        Application application = new Application("App", 60 * 1000, 100, 120, true,
+                new DefaultApplicationStrategy(), new Instance("instance", va, arc, 0));
+        ComputingAppliance ca = new ComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml", "node",
+                new GeoLocation(position.latitude, position.longitude), 10);
+        ca.addApplication(application);
+        return application;
+    }
+
+    private static Result result(Application application) {
+        Result result = new Result();
+        for (Device device : Device.getAllDevices()) {
+            result.generatedData += device.generatedData;
+            result.messageCount += device.messageCount;
+            result.stuckData += device.calculateStuckData();
+        }
+        result.receivedData = application.receivedData;
+        return result;
+    }
+
+    /**
+     * Runs a cohort, the given member is turned into a smart device after its given tick.
+     */
+    private static Result runCohort(DeviceStrategy deviceStrategy, double batteryCapacity, int member,
+            int materializedAt) {
+        SimLogger.setLogging(0, false);
+        return new SimulationContext().call(() -> {
+            Application application = application();
+            DeviceCohort cohort = new DeviceCohort(SIZE, 100, startTime, stopTime, fileSize, freq,
+                    new StaticMobilityStrategy(position), deviceStrategy, localMachine(), 50, batteryCapacity, 1) {
+                @Override
+                public void tick(long fires) {
+                    super.tick(fires);
+                    if (Timed.getFireCount() == getStartTime(member) + materializedAt * freq) {
+                        materialize(member, new StaticMobilityStrategy(position), new DistanceBasedDeviceStrategy(),
+                                localMachine());
+                    }
+                }
+            };
+            Timed.simulateUntilLastEvent();
+            Result result = result(application);
+            for (int i = 0; i < SIZE; i++) {
+                result.memberTimes.add(new long[] { cohort.getStartTime(i), cohort.getStopTime(i) });
+                result.batteries.add(cohort.getRemainingBattery(i));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Runs a smart device for each member of the cohort, which measures in the same period as the member.
+     */
+    private static Result runDevices(ArrayList<long[]> memberTimes) {
+        SimLogger.setLogging(0, false);
+        return new SimulationContext().call(() -> {
+            Application application = application();
+            for (int i = 0; i < memberTimes.size(); i++) {
+                // the smart device adds a random delay to its times, it is drawn here in advance
+                SeedSyncer.modifySeed(i);
+                long delay = Math.abs(SeedSyncer.centralRnd.nextLong() % 180) * 1000;
+                SeedSyncer.modifySeed(i);
+                SmartDevice device = new SmartDevice(memberTimes.get(i)[0] - delay, memberTimes.get(i)[1] - delay,
+                        fileSize, freq, new StaticMobilityStrategy(position), new DistanceBasedDeviceStrategy(),
+                        localMachine(), 50, false);
+                assertEquals(memberTimes.get(i)[0], device.startTime);
+            }
+            Timed.simulateUntilLastEvent();
+            return result(application);
+        });
+    }
+
+    private static void assertSameData(Result expected, Result actual) {
+        assertEquals(expected.messageCount, actual.messageCount);
+        assertEquals(expected.generatedData, actual.generatedData);
+        assertEquals(expected.receivedData, actual.receivedData);
+        assertEquals(0, actual.stuckData);
+    }
+
+    @Test
+    public void sendsAsMuchAsTheDevices() {
+        Result cohort = runCohort(new DistanceBasedDeviceStrategy(), 0, 0, Integer.MAX_VALUE);
+        Result devices = runDevices(cohort.memberTimes);
+        assertEquals(SIZE * 599 * fileSize, devices.generatedData);
+        assertSameData(devices, cohort);
+        assertEquals(devices.generatedData, cohort.receivedData);
+        assertTrue(cohort.batteries.stream().allMatch(battery -> battery == Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * The materialized member makes 200 readings in the cohort, and the rest as a smart device.
+     * The devices do not measure at their start times, so each of them makes 599 readings.
+     */
+    @Test
+    public void materializedMemberContinuesMeasuring() {
+        Result cohort = runCohort(new DistanceBasedDeviceStrategy(), 0, 3, 200);
+        assertEquals(cohort.memberTimes.get(3)[0] + 200 * freq, cohort.memberTimes.get(3)[1]);
+
+        Result devices = runDevices(runCohort(new DistanceBasedDeviceStrategy(), 0, 0, Integer.MAX_VALUE).memberTimes);
+        assertSameData(devices, cohort);
+    }
+
+    /**
+     * The batteries of the members are enough for 250.5 readings, so they stop measuring
+     * like devices running for 251 periods (they do not measure at their start times).
+     */
+    @Test
+    public void batteriesRunOut() {
+        Result cohort = runCohort(new DistanceBasedDeviceStrategy(), 250.5, 0, Integer.MAX_VALUE);
+        ArrayList<long[]> deviceTimes = new ArrayList<>();
+        for (long[] times : cohort.memberTimes) {
+            deviceTimes.add(new long[] { times[0], times[0] + 251 * freq });
+        }
+        Result devices = runDevices(deviceTimes);
+        assertEquals(SIZE * 250 * fileSize, devices.generatedData);
+        assertSameData(devices, cohort);
+        cohort.batteries.forEach(battery -> assertEquals(0.5, battery, 1e-9));
+    }
+
+    /**
+     * The strategy chooses the application, but it does not connect the cohort to its node.
+     */
+    private static class UnconnectedStrategy extends DeviceStrategy {
+        @Override
+        public void findApplication() {
+            this.chosenApplication = Application.getAllApplications().get(0);
+        }
+    }
+
+    /**
+     * Without a connection to the node the data of the members stays at them, and the cohort
+     * stops 100 ticks after the members stopped measuring.
+     */
+    @Test
+    public void keepsTheDataWithoutConnection() {
+        long stuckData = SmartDevice.stuckData;
+        Result cohort = runCohort(new UnconnectedStrategy(), 0, 0, Integer.MAX_VALUE);
+        assertEquals(SIZE * 599 * fileSize, cohort.generatedData);
+        assertEquals(0, cohort.receivedData);
+        assertEquals(cohort.generatedData, cohort.stuckData);
+        assertEquals(cohort.generatedData, SmartDevice.stuckData - stuckData);
+    }
+}
@@ -0,0 +1,56 @@
+package hu.u_szeged.inf.fog.simulator.test.iot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import hu.u_szeged.inf.fog.simulator.iot.SensorReadings;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class SensorReadingsTest {
+
+    private static Repository repository(long capacity) throws Exception {
+        EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions =
+                PowerTransitionGenerator.generateTransitions(0, 10, 20, 10, 20);
+        return new Repository(capacity, "disk", 1000, 1000, 1000, new HashMap<>(),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+    }
+
+    @Test
+    public void readingsGrowTheStoredFile() throws Exception {
+        Repository disk = repository(10_000);
+        SensorReadings readings = new SensorReadings("readings", 300);
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(readings.addReading(disk));
+            assertEquals(i, readings.getReadingCount());
+            assertEquals(i * 300, readings.size);
+            assertSame(readings, disk.lookup("readings"));
+            assertEquals(1, disk.contents().size());
+            assertEquals(10_000 - i * 300, disk.getFreeStorageCapacity());
+        }
+    }
+
+    @Test
+    public void fullRepositoryRejectsTheReading() throws Exception {
+        Repository disk = repository(700);
+        SensorReadings readings = new SensorReadings("readings", 300);
+        assertTrue(readings.addReading(disk));
+        assertTrue(readings.addReading(disk));
+        assertFalse(readings.addReading(disk));
+        assertEquals(2, readings.getReadingCount());
+        assertEquals(600, readings.size);
+        assertEquals(100, disk.getFreeStorageCapacity());
+
+        SensorReadings other = new SensorReadings("other", 300);
+        assertFalse(other.addReading(disk));
+        assertEquals(0, other.getReadingCount());
+        assertEquals(0, other.size);
+    }
+}
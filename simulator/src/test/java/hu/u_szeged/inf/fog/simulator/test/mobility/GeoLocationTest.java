@@ -0,0 +1,38 @@
+package hu.u_szeged.inf.fog.simulator.test.mobility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class GeoLocationTest {
+
+    @Test
+    public void angleOfCardinalDirections() {
+        GeoLocation origin = new GeoLocation(46.25, 20.15);
+        assertEquals(0, origin.angle(new GeoLocation(47.25, 20.15)), 1e-9);
+        assertEquals(180, origin.angle(new GeoLocation(45.25, 20.15)), 1e-9);
+        // along a parallel the initial bearing is only close to east and west
+        assertEquals(90, origin.angle(new GeoLocation(46.25, 20.16)), 0.01);
+        assertEquals(270, origin.angle(new GeoLocation(46.25, 20.14)), 0.01);
+    }
+
+    @Test
+    public void angleIsTheBearingOfNextLocation() {
+        Random random = new Random(11);
+        for (int i = 0; i < 1_000; i++) {
+            GeoLocation from = new GeoLocation(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+            double bearing = random.nextDouble() * 360;
+            GeoLocation to = from.nextLocation(1_000 + random.nextDouble() * 10_000, bearing);
+            double angle = from.angle(to);
+            double difference = Math.abs(angle - bearing);
+            assertEquals(0, Math.min(difference, 360 - difference), 1e-6, "bearing " + bearing);
+        }
+    }
+
+    @Test
+    public void distanceIsInMeters() {
+        GeoLocation origin = new GeoLocation(46.25, 20.15);
+        assertEquals(5_000, origin.calculateDistance(origin.nextLocation(5_000, 42)), 1e-6);
+    }
+}
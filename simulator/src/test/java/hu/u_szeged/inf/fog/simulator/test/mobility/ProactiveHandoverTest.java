@@ -0,0 +1,276 @@
+package hu.u_szeged.inf.fog.simulator.test.mobility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.mta.sztaki.lpds.cloud.simulator.DeferredEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.energy.powermodelling.PowerState;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.mta.sztaki.lpds.cloud.simulator.util.PowerTransitionGenerator;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.strategy.DefaultApplicationStrategy;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.SmartDevice;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.NomadicMobilityStrategy;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.ProactiveHandover;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.CostAwareDeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.FeatureManager;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.util.SimLogger;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives a device along known paths from the range of a cheap node towards a more expensive
+ * one, and compares the reactive and the proactive handover. The device prefers the cheap node
+ * while it is in its range, and it moves 1.2 km between its measurements to the east (the nodes
+ * are about 15 km from each other), so the proactive mode predicts that it leaves the range of
+ * the cheap node 8.9 km from it.
+ */
+public class ProactiveHandoverTest {
+
+    private static final GeoLocation first = new GeoLocation(47.0, 19.0);
+
+    private static final GeoLocation second = new GeoLocation(47.0, 19.2);
+
+    private static final long firstRange = 10;
+
+    private static final long freq = 60 * 1000;
+
+    private static final double speed = 0.02;
+
+    private static final double price = 0.051 / 60 / 60 / 1000;
+
+    /**
+     * The state of the device and of the broker of the second node after each refresh.
+     */
+    private static class Step {
+        final long time;
+        final Application connected;
+        final boolean inFirstRange;
+        final VirtualMachine.State brokerState;
+        final long brokerRunningTime;
+
+        Step(long time, Application connected, boolean inFirstRange, VirtualMachine.State brokerState,
+                long brokerRunningTime) {
+            this.time = time;
+            this.connected = connected;
+            this.inFirstRange = inFirstRange;
+            this.brokerState = brokerState;
+            this.brokerRunningTime = brokerRunningTime;
+        }
+    }
+
+    private static class Scenario {
+        Application source;
+        Application target;
+        final ArrayList<Step> steps = new ArrayList<>();
+        ProactiveHandover.Statistics statistics;
+
+        /**
+         * The first refresh that connected the device to the second node.
+         */
+        Step handover() {
+            return steps.stream().filter(step -> step.connected == target).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * The cost aware strategy, which records the steps of the device.
+     */
+    private static class RecordingStrategy extends CostAwareDeviceStrategy {
+        final Scenario scenario;
+
+        RecordingStrategy(Scenario scenario) {
+            this.scenario = scenario;
+        }
+
+        @Override
+        public void findApplication() {
+            super.findApplication();
+            ComputingAppliance ca = scenario.target.computingAppliance;
+            scenario.steps.add(new Step(Timed.getFireCount(), this.device.application,
+                    this.device.geoLocation.calculateDistance(first) <= firstRange * 1000,
+                    ca.broker.vm.getState(), ca.broker.getRunningTime()));
+        }
+    }
+
+    /**
+     * The features registered by other tests, the applications compute the features of their nodes.
+     */
+    private final ArrayList<Feature> features = new ArrayList<>();
+
+    @BeforeEach
+    public void hideFeatures() {
+        features.addAll(FeatureManager.getInstance().getFeatures());
+        FeatureManager.getInstance().getFeatures().clear();
+    }
+
+    @AfterEach
+    public void restore() {
+        ProactiveHandover.setEnabled(false);
+        FeatureManager.getInstance().getFeatures().addAll(features);
+    }
+
+    private static SmartDevice device(Scenario scenario, GeoLocation... path) {
+        EnumMap<PowerTransitionGenerator.PowerStateKind, Map<String, PowerState>> transitions =
+                PowerTransitionGenerator.generateTransitions(0.065, 1.475, 2.0, 1, 2);
+        Repository repo = new Repository(4_294_967_296L, "device-repo", 3_250, 3_250, 3_250, new HashMap<>(),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.storage),
+                transitions.get(PowerTransitionGenerator.PowerStateKind.network));
+        PhysicalMachine localMachine = new PhysicalMachine(1, 0.001, 1_073_741_824L, repo, 0, 0,
+                transitions.get(PowerTransitionGenerator.PowerStateKind.host));
+        return new SmartDevice(0, 30 * freq, 100, freq,
+                new NomadicMobilityStrategy(new GeoLocation(47.0, 19.01), speed, path),
+                new RecordingStrategy(scenario), localMachine, 50, false);
+    }
+
+    /**
+     * The mobility strategy moves the device with the location objects of the path,
+     * so each run needs its own.
+     */
+    private static GeoLocation[] path(double... coordinates) {
+        GeoLocation[] path = new GeoLocation[coordinates.length / 2];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = new GeoLocation(coordinates[2 * i], coordinates[2 * i + 1]);
+        }
+        return path;
+    }
+
+    /**
+     * Runs the device along the path. The broker of the second node is switched off before
+     * the device starts, so it has to be switched on again for the handover.
+     */
+    private static Scenario run(boolean proactive, long secondRange, GeoLocation... path) {
+        ProactiveHandover.setEnabled(proactive);
+        SimLogger.setLogging(0, false);
+        return new SimulationContext().call(() -> {
+            Scenario scenario = new Scenario();
+            String cloudfile = ScenarioBase.resourcePath + "LPDS_original.xml";
+            VirtualAppliance va = new VirtualAppliance("va", 100, 0, false, 1_073_741_824L);
+            AlterableResourceConstraints arc = new AlterableResourceConstraints(2, 0.001, 4_294_967_296L);
+            ComputingAppliance node1 = new ComputingAppliance(cloudfile, "node1",
+                    new GeoLocation(first.latitude, first.longitude), firstRange);
+            ComputingAppliance node2 = new ComputingAppliance(cloudfile, "node2",
+                    new GeoLocation(second.latitude, second.longitude), secondRange);
+            scenario.source = new Application("App-1", freq, 100, 120, true, new DefaultApplicationStrategy(),
+                    new Instance("instance1", va, arc, price));
+            scenario.target = new Application("App-2", freq, 100, 120, true, new DefaultApplicationStrategy(),
+                    new Instance("instance2", va, arc, 2 * price));
+            node1.addApplication(scenario.source);
+            node2.addApplication(scenario.target);
+            // once its broker is running, the idle application switches it off at its first tick
+            new DeferredEvent(freq) {
+                @Override
+                protected void eventAction() {
+                    scenario.target.subscribeApplication();
+                }
+            };
+            device(scenario, path);
+            Timed.simulateUntilLastEvent();
+            scenario.statistics = ProactiveHandover.getStatistics();
+            return scenario;
+        });
+    }
+
+    /**
+     * The device turns to the north at the range of both nodes, and leaves the range of the first
+     * one a few measurements later. The reactive handover waits for the broker of the second node,
+     * the proactive one switches the broker on in advance, and redirects the device as soon as the
+     * broker is running, while the device is still in the range of the first node.
+     */
+    @Test
+    public void redirectsBeforeLeavingTheRange() {
+        // 9.2 km to the east, then to the north
+        double[] path = { 47.0, 19.121, 47.06, 19.121 };
+
+        Scenario reactive = run(false, 10, path(path));
+        Step reactiveHandover = reactive.handover();
+        assertNotNull(reactiveHandover);
+        assertFalse(reactiveHandover.inFirstRange);
+        assertEquals(VirtualMachine.State.STARTUP, reactiveHandover.brokerState);
+        assertEquals(freq, reactive.statistics.handoverGapTime);
+        assertEquals(0, reactive.statistics.proactiveHandoverCounter);
+        assertEquals(0, reactive.statistics.warmUpCounter);
+
+        Scenario proactive = run(true, 10, path(path));
+        Step proactiveHandover = proactive.handover();
+        assertNotNull(proactiveHandover);
+        assertTrue(proactiveHandover.inFirstRange);
+        assertEquals(VirtualMachine.State.RUNNING, proactiveHandover.brokerState);
+        assertTrue(proactiveHandover.time < reactiveHandover.time);
+        // the device is not switched back to the cheaper node in the range of both
+        proactive.steps.stream().filter(step -> step.time >= proactiveHandover.time)
+                .forEach(step -> assertSame(proactive.target, step.connected, "at " + step.time));
+        assertEquals(0, proactive.statistics.handoverGapTime);
+        assertEquals(1, proactive.statistics.proactiveHandoverCounter);
+        assertEquals(1, proactive.statistics.warmUpCounter);
+        assertEquals(0, proactive.statistics.mispredictionCounter);
+        assertEquals(0, proactive.statistics.mispredictedWarmUpTime);
+    }
+
+    /**
+     * The device turns back 9 km from the first node, before reaching the range of the second
+     * node (6 km), so the broker switched on for the predicted handover is never used. Its running
+     * time since the warm-up is charged at the price of the second application.
+     */
+    @Test
+    public void chargesTheMispredictedWarmUp() {
+        // 9 km to the east, then back to the first node
+        double[] path = { 47.0, 19.1185, 47.0, 19.0 };
+
+        Scenario reactive = run(false, 6, path(path));
+        assertNull(reactive.handover());
+        assertEquals(0, reactive.statistics.handoverGapTime);
+        assertTrue(reactive.steps.stream().allMatch(step -> step.brokerState == VirtualMachine.State.SHUTDOWN));
+
+        Scenario proactive = run(true, 6, path(path));
+        assertNull(proactive.handover());
+        assertEquals(0, proactive.statistics.handoverGapTime);
+        assertEquals(1, proactive.statistics.warmUpCounter);
+        assertEquals(0, proactive.statistics.proactiveHandoverCounter);
+        assertEquals(1, proactive.statistics.mispredictionCounter);
+
+        int warmUp = 0;
+        while (proactive.steps.get(warmUp).brokerState == VirtualMachine.State.SHUTDOWN) {
+            warmUp++;
+        }
+        long before = proactive.steps.get(warmUp - 1).brokerRunningTime;
+        long after = proactive.steps.get(proactive.steps.size() - 1).brokerRunningTime;
+        assertTrue(after > before);
+        assertEquals(after - before, proactive.statistics.mispredictedWarmUpTime);
+        assertEquals(2 * price * (after - before), proactive.statistics.mispredictedWarmUpCost, 1e-12);
+    }
+
+    @Test
+    public void statisticsBelongToTheSimulationContext() {
+        ProactiveHandover.Statistics first = new SimulationContext().call(() -> {
+            ProactiveHandover.Statistics statistics = ProactiveHandover.getStatistics();
+            statistics.warmUpCounter++;
+            assertSame(statistics, ProactiveHandover.getStatistics());
+            return statistics;
+        });
+        ProactiveHandover.Statistics second = new SimulationContext().call(ProactiveHandover::getStatistics);
+        assertNotSame(first, second);
+        assertEquals(1, first.warmUpCounter);
+        assertEquals(0, second.warmUpCounter);
+    }
+}
@@ -0,0 +1,77 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction;
+
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.FeatureManager;
+import hu.u_szeged.inf.fog.simulator.prediction.Prediction;
+import hu.u_szeged.inf.fog.simulator.prediction.communication.ServerSocket;
+import hu.u_szeged.inf.fog.simulator.prediction.communication.launchers.PredictorLauncher;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPredictionTest {
+
+    private static Feature feature(String name, double first) {
+        return new Feature(name) {
+            double next = first;
+
+            @Override
+            public double compute() {
+                return next++;
+            }
+        };
+    }
+
+    @Test
+    void predictInOneFrame() throws Exception {
+        System.setProperty("hu.u_szeged.inf.fog.simulator.prediction.communication.ServerSocket.port", "0");
+        ServerSocket.getInstance().start();
+        StandInPredictor predictor = new StandInPredictor(ServerSocket.getInstance().getPort(), true);
+        predictor.start();
+        try {
+            ServerSocket.getInstance().waitForConnections(List.of(new PredictorLauncher()));
+
+            List<Feature> features = new ArrayList<>();
+            features.add(feature("Feature A", 0));
+            features.add(feature("fail B", 10));
+            features.add(feature("Feature C", 100));
+            for (Feature feature : features) {
+                for (int i = 0; i < 6; i++) {
+                    feature.computeValue();
+                }
+            }
+
+            List<Prediction> predictions = FeatureManager.getInstance().predict(features, 4);
+            assertEquals(1, predictor.framesReceived);
+            assertEquals(1, predictor.messagesReceived); // the handshake only
+            assertEquals(2, predictions.size());
+
+            assertEquals("Feature A", predictions.get(0).getFeatureName());
+            assertEquals(List.of(2.0, 3.0, 4.0, 5.0), predictions.get(0).getOriginalData().getData());
+            assertEquals(List.of(5.0, 5.0, 5.0), predictions.get(0).getPredictionFuture().getData());
+            assertEquals(List.of(4, 5, 6), predictions.get(0).getPredictionFuture().getTimestamp());
+            assertNull(predictions.get(0).getPredictionTest());
+            assertEquals(0.0, predictions.get(0).getErrorMetrics().getRmse());
+            assertEquals("Feature C", predictions.get(1).getFeatureName());
+            assertEquals(List.of(105.0, 105.0, 105.0), predictions.get(1).getPredictionFuture().getData());
+
+            assertEquals(1, features.get(0).getPredictions().size());
+            assertEquals(0, features.get(1).getPredictions().size());
+            for (Feature feature : features) {
+                assertFalse(feature.getHasNewValue());
+            }
+
+            features.get(0).computeValue();
+            predictions = FeatureManager.getInstance().predict(features.subList(0, 1), 4);
+            assertEquals(2, predictor.framesReceived);
+            assertEquals(1, predictions.get(0).getPredictionNumber());
+            assertEquals(List.of(6.0, 6.0, 6.0), predictions.get(0).getPredictionFuture().getData());
+        } finally {
+            ServerSocket.getInstance().stop();
+            predictor.join(10_000);
+        }
+        assertFalse(predictor.isAlive());
+    }
+}
@@ -0,0 +1,90 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction;
+
+import hu.u_szeged.inf.fog.simulator.prediction.CsvWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the numbers written by {@link CsvWriter} with the "%.16f" format they replaced.
+ */
+class CsvWriterTest {
+
+    private static String written(double value) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            writer.cell(value);
+        }
+        String cell = out.toString();
+        assertEquals(';', cell.charAt(cell.length() - 1));
+        return cell.substring(0, cell.length() - 1);
+    }
+
+    private static String formatted(double value) {
+        // the writer uses the decimal separator of the default locale
+        char separator = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+        return String.format(Locale.ROOT, "%.16f", value).replace('.', separator);
+    }
+
+    private static void assertFormatted(double value) throws IOException {
+        assertEquals(formatted(value), written(value), () -> "value " + value);
+    }
+
+    @Test
+    void specialValues() throws IOException {
+        for (double value : new double[] {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.MAX_VALUE, -Double.MAX_VALUE, 1e-300, -1e-20, 5e-17, 4.9e-17, -5e-17, 1, -1, 0.1, -0.1,
+            1e7, 1e15, 1e16, 1e22, 123456789.123456789, Long.MAX_VALUE}) {
+            assertFormatted(value);
+        }
+    }
+
+    @Test
+    void roundingCarriesThroughNines() throws IOException {
+        for (double value : new double[] {0.99999999999999995, 0.99999999999999994, 9.99999999999999995,
+            99.999999999999999, 0.00000000000000995, 0.00000000000000999, 0.0000000000000000999,
+            1.99999999999999999e-16, 9.9999999999999999e-17, 0.12345678901234565, 0.12345678901234564}) {
+            assertFormatted(value);
+            assertFormatted(-value);
+        }
+    }
+
+    @Test
+    void randomValues() throws IOException {
+        Random random = new Random(20);
+        for (int i = 0; i < 100_000; i++) {
+            double value;
+            switch (i % 4) {
+                case 0:
+                    value = random.nextDouble();
+                    break;
+                case 1:
+                    value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+                    break;
+                case 2:
+                    // any bit pattern, including subnormals
+                    value = Double.longBitsToDouble(random.nextLong());
+                    break;
+                default:
+                    value = Math.round(random.nextDouble() * 1e6) / 1e6 - random.nextInt(1000);
+                    break;
+            }
+            assertFormatted(value);
+        }
+    }
+
+    @Test
+    void rowsAndCells() throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter writer = new CsvWriter(out)) {
+            writer.cell("a").empty().cell(0.5).endRow().cell("b").endRow();
+        }
+        assertEquals("a;;" + formatted(0.5) + ";\nb;\n", out.toString());
+    }
+}
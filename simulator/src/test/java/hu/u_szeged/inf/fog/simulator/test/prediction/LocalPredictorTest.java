@@ -0,0 +1,86 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction;
+
+import hu.u_szeged.inf.fog.simulator.prediction.Prediction;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.ArimaModel;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.HoltWintersModel;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.LinearRegressionModel;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.LocalPredictor;
+import hu.u_szeged.inf.fog.simulator.prediction.engine.MovingAverageModel;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.ExportSettings;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.PredictionSettings;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.PredictorSettings;
+import hu.u_szeged.inf.fog.simulator.prediction.settings.SimulationSettings;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalPredictorTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void models() {
+        double[] line = new double[20];
+        double[] autoregressive = new double[20];
+        double[] seasonal = new double[24];
+        autoregressive[0] = 10;
+        for (int t = 0; t < 24; t++) {
+            if (t < 20) {
+                line[t] = 3 + 0.5 * t;
+            }
+            if (t > 0 && t < 20) {
+                autoregressive[t] = 0.5 * autoregressive[t - 1] + 1;
+            }
+            seasonal[t] = new double[] { 1, 4, 2, -3 }[t % 4];
+        }
+
+        assertArrayEquals(new double[] { 13, 13.5 }, new LinearRegressionModel().forecast(line, 2), DELTA);
+        assertArrayEquals(new double[] { 13, 13.5 }, new ArimaModel(1, 1).forecast(line, 2), DELTA);
+        double last = autoregressive[19];
+        assertArrayEquals(new double[] { 0.5 * last + 1, 0.25 * last + 1.5 },
+                new ArimaModel(1, 0).forecast(autoregressive, 2), 1e-6);
+        assertArrayEquals(new double[] { 1, 4, 2, -3, 1 },
+                new HoltWintersModel(HoltWintersModel.Component.NONE, HoltWintersModel.Component.ADD, 4,
+                        0.1, 0.1, 0.1).forecast(seasonal, 5), DELTA);
+        assertArrayEquals(new double[] { 11.75, 11.75 }, new MovingAverageModel(4).forecast(line, 2), DELTA);
+    }
+
+    @Test
+    void predict() throws Exception {
+        SimulationSettings settings = new SimulationSettings(
+                new ExportSettings(false, "", false, false, false, false),
+                new PredictionSettings(3, 4, 16, new PredictionSettings.SmoothingSettings(5, 2), true, 0),
+                PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.LINEAR_REGRESSION));
+        double[] values = new double[16];
+        for (int t = 0; t < values.length; t++) {
+            values[t] = 100 - 2 * t;
+        }
+
+        LocalPredictor predictor = new LocalPredictor();
+        Prediction prediction = predictor.predict("feature", values, settings);
+        assertEquals("feature", prediction.getFeatureName());
+        assertEquals(0, prediction.getPredictionNumber());
+        assertEquals(List.of(16, 17, 18), prediction.getPredictionFuture().getTimestamp());
+        assertArrayEquals(new double[] { 68, 66, 64 }, toArray(prediction.getPredictionFuture().getData()), DELTA);
+        assertEquals(List.of(12, 13, 14, 15), prediction.getPredictionTest().getTimestamp());
+        assertArrayEquals(new double[] { 76, 74, 72, 70 }, toArray(prediction.getPredictionTest().getData()), DELTA);
+        assertArrayEquals(values, toArray(prediction.getPreprocessedData().getData()), DELTA);
+        assertEquals(12, prediction.getTestDataBeginning().getData().size());
+        assertEquals(0, prediction.getErrorMetrics().getRmse(), DELTA);
+
+        assertEquals(1, predictor.predict("feature", values, settings).getPredictionNumber());
+        assertEquals(0, predictor.predict("other", values, settings).getPredictionNumber());
+
+        settings.setPredictor(PredictorSettings.getPredictorSettings(PredictorSettings.PredictorEnum.SVR));
+        assertThrows(IllegalArgumentException.class, () -> predictor.predict("feature", values, settings));
+    }
+
+    private static double[] toArray(List<Double> list) {
+        double[] result = new double[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction;
+
+import hu.u_szeged.inf.fog.simulator.prediction.Feature;
+import hu.u_szeged.inf.fog.simulator.prediction.Prediction;
+import hu.u_szeged.inf.fog.simulator.prediction.communication.BatchFrame;
+import hu.u_szeged.inf.fog.simulator.prediction.communication.ClientThread;
+import hu.u_szeged.inf.fog.simulator.prediction.communication.SocketMessage;
+import java.io.File;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the real SocketClient of the Python predictor against {@link ClientThread}. The script
+ * driving the client only echoes the messages and repeats the last values as the predictions,
+ * so it does not need the libraries of the predictor models.
+ */
+class PythonSocketClientTest {
+
+    private static final File SCRIPTS = new File("../predictor-ui/scripts");
+
+    private static final String DRIVER = String.join("\n",
+            "import sys",
+            "sys.path.insert(0, sys.argv[1])",
+            "import batch_frame",
+            "from socket_client import SocketClient, BatchRequest",
+            "from socket_message import SocketMessage",
+            "client = SocketClient('localhost', int(sys.argv[2]))",
+            "client.connect()",
+            "while client.connected:",
+            "    request = client.wait_and_get()",
+            "    if isinstance(request, BatchRequest):",
+            "        entries = []",
+            "        for f in request.features:",
+            "            values = f['values']",
+            "            series = {'timestamp': list(range(len(values))), 'data': values}",
+            "            future = {'timestamp': [len(values)], 'data': [values[-1]]}",
+            "            entries.append((f['name'], {'prediction_number': 0, 'prediction_time': 0,",
+            "                'original_data': series, 'preprocessed_data': series, 'test_data_beginning': series,",
+            "                'test_data_end': series, 'prediction_future': future}, None))",
+            "        client.send_frame(batch_frame.encode_predictions(entries))",
+            "    elif request.event == 'get-name':",
+            "        client.send(SocketMessage('get-name-response', {'name': 'APPLICATION_PREDICTOR', 'batch': True}))",
+            "    elif request.event == 'stop-connection':",
+            "        client.close()",
+            "    else:",
+            "        client.send(SocketMessage(request.event + '-response', request.data))");
+
+    private static boolean pythonAvailable() {
+        try {
+            Process process = new ProcessBuilder("python3", "--version").redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            return process.waitFor(10, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static Feature feature(String name, double... values) {
+        Feature feature = new Feature(name) {
+            int next;
+
+            @Override
+            public double compute() {
+                return values[next++];
+            }
+        };
+        for (int i = 0; i < values.length; i++) {
+            feature.computeValue();
+        }
+        return feature;
+    }
+
+    @Test
+    @Timeout(60)
+    void roundTripsWithPythonClient() throws Exception {
+        assumeTrue(SCRIPTS.isDirectory() && pythonAvailable(), "python3 and the predictor scripts are needed");
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            Process process = new ProcessBuilder("python3", "-c", DRIVER, SCRIPTS.getAbsolutePath(),
+                    String.valueOf(server.getLocalPort())).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            try {
+                server.setSoTimeout(30_000);
+                Socket socket = server.accept();
+                socket.setSoTimeout(10_000);
+
+                ClientThread client = new ClientThread(socket);
+                assertEquals("APPLICATION_PREDICTOR", client.getSocketName());
+                assertTrue(client.isBatchSupported());
+
+                // the braces and quotes inside the strings must not end the size message early
+                JSONObject data = new JSONObject().put("text", "{\"}\" \\ }}")
+                        .put("nested", new JSONObject().put("value", 42).put("more", new JSONObject()));
+                SocketMessage reply = client.sendAndGet(new SocketMessage("echo", data));
+                assertNotNull(reply);
+                assertEquals("echo-response", reply.getEvent());
+                assertEquals("{\"}\" \\ }}", reply.getData().getString("text"));
+                assertEquals(42, reply.getData().getJSONObject("nested").getInt("value"));
+
+                byte[] body = client.sendAndGetFrame(BatchFrame.encodeFeatures(
+                        List.of(feature("Feature A", 1, 2, 3), feature("Feature B", 5, 6, 7)), 3));
+                List<Prediction> predictions = BatchFrame.decodePredictions(body, null);
+                assertEquals(2, predictions.size());
+                assertEquals(List.of(1.0, 2.0, 3.0), predictions.get(0).getOriginalData().getData());
+                assertEquals(List.of(3.0), predictions.get(0).getPredictionFuture().getData());
+                assertEquals(List.of(7.0), predictions.get(1).getPredictionFuture().getData());
+
+                // a plain message after a frame, then the client stops without answering
+                assertEquals("echo-response", client.sendAndGet(new SocketMessage("echo", data)).getEvent());
+                assertNull(client.sendAndGet(new SocketMessage("stop-connection",
+                        new JSONObject().put("message", "stop"))));
+                socket.close();
+
+                assertTrue(process.waitFor(10, TimeUnit.SECONDS), "the Python client did not stop");
+                assertEquals(0, process.exitValue());
+            } finally {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void pythonClientFailsOnClosedConnection() throws Exception {
+        assumeTrue(SCRIPTS.isDirectory() && pythonAvailable(), "python3 and the predictor scripts are needed");
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            Process process = new ProcessBuilder("python3", "-c", DRIVER, SCRIPTS.getAbsolutePath(),
+                    String.valueOf(server.getLocalPort())).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            try {
+                server.setSoTimeout(30_000);
+                try (Socket socket = server.accept()) {
+                    // half of a size message, then the connection is closed
+                    socket.getOutputStream().write("{\"event\":\"data-size\",\"da".getBytes());
+                    socket.getOutputStream().flush();
+                }
+                assertTrue(process.waitFor(10, TimeUnit.SECONDS), "the Python client kept waiting");
+                assertNotEquals(0, process.exitValue());
+            } finally {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
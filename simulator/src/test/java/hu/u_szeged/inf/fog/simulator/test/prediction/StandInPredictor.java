@@ -0,0 +1,186 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction;
+
+import hu.u_szeged.inf.fog.simulator.prediction.communication.BatchFrame;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A local stand-in for the Python predictor, it speaks the same protocol (including the batch frames),
+ * but it simply repeats the last value of each feature as the prediction. The features whose name
+ * starts with "fail" are answered with an error.
+ */
+class StandInPredictor extends Thread {
+
+    static final int HORIZON = 3;
+
+    private final int port;
+
+    private final boolean batch;
+
+    volatile int framesReceived;
+
+    volatile int messagesReceived;
+
+    private final HashMap<String, Integer> predictionNumbers = new HashMap<>();
+
+    StandInPredictor(int port, boolean batch) {
+        this.port = port;
+        this.batch = batch;
+        this.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        try (Socket socket = new Socket("localhost", port)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            while (true) {
+                byte[] head = new byte[4];
+                in.readFully(head);
+                if (toInt(head) == BatchFrame.MAGIC) {
+                    byte[] body = new byte[in.readInt()];
+                    in.readFully(body);
+                    framesReceived++;
+                    out.write(reply(body));
+                    out.flush();
+                    continue;
+                }
+
+                // line-based JSON: the size of the message, the ACK, then the message itself
+                readLine(in, head);
+                writeLine(out, new JSONObject().put("event", "data-size-response")
+                        .put("data", new JSONObject().put("message", "ACK")));
+                JSONObject message = new JSONObject(readLine(in, new byte[0]));
+                messagesReceived++;
+                String event = message.getString("event");
+                if (event.equals("get-name")) {
+                    writeLine(out, new JSONObject().put("event", "get-name-response")
+                            .put("data", new JSONObject().put("name", "APPLICATION_PREDICTOR").put("batch", batch)));
+                } else if (event.equals("stop-connection")) {
+                    writeLine(out, new JSONObject().put("event", "stop-connection-response")
+                            .put("data", new JSONObject().put("message", "stop")));
+                    return;
+                } else {
+                    writeLine(out, new JSONObject().put("event", event + "-response")
+                            .put("data", new JSONObject().put("error", "Unsupported event: " + event)));
+                }
+            }
+        } catch (IOException | JSONException e) {
+            // the simulator has closed the connection
+        }
+    }
+
+    private byte[] reply(byte[] request) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        int count = in.readInt();
+        out.writeInt(count);
+        for (int f = 0; f < count; f++) {
+            byte[] name = new byte[in.readInt()];
+            in.readFully(name);
+            double[] values = new double[in.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = in.readDouble();
+            }
+            String featureName = new String(name, StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            if (featureName.startsWith("fail")) {
+                byte[] error = "Stand-in failure".getBytes(StandardCharsets.UTF_8);
+                out.writeByte(BatchFrame.STATUS_ERROR);
+                out.writeInt(error.length);
+                out.write(error);
+                continue;
+            }
+            out.writeByte(BatchFrame.STATUS_OK);
+            out.writeInt(predictionNumbers.merge(featureName, 1, Integer::sum) - 1);
+            out.writeDouble(0);
+            out.writeByte(BatchFrame.HAS_FUTURE | BatchFrame.HAS_ERROR_METRICS);
+            for (int s = 0; s < 4; s++) {
+                writeSeries(out, 0, values);
+            }
+            double[] future = new double[HORIZON];
+            Arrays.fill(future, values[values.length - 1]);
+            writeSeries(out, values.length, future);
+            out.writeDouble(0);
+            out.writeDouble(0);
+            out.writeDouble(0);
+        }
+        out.flush();
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(frame);
+        header.writeInt(BatchFrame.MAGIC);
+        header.writeInt(body.size());
+        body.writeTo(frame);
+        return frame.toByteArray();
+    }
+
+    private static void writeSeries(DataOutputStream out, int firstTimestamp, double[] data) throws IOException {
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++) {
+            out.writeInt(firstTimestamp + i);
+        }
+        for (double d : data) {
+            out.writeDouble(d);
+        }
+    }
+
+    private static int toInt(byte[] b) {
+        return (b[0] & 0xff) << 24 | (b[1] & 0xff) << 16 | (b[2] & 0xff) << 8 | (b[3] & 0xff);
+    }
+
+    private static String readLine(DataInputStream in, byte[] prefix) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        line.write(prefix);
+        int b;
+        while ((b = in.read()) != -1) {
+            line.write(b);
+            if (b == '}' && isComplete(line.toString(StandardCharsets.UTF_8))) {
+                break;
+            }
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The simulator does not terminate its messages, so a message is read until its braces are balanced.
+     */
+    private static boolean isComplete(String json) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            }
+        }
+        return depth == 0;
+    }
+
+    private static void writeLine(DataOutputStream out, JSONObject message) throws IOException {
+        out.write((message.toString() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,115 @@
+package hu.u_szeged.inf.fog.simulator.test.prediction.mobility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.u_szeged.inf.fog.simulator.application.Application;
+import hu.u_szeged.inf.fog.simulator.application.strategy.RandomApplicationStrategy;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.Device;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.ComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.prediction.mobility.LimitedQueue;
+import hu.u_szeged.inf.fog.simulator.prediction.mobility.Predictor;
+import hu.u_szeged.inf.fog.simulator.prediction.mobility.ProbabilityMatrix;
+import hu.u_szeged.inf.fog.simulator.prediction.mobility.Utils;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PredictorTest {
+
+    /**
+     * A device that only has a position and a measurement frequency, it is never started.
+     */
+    private static class IdleDevice extends Device {
+
+        IdleDevice(GeoLocation geoLocation, long freq) {
+            this.geoLocation = geoLocation;
+            this.freq = freq;
+        }
+
+        @Override
+        public void tick(long fires) {
+        }
+    }
+
+    /**
+     * The prediction before the rows of the transition matrix were multiplied: the whole matrix
+     * was raised to the powers.
+     */
+    private static int predictWithMatrixPowers(Predictor predictor) {
+        LimitedQueue<Double> weights = predictor.backlog.applyWeights();
+        int dirQueueSize = predictor.backlog.directionQueue.size();
+        double[][][] cache = new double[dirQueueSize][][];
+        for (int i = 0; i < dirQueueSize; i++) {
+            cache[i] = Utils.pow(predictor.probabilityMatrix.getTransitionMatrix(), i + 1);
+        }
+        int predicted = -1;
+        double max = Double.MIN_VALUE;
+        for (int n = 0; n < ProbabilityMatrix.POSSIBLE_DIR; n++) {
+            double product = 1.0;
+            for (int i = 0; i < dirQueueSize; i++) {
+                product += cache[i][predictor.backlog.directionQueue.get(i)][n] * weights.get(i);
+            }
+            if (product > max) {
+                max = product;
+                predicted = n;
+            }
+        }
+        return predicted;
+    }
+
+    @Test
+    public void predictDirectionMatchesMatrixPowers() {
+        Random random = new Random(3);
+        Predictor predictor = new Predictor(3);
+        GeoLocation location = new GeoLocation(46.25, 20.15);
+        int heading = 90;
+        for (int step = 0; step < 12; step++) {
+            heading = Math.floorMod(heading + random.nextInt(41) - 20, 360);
+            GeoLocation next = location.nextLocation(500, heading);
+            predictor.updateBacklog(location, next);
+            location = next;
+            assertEquals(predictWithMatrixPowers(predictor), predictor.predictDirection(), "step " + step);
+        }
+    }
+
+    @Test
+    public void predictDirectionFollowsSteadyHeading() {
+        Predictor predictor = new Predictor(3);
+        GeoLocation location = new GeoLocation(46.25, 20.15);
+        for (int step = 0; step < 10; step++) {
+            GeoLocation next = location.nextLocation(500, 0);
+            predictor.updateBacklog(location, next);
+            location = next;
+        }
+        int direction = predictor.predictDirection();
+        assertTrue(direction <= 2 || direction >= 358, "predicted " + direction);
+    }
+
+    @Test
+    public void rangeIsComparedInMeters() {
+        new SimulationContext().run(() -> {
+            GeoLocation center = new GeoLocation(46.25, 20.15);
+            // the range is given in km
+            ComputingAppliance ca = new ComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml",
+                    "node", center, 5);
+            Application application = new Application("app", 60_000, 1, 1, true,
+                    new RandomApplicationStrategy(0.9, 2), null);
+            application.computingAppliance = ca;
+
+            // 0.05 m/ms for a minute is 3 km
+            Predictor predictor = new Predictor(3);
+            Device device = new IdleDevice(new GeoLocation(center.latitude, center.longitude), 60_000);
+            device.application = application;
+            assertFalse(predictor.predictDisconnection(device, 90, 0.05));
+            assertTrue(predictor.predictDisconnection(device, 90, 0.1));
+
+            Device outside = new IdleDevice(center.nextLocation(8_000, 270), 60_000);
+            assertTrue(predictor.predictConnection(outside, 90, 0.1));
+            assertFalse(predictor.predictConnection(outside, 270, 0.1));
+            assertFalse(predictor.predictConnection(outside, 90, 0.01));
+        });
+    }
+}
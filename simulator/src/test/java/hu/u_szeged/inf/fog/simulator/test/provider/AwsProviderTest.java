@@ -0,0 +1,65 @@
+package hu.u_szeged.inf.fog.simulator.test.provider;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.u_szeged.inf.fog.simulator.iot.Device;
+import hu.u_szeged.inf.fog.simulator.iot.DeviceCohort;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.StaticMobilityStrategy;
+import hu.u_szeged.inf.fog.simulator.iot.strategy.RandomDeviceStrategy;
+import hu.u_szeged.inf.fog.simulator.provider.AwsProvider;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AwsProviderTest {
+
+    private static final int SIZE = 50;
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    /**
+     * A device that only has a runtime, it is never started.
+     */
+    private static class IdleDevice extends Device {
+
+        IdleDevice(long startTime, long stopTime) {
+            this.startTime = startTime;
+            this.stopTime = stopTime;
+            Device.getAllDevices().add(this);
+        }
+
+        @Override
+        public void tick(long fires) {
+        }
+    }
+
+    @Test
+    void cohortCostsAsMuchAsItsMembers() {
+        long[][] memberTimes = new long[SIZE][];
+        double cohortCost = new SimulationContext().call(() -> {
+            DeviceCohort cohort = new DeviceCohort(SIZE, 100, 0, 10 * HOUR, 50, 60_000,
+                    new StaticMobilityStrategy(new GeoLocation(46.25, 20.15)), new RandomDeviceStrategy(),
+                    null, 50, 0, 0);
+            for (int i = 0; i < SIZE; i++) {
+                memberTimes[i] = new long[] {cohort.getStartTime(i), cohort.getStopTime(i)};
+            }
+            assertEquals(SIZE, cohort.getPopulation());
+            return new AwsProvider().calculate();
+        });
+
+        double devicesCost = new SimulationContext().call(() -> {
+            for (long[] times : memberTimes) {
+                new IdleDevice(times[0], times[1]);
+            }
+            return new AwsProvider().calculate();
+        });
+
+        double singleDeviceCost = new SimulationContext().call(() -> {
+            new IdleDevice(0, 10 * HOUR);
+            return new AwsProvider().calculate();
+        });
+
+        assertEquals(devicesCost, cohortCost, 1e-12);
+        assertEquals(SIZE * singleDeviceCost, cohortCost, singleDeviceCost * 0.01);
+    }
+}
@@ -0,0 +1,127 @@
+package hu.u_szeged.inf.fog.simulator.test.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.util.SeedSyncer;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.workflow.aco.Acoc;
+import hu.u_szeged.inf.fog.simulator.workflow.aco.AntPool;
+import hu.u_szeged.inf.fog.simulator.workflow.aco.CentralisedAntOptimiser;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the ant colony optimisers give the same clusters for the same seed, whether the
+ * ants are evaluated on the caller's thread or by several threads of the {@link AntPool}.
+ */
+public class AntPoolTest {
+
+    private static final int NODES = 40;
+
+    private static final int[] PARALLELISMS = { 2, 3, 8 };
+
+    private static List<WorkflowComputingAppliance> appliances() throws Exception {
+        String cloudfile = ScenarioBase.resourcePath + "LPDS_original.xml";
+        Random random = new Random(17);
+        List<WorkflowComputingAppliance> appliances = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            appliances.add(new WorkflowComputingAppliance(cloudfile, "fog" + i,
+                    new GeoLocation(random.nextDouble() * 120 - 60, random.nextDouble() * 360 - 180), 1000));
+        }
+        return appliances;
+    }
+
+    /**
+     * Runs the optimisation in a new simulation context with the given parallelism.
+     */
+    private static <T> T withParallelism(int parallelism, Supplier<T> optimisation) {
+        int previous = AntPool.getParallelism();
+        AntPool.setParallelism(parallelism);
+        try {
+            return new SimulationContext().call(() -> {
+                SeedSyncer.resetCentral();
+                return optimisation.get();
+            });
+        } finally {
+            AntPool.setParallelism(previous);
+        }
+    }
+
+    private static Map<String, List<String>> centralisedClusters() {
+        try {
+            List<WorkflowComputingAppliance> appliances = appliances();
+            ArrayList<WorkflowComputingAppliance> centerNodes = new ArrayList<>(appliances.subList(0, 4));
+            ArrayList<WorkflowComputingAppliance> nodesToBeClustered =
+                    new ArrayList<>(appliances.subList(4, appliances.size()));
+            Map<String, List<String>> clusters = new TreeMap<>();
+            for (Map.Entry<WorkflowComputingAppliance, ArrayList<WorkflowComputingAppliance>> entry
+                    : CentralisedAntOptimiser.runOptimiser(centerNodes, nodesToBeClustered, 30, 100, 0.9, 0.3, 0.1, 0.1)
+                        .entrySet()) {
+                List<String> names = new ArrayList<>();
+                for (WorkflowComputingAppliance node : entry.getValue()) {
+                    names.add(node.name);
+                }
+                clusters.put(entry.getKey().name, names);
+            }
+            return clusters;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<List<String>> acocClusters() {
+        try {
+            LinkedHashMap<WorkflowComputingAppliance, Instance> architecture = new LinkedHashMap<>();
+            for (WorkflowComputingAppliance appliance : appliances()) {
+                architecture.put(appliance, null);
+            }
+            List<List<String>> clusters = new ArrayList<>();
+            for (LinkedHashMap<WorkflowComputingAppliance, Instance> cluster
+                    : new Acoc(0.2, 100, 0.2, 20).runAcoc(architecture, new ArrayList<>())) {
+                List<String> names = new ArrayList<>();
+                for (WorkflowComputingAppliance node : cluster.keySet()) {
+                    names.add(node.name);
+                }
+                clusters.add(names);
+            }
+            return clusters;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void centralisedOptimiserDoesNotDependOnParallelism() {
+        Map<String, List<String>> sequential = withParallelism(1, AntPoolTest::centralisedClusters);
+        assertEquals(4, sequential.size());
+        for (int parallelism : PARALLELISMS) {
+            assertEquals(sequential, withParallelism(parallelism, AntPoolTest::centralisedClusters),
+                    "parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    public void acocDoesNotDependOnParallelism() {
+        List<List<String>> sequential = withParallelism(1, AntPoolTest::acocClusters);
+        assertTrue(sequential.size() > 1);
+        for (int parallelism : PARALLELISMS) {
+            assertEquals(sequential, withParallelism(parallelism, AntPoolTest::acocClusters),
+                    "parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    public void sequentialByDefault() {
+        assertEquals(1, AntPool.getParallelism());
+    }
+}
@@ -0,0 +1,259 @@
+package hu.u_szeged.inf.fog.simulator.test.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.Actuator;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.util.TimelineVisualiser.TimelineEntry;
+import hu.u_szeged.inf.fog.simulator.workflow.DecentralizedWorkflowExecutor;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowExecutor;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob.Uses;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.DecentralizedWorkflowScheduler;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.WorkflowScheduler;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs a small workflow with both executors, once on a VM that is still booting when the executor
+ * is created and once on a VM that is already running, and checks the start and finish times of
+ * the jobs.
+ */
+public class WorkflowExecutorTest {
+
+    private HashMap<WorkflowComputingAppliance, Instance> previousArchitecture;
+
+    private WorkflowScheduler previousScheduler;
+
+    @BeforeEach
+    public void saveExecutors() {
+        this.previousArchitecture = WorkflowScheduler.workflowArchitecture;
+        this.previousScheduler = WorkflowExecutor.workflowScheduler;
+        DecentralizedWorkflowExecutor.workflowSchedulers.clear();
+    }
+
+    @AfterEach
+    public void restoreExecutors() {
+        WorkflowScheduler.workflowArchitecture = this.previousArchitecture;
+        WorkflowExecutor.workflowScheduler = this.previousScheduler;
+        DecentralizedWorkflowExecutor.workflowSchedulers.clear();
+    }
+
+    /**
+     * Assigns each job to the only appliance, and queues the jobs with their inputs ready.
+     */
+    private static class SingleApplianceScheduler extends WorkflowScheduler {
+
+        SingleApplianceScheduler(LinkedHashMap<WorkflowComputingAppliance, Instance> workflowArchitecture) {
+            WorkflowScheduler.workflowArchitecture = workflowArchitecture;
+        }
+
+        @Override
+        public void init() {
+            for (WorkflowComputingAppliance ca : WorkflowScheduler.workflowArchitecture.keySet()) {
+                ca.workflowQueue = new PriorityQueue<>(Comparator.comparing((WorkflowJob job) -> job.id));
+                ca.iaas.repositories.get(0).registerObject(WorkflowScheduler.workflowArchitecture.get(ca).va);
+                addVm(ca);
+            }
+        }
+
+        @Override
+        public void schedule(WorkflowJob workflowJob) {
+            if (workflowJob.ca == null) {
+                workflowJob.ca = WorkflowScheduler.workflowArchitecture.keySet().iterator().next();
+            }
+            if (workflowJob.inputs.get(0).amount == 0) {
+                workflowJob.ca.workflowQueue.add(workflowJob);
+            }
+        }
+    }
+
+    private static WorkflowComputingAppliance appliance() {
+        try {
+            return new WorkflowComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml", "A",
+                    new GeoLocation(0, 0), 0);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The VMs have one core processing 1 instruction/s, so a job runs for its runtime (s).
+     */
+    private static LinkedHashMap<WorkflowComputingAppliance, Instance> architecture(WorkflowComputingAppliance ca) {
+        VirtualAppliance va = new VirtualAppliance("va", 100, 0, false, 1073741824L);
+        LinkedHashMap<WorkflowComputingAppliance, Instance> architecture = new LinkedHashMap<>();
+        architecture.put(ca, new Instance("instance", va, new AlterableResourceConstraints(1, 0.001, 1073741824L),
+                0, 1));
+        return architecture;
+    }
+
+    private static Uses data(String id) {
+        return new Uses(Uses.Type.DATA, 10, 0, 0, 1, id);
+    }
+
+    private static ArrayList<Uses> inputs(int amount) {
+        ArrayList<Uses> inputs = new ArrayList<>();
+        inputs.add(new Uses(Uses.Type.DATA, 0, 0, 0, amount, null));
+        return inputs;
+    }
+
+    /**
+     * The workflow: service1 (1 s) sends data to service2 (2 s) and service3 (1 s),
+     * both send data to service4 (0.5 s).
+     */
+    private static void workflow(Consumer<WorkflowJob> add, DecentralizedWorkflowScheduler scheduler) {
+        Object[][] jobs = {
+            { "service1", 1.0, 0, List.of(data("service2"), data("service3")) },
+            { "service2", 2.0, 1, List.of(data("service4")) },
+            { "service3", 1.0, 1, List.of(data("service4")) },
+            { "service4", 0.5, 2, List.of() },
+        };
+        for (Object[] job : jobs) {
+            @SuppressWarnings("unchecked")
+            ArrayList<Uses> outputs = new ArrayList<>((List<Uses>) job[3]);
+            ArrayList<Uses> inputs = inputs((Integer) job[2]);
+            add.accept(scheduler == null
+                    ? new WorkflowJob((String) job[0], (Double) job[1], 0, 0, WorkflowJob.State.SUBMITTED, inputs,
+                            outputs)
+                    : new WorkflowJob((String) job[0], (Double) job[1], 0, 0, WorkflowJob.State.SUBMITTED, inputs,
+                            outputs, scheduler));
+        }
+    }
+
+    /**
+     * The start and finish times of the jobs, relative to the time the first VM got to running state.
+     */
+    private static TreeMap<String, long[]> timeline(WorkflowComputingAppliance ca, long running) {
+        TreeMap<String, long[]> timeline = new TreeMap<>();
+        for (TimelineEntry entry : ca.timelineList) {
+            String job = entry.text.substring(entry.text.indexOf('-') + 1);
+            timeline.put(job, new long[] { entry.start - running, entry.stop - running });
+        }
+        return timeline;
+    }
+
+    /**
+     * The first VM of the appliance starts running at the returned time.
+     */
+    private static long[] runningTime(WorkflowComputingAppliance ca) {
+        long[] running = { -1 };
+        VirtualMachine vm = ca.workflowVms.get(0);
+        if (vm.getState().equals(VirtualMachine.State.RUNNING)) {
+            running[0] = Timed.getFireCount();
+        }
+        vm.subscribeStateChange((observed, oldState, newState) -> {
+            if (newState.equals(VirtualMachine.State.RUNNING) && running[0] < 0) {
+                running[0] = Timed.getFireCount();
+            }
+        });
+        return running;
+    }
+
+    /**
+     * Boots a VM on the appliance before the executor is created.
+     */
+    private static void bootVm(WorkflowComputingAppliance ca, Instance instance) {
+        ca.iaas.repositories.get(0).registerObject(instance.va);
+        try {
+            ca.workflowVms.add(ca.iaas.requestVM(instance.va, instance.arc, ca.iaas.repositories.get(0), 1)[0]);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        Timed.simulateUntilLastEvent();
+    }
+
+    private static TreeMap<String, long[]> runCentral(boolean booted) {
+        return new SimulationContext().call(() -> {
+            WorkflowComputingAppliance ca = appliance();
+            LinkedHashMap<WorkflowComputingAppliance, Instance> architecture = architecture(ca);
+            workflow(job -> { }, null);
+            long[] running = { -1 };
+            if (booted) {
+                bootVm(ca, architecture.get(ca));
+                running[0] = Timed.getFireCount();
+            }
+            new WorkflowExecutor(new SingleApplianceScheduler(architecture));
+            if (!booted) {
+                running = runningTime(ca);
+            }
+            Timed.simulateUntilLastEvent();
+            return timeline(ca, running[0]);
+        });
+    }
+
+    private static TreeMap<String, long[]> runDecentralized(boolean booted) {
+        return new SimulationContext().call(() -> {
+            WorkflowComputingAppliance ca = appliance();
+            LinkedHashMap<WorkflowComputingAppliance, Instance> architecture = architecture(ca);
+            DecentralizedWorkflowScheduler scheduler = new DecentralizedWorkflowScheduler(architecture,
+                    new ArrayList<Actuator>(), 10);
+            workflow(job -> job.ca = ca, scheduler);
+            long[] running = { -1 };
+            if (booted) {
+                bootVm(ca, architecture.get(ca));
+                running[0] = Timed.getFireCount();
+            }
+            ArrayList<DecentralizedWorkflowScheduler> schedulers = new ArrayList<>();
+            schedulers.add(scheduler);
+            new DecentralizedWorkflowExecutor(schedulers, new ArrayList<Actuator>());
+            if (!booted) {
+                running = runningTime(ca);
+            }
+            Timed.simulateUntilLastEvent();
+            return timeline(ca, running[0]);
+        });
+    }
+
+    /**
+     * The jobs start one tick after the VM is running. The first job sends its data to the two
+     * jobs in the middle, they share the core of the VM till the shorter one finishes, and the
+     * last job starts when both of them have finished. The times are the same as the ones of the
+     * executors polling the state of the VMs in each tick.
+     */
+    private static void assertTimeline(TreeMap<String, long[]> timeline) {
+        assertEquals(List.of("service1", "service2", "service3", "service4"), new ArrayList<>(timeline.keySet()));
+        assertArrayEquals(new long[] { 1, 1001 }, timeline.get("service1"));
+        assertArrayEquals(new long[] { 1001, 4001 }, timeline.get("service2"));
+        assertArrayEquals(new long[] { 1001, 3001 }, timeline.get("service3"));
+        assertArrayEquals(new long[] { 4001, 4501 }, timeline.get("service4"));
+    }
+
+    @Test
+    public void startsWhenTheVmIsRunning() {
+        assertTimeline(runCentral(false));
+    }
+
+    @Test
+    public void startsOnRunningVm() {
+        assertTimeline(runCentral(true));
+    }
+
+    @Test
+    public void decentralizedStartsWhenTheVmIsRunning() {
+        assertTimeline(runDecentralized(false));
+    }
+
+    @Test
+    public void decentralizedStartsOnRunningVm() {
+        assertTimeline(runDecentralized(true));
+    }
+}
@@ -0,0 +1,162 @@
+package hu.u_szeged.inf.fog.simulator.test.workflow.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import hu.mta.sztaki.lpds.cloud.simulator.SimulationContext;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.constraints.AlterableResourceConstraints;
+import hu.mta.sztaki.lpds.cloud.simulator.io.VirtualAppliance;
+import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
+import hu.u_szeged.inf.fog.simulator.iot.mobility.GeoLocation;
+import hu.u_szeged.inf.fog.simulator.node.WorkflowComputingAppliance;
+import hu.u_szeged.inf.fog.simulator.provider.Instance;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob;
+import hu.u_szeged.inf.fog.simulator.workflow.WorkflowJob.Uses;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.HeftScheduler;
+import hu.u_szeged.inf.fog.simulator.workflow.scheduler.WorkflowScheduler;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the upward ranks and the plan of {@link HeftScheduler} on a small DAG, whose schedule
+ * is computed by hand below.
+ *
+ * <p>The DAG: t1 sends 4 bytes to t2, 8 bytes to t3 and triggers t4, while t2, t3 and t4 trigger t5.
+ * The jobs t1, t4 and t5 have a fixed runtime (1000, 1500 and 500 ms), the execution time of t2
+ * and t3 depends on their input: 500 ms/byte on appliance A (2 CPUs) and 250 ms/byte on appliance
+ * B (4 CPUs). Both repositories have 250000 byte/ms bandwidth, and as the appliances are not
+ * connected, the default latency (10 ms) is used between them.</p>
+ */
+public class HeftSchedulerTest {
+
+    private static final double DELTA = 1e-9;
+
+    /**
+     * The communication cost of a byte between the appliances (ms).
+     */
+    private static final double BYTE = 1.0 / 250_000;
+
+    private HashMap<WorkflowComputingAppliance, Instance> previousArchitecture;
+
+    private WorkflowComputingAppliance applianceA;
+
+    private WorkflowComputingAppliance applianceB;
+
+    private HashMap<String, WorkflowJob> jobs;
+
+    @BeforeEach
+    public void saveArchitecture() {
+        this.previousArchitecture = WorkflowScheduler.workflowArchitecture;
+    }
+
+    @AfterEach
+    public void restoreArchitecture() {
+        WorkflowScheduler.workflowArchitecture = this.previousArchitecture;
+    }
+
+    private static WorkflowComputingAppliance appliance(String name) {
+        try {
+            return new WorkflowComputingAppliance(ScenarioBase.resourcePath + "LPDS_original.xml", name,
+                    new GeoLocation(0, 0), 0);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Uses uses(Uses.Type type, long size, String id) {
+        return new Uses(type, size, 0, 0, 1, id);
+    }
+
+    private void job(String id, double runtime, Uses... outputs) {
+        ArrayList<Uses> inputs = new ArrayList<>();
+        inputs.add(uses(Uses.Type.DATA, 0, id));
+        this.jobs.put(id, new WorkflowJob(id, runtime, 0, 0, WorkflowJob.State.SUBMITTED, inputs,
+                new ArrayList<>(List.of(outputs))));
+    }
+
+    /**
+     * Creates the appliances and the jobs, and returns with the scheduler after planning.
+     */
+    private HeftScheduler plan(int vmCount) {
+        this.applianceA = appliance("A");
+        this.applianceB = appliance("B");
+        VirtualAppliance va = new VirtualAppliance("va", 100, 0, false, 1073741824L);
+        LinkedHashMap<WorkflowComputingAppliance, Instance> architecture = new LinkedHashMap<>();
+        architecture.put(this.applianceA, new Instance("heft-2cpu", va,
+                new AlterableResourceConstraints(2, 0.001, 4294967296L), 0, 1));
+        architecture.put(this.applianceB, new Instance("heft-4cpu", va,
+                new AlterableResourceConstraints(4, 0.001, 4294967296L), 0, 1));
+
+        this.jobs = new HashMap<>();
+        job("t1", 1, uses(Uses.Type.DATA, 4, "t2"), uses(Uses.Type.DATA, 8, "t3"), uses(Uses.Type.COMPUTE, 0, "t4"));
+        job("t2", 0, uses(Uses.Type.COMPUTE, 0, "t5"));
+        job("t3", 0, uses(Uses.Type.COMPUTE, 0, "t5"));
+        job("t4", 1.5, uses(Uses.Type.COMPUTE, 0, "t5"));
+        job("t5", 0.5);
+
+        HeftScheduler scheduler = new HeftScheduler(architecture, 10, vmCount);
+        scheduler.plan(WorkflowJob.getWorkflowJobs());
+        return scheduler;
+    }
+
+    private void assertRank(HeftScheduler scheduler, String id, double expected) {
+        assertEquals(expected, scheduler.upwardRanks.get(this.jobs.get(id)), DELTA, "rank of " + id);
+    }
+
+    @Test
+    public void upwardRanks() {
+        new SimulationContext().run(() -> {
+            HeftScheduler scheduler = plan(1);
+            // the average communication cost of an edge is 10 ms + size / bandwidth
+            assertRank(scheduler, "t5", 500);
+            assertRank(scheduler, "t4", 1500 + 10 + 500);
+            assertRank(scheduler, "t3", (8 * 500 + 8 * 250) / 2 + 10 + 500);
+            assertRank(scheduler, "t2", (4 * 500 + 4 * 250) / 2 + 10 + 500);
+            assertRank(scheduler, "t1", 1000 + 10 + 8 * BYTE + 3510);
+            assertEquals(4520 + 8 * BYTE, scheduler.criticalPathLength, DELTA);
+        });
+    }
+
+    @Test
+    public void scheduleWithOneVm() {
+        new SimulationContext().run(() -> {
+            HeftScheduler scheduler = plan(1);
+            // the jobs are placed in the order t1, t3, t2, t4, t5 (t2 and t4 have the same rank,
+            // t2 comes first in the topological order):
+            // t1: 0-1000 on A (the finish times are equal, the first appliance is kept)
+            // t3: B finishes at 1010.000032 + 2000, A only at 5000
+            // t2: 1000-3000 on A, B is busy until 3010.000032
+            // t4: 3000-4500 on A, B would finish at 4510.000032
+            // t5: 4500-5000 on A, B would wait for t4 until 4510
+            assertSame(this.applianceA, this.jobs.get("t1").ca);
+            assertSame(this.applianceB, this.jobs.get("t3").ca);
+            assertSame(this.applianceA, this.jobs.get("t2").ca);
+            assertSame(this.applianceA, this.jobs.get("t4").ca);
+            assertSame(this.applianceA, this.jobs.get("t5").ca);
+            assertEquals(5000, scheduler.plannedMakespan, DELTA);
+        });
+    }
+
+    @Test
+    public void scheduleWithTwoVms() {
+        new SimulationContext().run(() -> {
+            HeftScheduler scheduler = plan(2);
+            // t1: 0-1000 on A
+            // t3: 1010.000032-3010.000032 on B
+            // t2: 1010.000016-2010.000016 on the other VM of B, A would finish at 3000
+            // t4: 1000-2500 on the other VM of A
+            // t5: B can start after the input of t3 at 3010.000032, A only at 3020.000032
+            assertSame(this.applianceA, this.jobs.get("t1").ca);
+            assertSame(this.applianceB, this.jobs.get("t3").ca);
+            assertSame(this.applianceB, this.jobs.get("t2").ca);
+            assertSame(this.applianceA, this.jobs.get("t4").ca);
+            assertSame(this.applianceB, this.jobs.get("t5").ca);
+            assertEquals(3510 + 8 * BYTE, scheduler.plannedMakespan, DELTA);
+        });
+    }
+}